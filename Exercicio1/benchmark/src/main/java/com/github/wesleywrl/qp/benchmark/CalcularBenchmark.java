@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp.benchmark;
+
+import com.github.wesleywrl.qp.CacheExpressoes;
+import com.github.wesleywrl.qp.Calcular;
+import com.github.wesleywrl.qp.SuiteTestes;
+import com.github.wesleywrl.qp.Teste;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Custo de um teste completo por {@link Calcular#resultadoExpressao}: sem
+ * variáveis a expressão é avaliada por valor(), com variáveis por
+ * valor(ctx). Com o cache de expressões, a mesma expressão só é interpretada
+ * uma vez; sem ele, cada chamada passa pelo Lexer e pelo Parser.
+ *
+ * @author Wesleywrl
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class CalcularBenchmark {
+
+    /**
+     * Quantidade de operadores da expressão.
+     */
+    @Param({"1", "8", "32"})
+    private int tamanho;
+
+    /**
+     * Quantidade de variáveis distintas da expressão.
+     */
+    @Param({"0", "1", "4"})
+    private int variaveis;
+
+    /**
+     * Se verdadeiro, usa o cache de expressões.
+     */
+    @Param({"true", "false"})
+    private boolean cache;
+
+    /**
+     * Teste avaliado.
+     */
+    private Teste teste;
+
+    /**
+     * O mesmo teste, armazenado em colunas.
+     */
+    private SuiteTestes suite;
+
+    /**
+     * Cache em uso antes do benchmark.
+     */
+    private CacheExpressoes anterior;
+
+    /**
+     * Prepara o teste e configura o cache.
+     */
+    @Setup
+    public void preparar() {
+        String linha = Entradas.linha(tamanho, variaveis);
+        teste = new Teste(linha);
+        suite = new SuiteTestes();
+        suite.adicionar(linha);
+        anterior = Calcular.getCache();
+        if (cache) {
+            Calcular.setCache(new CacheExpressoes(
+                    CacheExpressoes.CAPACIDADE_PADRAO));
+        } else {
+            Calcular.setCache(null);
+        }
+    }
+
+    /**
+     * Restaura o cache anterior.
+     */
+    @TearDown
+    public void restaurar() {
+        Calcular.setCache(anterior);
+    }
+
+    /**
+     * Teste representado por {@link Teste}.
+     *
+     * @return Valor obtido.
+     * @throws Exception Quando a expressão é inválida.
+     */
+    @Benchmark
+    public float teste() throws Exception {
+        return Calcular.resultadoExpressao(teste);
+    }
+
+    /**
+     * Teste representado em {@link SuiteTestes}.
+     *
+     * @return Valor obtido.
+     * @throws Exception Quando a expressão é inválida.
+     */
+    @Benchmark
+    public float suite() throws Exception {
+        return Calcular.resultadoExpressao(suite, 0);
+    }
+
+}
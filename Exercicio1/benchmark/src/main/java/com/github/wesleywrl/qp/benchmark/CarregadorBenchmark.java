@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp.benchmark;
+
+import com.github.wesleywrl.qp.CarregadorRemoto;
+import com.github.wesleywrl.qp.Ler;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Tempo para obter várias suítes remotas de um servidor local que atrasa
+ * cada resposta, simulando a latência da rede: uma de cada vez
+ * ({@link Ler#obterLinhas(String, boolean)}) ou ao mesmo tempo
+ * ({@link CarregadorRemoto}).
+ *
+ * @author Wesleywrl
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CarregadorBenchmark {
+
+    /**
+     * Atraso de cada resposta, em milissegundos.
+     */
+    @Param({"20", "100"})
+    private int latencia;
+
+    /**
+     * Quantidade de suítes obtidas.
+     */
+    @Param({"32"})
+    private int suites;
+
+    /**
+     * Quantidade de linhas de cada suíte.
+     */
+    @Param({"1000"})
+    private int linhas;
+
+    /**
+     * Conexões simultâneas com o servidor no carregamento concorrente.
+     */
+    @Param({"8"})
+    private int conexoes;
+
+    /**
+     * Servidor local das suítes.
+     */
+    private HttpServer servidor;
+
+    /**
+     * Threads que atendem os pedidos ao servidor.
+     */
+    private ExecutorService atendentes;
+
+    /**
+     * Endereços das suítes.
+     */
+    private List<String> enderecos;
+
+    /**
+     * Inicia o servidor, que responde a qualquer caminho com a mesma suíte
+     * após o atraso configurado.
+     *
+     * @throws IOException Quando não é possível iniciar o servidor.
+     */
+    @Setup
+    public void preparar() throws IOException {
+        StringBuilder conteudo = new StringBuilder();
+        String linha = Entradas.linha(8, 2);
+        for (int i = 0; i < linhas; i++) {
+            conteudo.append(linha).append('\n');
+        }
+        final byte[] corpo = conteudo.toString()
+                .getBytes(StandardCharsets.UTF_8);
+        atendentes = Executors.newCachedThreadPool();
+        servidor = HttpServer.create(new InetSocketAddress("127.0.0.1", 0),
+                0);
+        servidor.setExecutor(atendentes);
+        servidor.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange troca) throws IOException {
+                try {
+                    Thread.sleep(latencia);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+                troca.sendResponseHeaders(200, corpo.length);
+                try (OutputStream saida = troca.getResponseBody()) {
+                    saida.write(corpo);
+                }
+            }
+        });
+        servidor.start();
+        enderecos = new ArrayList<>();
+        for (int i = 0; i < suites; i++) {
+            enderecos.add("http://127.0.0.1:" + servidor.getAddress()
+                    .getPort() + "/suite" + i + ".txt");
+        }
+    }
+
+    /**
+     * Finaliza o servidor.
+     */
+    @TearDown
+    public void finalizar() {
+        servidor.stop(0);
+        atendentes.shutdownNow();
+    }
+
+    /**
+     * Obtém as suítes uma de cada vez.
+     *
+     * @return Quantidade de linhas obtidas.
+     * @throws IOException Quando não é possível obter uma suíte.
+     */
+    @Benchmark
+    public int sequencial() throws IOException {
+        int total = 0;
+        for (String endereco : enderecos) {
+            total += Ler.obterLinhas(endereco, false).size();
+        }
+        return total;
+    }
+
+    /**
+     * Obtém as suítes ao mesmo tempo e lê as cópias locais.
+     *
+     * @return Quantidade de linhas obtidas.
+     * @throws IOException Quando não é possível obter uma suíte.
+     * @throws InterruptedException Quando a espera é interrompida.
+     * @throws ExecutionException Quando a obtenção de uma suíte falha.
+     */
+    @Benchmark
+    public int concorrente() throws IOException, InterruptedException,
+            ExecutionException {
+        int total = 0;
+        try (CarregadorRemoto carregador = new CarregadorRemoto(null,
+                conexoes, 1)) {
+            List<Future<Path>> copias = new ArrayList<>();
+            for (String endereco : enderecos) {
+                copias.add(carregador.agendar(endereco));
+            }
+            for (Future<Path> copia : copias) {
+                Path arquivo = copia.get();
+                total += Ler.obterLinhas(arquivo.toString(), true).size();
+                carregador.liberar(arquivo);
+            }
+        }
+        return total;
+    }
+
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Gera as entradas dos benchmarks: expressões com a quantidade de operadores
+ * e de variáveis desejada, sempre totalmente entre parênteses (o Parser
+ * aceita um único operador binário por nível).
+ *
+ * @author Wesleywrl
+ */
+final class Entradas {
+
+    /**
+     * Operadores usados, em ordem.
+     */
+    private static final String[] OPERADORES = {" + ", " - ", " * ", " / "};
+
+    /**
+     * Quantidade de constantes distintas (1 a 9).
+     */
+    private static final int CONSTANTES = 9;
+
+    /**
+     * Impede instancialização de classe utilitária.
+     */
+    private Entradas() {
+    }
+
+    /**
+     * Gera uma expressão.
+     *
+     * @param tamanho Quantidade de operadores.
+     * @param variaveis Quantidade de variáveis distintas usadas como operandos.
+     * Se zero, todos os operandos são constantes.
+     * @return Expressão, por exemplo "((x0 + x1) - x0)".
+     */
+    static String expressao(final int tamanho, final int variaveis) {
+        StringBuilder expressao = new StringBuilder(operando(0, variaveis));
+        for (int i = 1; i <= tamanho; i++) {
+            expressao.insert(0, '(');
+            expressao.append(OPERADORES[(i - 1) % OPERADORES.length])
+                    .append(operando(i, variaveis)).append(')');
+        }
+        return expressao.toString();
+    }
+
+    /**
+     * Gera o bloco de variáveis de uma linha de teste.
+     *
+     * @param variaveis Quantidade de variáveis.
+     * @return Bloco no formato "x0=1.5,x1=2.5".
+     */
+    static String variaveis(final int variaveis) {
+        StringBuilder bloco = new StringBuilder();
+        for (int i = 0; i < variaveis; i++) {
+            if (i > 0) {
+                bloco.append(", ");
+            }
+            bloco.append('x').append(i).append('=').append(valor(i));
+        }
+        return bloco.toString();
+    }
+
+    /**
+     * Gera os valores das variáveis usados na avaliação direta da expressão.
+     *
+     * @param variaveis Quantidade de variáveis.
+     * @return Valores por nome.
+     */
+    static Map<String, Float> contexto(final int variaveis) {
+        Map<String, Float> ctx = new HashMap<>();
+        for (int i = 0; i < variaveis; i++) {
+            ctx.put("x" + i, valor(i));
+        }
+        return ctx;
+    }
+
+    /**
+     * Gera uma linha de teste completa ("expressao;variaveis;esperado").
+     *
+     * @param tamanho Quantidade de operadores.
+     * @param variaveis Quantidade de variáveis.
+     * @return Linha de teste.
+     */
+    static String linha(final int tamanho, final int variaveis) {
+        return expressao(tamanho, variaveis) + "; " + variaveis(variaveis)
+                + "; 1.5";
+    }
+
+    /**
+     * Obtém um operando.
+     *
+     * @param posicao Posição do operando na expressão.
+     * @param variaveis Quantidade de variáveis.
+     * @return Nome de variável ou constante.
+     */
+    private static String operando(final int posicao, final int variaveis) {
+        if (variaveis == 0) {
+            return String.valueOf(posicao % CONSTANTES + 1);
+        }
+        return "x" + (posicao % variaveis);
+    }
+
+    /**
+     * Obtém o valor de uma variável.
+     *
+     * @param variavel Posição da variável.
+     * @return Valor da variável.
+     */
+    private static float valor(final int variavel) {
+        return variavel + 1.5f;
+    }
+
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp.benchmark;
+
+import com.github.kyriosdata.parser.Expressao;
+import com.github.kyriosdata.parser.Lexer;
+import com.github.kyriosdata.parser.Parser;
+import com.github.kyriosdata.parser.Token;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Custo de cada etapa do Parser, isoladamente: análise léxica
+ * ({@link Lexer#tokenize()}), análise sintática ({@link Parser#expressao()})
+ * e avaliação da árvore já construída.
+ *
+ * @author Wesleywrl
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ExpressoesBenchmark {
+
+    /**
+     * Quantidade de operadores da expressão.
+     */
+    @Param({"1", "8", "32"})
+    private int tamanho;
+
+    /**
+     * Quantidade de variáveis distintas da expressão.
+     */
+    @Param({"0", "1", "4"})
+    private int variaveis;
+
+    /**
+     * Texto da expressão.
+     */
+    private String expressao;
+
+    /**
+     * Resultado da análise léxica.
+     */
+    private List<Token> tokens;
+
+    /**
+     * Resultado da análise sintática.
+     */
+    private Expressao arvore;
+
+    /**
+     * Valores das variáveis.
+     */
+    private Map<String, Float> ctx;
+
+    /**
+     * Prepara a expressão e os resultados intermediários.
+     */
+    @Setup
+    public void preparar() {
+        expressao = Entradas.expressao(tamanho, variaveis);
+        tokens = new Lexer(expressao).tokenize();
+        arvore = new Parser(tokens).expressao();
+        ctx = Entradas.contexto(variaveis);
+    }
+
+    /**
+     * Análise léxica.
+     *
+     * @return Tokens da expressão.
+     */
+    @Benchmark
+    public List<Token> lexer() {
+        return new Lexer(expressao).tokenize();
+    }
+
+    /**
+     * Análise sintática a partir dos tokens já obtidos.
+     *
+     * @return Árvore da expressão.
+     */
+    @Benchmark
+    public Expressao parser() {
+        return new Parser(tokens).expressao();
+    }
+
+    /**
+     * Análises léxica e sintática.
+     *
+     * @return Árvore da expressão.
+     */
+    @Benchmark
+    public Expressao lexerParser() {
+        return new Parser(new Lexer(expressao).tokenize()).expressao();
+    }
+
+    /**
+     * Avaliação da árvore já construída: valor() sem variáveis e valor(ctx)
+     * com variáveis.
+     *
+     * @return Valor da expressão.
+     */
+    @Benchmark
+    public float avaliar() {
+        if (variaveis == 0) {
+            return arvore.valor();
+        }
+        return arvore.valor(ctx);
+    }
+
+}
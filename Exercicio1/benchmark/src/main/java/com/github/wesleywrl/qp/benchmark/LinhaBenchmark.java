@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp.benchmark;
+
+import com.github.wesleywrl.qp.AnalisadorLinha;
+import com.github.wesleywrl.qp.SuiteTestes;
+import com.github.wesleywrl.qp.Teste;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Custo da separação de uma linha de teste em expressão, variáveis e valor
+ * esperado.
+ *
+ * @author Wesleywrl
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class LinhaBenchmark {
+
+    /**
+     * Quantidade de testes acumulados em {@link #suite} antes de esvaziá-lo.
+     */
+    private static final int BLOCO = 4096;
+
+    /**
+     * Quantidade de operadores da expressão.
+     */
+    @Param({"1", "8", "32"})
+    private int tamanho;
+
+    /**
+     * Quantidade de variáveis da linha.
+     */
+    @Param({"0", "1", "4"})
+    private int variaveis;
+
+    /**
+     * Linha de teste.
+     */
+    private String linha;
+
+    /**
+     * Analisador reaproveitado.
+     */
+    private final AnalisadorLinha analisador = new AnalisadorLinha();
+
+    /**
+     * Conjunto que recebe as linhas.
+     */
+    private final SuiteTestes suite = new SuiteTestes(BLOCO);
+
+    /**
+     * Gera a linha de teste.
+     */
+    @Setup
+    public void preparar() {
+        linha = Entradas.linha(tamanho, variaveis);
+    }
+
+    /**
+     * Criação de um {@link Teste}.
+     *
+     * @return Teste criado.
+     */
+    @Benchmark
+    public Teste teste() {
+        return new Teste(linha);
+    }
+
+    /**
+     * Análise da linha com um analisador reaproveitado.
+     *
+     * @return Analisador, com o resultado da análise.
+     */
+    @Benchmark
+    public AnalisadorLinha analisador() {
+        analisador.analisar(linha);
+        return analisador;
+    }
+
+    /**
+     * Acréscimo da linha a um {@link SuiteTestes}.
+     *
+     * @return Posição do teste no conjunto.
+     */
+    @Benchmark
+    public int suite() {
+        if (suite.getTamanho() == BLOCO) {
+            suite.limpar();
+        }
+        return suite.adicionar(linha);
+    }
+
+}
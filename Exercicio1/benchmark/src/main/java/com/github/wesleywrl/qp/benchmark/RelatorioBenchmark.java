@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp.benchmark;
+
+import com.github.wesleywrl.qp.EscritorHtml;
+import com.github.wesleywrl.qp.EscritorJson;
+import com.github.wesleywrl.qp.EscritorRelatorio;
+import com.github.wesleywrl.qp.Estatisticas;
+import com.github.wesleywrl.qp.SuiteTestes;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Custo da escrita do relatório (HTML ou JSON) de testes já executados.
+ *
+ * @author Wesleywrl
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RelatorioBenchmark {
+
+    /**
+     * Formato do relatório.
+     */
+    @Param({"html", "json"})
+    private String formato;
+
+    /**
+     * Quantidade de testes do relatório.
+     */
+    @Param({"1000", "100000"})
+    private int testes;
+
+    /**
+     * Quantidade de operadores das expressões.
+     */
+    @Param({"8"})
+    private int tamanho;
+
+    /**
+     * Quantidade de variáveis das linhas.
+     */
+    @Param({"2"})
+    private int variaveis;
+
+    /**
+     * Testes já executados.
+     */
+    private SuiteTestes suite;
+
+    /**
+     * Informações gerais da execução.
+     */
+    private Estatisticas estatisticas;
+
+    /**
+     * Arquivo do relatório.
+     */
+    private Path arquivo;
+
+    /**
+     * Executa os testes e cria o arquivo temporário.
+     *
+     * @throws IOException Quando não é possível criar o arquivo.
+     */
+    @Setup
+    public void preparar() throws IOException {
+        suite = new SuiteTestes(testes);
+        estatisticas = new Estatisticas();
+        String linha = Entradas.linha(tamanho, variaveis);
+        for (int i = 0; i < testes; i++) {
+            suite.adicionar(linha);
+            suite.calcularValor(i);
+            suite.atualizarSucesso(i);
+            estatisticas.registrar(suite.getSucesso(i));
+        }
+        arquivo = Files.createTempFile("qp-relatorio", "." + formato);
+    }
+
+    /**
+     * Remove o arquivo temporário.
+     *
+     * @throws IOException Quando não é possível remover o arquivo.
+     */
+    @TearDown
+    public void remover() throws IOException {
+        Files.deleteIfExists(arquivo);
+    }
+
+    /**
+     * Escreve o relatório completo.
+     *
+     * @return Arquivo escrito.
+     * @throws IOException Quando não é possível escrever o arquivo.
+     */
+    @Benchmark
+    public Path escrever() throws IOException {
+        EscritorRelatorio escritor;
+        if (formato.equals("html")) {
+            escritor = new EscritorHtml(arquivo);
+        } else {
+            escritor = new EscritorJson(arquivo);
+        }
+        try {
+            escritor.iniciar(estatisticas);
+            for (int i = 0; i < suite.getTamanho(); i++) {
+                escritor.escreverTeste(suite, i);
+            }
+            escritor.finalizar(estatisticas);
+        } finally {
+            escritor.close();
+        }
+        return arquivo;
+    }
+
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+/**
+ * Tempos de relógio de cada iteração medida sobre a suíte de testes, com a
+ * média, o desvio padrão e o intervalo de confiança de 95% da média (pela
+ * distribuição t de Student, adequada a poucas iterações).
+ * <p>
+ * Na execução em fluxo cada bloco passa por todas as iterações, e o tempo do
+ * bloco é acrescentado ao da iteração correspondente.
+ *
+ * @author Wesleywrl
+ */
+public final class AmostraTempos {
+
+    /**
+     * Quantidade de nanossegundos em um milissegundo.
+     */
+    private static final double NANOS_POR_MILI = 1000000.0;
+
+    /**
+     * Valores críticos bicaudais de 95% da distribuição t de Student, por
+     * grau de liberdade (o índice 0 corresponde a um grau de liberdade).
+     */
+    private static final double[] VALORES_T = {
+        12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262,
+        2.228, 2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101,
+        2.093, 2.086, 2.080, 2.074, 2.069, 2.064, 2.060, 2.056, 2.052,
+        2.048, 2.045, 2.042
+    };
+
+    /**
+     * Valor crítico bicaudal de 95% da distribuição normal.
+     */
+    private static final double Z_95 = 1.959964;
+
+    /**
+     * Divisor do termo de correção da aproximação da distribuição t pela
+     * normal, usada acima da tabela.
+     */
+    private static final double CORRECAO_T = 4.0;
+
+    /**
+     * Tempo de cada iteração, em nanossegundos.
+     */
+    private final long[] tempos;
+
+    /**
+     * Cria uma amostra vazia.
+     *
+     * @param iteracoes Quantidade de iterações medidas, maior que zero.
+     */
+    public AmostraTempos(final int iteracoes) {
+        if (iteracoes <= 0) {
+            throw new IllegalArgumentException("Quantidade de iterações "
+                    + "inválida.");
+        }
+        tempos = new long[iteracoes];
+    }
+
+    /**
+     * Acrescenta tempo a uma iteração.
+     *
+     * @param iteracao Índice da iteração (a partir de 0).
+     * @param nanos Tempo gasto, em nanossegundos.
+     */
+    public void adicionar(final int iteracao, final long nanos) {
+        tempos[iteracao] += nanos;
+    }
+
+    /**
+     * Obtém a quantidade de iterações medidas.
+     *
+     * @return Quantidade de iterações.
+     */
+    public int getQuantidade() {
+        return tempos.length;
+    }
+
+    /**
+     * Obtém o tempo de uma iteração.
+     *
+     * @param iteracao Índice da iteração.
+     * @return Tempo em milissegundos.
+     */
+    public double getTempo(final int iteracao) {
+        return tempos[iteracao] / NANOS_POR_MILI;
+    }
+
+    /**
+     * Obtém a média dos tempos das iterações.
+     *
+     * @return Média em milissegundos.
+     */
+    public double getMedia() {
+        double soma = 0;
+        for (long tempo : tempos) {
+            soma += tempo;
+        }
+        return soma / tempos.length / NANOS_POR_MILI;
+    }
+
+    /**
+     * Obtém o desvio padrão amostral dos tempos das iterações.
+     *
+     * @return Desvio padrão em milissegundos (zero com uma só iteração).
+     */
+    public double getDesvioPadrao() {
+        if (tempos.length < 2) {
+            return 0;
+        }
+        double media = getMedia();
+        double soma = 0;
+        for (int i = 0; i < tempos.length; i++) {
+            double diferenca = getTempo(i) - media;
+            soma += diferenca * diferenca;
+        }
+        return Math.sqrt(soma / (tempos.length - 1));
+    }
+
+    /**
+     * Obtém a margem de erro do intervalo de confiança de 95% da média: o
+     * intervalo vai de {@code getMedia() - getMargemErro()} a
+     * {@code getMedia() + getMargemErro()}.
+     *
+     * @return Margem em milissegundos (zero com uma só iteração).
+     */
+    public double getMargemErro() {
+        if (tempos.length < 2) {
+            return 0;
+        }
+        return valorT(tempos.length - 1) * getDesvioPadrao()
+                / Math.sqrt(tempos.length);
+    }
+
+    /**
+     * Obtém o valor crítico bicaudal de 95% da distribuição t de Student.
+     * Acima de 30 graus de liberdade, usa a aproximação de Cornish-Fisher a
+     * partir da normal.
+     *
+     * @param grausLiberdade Graus de liberdade, maior que zero.
+     * @return Valor crítico.
+     */
+    static double valorT(final int grausLiberdade) {
+        if (grausLiberdade <= VALORES_T.length) {
+            return VALORES_T[grausLiberdade - 1];
+        }
+        return Z_95 + (Z_95 * Z_95 * Z_95 + Z_95)
+                / (CORRECAO_T * grausLiberdade);
+    }
+
+}
@@ -0,0 +1,535 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import java.util.Arrays;
+
+/**
+ * Separa os campos de uma linha de teste ("expressao;variaveis;esperado") em
+ * uma única passagem sobre os caracteres, sem divisões intermediárias da
+ * linha. Espaços na expressão e entre os campos são ignorados, como na forma
+ * original de leitura; dentro de nomes ou números tornam a linha inválida.
+ * Campos após o valor esperado (separados por ";") também são ignorados.
+ * Os números são convertidos diretamente dos caracteres
+ * quando o resultado é exato; nos demais casos (muitos dígitos, expoentes
+ * grandes, "NaN", hexadecimais etc.) a conversão fica a cargo de
+ * {@link Float#parseFloat(String)}, de modo que o valor é sempre o mesmo.
+ * <p>
+ * Os nomes de variáveis são guardados uma só vez: linhas com as mesmas
+ * variáveis devolvem as mesmas instâncias de String. Um analisador guarda o
+ * resultado da última linha e não deve ser compartilhado entre threads.
+ *
+ * @author Wesleywrl
+ */
+public final class AnalisadorLinha {
+
+    /**
+     * Maior mantissa convertida diretamente (2^24). Abaixo dela, todo inteiro
+     * é representado exatamente em float.
+     */
+    private static final long MANTISSA_EXATA = 1L << 24;
+
+    /**
+     * Potências de 10 representadas exatamente em float (5^10 &lt; 2^24).
+     */
+    private static final float[] POTENCIAS = {
+        1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+    };
+
+    /**
+     * Base decimal.
+     */
+    private static final int BASE = 10;
+
+    /**
+     * Capacidade inicial da tabela de nomes (potência de 2).
+     */
+    private static final int NOMES_INICIAL = 64;
+
+    /**
+     * Quantidade inicial de variáveis por linha.
+     */
+    private static final int VARIAVEIS_INICIAL = 8;
+
+    /**
+     * Multiplicador do hash dos nomes (o mesmo de {@link String#hashCode()}).
+     */
+    private static final int PRIMO = 31;
+
+    /**
+     * Deslocamento usado para misturar os bits altos do hash nos baixos, que
+     * escolhem a posição na tabela de nomes.
+     */
+    private static final int DESLOCAMENTO = 16;
+
+    /**
+     * Linha sendo analisada.
+     */
+    private CharSequence linha;
+
+    /**
+     * Posição do próximo caractere a ser lido.
+     */
+    private int posicao;
+
+    /**
+     * Área reaproveitada na montagem da expressão sem espaços.
+     */
+    private final StringBuilder texto = new StringBuilder();
+
+    /**
+     * Expressão da última linha, sem espaços.
+     */
+    private String expressao;
+
+    /**
+     * Posição inicial do bloco de variáveis na linha.
+     */
+    private int inicioBloco;
+
+    /**
+     * Posição final do bloco de variáveis na linha.
+     */
+    private int fimBloco;
+
+    /**
+     * Quantidade de variáveis da última linha.
+     */
+    private int quantidade;
+
+    /**
+     * Nomes das variáveis da última linha.
+     */
+    private String[] nomes = new String[VARIAVEIS_INICIAL];
+
+    /**
+     * Valores das variáveis da última linha.
+     */
+    private float[] valores = new float[VARIAVEIS_INICIAL];
+
+    /**
+     * Valor esperado da última linha.
+     */
+    private float esperado;
+
+    /**
+     * Tabela (endereçamento aberto) dos nomes de variáveis já encontrados.
+     */
+    private String[] tabelaNomes = new String[NOMES_INICIAL];
+
+    /**
+     * Quantidade de nomes na tabela.
+     */
+    private int totalNomes;
+
+    /**
+     * Analisa uma linha de teste. Os campos ficam disponíveis até a próxima
+     * análise.
+     *
+     * @param completo Linha completa do teste, no formato
+     * "expressao;variaveis;esperado". Por exemplo: "x+2 ; x=2; 4".
+     * @throws IllegalArgumentException Quando a linha não segue o formato. A
+     * mensagem indica a coluna (a partir de 1) em que o problema foi
+     * encontrado.
+     */
+    public void analisar(final CharSequence completo) {
+        linha = completo;
+        posicao = 0;
+        quantidade = 0;
+
+        //Expressão: tudo até o primeiro ";"
+        int inicio = posicao;
+        boolean temEspaco = false;
+        while (posicao < linha.length() && linha.charAt(posicao) != ';') {
+            temEspaco |= linha.charAt(posicao) == ' ';
+            posicao++;
+        }
+        int fim = posicao;
+        esperar(';', "esperado \";\" após a expressão");
+
+        //Variáveis: pares nome=valor separados por ",", até o segundo ";"
+        pularEspacos();
+        inicioBloco = posicao;
+        if (posicao < linha.length() && linha.charAt(posicao) != ';') {
+            analisarVariavel();
+            while (posicao < linha.length() && linha.charAt(posicao) == ',') {
+                posicao++;
+                pularEspacos();
+                analisarVariavel();
+            }
+        }
+        fimBloco = posicao;
+        esperar(';', "esperado \",\" ou \";\" após as variáveis");
+
+        //Valor esperado: até o fim da linha ou um terceiro ";", após o qual
+        //campos extras são ignorados, como na forma original de leitura
+        pularEspacos();
+        esperado = numero("valor esperado");
+        pularEspacos();
+        if (posicao < linha.length() && linha.charAt(posicao) != ';') {
+            throw erro("conteúdo inesperado após o valor esperado");
+        }
+
+        expressao = semEspacos(inicio, fim, temEspaco);
+    }
+
+    /**
+     * Analisa um par "nome=valor" a partir da posição atual.
+     */
+    private void analisarVariavel() {
+        int inicio = posicao;
+        int hash = 0;
+        while (posicao < linha.length()) {
+            char c = linha.charAt(posicao);
+            if (c == '=' || c == ',' || c == ';' || c == ' ') {
+                break;
+            }
+            hash = PRIMO * hash + c;
+            posicao++;
+        }
+        if (posicao == inicio) {
+            throw erro("esperado nome de variável");
+        }
+        int fim = posicao;
+        pularEspacos();
+        esperar('=', "esperado \"=\" após o nome da variável");
+        pularEspacos();
+        float valor = numero("valor da variável");
+        pularEspacos();
+
+        if (quantidade == nomes.length) {
+            nomes = Arrays.copyOf(nomes, quantidade * 2);
+            valores = Arrays.copyOf(valores, quantidade * 2);
+        }
+        nomes[quantidade] = internar(inicio, fim, hash);
+        valores[quantidade] = valor;
+        quantidade++;
+    }
+
+    /**
+     * Converte o número que começa na posição atual. O número termina no
+     * próximo ",", ";" ou espaço, ou no fim da linha.
+     *
+     * @param campo Descrição do campo, usada na mensagem de erro.
+     * @return Valor do número.
+     */
+    private float numero(final String campo) {
+        int inicio = posicao;
+        while (posicao < linha.length()) {
+            char c = linha.charAt(posicao);
+            if (c == ',' || c == ';' || c == ' ') {
+                break;
+            }
+            posicao++;
+        }
+        if (posicao == inicio) {
+            throw erro(inicio, campo + " ausente");
+        }
+
+        float valor = numeroExato(inicio, posicao);
+        if (!Float.isNaN(valor)) {
+            return valor;
+        }
+        try {
+            return Float.parseFloat(linha.subSequence(inicio, posicao)
+                    .toString());
+        } catch (NumberFormatException nfe) {
+            throw erro(inicio, campo + " inválido: \""
+                    + linha.subSequence(inicio, posicao) + "\"");
+        }
+    }
+
+    /**
+     * Converte diretamente números decimais simples ([+-]ddd.ddd[e[+-]dd])
+     * cujo resultado seja exato: mantissa menor que 2^24 e expoente decimal
+     * de no máximo 10, em valor absoluto. Nesse caso uma única operação em
+     * float produz o mesmo valor arredondado de
+     * {@link Float#parseFloat(String)}.
+     *
+     * @param inicio Posição do primeiro caractere do número.
+     * @param fim Posição logo após o último caractere.
+     * @return Valor do número, ou NaN quando a conversão direta não se
+     * aplica.
+     */
+    private float numeroExato(final int inicio, final int fim) {
+        int i = inicio;
+        boolean negativo = false;
+        char c = linha.charAt(i);
+        if (c == '-' || c == '+') {
+            negativo = c == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int expoente = 0;
+        int digitos = 0;
+        while (i < fim && isDigito(linha.charAt(i))) {
+            mantissa = mantissa * BASE + (linha.charAt(i) - '0');
+            digitos++;
+            i++;
+            if (mantissa >= MANTISSA_EXATA) {
+                return Float.NaN;
+            }
+        }
+        if (i < fim && linha.charAt(i) == '.') {
+            i++;
+            while (i < fim && isDigito(linha.charAt(i))) {
+                mantissa = mantissa * BASE + (linha.charAt(i) - '0');
+                expoente--;
+                digitos++;
+                i++;
+                if (mantissa >= MANTISSA_EXATA) {
+                    return Float.NaN;
+                }
+            }
+        }
+        if (digitos == 0) {
+            return Float.NaN;
+        }
+        if (i < fim && (linha.charAt(i) == 'e' || linha.charAt(i) == 'E')) {
+            i++;
+            boolean expoenteNegativo = false;
+            if (i < fim && (linha.charAt(i) == '-'
+                    || linha.charAt(i) == '+')) {
+                expoenteNegativo = linha.charAt(i) == '-';
+                i++;
+            }
+            int valorExpoente = 0;
+            int digitosExpoente = 0;
+            while (i < fim && isDigito(linha.charAt(i))
+                    && valorExpoente < POTENCIAS.length * 2) {
+                valorExpoente = valorExpoente * BASE + (linha.charAt(i) - '0');
+                digitosExpoente++;
+                i++;
+            }
+            if (digitosExpoente == 0) {
+                return Float.NaN;
+            }
+            if (expoenteNegativo) {
+                expoente -= valorExpoente;
+            } else {
+                expoente += valorExpoente;
+            }
+        }
+        if (i != fim || expoente >= POTENCIAS.length
+                || -expoente >= POTENCIAS.length) {
+            return Float.NaN;
+        }
+
+        float valor = mantissa;
+        if (expoente > 0) {
+            valor *= POTENCIAS[expoente];
+        } else if (expoente < 0) {
+            valor /= POTENCIAS[-expoente];
+        }
+        if (negativo) {
+            return -valor;
+        }
+        return valor;
+    }
+
+    /**
+     * Verifica se um caractere é um dígito decimal.
+     *
+     * @param c Caractere.
+     * @return Verdadeiro para '0' a '9'.
+     */
+    private static boolean isDigito(final char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * Obtém a instância única do nome que ocupa o trecho fornecido da linha.
+     *
+     * @param inicio Posição do primeiro caractere do nome.
+     * @param fim Posição logo após o último caractere.
+     * @param hash Hash dos caracteres do nome.
+     * @return Nome guardado na tabela.
+     */
+    private String internar(final int inicio, final int fim, final int hash) {
+        int mascara = tabelaNomes.length - 1;
+        int i = (hash ^ (hash >>> DESLOCAMENTO)) & mascara;
+        while (tabelaNomes[i] != null) {
+            if (iguais(tabelaNomes[i], inicio, fim)) {
+                return tabelaNomes[i];
+            }
+            i = (i + 1) & mascara;
+        }
+
+        String nome = linha.subSequence(inicio, fim).toString();
+        tabelaNomes[i] = nome;
+        totalNomes++;
+        if (totalNomes * 2 > tabelaNomes.length) {
+            redimensionarNomes();
+        }
+        return nome;
+    }
+
+    /**
+     * Compara um nome guardado com um trecho da linha.
+     *
+     * @param nome Nome guardado.
+     * @param inicio Posição do primeiro caractere do trecho.
+     * @param fim Posição logo após o último caractere.
+     * @return Verdadeiro se forem iguais.
+     */
+    private boolean iguais(final String nome, final int inicio,
+            final int fim) {
+        if (nome.length() != fim - inicio) {
+            return false;
+        }
+        for (int i = 0; i < nome.length(); i++) {
+            if (nome.charAt(i) != linha.charAt(inicio + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Dobra a tabela de nomes, reposicionando os nomes guardados.
+     */
+    private void redimensionarNomes() {
+        String[] antiga = tabelaNomes;
+        tabelaNomes = new String[antiga.length * 2];
+        int mascara = tabelaNomes.length - 1;
+        for (String nome : antiga) {
+            if (nome != null) {
+                int hash = nome.hashCode();
+                int i = (hash ^ (hash >>> DESLOCAMENTO)) & mascara;
+                while (tabelaNomes[i] != null) {
+                    i = (i + 1) & mascara;
+                }
+                tabelaNomes[i] = nome;
+            }
+        }
+    }
+
+    /**
+     * Obtém um trecho da linha sem os espaços.
+     *
+     * @param inicio Posição do primeiro caractere do trecho.
+     * @param fim Posição logo após o último caractere.
+     * @param temEspaco Se falso, o trecho é copiado diretamente.
+     * @return Trecho sem espaços.
+     */
+    private String semEspacos(final int inicio, final int fim,
+            final boolean temEspaco) {
+        if (!temEspaco) {
+            return linha.subSequence(inicio, fim).toString();
+        }
+        texto.setLength(0);
+        for (int i = inicio; i < fim; i++) {
+            char c = linha.charAt(i);
+            if (c != ' ') {
+                texto.append(c);
+            }
+        }
+        return texto.toString();
+    }
+
+    /**
+     * Avança sobre espaços.
+     */
+    private void pularEspacos() {
+        while (posicao < linha.length() && linha.charAt(posicao) == ' ') {
+            posicao++;
+        }
+    }
+
+    /**
+     * Consome o caractere esperado na posição atual.
+     *
+     * @param esperadoAqui Caractere esperado.
+     * @param mensagem Descrição do erro caso o caractere não esteja presente.
+     */
+    private void esperar(final char esperadoAqui, final String mensagem) {
+        if (posicao >= linha.length()
+                || linha.charAt(posicao) != esperadoAqui) {
+            throw erro(mensagem);
+        }
+        posicao++;
+    }
+
+    /**
+     * Cria a exceção de linha inválida na posição atual.
+     *
+     * @param mensagem Descrição do problema.
+     * @return Exceção a ser lançada.
+     */
+    private IllegalArgumentException erro(final String mensagem) {
+        return erro(posicao, mensagem);
+    }
+
+    /**
+     * Cria a exceção de linha inválida.
+     *
+     * @param coluna Posição (a partir de 0) em que o problema foi encontrado.
+     * @param mensagem Descrição do problema.
+     * @return Exceção a ser lançada.
+     */
+    private static IllegalArgumentException erro(final int coluna,
+            final String mensagem) {
+        return new IllegalArgumentException("Coluna " + (coluna + 1) + ": "
+                + mensagem + ".");
+    }
+
+    /**
+     * Obtém a expressão da última linha analisada.
+     *
+     * @return Expressão, sem espaços.
+     */
+    public String getExpressao() {
+        return expressao;
+    }
+
+    /**
+     * Obtém o bloco de variáveis da última linha analisada, sem espaços.
+     *
+     * @return Bloco de variáveis. Pode ser vazio.
+     */
+    public String getVariaveis() {
+        return semEspacos(inicioBloco, fimBloco, true);
+    }
+
+    /**
+     * Obtém a quantidade de variáveis da última linha analisada.
+     *
+     * @return Quantidade de variáveis.
+     */
+    public int getQuantidadeVariaveis() {
+        return quantidade;
+    }
+
+    /**
+     * Obtém o nome de uma variável da última linha analisada.
+     *
+     * @param variavel Posição da variável na linha.
+     * @return Nome da variável.
+     */
+    public String getNome(final int variavel) {
+        return nomes[variavel];
+    }
+
+    /**
+     * Obtém o valor de uma variável da última linha analisada.
+     *
+     * @param variavel Posição da variável na linha.
+     * @return Valor da variável.
+     */
+    public float getValor(final int variavel) {
+        return valores[variavel];
+    }
+
+    /**
+     * Obtém o valor esperado da última linha analisada.
+     *
+     * @return Valor esperado.
+     */
+    public float getEsperado() {
+        return esperado;
+    }
+
+}
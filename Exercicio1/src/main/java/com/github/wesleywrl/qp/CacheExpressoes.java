@@ -0,0 +1,416 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import com.github.kyriosdata.parser.Expressao;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache, de tamanho limitado, das expressões já interpretadas pelo Parser
+ * (árvores de {@link Expressao}, com a quantidade de tokens da análise
+ * léxica), indexadas pelo texto da expressão. Uma expressão repetida só
+ * precisa ser avaliada, sem nova análise léxica e sintática. Quando cheio, o
+ * cache descarta as expressões usadas há mais tempo (LRU), mas só para
+ * guardar uma expressão consultada com mais frequência do que a descartada.
+ * Sem essa recusa, em suítes com poucas repetições cada expressão guardada
+ * sobrevive às coletas da geração jovem e é descartada logo depois, e o custo
+ * da coleta supera o ganho do cache.
+ * <p>
+ * A frequência de cada expressão é estimada por contadores indexados pelo
+ * hash, {@link #CONTADORES_POR_EXPRESSAO} por expressão guardada, que são
+ * divididos por 2 a cada {@link #ENVELHECIMENTO} consultas por contador.
+ * Assim a frequência reflete as consultas recentes, e expressões que passam a
+ * se repetir substituem as que deixaram de ser usadas.
+ * <p>
+ * Para que várias threads o consultem sem disputar um único bloqueio, o cache
+ * é dividido em segmentos independentes, escolhidos pelo hash da expressão.
+ * Cada segmento mantém a sua própria ordem de uso.
+ *
+ * @author Wesleywrl
+ */
+public final class CacheExpressoes {
+
+    /**
+     * Capacidade padrão, em quantidade de expressões.
+     */
+    public static final int CAPACIDADE_PADRAO = 16384;
+
+    /**
+     * Quantidade de contadores de frequência por expressão guardada.
+     */
+    public static final int CONTADORES_POR_EXPRESSAO = 4;
+
+    /**
+     * Quantidade de consultas, por contador de frequência, após a qual todos
+     * os contadores são divididos por 2.
+     */
+    public static final int ENVELHECIMENTO = 4;
+
+    /**
+     * Valor máximo de um contador de frequência.
+     */
+    private static final int FREQUENCIA_MAXIMA = Byte.MAX_VALUE;
+
+    /**
+     * Multiplicadores do finalizador do MurmurHash3, que espalha o hash da
+     * expressão antes de escolher os seus contadores de frequência. Textos
+     * parecidos têm hashes que diferem por constantes, e sem a mistura
+     * colidiriam nos mesmos contadores.
+     */
+    private static final int[] MISTURA = {0x85EBCA6B, 0xC2B2AE35};
+
+    /**
+     * Deslocamento intermediário do finalizador do MurmurHash3.
+     */
+    private static final int DESLOCAMENTO_MISTURA = 13;
+
+    /**
+     * Quantidade de segmentos (potência de 2).
+     */
+    private static final int SEGMENTOS = 16;
+
+    /**
+     * Deslocamento usado para misturar os bits altos do hash nos baixos, que
+     * escolhem o segmento.
+     */
+    private static final int DESLOCAMENTO = 16;
+
+    /**
+     * Marca de expressão que o Parser não conseguiu interpretar, guardada para
+     * que a falha também não precise ser repetida.
+     */
+    private static final Interpretada INVALIDA = new Interpretada(null, 0);
+
+    /**
+     * Segmentos do cache.
+     */
+    private final Segmento[] segmentos = new Segmento[SEGMENTOS];
+
+    /**
+     * Quantidade de consultas atendidas pelo cache.
+     */
+    private final LongAdder acertos = new LongAdder();
+
+    /**
+     * Quantidade de consultas que exigiram a interpretação da expressão.
+     */
+    private final LongAdder faltas = new LongAdder();
+
+    /**
+     * Cria um cache com a capacidade fornecida.
+     *
+     * @param capacidade Quantidade máxima de expressões guardadas.
+     */
+    public CacheExpressoes(final int capacidade) {
+        if (capacidade <= 0) {
+            throw new IllegalArgumentException("Capacidade inválida.");
+        }
+        int porSegmento = Math.max(1, capacidade / SEGMENTOS);
+        for (int i = 0; i < SEGMENTOS; i++) {
+            segmentos[i] = new Segmento(porSegmento);
+        }
+    }
+
+    /**
+     * Obtém a expressão interpretada correspondente ao texto fornecido.
+     *
+     * @param expressao Texto da expressão.
+     * @return Expressão interpretada, ou null se ainda não estiver no cache.
+     */
+    public Interpretada obter(final String expressao) {
+        Segmento segmento = segmento(expressao);
+        Interpretada encontrada;
+        synchronized (segmento) {
+            segmento.registrar(expressao.hashCode());
+            encontrada = segmento.get(expressao);
+        }
+        if (encontrada == null) {
+            faltas.increment();
+        } else {
+            acertos.increment();
+        }
+        return encontrada;
+    }
+
+    /**
+     * Guarda uma expressão interpretada. Com o segmento cheio, a expressão só
+     * é guardada se for consultada com mais frequência do que a usada há mais
+     * tempo, que é descartada.
+     *
+     * @param expressao Texto da expressão.
+     * @param interpretada Expressão interpretada, ou null se o Parser não
+     * conseguiu interpretá-la.
+     * @param tokens Quantidade de tokens obtidos pela análise léxica
+     * (ignorada para expressões inválidas).
+     */
+    public void guardar(final String expressao, final Expressao interpretada,
+            final int tokens) {
+        Interpretada entrada = INVALIDA;
+        if (interpretada != null) {
+            entrada = new Interpretada(interpretada, tokens);
+        }
+        Segmento segmento = segmento(expressao);
+        synchronized (segmento) {
+            if (segmento.isAdmitindo(expressao.hashCode())) {
+                segmento.put(expressao, entrada);
+            }
+        }
+    }
+
+    /**
+     * Espalha os bits do hash de uma expressão.
+     *
+     * @param hash Hash do texto da expressão.
+     * @return Hash em que cada bit depende de todos os bits do original.
+     */
+    private static int espalhar(final int hash) {
+        int espalhado = hash ^ (hash >>> DESLOCAMENTO);
+        espalhado *= MISTURA[0];
+        espalhado ^= espalhado >>> DESLOCAMENTO_MISTURA;
+        espalhado *= MISTURA[1];
+        return espalhado ^ (espalhado >>> DESLOCAMENTO);
+    }
+
+    /**
+     * Escolhe o segmento de uma expressão.
+     *
+     * @param expressao Texto da expressão.
+     * @return Segmento em que a expressão é guardada.
+     */
+    private Segmento segmento(final String expressao) {
+        int hash = expressao.hashCode();
+        return segmentos[(hash ^ (hash >>> DESLOCAMENTO)) & (SEGMENTOS - 1)];
+    }
+
+    /**
+     * Obtém a quantidade de consultas atendidas pelo cache.
+     *
+     * @return Quantidade de acertos.
+     */
+    public long getAcertos() {
+        return acertos.sum();
+    }
+
+    /**
+     * Obtém a quantidade de consultas que exigiram a interpretação da
+     * expressão.
+     *
+     * @return Quantidade de faltas.
+     */
+    public long getFaltas() {
+        return faltas.sum();
+    }
+
+    /**
+     * Acrescenta consultas feitas a outro cache, como o de um processo
+     * trabalhador ({@link ExecutorProcessos}), às contagens deste.
+     *
+     * @param outrosAcertos Consultas atendidas pelo outro cache.
+     * @param outrasFaltas Consultas que exigiram a interpretação.
+     */
+    void registrarConsultas(final long outrosAcertos,
+            final long outrasFaltas) {
+        acertos.add(outrosAcertos);
+        faltas.add(outrasFaltas);
+    }
+
+    /**
+     * Obtém a quantidade de expressões guardadas.
+     *
+     * @return Quantidade de expressões.
+     */
+    public int getTamanho() {
+        int tamanho = 0;
+        for (Segmento segmento : segmentos) {
+            synchronized (segmento) {
+                tamanho += segmento.size();
+            }
+        }
+        return tamanho;
+    }
+
+    /**
+     * Expressão guardada no cache, com a quantidade de tokens obtida na sua
+     * análise léxica, para que as fases do Parser ({@link FasesParser}) a
+     * considerem mesmo quando a análise não é repetida.
+     */
+    public static final class Interpretada {
+
+        /**
+         * Árvore da expressão, ou null se o Parser não a interpretou.
+         */
+        private final Expressao expressao;
+
+        /**
+         * Quantidade de tokens da expressão.
+         */
+        private final int tokens;
+
+        /**
+         * Cria uma expressão guardada.
+         *
+         * @param expressao Árvore da expressão, ou null se inválida.
+         * @param tokens Quantidade de tokens da expressão.
+         */
+        private Interpretada(final Expressao expressao, final int tokens) {
+            this.expressao = expressao;
+            this.tokens = tokens;
+        }
+
+        /**
+         * Obtém a árvore da expressão.
+         *
+         * @return Árvore da expressão, ou null se inválida.
+         */
+        public Expressao getExpressao() {
+            return expressao;
+        }
+
+        /**
+         * Obtém a quantidade de tokens obtidos pela análise léxica.
+         *
+         * @return Quantidade de tokens (zero para expressões inválidas).
+         */
+        public int getTokens() {
+            return tokens;
+        }
+
+        /**
+         * Verifica se é a marca de expressão inválida.
+         *
+         * @return Verdadeiro se o Parser não conseguiu interpretá-la.
+         */
+        public boolean isInvalida() {
+            return this == INVALIDA;
+        }
+    }
+
+    /**
+     * Segmento do cache: mapa em ordem de uso que descarta a expressão usada
+     * há mais tempo quando excede a capacidade, com os contadores de
+     * frequência das expressões consultadas no segmento.
+     */
+    private static final class Segmento
+            extends LinkedHashMap<String, Interpretada> {
+
+        /**
+         * Versão da serialização.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Fator de carga do mapa.
+         */
+        private static final float CARGA = 0.75f;
+
+        /**
+         * Quantidade máxima de expressões do segmento.
+         */
+        private final int capacidade;
+
+        /**
+         * Contadores de frequência (quantidade de posições potência de 2).
+         */
+        private final byte[] frequencias;
+
+        /**
+         * Deslocamento que reduz o hash espalhado à posição do segundo
+         * contador da expressão em {@link #frequencias}.
+         */
+        private final int deslocamento;
+
+        /**
+         * Consultas registradas desde o último envelhecimento.
+         */
+        private int registros;
+
+        /**
+         * Cria um segmento.
+         *
+         * @param capacidade Quantidade máxima de expressões.
+         */
+        private Segmento(final int capacidade) {
+            super(16, CARGA, true);
+            this.capacidade = capacidade;
+            int posicoes = Integer.highestOneBit(
+                    capacidade * CONTADORES_POR_EXPRESSAO);
+            frequencias = new byte[Math.max(2, posicoes)];
+            deslocamento = Integer.numberOfLeadingZeros(frequencias.length)
+                    + 1;
+        }
+
+        /**
+         * Estima a frequência recente de uma expressão. Cada expressão usa
+         * dois contadores, escolhidos pelos bits baixos e altos do hash
+         * espalhado, e a sua frequência é a menor entre eles: a colisão com
+         * uma expressão frequente em um dos contadores não basta para que
+         * uma expressão rara pareça frequente.
+         *
+         * @param hash Hash do texto da expressão.
+         * @return Menor valor entre os contadores da expressão.
+         */
+        private int frequencia(final int hash) {
+            int espalhado = espalhar(hash);
+            return Math.min(
+                    frequencias[espalhado & (frequencias.length - 1)],
+                    frequencias[espalhado >>> deslocamento]);
+        }
+
+        /**
+         * Incrementa um contador de frequência, até o valor máximo.
+         *
+         * @param posicao Posição do contador em {@link #frequencias}.
+         */
+        private void incrementar(final int posicao) {
+            if (frequencias[posicao] < FREQUENCIA_MAXIMA) {
+                frequencias[posicao]++;
+            }
+        }
+
+        /**
+         * Registra uma consulta à expressão, envelhecendo os contadores a
+         * cada {@link #ENVELHECIMENTO} consultas por contador.
+         *
+         * @param hash Hash do texto da expressão.
+         */
+        private void registrar(final int hash) {
+            int espalhado = espalhar(hash);
+            incrementar(espalhado & (frequencias.length - 1));
+            incrementar(espalhado >>> deslocamento);
+            registros++;
+            if (registros >= frequencias.length * ENVELHECIMENTO) {
+                registros = 0;
+                for (int i = 0; i < frequencias.length; i++) {
+                    frequencias[i] >>= 1;
+                }
+            }
+        }
+
+        /**
+         * Decide se uma expressão ausente deve ser guardada: com o segmento
+         * cheio, só se a sua frequência superar a da expressão usada há mais
+         * tempo, que será descartada.
+         *
+         * @param hash Hash do texto da expressão.
+         * @return Verdadeiro se a expressão deve ser guardada.
+         */
+        private boolean isAdmitindo(final int hash) {
+            if (size() < capacidade) {
+                return true;
+            }
+            String maisAntiga = keySet().iterator().next();
+            return frequencia(hash) > frequencia(maisAntiga.hashCode());
+        }
+
+        @Override
+        protected boolean removeEldestEntry(
+                final Map.Entry<String, Interpretada> maisAntiga) {
+            return size() > capacidade;
+        }
+    }
+
+}
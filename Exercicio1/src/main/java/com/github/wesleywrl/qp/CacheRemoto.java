@@ -0,0 +1,485 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Cache em disco de arquivos de testes remotos. Cada URL é guardada junto com
+ * os validadores enviados pelo servidor (ETag e Last-Modified). Nos acessos
+ * seguintes, a requisição é condicional (If-None-Match e If-Modified-Since) e,
+ * caso o servidor responda 304 (não modificado), a cópia local é reutilizada
+ * sem nova transferência. O espaço ocupado é limitado: quando excedido, as
+ * entradas usadas há mais tempo são removidas.
+ * <p>
+ * Cada cópia obtida fica reservada até ser devolvida com
+ * {@link #liberar(Path)}, e entradas reservadas nunca são removidas por
+ * falta de espaço, ainda que outra transferência precise dele. A reserva vale
+ * apenas para esta instância: outro processo que use o mesmo diretório pode
+ * remover a entrada.
+ *
+ * @author Wesleywrl
+ */
+public final class CacheRemoto {
+
+    /**
+     * Limite padrão do espaço ocupado pelo cache (1 GiB).
+     */
+    public static final long LIMITE_PADRAO = 1024L * 1024 * 1024;
+
+    /**
+     * Extensão dos arquivos com o conteúdo das URLs.
+     */
+    private static final String DADOS = ".dados";
+
+    /**
+     * Extensão dos arquivos com os validadores e o último acesso.
+     */
+    private static final String META = ".meta";
+
+    /**
+     * Tamanho da área usada na cópia da resposta para o disco.
+     */
+    private static final int TAMANHO_BUFFER = 64 * 1024;
+
+    /**
+     * Máscara para converter um byte em valor sem sinal.
+     */
+    private static final int BYTE = 0xFF;
+
+    /**
+     * Diretório em que as entradas do cache são guardadas.
+     */
+    private final Path diretorio;
+
+    /**
+     * Espaço máximo, em bytes, ocupado pelo conteúdo das entradas.
+     */
+    private final long limite;
+
+    /**
+     * Quantidade de reservas de cada entrada ainda não liberadas, pelo
+     * arquivo com o conteúdo.
+     */
+    private final Map<Path, Integer> reservas = new HashMap<>();
+
+    /**
+     * Quantidade de acessos atendidos pela cópia local (resposta 304).
+     */
+    private int reaproveitados;
+
+    /**
+     * Quantidade de acessos que transferiram o arquivo inteiro.
+     */
+    private int transferidos;
+
+    /**
+     * Último horário de acesso registrado, usado para que acessos no mesmo
+     * milissegundo mantenham a ordem em que ocorreram.
+     */
+    private long ultimoAcesso;
+
+    /**
+     * Cria um cache no diretório fornecido.
+     *
+     * @param diretorio Diretório das entradas (criado se não existir).
+     * @param limite Espaço máximo, em bytes, ocupado pelo conteúdo das
+     * entradas.
+     */
+    public CacheRemoto(final Path diretorio, final long limite) {
+        if (limite <= 0) {
+            throw new IllegalArgumentException("Limite do cache inválido.");
+        }
+        this.diretorio = diretorio;
+        this.limite = limite;
+    }
+
+    /**
+     * Obtém o diretório padrão do cache, dentro do diretório do usuário.
+     *
+     * @return Diretório "~/.qp/cache".
+     */
+    public static Path diretorioPadrao() {
+        return Paths.get(System.getProperty("user.home"), ".qp", "cache");
+    }
+
+    /**
+     * Obtém uma cópia local e atualizada do arquivo de uma URL. Caso já exista
+     * uma cópia, o servidor é consultado de forma condicional e só envia o
+     * arquivo se ele tiver sido modificado. A cópia fica reservada, sem ser
+     * removida por falta de espaço, até ser devolvida com
+     * {@link #liberar(Path)}.
+     *
+     * @param urlPath Endereço do arquivo.
+     * @return Local da cópia no cache.
+     * @throws java.net.MalformedURLException Quando a URL for inválida.
+     * @throws FileNotFoundException Quando o servidor não tem o arquivo.
+     * @throws IOException Quando não for possível obter o arquivo ou
+     * guardá-lo no cache.
+     */
+    public Path obter(final String urlPath) throws IOException {
+        Files.createDirectories(diretorio);
+        String chave = chave(urlPath);
+        Path dados = diretorio.resolve(chave + DADOS);
+        reservar(dados);
+        try {
+            return atualizar(urlPath, chave, dados);
+        } catch (IOException | RuntimeException ex) {
+            liberar(dados);
+            throw ex;
+        }
+    }
+
+    /**
+     * Devolve uma cópia obtida com {@link #obter(String)}, que volta a poder
+     * ser removida por falta de espaço quando não houver outras reservas.
+     *
+     * @param dados Local da cópia no cache.
+     */
+    public synchronized void liberar(final Path dados) {
+        Integer quantidade = reservas.get(dados);
+        if (quantidade == null) {
+            return;
+        }
+        if (quantidade == 1) {
+            reservas.remove(dados);
+        } else {
+            reservas.put(dados, quantidade - 1);
+        }
+    }
+
+    /**
+     * Reserva uma entrada, impedindo a sua remoção por falta de espaço.
+     *
+     * @param dados Arquivo com o conteúdo da entrada.
+     */
+    private synchronized void reservar(final Path dados) {
+        Integer quantidade = reservas.get(dados);
+        reservas.put(dados, quantidade == null ? 1 : quantidade + 1);
+    }
+
+    /**
+     * Consulta o servidor e, se necessário, transfere o arquivo para o
+     * cache. A entrada já deve estar reservada.
+     *
+     * @param urlPath Endereço do arquivo.
+     * @param chave Nome, sem extensão, dos arquivos da entrada.
+     * @param dados Arquivo com o conteúdo da entrada.
+     * @return Local da cópia no cache.
+     * @throws IOException Quando não for possível obter o arquivo ou
+     * guardá-lo no cache.
+     */
+    private Path atualizar(final String urlPath, final String chave,
+            final Path dados) throws IOException {
+        Path meta = diretorio.resolve(chave + META);
+        Properties validadores = lerMeta(meta);
+        if (!Files.exists(dados)) {
+            validadores = null;
+        }
+
+        HttpURLConnection connection = Ler.conectar(urlPath);
+        if (validadores != null) {
+            String etag = validadores.getProperty("etag");
+            String modificado = validadores.getProperty("modificado");
+            if (etag != null) {
+                connection.setRequestProperty("If-None-Match", etag);
+            }
+            if (modificado != null) {
+                connection.setRequestProperty("If-Modified-Since",
+                        modificado);
+            }
+        }
+
+        try {
+            int codigo = connection.getResponseCode();
+            if (codigo == HttpURLConnection.HTTP_NOT_MODIFIED
+                    && validadores != null) {
+                registrarAcesso(meta, validadores);
+                contarReaproveitado();
+                return dados;
+            }
+            if (codigo == HttpURLConnection.HTTP_NOT_FOUND
+                    || codigo == HttpURLConnection.HTTP_GONE) {
+                throw new FileNotFoundException(urlPath);
+            }
+            if (codigo != HttpURLConnection.HTTP_OK) {
+                throw new IOException("Resposta inesperada do servidor: "
+                        + codigo + ".");
+            }
+
+            Path temporario = Files.createTempFile(diretorio, chave, ".tmp");
+            try {
+                try (InputStream entrada = connection.getInputStream();
+                        OutputStream saida = Files.newOutputStream(
+                                temporario)) {
+                    copiar(entrada, saida);
+                }
+                Files.move(temporario, dados,
+                        StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporario);
+            }
+
+            Properties novos = new Properties();
+            novos.setProperty("url", urlPath);
+            definir(novos, "etag", connection.getHeaderField("ETag"));
+            definir(novos, "modificado",
+                    connection.getHeaderField("Last-Modified"));
+            registrarAcesso(meta, novos);
+            contarTransferido();
+            removerExcedentes();
+            return dados;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * Remove as entradas usadas há mais tempo até que o espaço ocupado não
+     * exceda o limite. Entradas reservadas nunca são removidas, de modo que
+     * o limite pode ser excedido enquanto estiverem em uso.
+     *
+     * @throws IOException Quando não for possível consultar o diretório.
+     */
+    private synchronized void removerExcedentes() throws IOException {
+        List<Entrada> entradas = new ArrayList<>();
+        long ocupado = 0;
+        try (DirectoryStream<Path> arquivos =
+                Files.newDirectoryStream(diretorio, "*" + META)) {
+            for (Path meta : arquivos) {
+                String nome = meta.getFileName().toString();
+                Path dados = diretorio.resolve(nome.substring(0,
+                        nome.length() - META.length()) + DADOS);
+                Properties propriedades = lerMeta(meta);
+                if (propriedades == null || !Files.exists(dados)) {
+                    continue;
+                }
+                Entrada entrada = new Entrada(meta, dados, Files.size(dados),
+                        Long.parseLong(propriedades.getProperty("acesso",
+                                "0")));
+                ocupado += entrada.tamanho;
+                entradas.add(entrada);
+            }
+        }
+
+        Collections.sort(entradas, new Comparator<Entrada>() {
+            @Override
+            public int compare(final Entrada a, final Entrada b) {
+                return Long.compare(a.acesso, b.acesso);
+            }
+        });
+        for (Entrada entrada : entradas) {
+            if (ocupado <= limite) {
+                break;
+            }
+            if (reservas.containsKey(entrada.dados)) {
+                continue;
+            }
+            Files.deleteIfExists(entrada.meta);
+            Files.deleteIfExists(entrada.dados);
+            ocupado -= entrada.tamanho;
+        }
+    }
+
+    /**
+     * Copia todo o conteúdo de uma entrada para uma saída.
+     *
+     * @param entrada Origem dos bytes.
+     * @param saida Destino dos bytes.
+     * @throws IOException Quando não for possível ler ou escrever.
+     */
+    private static void copiar(final InputStream entrada,
+            final OutputStream saida) throws IOException {
+        byte[] buffer = new byte[TAMANHO_BUFFER];
+        int lidos = entrada.read(buffer);
+        while (lidos >= 0) {
+            saida.write(buffer, 0, lidos);
+            lidos = entrada.read(buffer);
+        }
+    }
+
+    /**
+     * Lê os validadores de uma entrada.
+     *
+     * @param meta Arquivo com os validadores.
+     * @return Validadores, ou null se a entrada não existir.
+     * @throws IOException Quando não for possível ler o arquivo.
+     */
+    private static Properties lerMeta(final Path meta) throws IOException {
+        Properties propriedades = new Properties();
+        try (InputStream entrada = Files.newInputStream(meta)) {
+            propriedades.load(entrada);
+        } catch (NoSuchFileException ex) {
+            return null;
+        }
+        return propriedades;
+    }
+
+    /**
+     * Grava os validadores de uma entrada, com o horário atual como último
+     * acesso. A gravação é feita em um arquivo temporário, movido em seguida,
+     * para que outro processo nunca leia um arquivo incompleto.
+     *
+     * @param meta Arquivo com os validadores.
+     * @param propriedades Validadores a serem gravados.
+     * @throws IOException Quando não for possível gravar o arquivo.
+     */
+    private void registrarAcesso(final Path meta,
+            final Properties propriedades) throws IOException {
+        propriedades.setProperty("acesso", String.valueOf(proximoAcesso()));
+        Path temporario = Files.createTempFile(diretorio, "meta", ".tmp");
+        try {
+            try (OutputStream saida = Files.newOutputStream(temporario)) {
+                propriedades.store(saida, null);
+            }
+            Files.move(temporario, meta, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporario);
+        }
+    }
+
+    /**
+     * Obtém o horário do acesso atual, sempre posterior ao último registrado.
+     *
+     * @return Horário em milissegundos.
+     */
+    private synchronized long proximoAcesso() {
+        ultimoAcesso = Math.max(System.currentTimeMillis(), ultimoAcesso + 1);
+        return ultimoAcesso;
+    }
+
+    /**
+     * Define uma propriedade, caso o valor exista.
+     *
+     * @param propriedades Propriedades a serem alteradas.
+     * @param nome Nome da propriedade.
+     * @param valor Valor da propriedade (pode ser null).
+     */
+    private static void definir(final Properties propriedades,
+            final String nome, final String valor) {
+        if (valor != null) {
+            propriedades.setProperty(nome, valor);
+        }
+    }
+
+    /**
+     * Calcula o nome dos arquivos de uma URL no cache (SHA-256 da URL, em
+     * hexadecimal).
+     *
+     * @param urlPath Endereço do arquivo.
+     * @return Nome, sem extensão, dos arquivos da entrada.
+     */
+    private static String chave(final String urlPath) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            byte[] resumo = sha.digest(
+                    urlPath.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (byte b : resumo) {
+                hex.append(String.format("%02x", b & BYTE));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Contabiliza um acesso atendido pela cópia local.
+     */
+    private synchronized void contarReaproveitado() {
+        reaproveitados++;
+    }
+
+    /**
+     * Contabiliza um acesso que transferiu o arquivo inteiro.
+     */
+    private synchronized void contarTransferido() {
+        transferidos++;
+    }
+
+    /**
+     * Obtém a quantidade de acessos atendidos pela cópia local.
+     *
+     * @return Quantidade de respostas 304 recebidas.
+     */
+    public synchronized int getReaproveitados() {
+        return reaproveitados;
+    }
+
+    /**
+     * Obtém a quantidade de acessos que transferiram o arquivo inteiro.
+     *
+     * @return Quantidade de respostas 200 recebidas.
+     */
+    public synchronized int getTransferidos() {
+        return transferidos;
+    }
+
+    /**
+     * Entrada do cache considerada na remoção por espaço.
+     */
+    private static final class Entrada {
+
+        /**
+         * Arquivo com os validadores.
+         */
+        private final Path meta;
+
+        /**
+         * Arquivo com o conteúdo.
+         */
+        private final Path dados;
+
+        /**
+         * Tamanho do conteúdo, em bytes.
+         */
+        private final long tamanho;
+
+        /**
+         * Horário do último acesso, em milissegundos.
+         */
+        private final long acesso;
+
+        /**
+         * Cria uma entrada.
+         *
+         * @param meta Arquivo com os validadores.
+         * @param dados Arquivo com o conteúdo.
+         * @param tamanho Tamanho do conteúdo, em bytes.
+         * @param acesso Horário do último acesso, em milissegundos.
+         */
+        private Entrada(final Path meta, final Path dados, final long tamanho,
+                final long acesso) {
+            this.meta = meta;
+            this.dados = dados;
+            this.tamanho = tamanho;
+            this.acesso = acesso;
+        }
+    }
+
+}
@@ -0,0 +1,480 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import com.github.kyriosdata.parser.Parser;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.CodeSource;
+import java.util.Arrays;
+
+/**
+ * Cache em disco dos resultados dos testes, que permite reexecutar uma suíte
+ * realizando apenas as expressões novas ou modificadas. Cada teste é
+ * identificado por uma chave de 64 bits calculada a partir da expressão
+ * (sem espaços) e das variáveis; o valor esperado não faz parte da chave,
+ * pois o sucesso é sempre recalculado a partir do valor obtido.
+ * <p>
+ * O arquivo identifica a versão do Parser que produziu os resultados. Se o
+ * Parser for outro, os resultados guardados são ignorados. Os resultados da
+ * execução atual são gravados em um arquivo temporário, que só substitui o
+ * anterior em {@link #concluir()}: uma execução interrompida não altera o
+ * cache, e resultados de testes removidos da suíte são descartados.
+ *
+ * @author Wesleywrl
+ */
+public final class CacheResultados implements Closeable {
+
+    /**
+     * Nome do arquivo do cache, no diretório do relatório.
+     */
+    public static final String ARQUIVO = "resultados.qpr";
+
+    /**
+     * Identificação do formato ("QPR1"), no início do arquivo.
+     */
+    private static final int MAGICO = 0x51505231;
+
+    /**
+     * Tamanho de cada resultado: chave, valor obtido e situação.
+     */
+    private static final int TAMANHO_REGISTRO =
+            Long.BYTES + Float.BYTES + 1;
+
+    /**
+     * Tamanho do buffer de leitura e escrita, em bytes.
+     */
+    private static final int TAMANHO_BUFFER = 64 * 1024;
+
+    /**
+     * Base do hash FNV-1a de 64 bits.
+     */
+    private static final long FNV_BASE = 0xcbf29ce484222325L;
+
+    /**
+     * Primo do hash FNV-1a de 64 bits.
+     */
+    private static final long FNV_PRIMO = 0x100000001b3L;
+
+    /**
+     * Separador entre as partes do teste no cálculo da chave (não aparece em
+     * expressões nem em nomes de variáveis).
+     */
+    private static final char SEPARADOR = ';';
+
+    /**
+     * Quantidade máxima de resultados carregados do arquivo, qualquer que
+     * seja a memória disponível. Um arquivo com mais resultados é
+     * considerado inválido: é ignorado e refeito pela execução.
+     */
+    private static final int MAXIMO_CARREGADOS = 1 << 24;
+
+    /**
+     * Posições da tabela por resultado carregado, no pior caso (ver
+     * {@link #criarTabela(int)}).
+     */
+    private static final int POSICOES_POR_RESULTADO = 4;
+
+    /**
+     * Bytes de cada posição da tabela: chave, valor obtido e situação.
+     */
+    private static final int BYTES_POR_POSICAO =
+            Long.BYTES + Float.BYTES + 1;
+
+    /**
+     * A tabela ocupa no máximo esta fração (1/N) da memória máxima da JVM.
+     */
+    private static final int FRACAO_MEMORIA = 4;
+
+    /**
+     * Máscara para obter o byte menos significativo.
+     */
+    private static final int BYTE = 0xFF;
+
+    /**
+     * Chave usada no lugar de zero, que indica posição livre na tabela.
+     */
+    private static final long CHAVE_ZERO = 1;
+
+    /**
+     * Situação de um resultado em que o Parser obteve um valor.
+     */
+    private static final byte OBTIDO = 1;
+
+    /**
+     * Arquivo do cache.
+     */
+    private final Path arquivo;
+
+    /**
+     * Arquivo em que os resultados da execução atual são gravados.
+     */
+    private final Path temporario;
+
+    /**
+     * Canal de escrita do arquivo temporário.
+     */
+    private final FileChannel saida;
+
+    /**
+     * Resultados ainda não gravados.
+     */
+    private final ByteBuffer buffer = ByteBuffer.allocate(TAMANHO_BUFFER);
+
+    /**
+     * Chaves dos resultados guardados, em uma tabela de endereçamento aberto
+     * cujo tamanho é potência de 2. Zero indica posição livre.
+     */
+    private long[] chaves;
+
+    /**
+     * Valor obtido de cada resultado guardado.
+     */
+    private float[] valores;
+
+    /**
+     * Situação ({@link #OBTIDO}) de cada resultado guardado.
+     */
+    private byte[] situacoes;
+
+    /**
+     * Quantidade de resultados carregados do arquivo.
+     */
+    private int carregados;
+
+    /**
+     * Se verdadeiro, o arquivo temporário já substituiu o cache.
+     */
+    private boolean concluido;
+
+    /**
+     * Abre o cache, carregando os resultados guardados para a versão do
+     * Parser fornecida.
+     *
+     * @param arquivo Arquivo do cache (criado em {@link #concluir()} se não
+     * existir).
+     * @param versao Identificação do Parser (ver {@link #versaoParser()}).
+     * @throws IOException Quando não é possível ler o cache ou criar o
+     * arquivo temporário.
+     */
+    public CacheResultados(final Path arquivo, final String versao)
+            throws IOException {
+        this.arquivo = arquivo;
+        byte[] cabecalho = versao.getBytes(StandardCharsets.UTF_8);
+        carregar(cabecalho);
+
+        Path diretorio = arquivo.toAbsolutePath().getParent();
+        Files.createDirectories(diretorio);
+        temporario = Files.createTempFile(diretorio,
+                arquivo.getFileName().toString(), ".tmp");
+        saida = FileChannel.open(temporario, StandardOpenOption.WRITE);
+        buffer.putInt(MAGICO).putInt(cabecalho.length).put(cabecalho);
+    }
+
+    /**
+     * Obtém a identificação do Parser em uso: a versão declarada no seu jar,
+     * ou o nome, o tamanho e a data de modificação do jar (ou diretório) de
+     * onde foi carregado.
+     *
+     * @return Identificação do Parser.
+     */
+    public static String versaoParser() {
+        String versao = Parser.class.getPackage() == null ? null
+                : Parser.class.getPackage().getImplementationVersion();
+        CodeSource origem = Parser.class.getProtectionDomain()
+                .getCodeSource();
+        URL local = origem == null ? null : origem.getLocation();
+        if (local == null) {
+            return String.valueOf(versao);
+        }
+        File jar;
+        try {
+            jar = new File(local.toURI());
+        } catch (URISyntaxException | IllegalArgumentException ex) {
+            return versao + " " + local;
+        }
+        return versao + " " + jar.getName() + " " + jar.length() + " "
+                + jar.lastModified();
+    }
+
+    /**
+     * Lê os resultados do arquivo do cache, caso exista e tenha sido gerado
+     * pela mesma versão do Parser.
+     *
+     * @param versao Identificação do Parser, em UTF-8.
+     * @throws IOException Quando não é possível ler o arquivo.
+     */
+    private void carregar(final byte[] versao) throws IOException {
+        criarTabela(0);
+        FileChannel entrada;
+        try {
+            entrada = FileChannel.open(arquivo, StandardOpenOption.READ);
+        } catch (NoSuchFileException ex) {
+            return;
+        }
+        try {
+            ByteBuffer leitura = ByteBuffer.allocate(TAMANHO_BUFFER);
+            leitura.limit(0);
+            if (!ler(entrada, leitura, Integer.BYTES * 2)
+                    || leitura.getInt() != MAGICO
+                    || leitura.getInt() != versao.length
+                    || !ler(entrada, leitura, versao.length)) {
+                return;
+            }
+            byte[] gravada = new byte[versao.length];
+            leitura.get(gravada);
+            if (!Arrays.equals(gravada, versao)) {
+                return;
+            }
+            long quantidade = (entrada.size() - Integer.BYTES * 2
+                    - versao.length) / TAMANHO_REGISTRO;
+            if (quantidade > maximoCarregados(
+                    Runtime.getRuntime().maxMemory())) {
+                return;
+            }
+            criarTabela((int) quantidade);
+            while (ler(entrada, leitura, TAMANHO_REGISTRO)) {
+                long chave = leitura.getLong();
+                float valor = leitura.getFloat();
+                byte situacao = leitura.get();
+                int posicao = posicao(chave);
+                if (chaves[posicao] == 0) {
+                    carregados++;
+                }
+                chaves[posicao] = chave;
+                valores[posicao] = valor;
+                situacoes[posicao] = situacao;
+            }
+        } finally {
+            entrada.close();
+        }
+    }
+
+    /**
+     * Obtém a quantidade máxima de resultados que podem ser carregados do
+     * arquivo, de modo que a tabela não ocupe mais que a fração
+     * {@link #FRACAO_MEMORIA} da memória.
+     *
+     * @param memoria Memória máxima da JVM, em bytes.
+     * @return Quantidade máxima, no máximo {@link #MAXIMO_CARREGADOS}.
+     */
+    static int maximoCarregados(final long memoria) {
+        long porMemoria = memoria / FRACAO_MEMORIA
+                / (POSICOES_POR_RESULTADO * BYTES_POR_POSICAO);
+        return (int) Math.min(porMemoria, MAXIMO_CARREGADOS);
+    }
+
+    /**
+     * Garante que o buffer de leitura tenha ao menos a quantidade de bytes
+     * fornecida, lendo mais do arquivo se necessário.
+     *
+     * @param entrada Arquivo lido.
+     * @param leitura Buffer pronto para leitura.
+     * @param bytes Quantidade de bytes necessária.
+     * @return Falso se o arquivo terminar antes.
+     * @throws IOException Quando não é possível ler o arquivo.
+     */
+    private static boolean ler(final FileChannel entrada,
+            final ByteBuffer leitura, final int bytes) throws IOException {
+        if (leitura.remaining() >= bytes) {
+            return true;
+        }
+        if (bytes > leitura.capacity()) {
+            return false;
+        }
+        leitura.compact();
+        while (leitura.position() < bytes) {
+            if (entrada.read(leitura) < 0) {
+                leitura.flip();
+                return false;
+            }
+        }
+        leitura.flip();
+        return true;
+    }
+
+    /**
+     * Cria a tabela de resultados com espaço para a quantidade fornecida,
+     * mantendo a ocupação em no máximo metade.
+     *
+     * @param quantidade Quantidade de resultados.
+     */
+    private void criarTabela(final int quantidade) {
+        int capacidade = Integer.highestOneBit(Math.max(1, quantidade) * 2)
+                * 2;
+        chaves = new long[capacidade];
+        valores = new float[capacidade];
+        situacoes = new byte[capacidade];
+    }
+
+    /**
+     * Obtém a posição de uma chave na tabela: a que ela ocupa ou, se não
+     * estiver na tabela, a posição livre em que deve ser guardada.
+     *
+     * @param chave Chave do resultado, diferente de zero.
+     * @return Posição na tabela.
+     */
+    private int posicao(final long chave) {
+        int mascara = chaves.length - 1;
+        int posicao = (int) (chave ^ (chave >>> Integer.SIZE)) & mascara;
+        while (chaves[posicao] != 0 && chaves[posicao] != chave) {
+            posicao = (posicao + 1) & mascara;
+        }
+        return posicao;
+    }
+
+    /**
+     * Calcula a chave de um teste a partir da expressão e das variáveis.
+     *
+     * @param suite Conjunto que contém o teste.
+     * @param teste Posição do teste.
+     * @return Chave do teste, nunca zero.
+     */
+    public static long chave(final SuiteTestes suite, final int teste) {
+        long hash = misturar(FNV_BASE, suite.getExpressao(teste));
+        for (int i = 0; i < suite.getQuantidadeVariaveis(teste); i++) {
+            hash = misturar(hash, SEPARADOR);
+            hash = misturar(hash, suite.getNomeVariavel(teste, i));
+            hash = misturar(hash, '=');
+            int bits = Float.floatToIntBits(suite.getValorVariavel(teste, i));
+            for (int b = 0; b < Integer.SIZE; b += Byte.SIZE) {
+                hash = (hash ^ (bits >>> b & BYTE)) * FNV_PRIMO;
+            }
+        }
+        return hash == 0 ? CHAVE_ZERO : hash;
+    }
+
+    /**
+     * Acrescenta os caracteres de um texto ao hash.
+     *
+     * @param hash Hash atual.
+     * @param texto Texto acrescentado.
+     * @return Novo hash.
+     */
+    private static long misturar(final long hash, final String texto) {
+        long resultado = hash;
+        for (int i = 0; i < texto.length(); i++) {
+            resultado = misturar(resultado, texto.charAt(i));
+        }
+        return resultado;
+    }
+
+    /**
+     * Acrescenta um caractere ao hash.
+     *
+     * @param hash Hash atual.
+     * @param c Caractere acrescentado.
+     * @return Novo hash.
+     */
+    private static long misturar(final long hash, final char c) {
+        return (hash ^ c) * FNV_PRIMO;
+    }
+
+    /**
+     * Obtém a quantidade de resultados carregados do arquivo.
+     *
+     * @return Zero se o arquivo não existia, era de outra versão do Parser
+     * ou tinha mais resultados do que a memória permite carregar.
+     */
+    public int getCarregados() {
+        return carregados;
+    }
+
+    /**
+     * Aplica os resultados guardados aos testes do conjunto. Os testes
+     * encontrados são marcados como reaproveitados
+     * ({@link SuiteTestes#isReaproveitado(int)}) e não são realizados pelo
+     * {@link ExecutorTestes}.
+     *
+     * @param suite Testes ainda não realizados.
+     * @return Quantidade de testes reaproveitados.
+     */
+    public int aplicar(final SuiteTestes suite) {
+        int reaproveitados = 0;
+        for (int i = 0; i < suite.getTamanho(); i++) {
+            int posicao = posicao(chave(suite, i));
+            if (chaves[posicao] != 0) {
+                suite.reaproveitar(i, situacoes[posicao] == OBTIDO,
+                        valores[posicao]);
+                reaproveitados++;
+            }
+        }
+        return reaproveitados;
+    }
+
+    /**
+     * Grava o resultado de um teste já realizado (ou reaproveitado) no
+     * arquivo temporário.
+     *
+     * @param suite Conjunto que contém o teste.
+     * @param teste Posição do teste.
+     * @throws IOException Quando não é possível gravar o arquivo.
+     */
+    public void guardar(final SuiteTestes suite, final int teste)
+            throws IOException {
+        if (buffer.remaining() < TAMANHO_REGISTRO) {
+            esvaziar();
+        }
+        buffer.putLong(chave(suite, teste));
+        buffer.putFloat(suite.getObtido(teste));
+        buffer.put(suite.isObtido(teste) ? OBTIDO : 0);
+    }
+
+    /**
+     * Grava no arquivo temporário os resultados do buffer.
+     *
+     * @throws IOException Quando não é possível gravar o arquivo.
+     */
+    private void esvaziar() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            saida.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Substitui o cache pelos resultados guardados nesta execução.
+     *
+     * @throws IOException Quando não é possível gravar o arquivo.
+     */
+    public void concluir() throws IOException {
+        esvaziar();
+        saida.close();
+        Files.move(temporario, arquivo, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        concluido = true;
+    }
+
+    /**
+     * Fecha o arquivo temporário. Se {@link #concluir()} não foi chamado, o
+     * cache anterior é mantido.
+     *
+     * @throws IOException Quando não é possível remover o arquivo
+     * temporário.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!concluido) {
+            try {
+                saida.close();
+            } finally {
+                Files.deleteIfExists(temporario);
+            }
+        }
+    }
+
+}
@@ -4,6 +4,7 @@
  */
 package com.github.wesleywrl.qp;
 
+import com.github.kyriosdata.parser.Expressao;
 import com.github.kyriosdata.parser.Lexer;
 import com.github.kyriosdata.parser.Parser;
 import com.github.kyriosdata.parser.Token;
@@ -13,18 +14,44 @@ import java.util.Map;
 
 /**
  * Utiliza o Parser a ser testado para o cálculo de expressões matemáticas com
- * ou sem variáveis.
+ * ou sem variáveis. Opcionalmente, as expressões interpretadas ficam em um
+ * {@link CacheExpressoes}, de modo que expressões repetidas só são avaliadas.
  *
  * @author Wesley Ramos
  */
 public final class Calcular {
 
+    /**
+     * Cache das expressões já interpretadas, ou null quando desabilitado.
+     */
+    private static volatile CacheExpressoes cache;
+
     /**
      * Impede instancialização de classe utilitária.
      */
     private Calcular() {
     }
 
+    /**
+     * Define o cache de expressões interpretadas.
+     *
+     * @param novo Cache a ser usado. Se null, toda expressão passa novamente
+     * pelas análises léxica e sintática (útil para medir o custo do Parser
+     * sem cache).
+     */
+    public static void setCache(final CacheExpressoes novo) {
+        cache = novo;
+    }
+
+    /**
+     * Obtém o cache de expressões interpretadas.
+     *
+     * @return Cache em uso, ou null se estiver desabilitado.
+     */
+    public static CacheExpressoes getCache() {
+        return cache;
+    }
+
     /**
      * Usa o Parser o valor de uma expressão matemática, com base nos valores
      * das variáveis fornecidas (no formato "x=1" separadas por vírgula).
@@ -39,27 +66,100 @@ public final class Calcular {
             throws Exception {
 
         if (teste.getVariaveis().isEmpty()) {
-            List<Token> tokens = new Lexer(teste.getExpressao()).tokenize();
-            Parser parser = new Parser(tokens);
+            return resultado(teste.getExpressao(), null);
+        }
+        Map<String, Float> ctx = new HashMap<>();
+        for (int i = 0; i < teste.getVariaveisNome().length; i++) {
+            ctx.put(teste.getVariaveisNome()[i], teste.getVariaveisValor()[i]);
+        }
+        return resultado(teste.getExpressao(), ctx);
+    }
+
+    /**
+     * Usa o Parser para obter o valor da expressão de um teste armazenado em
+     * um {@link SuiteTestes}, com base nas variáveis do teste.
+     *
+     * @param suite Conjunto que contém o teste.
+     * @param teste Posição do teste no conjunto.
+     * @return Resultado da expressão do teste, com base em suas variáveis.
+     * @throws Exception Quando a expressão é inválida.
+     */
+    public static float resultadoExpressao(final SuiteTestes suite,
+            final int teste) throws Exception {
+
+        return resultado(suite.getExpressao(teste), contexto(suite, teste));
+    }
+
+    /**
+     * Usa o Parser para obter o valor da expressão de um teste armazenado em
+     * um {@link SuiteTestes}, medindo separadamente as análises léxica e
+     * sintática e a avaliação.
+     *
+     * @param suite Conjunto que contém o teste.
+     * @param teste Posição do teste no conjunto.
+     * @param fases Registro do tempo de cada fase, ou null para não medir.
+     * @return Resultado da expressão do teste, com base em suas variáveis.
+     * @throws Exception Quando a expressão é inválida.
+     */
+    public static float resultadoExpressao(final SuiteTestes suite,
+            final int teste, final FasesParser fases) throws Exception {
+
+        if (fases == null) {
+            return resultadoExpressao(suite, teste);
+        }
+        return resultadoMedido(suite.getExpressao(teste),
+                contexto(suite, teste), suite.getQuantidadeVariaveis(teste),
+                fases);
+    }
+
+    /**
+     * Obtém os valores das variáveis de um teste.
+     *
+     * @param suite Conjunto que contém o teste.
+     * @param teste Posição do teste no conjunto.
+     * @return Valores das variáveis, ou null se o teste não as tiver.
+     */
+    private static Map<String, Float> contexto(final SuiteTestes suite,
+            final int teste) {
+        int quantidade = suite.getQuantidadeVariaveis(teste);
+        if (quantidade == 0) {
+            return null;
+        }
+        Map<String, Float> ctx = new HashMap<>();
+        for (int i = 0; i < quantidade; i++) {
+            ctx.put(suite.getNomeVariavel(teste, i),
+                    suite.getValorVariavel(teste, i));
+        }
+        return ctx;
+    }
+
+    /**
+     * Calcula o valor de uma expressão.
+     *
+     * @param expressao Texto da expressão.
+     * @param ctx Valores das variáveis, ou null se a expressão não tiver
+     * variáveis definidas.
+     * @return Resultado da expressão.
+     * @throws Exception Quando a expressão sem variáveis é inválida.
+     * @throws IllegalArgumentException Quando a expressão com variáveis é
+     * inválida.
+     */
+    private static float resultado(final String expressao,
+            final Map<String, Float> ctx) throws Exception {
+
+        if (ctx == null) {
             float result;
             try {
-                result = parser.expressao().valor();
+                result = interpretar(expressao).valor();
             } catch (IllegalArgumentException iae) {
                 throw new Exception();
             }
             return result;
 
         } else {
-            Map<String, Float> ctx = new HashMap<>();
-            for (int i = 0; i < teste.getVariaveisNome().length; i++) {
-                ctx.put(teste.getVariaveisNome()[i],
-                        teste.getVariaveisValor()[i]);
-            }
-            List<Token> tokens = new Lexer(teste.getExpressao()).tokenize();
-            Parser parser = new Parser(tokens);
             float result;
             try {
-                result = parser.expressao().valor(ctx);
+                result = interpretar(expressao).valor(ctx);
             } catch (IllegalArgumentException iae) {
                 throw new IllegalArgumentException();
             }
@@ -67,4 +167,128 @@ public final class Calcular {
         }
     }
 
+    /**
+     * Calcula o valor de uma expressão como em
+     * {@link #resultado(String, Map)}, registrando o tempo das análises
+     * léxica e sintática ou, se a expressão estiver no cache, o da consulta
+     * que a encontrou, além do tempo da avaliação.
+     *
+     * @param expressao Texto da expressão.
+     * @param ctx Valores das variáveis, ou null se a expressão não tiver
+     * variáveis definidas.
+     * @param variaveis Quantidade de variáveis do teste.
+     * @param fases Registro do tempo de cada fase.
+     * @return Resultado da expressão.
+     * @throws Exception Quando a expressão sem variáveis é inválida.
+     * @throws IllegalArgumentException Quando a expressão com variáveis é
+     * inválida.
+     */
+    private static float resultadoMedido(final String expressao,
+            final Map<String, Float> ctx, final int variaveis,
+            final FasesParser fases) throws Exception {
+
+        CacheExpressoes atual = cache;
+        CacheExpressoes.Interpretada guardada = null;
+        if (atual != null) {
+            long inicio = System.nanoTime();
+            guardada = atual.obter(expressao);
+            if (guardada != null) {
+                if (guardada.isInvalida()) {
+                    throw invalida(ctx);
+                }
+                fases.registrarAcerto(expressao.length(),
+                        guardada.getTokens(), variaveis,
+                        System.nanoTime() - inicio);
+            }
+        }
+        Expressao interpretada;
+        int tokens;
+        if (guardada == null) {
+            try {
+                long inicio = System.nanoTime();
+                List<Token> lista = new Lexer(expressao).tokenize();
+                long lexica = System.nanoTime();
+                interpretada = new Parser(lista).expressao();
+                long sintatica = System.nanoTime();
+                tokens = lista.size();
+                fases.registrarAnalise(expressao.length(), tokens, variaveis,
+                        lexica - inicio, sintatica - lexica);
+            } catch (IllegalArgumentException iae) {
+                if (atual != null) {
+                    atual.guardar(expressao, null, 0);
+                }
+                throw invalida(ctx);
+            }
+            if (atual != null) {
+                atual.guardar(expressao, interpretada, tokens);
+            }
+        } else {
+            interpretada = guardada.getExpressao();
+            tokens = guardada.getTokens();
+        }
+
+        float result;
+        long inicio = System.nanoTime();
+        try {
+            if (ctx == null) {
+                result = interpretada.valor();
+            } else {
+                result = interpretada.valor(ctx);
+            }
+        } catch (IllegalArgumentException iae) {
+            throw invalida(ctx);
+        }
+        fases.registrarAvaliacao(expressao.length(), tokens, variaveis,
+                System.nanoTime() - inicio);
+        return result;
+    }
+
+    /**
+     * Cria a exceção lançada por uma expressão inválida, do mesmo tipo que
+     * em {@link #resultado(String, Map)}.
+     *
+     * @param ctx Valores das variáveis, ou null.
+     * @return Exceção a ser lançada.
+     */
+    private static Exception invalida(final Map<String, Float> ctx) {
+        if (ctx == null) {
+            return new Exception();
+        }
+        return new IllegalArgumentException();
+    }
+
+    /**
+     * Obtém a árvore de uma expressão, do cache ou pelas análises léxica e
+     * sintática do Parser. Expressões que o Parser não consegue interpretar
+     * também são lembradas pelo cache.
+     *
+     * @param expressao Texto da expressão.
+     * @return Expressão interpretada.
+     * @throws IllegalArgumentException Quando a expressão é inválida.
+     */
+    private static Expressao interpretar(final String expressao) {
+        CacheExpressoes atual = cache;
+        if (atual == null) {
+            return new Parser(new Lexer(expressao).tokenize()).expressao();
+        }
+
+        CacheExpressoes.Interpretada guardada = atual.obter(expressao);
+        if (guardada == null) {
+            List<Token> tokens;
+            Expressao interpretada;
+            try {
+                tokens = new Lexer(expressao).tokenize();
+                interpretada = new Parser(tokens).expressao();
+            } catch (IllegalArgumentException iae) {
+                atual.guardar(expressao, null, 0);
+                throw iae;
+            }
+            atual.guardar(expressao, interpretada, tokens.size());
+            return interpretada;
+        } else if (guardada.isInvalida()) {
+            throw new IllegalArgumentException("expressão inválida");
+        }
+        return guardada.getExpressao();
+    }
+
 }
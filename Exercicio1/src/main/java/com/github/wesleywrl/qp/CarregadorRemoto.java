@@ -0,0 +1,305 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import java.io.Closeable;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.UnknownHostException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Obtém vários arquivos remotos ao mesmo tempo, para que a latência da rede
+ * de uma suíte se sobreponha à das demais. Cada servidor (host e porta)
+ * recebe no máximo {@link #getConexoesPorHost()} conexões simultâneas. As
+ * falhas transitórias (tempo esgotado, conexão recusada ou interrompida,
+ * resposta de erro do servidor) são repetidas, com espera crescente entre as
+ * tentativas; arquivos inexistentes e URLs inválidas não.
+ * <p>
+ * O conteúdo é copiado para o disco à medida que chega, sem passar inteiro
+ * pela memória: para o {@link CacheRemoto}, se houver, ou para um arquivo
+ * temporário, removido por {@link #liberar(Path)} ou ao fechar o carregador.
+ *
+ * @author Wesleywrl
+ */
+public final class CarregadorRemoto implements Closeable {
+
+    /**
+     * Quantidade padrão de conexões simultâneas com um mesmo servidor.
+     */
+    public static final int CONEXOES_POR_HOST_PADRAO = 4;
+
+    /**
+     * Quantidade padrão de tentativas de obter cada arquivo.
+     */
+    public static final int TENTATIVAS_PADRAO = 3;
+
+    /**
+     * Quantidade máxima de arquivos obtidos ao mesmo tempo, somando todos os
+     * servidores.
+     */
+    private static final int TRANSFERENCIAS = 32;
+
+    /**
+     * Espera, em milissegundos, antes da segunda tentativa. Dobra a cada
+     * nova tentativa.
+     */
+    private static final long ESPERA_INICIAL = 200;
+
+    /**
+     * Cache em que os arquivos são guardados, ou null para arquivos
+     * temporários.
+     */
+    private final CacheRemoto cache;
+
+    /**
+     * Quantidade máxima de conexões simultâneas com um mesmo servidor.
+     */
+    private final int conexoesPorHost;
+
+    /**
+     * Quantidade de tentativas de obter cada arquivo.
+     */
+    private final int tentativas;
+
+    /**
+     * Threads que obtêm os arquivos agendados.
+     */
+    private final ExecutorService pool;
+
+    /**
+     * Conexões disponíveis de cada servidor, pelo host e porta.
+     */
+    private final Map<String, Semaphore> servidores = new HashMap<>();
+
+    /**
+     * Arquivos temporários ainda não liberados.
+     */
+    private final Set<Path> temporarios =
+            ConcurrentHashMap.<Path>newKeySet();
+
+    /**
+     * Quantidade de tentativas repetidas após uma falha.
+     */
+    private final AtomicInteger repeticoes = new AtomicInteger();
+
+    /**
+     * Cria um carregador.
+     *
+     * @param cache Cache em que os arquivos são guardados, ou null para
+     * guardá-los em arquivos temporários.
+     * @param conexoesPorHost Quantidade máxima de conexões simultâneas com
+     * um mesmo servidor.
+     * @param tentativas Quantidade de tentativas de obter cada arquivo.
+     */
+    public CarregadorRemoto(final CacheRemoto cache,
+            final int conexoesPorHost, final int tentativas) {
+        if (conexoesPorHost <= 0 || tentativas <= 0) {
+            throw new IllegalArgumentException("Quantidade de conexões ou "
+                    + "de tentativas inválida.");
+        }
+        this.cache = cache;
+        this.conexoesPorHost = conexoesPorHost;
+        this.tentativas = tentativas;
+        this.pool = Executors.newFixedThreadPool(TRANSFERENCIAS,
+                new ExecutorTestes.FabricaThreads("qp-remoto-"));
+    }
+
+    /**
+     * Agenda a obtenção de um arquivo, que começa assim que houver uma
+     * conexão disponível com o seu servidor.
+     *
+     * @param urlPath Endereço do arquivo.
+     * @return Local da cópia do arquivo, quando obtida.
+     */
+    public Future<Path> agendar(final String urlPath) {
+        return pool.submit(new Callable<Path>() {
+            @Override
+            public Path call() throws IOException {
+                return obter(urlPath);
+            }
+        });
+    }
+
+    /**
+     * Obtém um arquivo na thread atual, respeitando o limite de conexões do
+     * servidor e repetindo as falhas transitórias.
+     *
+     * @param urlPath Endereço do arquivo.
+     * @return Local da cópia do arquivo.
+     * @throws FileNotFoundException Quando o servidor não tem o arquivo.
+     * @throws MalformedURLException Quando a URL for inválida.
+     * @throws IOException Quando todas as tentativas falharem.
+     */
+    public Path obter(final String urlPath) throws IOException {
+        Semaphore conexoes = conexoes(new URL(urlPath));
+        try {
+            conexoes.acquire();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Transferência interrompida.");
+        }
+        try {
+            for (int tentativa = 1;; tentativa++) {
+                try {
+                    return transferir(urlPath);
+                } catch (FileNotFoundException | MalformedURLException
+                        | UnknownHostException ex) {
+                    throw ex;
+                } catch (IOException ex) {
+                    if (tentativa >= tentativas) {
+                        throw ex;
+                    }
+                }
+                repeticoes.incrementAndGet();
+                esperar(tentativa);
+            }
+        } finally {
+            conexoes.release();
+        }
+    }
+
+    /**
+     * Obtém as conexões disponíveis do servidor de uma URL.
+     *
+     * @param url Endereço de um arquivo do servidor.
+     * @return Conexões disponíveis do servidor.
+     */
+    private synchronized Semaphore conexoes(final URL url) {
+        String servidor = url.getHost() + ":" + url.getPort();
+        Semaphore conexoes = servidores.get(servidor);
+        if (conexoes == null) {
+            conexoes = new Semaphore(conexoesPorHost, true);
+            servidores.put(servidor, conexoes);
+        }
+        return conexoes;
+    }
+
+    /**
+     * Espera antes de uma nova tentativa: o dobro da espera anterior, com
+     * uma variação aleatória de até 50% para que as tentativas de vários
+     * arquivos não coincidam.
+     *
+     * @param tentativa Tentativa que falhou (1 para a primeira).
+     * @throws InterruptedIOException Quando a espera é interrompida.
+     */
+    private static void esperar(final int tentativa)
+            throws InterruptedIOException {
+        long espera = ESPERA_INICIAL << (tentativa - 1);
+        espera += ThreadLocalRandom.current().nextLong(espera / 2 + 1);
+        try {
+            Thread.sleep(espera);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Transferência interrompida.");
+        }
+    }
+
+    /**
+     * Faz uma tentativa de obter o arquivo.
+     *
+     * @param urlPath Endereço do arquivo.
+     * @return Local da cópia do arquivo.
+     * @throws IOException Quando não for possível obter o arquivo.
+     */
+    private Path transferir(final String urlPath) throws IOException {
+        if (cache != null) {
+            return cache.obter(urlPath);
+        }
+        HttpURLConnection connection = Ler.conectar(urlPath);
+        try {
+            int codigo = connection.getResponseCode();
+            if (codigo == HttpURLConnection.HTTP_NOT_FOUND
+                    || codigo == HttpURLConnection.HTTP_GONE) {
+                throw new FileNotFoundException(urlPath);
+            }
+            if (codigo != HttpURLConnection.HTTP_OK) {
+                throw new IOException("Resposta inesperada do servidor: "
+                        + codigo + ".");
+            }
+            Path temporario = Files.createTempFile("qp-remoto", ".txt");
+            temporarios.add(temporario);
+            try (InputStream entrada = connection.getInputStream()) {
+                Files.copy(entrada, temporario,
+                        StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException ex) {
+                liberar(temporario);
+                throw ex;
+            }
+            return temporario;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * Informa que a cópia de um arquivo não é mais necessária. Cópias
+     * temporárias são removidas; as do cache permanecem, mas deixam de estar
+     * reservadas e podem ser removidas por falta de espaço.
+     *
+     * @param copia Local obtido deste carregador.
+     * @throws IOException Quando não for possível remover a cópia.
+     */
+    public void liberar(final Path copia) throws IOException {
+        if (temporarios.remove(copia)) {
+            Files.deleteIfExists(copia);
+        } else if (cache != null) {
+            cache.liberar(copia);
+        }
+    }
+
+    /**
+     * Obtém a quantidade máxima de conexões simultâneas com um mesmo
+     * servidor.
+     *
+     * @return Quantidade de conexões.
+     */
+    public int getConexoesPorHost() {
+        return conexoesPorHost;
+    }
+
+    /**
+     * Obtém a quantidade de tentativas repetidas após uma falha transitória,
+     * somando todos os arquivos.
+     *
+     * @return Quantidade de repetições.
+     */
+    public int getRepeticoes() {
+        return repeticoes.get();
+    }
+
+    /**
+     * Interrompe as transferências em andamento e remove as cópias
+     * temporárias não liberadas.
+     *
+     * @throws IOException Quando não for possível remover alguma cópia.
+     */
+    @Override
+    public void close() throws IOException {
+        pool.shutdownNow();
+        for (Path copia : temporarios) {
+            liberar(copia);
+        }
+    }
+
+}
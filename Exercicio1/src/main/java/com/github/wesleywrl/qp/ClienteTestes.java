@@ -0,0 +1,237 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cliente de {@link ServidorTestes}: aceita os mesmos parâmetros de
+ * {@link Main#main(String[])}, mas pede ao servidor, já aquecido, a
+ * realização da suíte, exibindo as mensagens recebidas e finalizando com o
+ * mesmo código de saída. Quando não há servidor em execução, a suíte é
+ * realizada neste processo. Em ambos os casos, os relatórios são salvos no
+ * diretório atual. O token exigido pelo servidor é lido do seu arquivo de
+ * autorização ({@link ServidorTestes#arquivoToken(Path, int)}).
+ *
+ * @author Wesleywrl
+ */
+public final class ClienteTestes {
+
+    /**
+     * Parâmetro que pede a finalização do servidor.
+     */
+    private static final String OPCAO_PARAR = "-parar";
+
+    /**
+     * Impede instancialização de classe utilitária.
+     */
+    private ClienteTestes() {
+    }
+
+    /**
+     * Pede ao servidor a realização de uma suíte de testes.
+     *
+     * @param args Parâmetros, como em {@link Main#main(String[])}, além de
+     * "-porta=N" (porta do servidor, padrão
+     * {@link ServidorTestes#PORTA_PADRAO}). Com apenas "-parar", o servidor é
+     * finalizado.
+     */
+    public static void main(final String[] args) {
+        int porta = ServidorTestes.PORTA_PADRAO;
+        List<String> parametros = new ArrayList<>();
+        for (String opcao : args) {
+            if (opcao.startsWith(ServidorTestes.OPCAO_PORTA)) {
+                try {
+                    porta = ServidorTestes.porta(opcao);
+                } catch (IllegalArgumentException ex) {
+                    System.out.println(ex.getMessage());
+                    System.exit(Main.SAIDA_ERRO);
+                }
+            } else {
+                parametros.add(opcao);
+            }
+        }
+        if (parametros.size() == 1
+                && parametros.get(0).equals(OPCAO_PARAR)) {
+            System.exit(parar(porta, System.out));
+        }
+        System.exit(executar(porta,
+                parametros.toArray(new String[parametros.size()]),
+                System.out));
+    }
+
+    /**
+     * Pede ao servidor a realização de uma suíte de testes. Os caminhos
+     * relativos são resolvidos a partir do diretório atual deste processo,
+     * onde também são salvos os relatórios.
+     *
+     * @param porta Porta do servidor.
+     * @param args Parâmetros, como em {@link Main#main(String[])}.
+     * @param saida Destino das mensagens do programa.
+     * @return Código de saída, como em {@link Main#executar(String[],
+     * PrintStream)}.
+     */
+    public static int executar(final int porta, final String[] args,
+            final PrintStream saida) {
+        return executar(porta, ServidorTestes.diretorioTokens(),
+                Paths.get("").toAbsolutePath(), args, saida);
+    }
+
+    /**
+     * Pede ao servidor a realização de uma suíte de testes.
+     *
+     * @param porta Porta do servidor.
+     * @param tokens Diretório do arquivo de autorização do servidor.
+     * @param diretorio Diretório a partir do qual os caminhos relativos são
+     * resolvidos e no qual os relatórios são salvos.
+     * @param args Parâmetros, como em {@link Main#main(String[])}.
+     * @param saida Destino das mensagens do programa.
+     * @return Código de saída, como em {@link Main#executar(String[],
+     * PrintStream)}.
+     */
+    static int executar(final int porta, final Path tokens,
+            final Path diretorio, final String[] args,
+            final PrintStream saida) {
+        StringBuilder pedido = new StringBuilder(ServidorTestes.EXECUTAR);
+        pedido.append(ServidorTestes.SEPARADOR).append(diretorio);
+        for (String arg : args) {
+            if (arg.indexOf(ServidorTestes.SEPARADOR) >= 0
+                    || arg.indexOf('\n') >= 0 || arg.indexOf('\r') >= 0) {
+                saida.println("Parâmetro inválido: " + arg + ".");
+                return Main.SAIDA_ERRO;
+            }
+            pedido.append(ServidorTestes.SEPARADOR).append(arg);
+        }
+        try {
+            return enviar(porta, tokens, pedido.toString(), saida);
+        } catch (ConnectException | NoSuchFileException ex) {
+            saida.println("Servidor não encontrado na porta " + porta
+                    + "; a suíte será realizada neste processo.");
+            return executarLocal(diretorio, args, saida);
+        } catch (IOException ex) {
+            saida.println("Falha na comunicação com o servidor: "
+                    + ex.getMessage());
+            return Main.SAIDA_ERRO;
+        }
+    }
+
+    /**
+     * Realiza a suíte de testes neste processo, salvando os relatórios no
+     * diretório fornecido, como o servidor faria.
+     *
+     * @param diretorio Diretório em que os relatórios são salvos.
+     * @param args Parâmetros, como em {@link Main#main(String[])}.
+     * @param saida Destino das mensagens do programa.
+     * @return Código de saída, como em {@link Main#executar(String[],
+     * PrintStream)}.
+     */
+    private static int executarLocal(final Path diretorio,
+            final String[] args, final PrintStream saida) {
+        Configuracao config;
+        try {
+            config = Configuracao.interpretar(args);
+        } catch (IllegalArgumentException ex) {
+            saida.println(ex.getMessage());
+            return Main.SAIDA_ERRO;
+        }
+        config.resolver(diretorio);
+        config.setDiretorioRelatorio(diretorio);
+        return Main.executar(config, saida);
+    }
+
+    /**
+     * Pede a finalização do servidor.
+     *
+     * @param porta Porta do servidor.
+     * @param saida Destino das mensagens do servidor.
+     * @return {@link Main#SAIDA_SUCESSO}, ou {@link Main#SAIDA_ERRO} se não
+     * foi possível se comunicar com o servidor.
+     */
+    public static int parar(final int porta, final PrintStream saida) {
+        return parar(porta, ServidorTestes.diretorioTokens(), saida);
+    }
+
+    /**
+     * Pede a finalização do servidor.
+     *
+     * @param porta Porta do servidor.
+     * @param tokens Diretório do arquivo de autorização do servidor.
+     * @param saida Destino das mensagens do servidor.
+     * @return {@link Main#SAIDA_SUCESSO}, ou {@link Main#SAIDA_ERRO} se não
+     * foi possível se comunicar com o servidor.
+     */
+    static int parar(final int porta, final Path tokens,
+            final PrintStream saida) {
+        try {
+            return enviar(porta, tokens, ServidorTestes.PARAR, saida);
+        } catch (IOException ex) {
+            saida.println("Servidor não encontrado na porta " + porta + ".");
+            return Main.SAIDA_ERRO;
+        }
+    }
+
+    /**
+     * Envia um pedido ao servidor, precedido do token, e repassa as
+     * mensagens da resposta.
+     *
+     * @param porta Porta do servidor.
+     * @param tokens Diretório do arquivo de autorização do servidor.
+     * @param pedido Pedido, em uma linha.
+     * @param saida Destino das mensagens da resposta.
+     * @return Código de saída informado pelo servidor.
+     * @throws NoSuchFileException Quando não há arquivo de autorização, ou
+     * seja, nenhum servidor foi iniciado na porta.
+     * @throws IOException Quando não é possível se comunicar com o servidor
+     * ou a resposta está incompleta.
+     */
+    private static int enviar(final int porta, final Path tokens,
+            final String pedido, final PrintStream saida) throws IOException {
+        String token = new String(Files.readAllBytes(
+                ServidorTestes.arquivoToken(tokens, porta)),
+                StandardCharsets.UTF_8).trim();
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(),
+                porta)) {
+            Writer escritor = new OutputStreamWriter(socket.getOutputStream(),
+                    StandardCharsets.UTF_8);
+            escritor.write(token);
+            escritor.write(ServidorTestes.SEPARADOR);
+            escritor.write(pedido);
+            escritor.write('\n');
+            escritor.flush();
+
+            BufferedReader leitor = new BufferedReader(new InputStreamReader(
+                    socket.getInputStream(), StandardCharsets.UTF_8));
+            String linha;
+            while ((linha = leitor.readLine()) != null) {
+                if (linha.startsWith(ServidorTestes.FIM)) {
+                    try {
+                        return Integer.parseInt(linha.substring(
+                                ServidorTestes.FIM.length()));
+                    } catch (NumberFormatException ex) {
+                        throw new IOException("Resposta inválida: " + linha);
+                    }
+                }
+                saida.println(linha);
+            }
+        }
+        throw new IOException("Conexão encerrada antes do fim da resposta.");
+    }
+
+}
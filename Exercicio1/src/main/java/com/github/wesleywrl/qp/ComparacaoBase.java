@@ -0,0 +1,429 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Compara o desempenho da execução atual com o de uma execução anterior (a
+ * base), gravada em um relatório binário ({@link EscritorBinario}). Os testes
+ * são emparelhados pela posição, à medida que são contabilizados, portanto a
+ * comparação também funciona em fluxo. Um teste só é comparado se a sua
+ * expressão for a mesma do teste de mesma posição na base; caso contrário
+ * (linhas inseridas, removidas ou alteradas), é contado entre os testes sem
+ * base.
+ * <p>
+ * O tempo médio por teste regrediu quando o limite inferior do intervalo de
+ * confiança de 95% da execução atual supera, em mais que o orçamento, o
+ * limite superior do intervalo da base. Com uma única iteração medida os
+ * intervalos não têm largura, e a comparação é direta; com
+ * "-iteracoes=N" a variação entre iterações é descontada. As médias
+ * consideram apenas os testes comparados, medidos nas duas execuções: o
+ * tempo de cada iteração é reduzido à fração, entre os tempos dos testes
+ * medidos, que cabe aos comparados. Assim, execuções incrementais, atuais ou
+ * base, que só medem os testes recalculados, também são comparáveis.
+ * <p>
+ * Cada teste é comparado pela razão entre o seu tempo atual e o da base.
+ * Como cada tempo é uma única medição, a variação entre testes é estimada
+ * pela própria distribuição das razões: um teste regrediu quando a sua razão
+ * supera a mediana em mais de {@link #DESVIOS} desvios (estimados pelo
+ * intervalo interquartil), e também supera o orçamento. Testes listados não
+ * fazem a execução falhar, pois medições isoladas são sujeitas a pausas da
+ * JVM; apenas o tempo médio decide a regressão.
+ *
+ * @author Wesleywrl
+ */
+public final class ComparacaoBase implements Closeable {
+
+    /**
+     * Orçamento padrão: aumento de tempo tolerado, em fração (10%).
+     */
+    public static final double ORCAMENTO_PADRAO = 0.1;
+
+    /**
+     * Quantidade de desvios acima da mediana das razões a partir da qual um
+     * teste regrediu.
+     */
+    static final double DESVIOS = 3.0;
+
+    /**
+     * Razão entre o intervalo interquartil e o desvio padrão de uma
+     * distribuição normal.
+     */
+    private static final double INTERQUARTIL_POR_DESVIO = 1.349;
+
+    /**
+     * Escala das razões registradas (milésimos).
+     */
+    private static final long ESCALA = 1000;
+
+    /**
+     * Menor aumento de tempo, em nanossegundos, considerado em um teste.
+     * Abaixo disso, a diferença está na resolução do relógio.
+     */
+    private static final long DIFERENCA_MINIMA = 1000;
+
+    /**
+     * Quantidade máxima de testes regredidos listados no relatório.
+     */
+    private static final int LISTADOS = 20;
+
+    /**
+     * Percentil do primeiro quartil.
+     */
+    private static final double PRIMEIRO_QUARTIL = 0.25;
+
+    /**
+     * Percentil da mediana.
+     */
+    private static final double MEDIANA = 0.5;
+
+    /**
+     * Percentil do terceiro quartil.
+     */
+    private static final double TERCEIRO_QUARTIL = 0.75;
+
+    /**
+     * Relatório da execução base.
+     */
+    private final LeitorBinario base;
+
+    /**
+     * Aumento de tempo tolerado, em fração.
+     */
+    private final double orcamento;
+
+    /**
+     * Razões (em milésimos) de todos os testes emparelhados.
+     */
+    private final Histograma razoes = new Histograma();
+
+    /**
+     * Testes cuja razão supera o orçamento, com as maiores razões.
+     */
+    private final Latencias candidatos = new Latencias(LISTADOS);
+
+    /**
+     * Quantidade de testes da execução atual sem correspondente na base, ou
+     * cuja expressão difere da do teste de mesma posição na base.
+     */
+    private long semBase;
+
+    /**
+     * Soma dos tempos, na execução atual, dos testes comparados, em
+     * nanossegundos.
+     */
+    private long comparadosAtual;
+
+    /**
+     * Soma dos tempos, na base, dos testes comparados, em nanossegundos.
+     */
+    private long comparadosBase;
+
+    /**
+     * Soma dos tempos de todos os testes medidos na execução atual, em
+     * nanossegundos.
+     */
+    private long medidosAtual;
+
+    /**
+     * Soma dos tempos de todos os testes medidos na base, em nanossegundos.
+     */
+    private long medidosBase;
+
+    /**
+     * Razão (em milésimos) a partir da qual um teste regrediu.
+     */
+    private long limite;
+
+    /**
+     * Quantidade de testes regredidos.
+     */
+    private long regredidos;
+
+    /**
+     * Tempo médio por teste na base, em milissegundos.
+     */
+    private double mediaBase;
+
+    /**
+     * Margem de erro do tempo médio por teste na base, em milissegundos.
+     */
+    private double margemBase;
+
+    /**
+     * Tempo médio por teste na execução atual, em milissegundos.
+     */
+    private double mediaAtual;
+
+    /**
+     * Margem de erro do tempo médio por teste na execução atual.
+     */
+    private double margemAtual;
+
+    /**
+     * Se verdadeiro, o tempo médio regrediu além do orçamento.
+     */
+    private boolean regressao;
+
+    /**
+     * Abre o relatório binário da execução base.
+     *
+     * @param arquivo Relatório binário da base.
+     * @param orcamento Aumento de tempo tolerado, em fração (0.1 para 10%).
+     * @throws IOException Quando não é possível ler o relatório.
+     */
+    public ComparacaoBase(final Path arquivo, final double orcamento)
+            throws IOException {
+        if (!(orcamento >= 0)) {
+            throw new IllegalArgumentException("Orçamento inválido.");
+        }
+        this.base = new LeitorBinario(arquivo);
+        this.orcamento = orcamento;
+    }
+
+    /**
+     * Compara um teste já realizado com o teste de mesma posição na base.
+     * Deve ser chamado para todos os testes, na ordem da suíte. Testes sem
+     * tempo medido em alguma das execuções (como os reaproveitados) não são
+     * comparados, e testes cuja expressão difere da base são contados entre
+     * os sem base.
+     *
+     * @param posicao Posição do teste na execução completa.
+     * @param suite Conjunto que contém o teste.
+     * @param teste Posição do teste no conjunto.
+     * @throws IOException Quando não é possível ler a base.
+     */
+    public void comparar(final long posicao, final SuiteTestes suite,
+            final int teste) throws IOException {
+        long atual = suite.getTempo(teste);
+        if (atual > 0) {
+            medidosAtual += atual;
+        }
+        if (!base.avancar()) {
+            semBase++;
+            return;
+        }
+        long anterior = base.getTempo();
+        if (anterior > 0) {
+            medidosBase += anterior;
+        }
+        if (!base.getExpressao().equals(suite.getExpressao(teste))) {
+            semBase++;
+            return;
+        }
+        if (anterior <= 0 || atual <= 0) {
+            return;
+        }
+        comparadosAtual += atual;
+        comparadosBase += anterior;
+        long razao = atual * ESCALA / anterior;
+        razoes.registrar(razao);
+        if (atual - anterior >= DIFERENCA_MINIMA
+                && razao > ESCALA * (1 + orcamento)) {
+            candidatos.registrar(posicao, suite.getExpressao(teste), razao);
+        }
+    }
+
+    /**
+     * Conclui a comparação, após todos os testes, decidindo se houve
+     * regressão. Os testes da base além dos da execução atual são lidos
+     * apenas para somar os seus tempos.
+     *
+     * @param atual Informações gerais da execução atual.
+     * @throws IOException Quando não é possível ler a base.
+     */
+    public void concluir(final Estatisticas atual) throws IOException {
+        while (base.avancar()) {
+            if (base.getTempo() > 0) {
+                medidosBase += base.getTempo();
+            }
+        }
+        AmostraTempos amostra = atual.getIteracoes();
+        long comparados = Math.max(1, razoes.getQuantidade());
+        double fracaoAtual = fracao(comparadosAtual, medidosAtual)
+                / comparados;
+        double fracaoBase = fracao(comparadosBase, medidosBase) / comparados;
+        mediaAtual = amostra.getMedia() * fracaoAtual;
+        margemAtual = amostra.getMargemErro() * fracaoAtual;
+        mediaBase = base.getTempoTotal() * fracaoBase;
+        margemBase = base.getMargemErro() * fracaoBase;
+        regressao = razoes.getQuantidade() > 0
+                && mediaAtual - margemAtual
+                > (mediaBase + margemBase) * (1 + orcamento);
+
+        long mediana = razoes.percentil(MEDIANA);
+        double desvio = (razoes.percentil(TERCEIRO_QUARTIL)
+                - razoes.percentil(PRIMEIRO_QUARTIL))
+                / INTERQUARTIL_POR_DESVIO;
+        limite = Math.max((long) (ESCALA * (1 + orcamento)),
+                (long) (mediana + DESVIOS * desvio));
+        regredidos = candidatos.getHistograma().quantidadeAcima(limite);
+    }
+
+    /**
+     * Obtém a fração do tempo dos testes medidos que cabe aos comparados.
+     *
+     * @param comparados Soma dos tempos dos testes comparados.
+     * @param medidos Soma dos tempos de todos os testes medidos.
+     * @return Fração entre 0 e 1, ou zero se nenhum teste foi medido.
+     */
+    private static double fracao(final long comparados, final long medidos) {
+        if (medidos <= 0) {
+            return 0;
+        }
+        return (double) comparados / medidos;
+    }
+
+    /**
+     * Indica se o tempo médio regrediu além do orçamento. Só é válido após
+     * {@link #concluir(Estatisticas)}.
+     *
+     * @return Verdadeiro se a execução atual é mais lenta que a base.
+     */
+    public boolean isRegressao() {
+        return regressao;
+    }
+
+    /**
+     * Obtém o aumento de tempo tolerado.
+     *
+     * @return Orçamento em fração.
+     */
+    public double getOrcamento() {
+        return orcamento;
+    }
+
+    /**
+     * Obtém o tempo médio por teste na base.
+     *
+     * @return Tempo em milissegundos.
+     */
+    public double getMediaBase() {
+        return mediaBase;
+    }
+
+    /**
+     * Obtém a margem de erro (95%) do tempo médio por teste na base.
+     *
+     * @return Margem em milissegundos.
+     */
+    public double getMargemBase() {
+        return margemBase;
+    }
+
+    /**
+     * Obtém o tempo médio por teste na execução atual.
+     *
+     * @return Tempo em milissegundos.
+     */
+    public double getMediaAtual() {
+        return mediaAtual;
+    }
+
+    /**
+     * Obtém a margem de erro (95%) do tempo médio por teste na execução
+     * atual.
+     *
+     * @return Margem em milissegundos.
+     */
+    public double getMargemAtual() {
+        return margemAtual;
+    }
+
+    /**
+     * Obtém a quantidade de testes da base.
+     *
+     * @return Quantidade de testes.
+     */
+    public long getTestesBase() {
+        return base.getTestes();
+    }
+
+    /**
+     * Obtém a quantidade de testes comparados (emparelhados, com a mesma
+     * expressão e com tempo medido nas duas execuções).
+     *
+     * @return Quantidade de testes comparados.
+     */
+    public long getComparados() {
+        return razoes.getQuantidade();
+    }
+
+    /**
+     * Obtém a quantidade de testes da execução atual sem correspondente na
+     * base: além dos testes da base ou com expressão diferente da do teste
+     * de mesma posição nela.
+     *
+     * @return Quantidade de testes sem base.
+     */
+    public long getSemBase() {
+        return semBase;
+    }
+
+    /**
+     * Obtém a razão entre os tempos a partir da qual um teste regrediu.
+     *
+     * @return Razão (1.5 indica 50% mais lento).
+     */
+    public double getLimite() {
+        return (double) limite / ESCALA;
+    }
+
+    /**
+     * Obtém a quantidade de testes regredidos (com a precisão do
+     * histograma das razões).
+     *
+     * @return Quantidade de testes regredidos.
+     */
+    public long getRegredidos() {
+        return regredidos;
+    }
+
+    /**
+     * Obtém os testes regredidos de maior razão, na ordem decrescente.
+     * {@link Latencias#getValor(int)} é a razão em milésimos.
+     *
+     * @return Posições, em {@link #getCandidatos()}, dos testes regredidos.
+     */
+    public int[] ordemRegredidos() {
+        int[] ordem = candidatos.ordemLentos();
+        int quantidade = 0;
+        while (quantidade < ordem.length
+                && candidatos.getValor(ordem[quantidade]) > limite) {
+            quantidade++;
+        }
+        return Arrays.copyOf(ordem, quantidade);
+    }
+
+    /**
+     * Obtém a razão entre o tempo atual e o da base de um teste listado.
+     *
+     * @param candidato Posição em {@link #getCandidatos()}.
+     * @return Razão (1.5 indica 50% mais lento).
+     */
+    public double getRazao(final int candidato) {
+        return (double) candidatos.getValor(candidato) / ESCALA;
+    }
+
+    /**
+     * Obtém os testes cuja razão superou o orçamento, entre os quais estão
+     * os listados por {@link #ordemRegredidos()}.
+     *
+     * @return Testes mais lentos que a base.
+     */
+    public Latencias getCandidatos() {
+        return candidatos;
+    }
+
+    @Override
+    public void close() throws IOException {
+        base.close();
+    }
+
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+/**
+ * Compara dois relatórios binários ({@link EscritorBinario}) de execuções
+ * sobre o mesmo arquivo de testes. Os testes são emparelhados pela posição,
+ * e os dois arquivos são percorridos juntos, portanto a comparação não
+ * depende da memória disponível. São apontados os testes que passaram a
+ * falhar, os que passaram a ter sucesso e os que obtiveram outro valor, além
+ * da variação do tempo e da memória da execução.
+ *
+ * @author Wesleywrl
+ */
+public final class CompararBinarios {
+
+    /**
+     * Código de saída quando os resultados dos testes são iguais.
+     */
+    public static final int IGUAIS = 0;
+
+    /**
+     * Código de saída quando algum resultado é diferente.
+     */
+    public static final int DIFERENTES = 1;
+
+    /**
+     * Código de saída quando algum relatório não pôde ser lido.
+     */
+    public static final int ERRO = 2;
+
+    /**
+     * Quantidade máxima de testes diferentes listados individualmente.
+     */
+    private static final int MAXIMO_LISTADOS = 20;
+
+    /**
+     * Fator de conversão de razão para porcentagem.
+     */
+    private static final double PORCENTAGEM = 100.0;
+
+    /**
+     * Impede instancialização de classe utilitária.
+     */
+    private CompararBinarios() {
+    }
+
+    /**
+     * Compara dois relatórios binários e finaliza o programa com
+     * {@link #IGUAIS}, {@link #DIFERENTES} ou {@link #ERRO}.
+     *
+     * @param args Local do relatório anterior e do relatório atual.
+     */
+    public static void main(final String[] args) {
+        if (args.length != 2) {
+            System.out.println("Uso: CompararBinarios anterior.qpb "
+                    + "atual.qpb");
+            System.exit(ERRO);
+        }
+        System.exit(comparar(Paths.get(args[0]), Paths.get(args[1]),
+                System.out));
+    }
+
+    /**
+     * Compara dois relatórios binários, escrevendo as diferenças encontradas.
+     *
+     * @param anterior Relatório da execução anterior.
+     * @param atual Relatório da execução atual.
+     * @param saida Destino da descrição das diferenças.
+     * @return {@link #IGUAIS}, {@link #DIFERENTES} ou {@link #ERRO}.
+     */
+    public static int comparar(final Path anterior, final Path atual,
+            final PrintStream saida) {
+        try (LeitorBinario a = new LeitorBinario(anterior);
+                LeitorBinario b = new LeitorBinario(atual)) {
+            return comparar(a, b, saida);
+        } catch (IOException ex) {
+            saida.println("Não foi possível ler o relatório binário: "
+                    + ex.getMessage());
+            return ERRO;
+        }
+    }
+
+    /**
+     * Percorre os dois relatórios juntos, comparando cada teste.
+     *
+     * @param a Relatório da execução anterior.
+     * @param b Relatório da execução atual.
+     * @param saida Destino da descrição das diferenças.
+     * @return {@link #IGUAIS} ou {@link #DIFERENTES}.
+     * @throws IOException Quando não é possível ler algum relatório.
+     */
+    private static int comparar(final LeitorBinario a, final LeitorBinario b,
+            final PrintStream saida) throws IOException {
+        long regressoes = 0;
+        long correcoes = 0;
+        long alterados = 0;
+        long listados = 0;
+        while (a.avancar() && b.avancar()) {
+            String tipo;
+            if (a.getSucesso() && !b.getSucesso()) {
+                regressoes++;
+                tipo = "FALHA";
+            } else if (!a.getSucesso() && b.getSucesso()) {
+                correcoes++;
+                tipo = "CORRIGIDO";
+            } else if (a.isObtido() != b.isObtido()
+                    || Float.floatToIntBits(a.getObtido())
+                    != Float.floatToIntBits(b.getObtido())) {
+                alterados++;
+                tipo = "ALTERADO";
+            } else {
+                continue;
+            }
+            if (listados < MAXIMO_LISTADOS) {
+                listados++;
+                saida.println(tipo + " teste " + b.getOrdem() + " "
+                        + b.getExpressao() + ": " + obtido(a) + " -> "
+                        + obtido(b) + " (esperado " + b.getEsperado()
+                        + ")");
+            }
+        }
+        long diferentes = regressoes + correcoes + alterados;
+        if (diferentes > listados) {
+            saida.println("... e mais " + (diferentes - listados)
+                    + " testes diferentes.");
+        }
+
+        saida.println("Testes: " + a.getTestes() + " -> " + b.getTestes());
+        saida.println("Falhas: " + a.getFalhas() + " -> " + b.getFalhas());
+        saida.println("Passaram a falhar: " + regressoes
+                + "; passaram a ter sucesso: " + correcoes
+                + "; outro valor obtido: " + alterados);
+        saida.println("Tempo total (ms): " + a.getTempoTotal() + " -> "
+                + b.getTempoTotal() + variacao(a.getTempoTotal(),
+                        b.getTempoTotal()));
+        saida.println("Memória consumida (bytes): " + a.getMemoriaConsumida()
+                + " -> " + b.getMemoriaConsumida()
+                + variacao(a.getMemoriaConsumida(),
+                        b.getMemoriaConsumida()));
+
+        if (diferentes > 0 || a.getTestes() != b.getTestes()) {
+            return DIFERENTES;
+        }
+        return IGUAIS;
+    }
+
+    /**
+     * Descreve o valor obtido pelo teste atual de um relatório.
+     *
+     * @param leitor Relatório posicionado no teste.
+     * @return Valor obtido, ou "-" se o teste não obteve valor.
+     */
+    private static String obtido(final LeitorBinario leitor) {
+        if (leitor.isObtido()) {
+            return Float.toString(leitor.getObtido());
+        }
+        return "-";
+    }
+
+    /**
+     * Descreve a variação percentual entre dois valores.
+     *
+     * @param anterior Valor anterior.
+     * @param atual Valor atual.
+     * @return Variação entre parênteses, ou texto vazio se o valor anterior
+     * for zero.
+     */
+    private static String variacao(final double anterior,
+            final double atual) {
+        if (anterior == 0) {
+            return "";
+        }
+        return String.format(Locale.ROOT, " (%+.1f%%)",
+                (atual - anterior) / anterior * PORCENTAGEM);
+    }
+
+}
@@ -0,0 +1,965 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Reúne as opções de execução do programa, obtidas a partir dos parâmetros
+ * fornecidos na linha de comando.
+ *
+ * @author Wesleywrl
+ */
+public final class Configuracao {
+
+    /**
+     * Prefixo da opção que habilita a execução paralela dos testes.
+     */
+    private static final String OPCAO_PARALELO = "-p";
+
+    /**
+     * Prefixo da opção que define o diretório do cache de arquivos remotos.
+     */
+    private static final String OPCAO_CACHE_REMOTO = "-cache-remoto=";
+
+    /**
+     * Prefixo da opção que define o limite, em MiB, do cache de arquivos
+     * remotos.
+     */
+    private static final String OPCAO_CACHE_REMOTO_MAX = "-cache-remoto-max=";
+
+    /**
+     * Prefixo da opção que define a capacidade do cache de expressões.
+     */
+    private static final String OPCAO_CACHE = "-cache=";
+
+    /**
+     * Prefixo da opção que define a quantidade de iterações de aquecimento.
+     */
+    private static final String OPCAO_AQUECIMENTO = "-aquecimento=";
+
+    /**
+     * Prefixo da opção que define a quantidade de iterações medidas.
+     */
+    private static final String OPCAO_ITERACOES = "-iteracoes=";
+
+    /**
+     * Prefixo da opção que define o relatório binário da execução base.
+     */
+    private static final String OPCAO_BASE = "-base=";
+
+    /**
+     * Prefixo da opção que define o orçamento de desempenho, em porcentagem.
+     */
+    private static final String OPCAO_ORCAMENTO = "-orcamento=";
+
+    /**
+     * Opção que define a quantidade de conexões simultâneas com um mesmo
+     * servidor na execução em lote.
+     */
+    private static final String OPCAO_CONEXOES = "-conexoes=";
+
+    /**
+     * Opção que define a quantidade de tentativas de obter cada arquivo
+     * remoto na execução em lote.
+     */
+    private static final String OPCAO_TENTATIVAS = "-tentativas=";
+
+    /**
+     * Opção que define o tempo limite, em milissegundos, da realização de
+     * cada teste.
+     */
+    private static final String OPCAO_LIMITE = "-limite=";
+
+    /**
+     * Opção que define o tamanho, em KiB, da pilha das threads que realizam
+     * as expressões.
+     */
+    private static final String OPCAO_PILHA = "-pilha=";
+
+    /**
+     * Opção que define a quantidade de processos que realizam as
+     * expressões.
+     */
+    private static final String OPCAO_PROCESSOS = "-processos=";
+
+    /**
+     * Opção que define o arquivo da gravação do Java Flight Recorder.
+     */
+    private static final String OPCAO_JFR = "-jfr=";
+
+    /**
+     * Fator de conversão de porcentagem para fração.
+     */
+    private static final double PORCENTAGEM = 100.0;
+
+    /**
+     * Quantidade de bytes em um MiB.
+     */
+    private static final long BYTES_POR_MIB = 1024L * 1024;
+
+    /**
+     * Quantidade de bytes em um KiB.
+     */
+    private static final long BYTES_POR_KIB = 1024L;
+
+    /**
+     * Local do arquivo de testes, podendo ser local ou remoto (http).
+     */
+    private String caminho;
+
+    /**
+     * Se verdadeiro, será gerado relatório HTML. Se falso, será gerado JSON.
+     */
+    private boolean html;
+
+    /**
+     * Se verdadeiro, também será gerado o relatório binário, usado na
+     * comparação entre execuções.
+     */
+    private boolean binario;
+
+    /**
+     * Quantidade de threads usadas na realização das expressões. O valor 1
+     * indica execução sequencial, na própria thread que gera o relatório.
+     */
+    private int threads = 1;
+
+    /**
+     * Se verdadeiro, os testes são lidos, executados e escritos no relatório
+     * em fluxo, sem que o arquivo inteiro seja mantido em memória.
+     */
+    private boolean fluxo;
+
+    /**
+     * Se verdadeiro, arquivos remotos passam pelo cache em disco.
+     */
+    private boolean cacheRemoto = true;
+
+    /**
+     * Diretório do cache de arquivos remotos.
+     */
+    private Path diretorioCacheRemoto = CacheRemoto.diretorioPadrao();
+
+    /**
+     * Espaço máximo, em bytes, ocupado pelo cache de arquivos remotos.
+     */
+    private long limiteCacheRemoto = CacheRemoto.LIMITE_PADRAO;
+
+    /**
+     * Se verdadeiro, as expressões interpretadas pelo Parser são guardadas em
+     * cache e reaproveitadas quando repetidas. Desabilitado por padrão: em
+     * suítes com poucas repetições, as árvores guardadas sobrevivem às
+     * coletas da geração jovem e o custo da coleta supera o ganho.
+     */
+    private boolean cacheExpressoes;
+
+    /**
+     * Quantidade máxima de expressões guardadas no cache de expressões.
+     */
+    private int capacidadeCacheExpressoes = CacheExpressoes.CAPACIDADE_PADRAO;
+
+    /**
+     * Quantidade de iterações sobre os testes antes da medição, para que o
+     * Parser seja compilado pela JVM.
+     */
+    private int aquecimento;
+
+    /**
+     * Quantidade de iterações medidas sobre os testes.
+     */
+    private int iteracoes = 1;
+
+    /**
+     * Se verdadeiro, os resultados de cada execução são guardados junto ao
+     * relatório, e a próxima execução só realiza os testes novos ou
+     * modificados.
+     */
+    private boolean incremental;
+
+    /**
+     * Se verdadeiro, as métricas da execução em andamento são publicadas
+     * por JMX.
+     */
+    private boolean jmx;
+
+    /**
+     * Arquivo da gravação do Java Flight Recorder, ou null se a execução não
+     * for gravada.
+     */
+    private Path jfr;
+
+    /**
+     * Se verdadeiro, o tempo de cada fase do Parser é medido e apresentado
+     * no relatório.
+     */
+    private boolean fases;
+
+    /**
+     * Relatório binário da execução base, com a qual o desempenho é
+     * comparado, ou null.
+     */
+    private Path base;
+
+    /**
+     * Aumento de tempo tolerado em relação à base, em fração.
+     */
+    private double orcamento = ComparacaoBase.ORCAMENTO_PADRAO;
+
+    /**
+     * Quantidade máxima de conexões simultâneas com um mesmo servidor.
+     */
+    private int conexoesPorHost = CarregadorRemoto.CONEXOES_POR_HOST_PADRAO;
+
+    /**
+     * Quantidade de tentativas de obter cada arquivo remoto.
+     */
+    private int tentativas = CarregadorRemoto.TENTATIVAS_PADRAO;
+
+    /**
+     * Tempo limite da realização de cada teste, em milissegundos, ou zero
+     * para não limitar.
+     */
+    private long limiteTeste = ExecutorTestes.LIMITE_PADRAO;
+
+    /**
+     * Tamanho da pilha das threads que realizam as expressões, em bytes, ou
+     * zero para o padrão da JVM.
+     */
+    private long pilha;
+
+    /**
+     * Quantidade de processos que realizam as expressões. Com um só, as
+     * expressões são realizadas no próprio processo.
+     */
+    private int processos = 1;
+
+    /**
+     * Diretório em que os relatórios são salvos, ou null para o diretório
+     * do programa.
+     */
+    private Path diretorioRelatorio;
+
+    /**
+     * Cria uma configuração padrão: relatório JSON e execução sequencial.
+     */
+    public Configuracao() {
+    }
+
+    /**
+     * Interpreta os parâmetros da linha de comando. O primeiro parâmetro deve
+     * ser o local do arquivo de testes, ou de várias suítes
+     * ({@link ExecucaoLote}). Os demais são opcionais e podem vir
+     * em qualquer ordem: "-h" (relatório HTML), "-b" (relatório binário
+     * adicional), "-p" (execução paralela com uma thread por processador),
+     * "-p=N" (execução paralela com N threads),
+     * "-f" (execução em fluxo), "-cache-remoto=DIR" (diretório do cache de
+     * arquivos remotos), "-cache-remoto-max=MiB" (espaço máximo desse cache),
+     * "-sem-cache-remoto" (arquivos remotos sempre transferidos), "-cache"
+     * (expressões repetidas guardadas em cache), "-cache=N" (cache de
+     * expressões com capacidade N), "-sem-cache" (toda expressão é
+     * novamente interpretada pelo Parser, o padrão), "-aquecimento=N"
+     * (N iterações não medidas antes da medição), "-iteracoes=N"
+     * (N iterações medidas),
+     * "-incremental" (reaproveita os resultados da execução anterior),
+     * "-base=ARQ" (compara o desempenho com o de um relatório binário),
+     * "-orcamento=PCT" (aumento de tempo tolerado em relação à base),
+     * "-conexoes=N" (conexões simultâneas com um mesmo servidor, em lote),
+     * "-tentativas=N" (tentativas de obter cada arquivo remoto, em lote),
+     * "-limite=MS" (tempo limite de cada teste), "-sem-limite" (testes sem
+     * tempo limite), "-pilha=KiB" (pilha das threads que realizam as
+     * expressões), "-processos=N" (expressões realizadas em N processos),
+     * "-jmx" (métricas da execução em andamento publicadas por JMX),
+     * "-jfr=ARQ" (execução gravada pelo Java Flight Recorder) e "-fases"
+     * (tempo de cada fase do Parser no relatório; não aceita com
+     * "-processos").
+     *
+     * @param args Parâmetros fornecidos ao programa.
+     * @return Configuração correspondente aos parâmetros.
+     * @throws IllegalArgumentException Quando algum parâmetro for inválido. A
+     * mensagem da exceção descreve o problema.
+     */
+    public static Configuracao interpretar(final String[] args) {
+        if (args.length == 0) {
+            throw new IllegalArgumentException(
+                    "Quantidade de parâmetros inválida.");
+        }
+
+        Configuracao config = new Configuracao();
+        config.setCaminho(args[0]);
+        for (int i = 1; i < args.length; i++) {
+            String opcao = args[i];
+            if (opcao.equals("-h")) {
+                config.setHtml(true);
+            } else if (opcao.equals("-b")) {
+                config.setBinario(true);
+            } else if (opcao.equals("-f")) {
+                config.setFluxo(true);
+            } else if (opcao.equals("-sem-cache")) {
+                config.setCacheExpressoes(false);
+            } else if (opcao.equals("-cache")) {
+                config.setCacheExpressoes(true);
+            } else if (opcao.startsWith(OPCAO_CACHE)) {
+                config.setCacheExpressoes(true);
+                config.setCapacidadeCacheExpressoes(inteiroPositivo(opcao,
+                        OPCAO_CACHE.length()));
+            } else if (opcao.equals("-sem-cache-remoto")) {
+                config.setCacheRemoto(false);
+            } else if (opcao.startsWith(OPCAO_CACHE_REMOTO_MAX)) {
+                config.setLimiteCacheRemoto(inteiroPositivo(opcao,
+                        OPCAO_CACHE_REMOTO_MAX.length()) * BYTES_POR_MIB);
+            } else if (opcao.startsWith(OPCAO_CACHE_REMOTO)) {
+                config.setDiretorioCacheRemoto(Paths.get(
+                        opcao.substring(OPCAO_CACHE_REMOTO.length())));
+            } else if (opcao.startsWith(OPCAO_AQUECIMENTO)) {
+                config.setAquecimento(inteiroPositivo(opcao,
+                        OPCAO_AQUECIMENTO.length()));
+            } else if (opcao.startsWith(OPCAO_ITERACOES)) {
+                config.setIteracoes(inteiroPositivo(opcao,
+                        OPCAO_ITERACOES.length()));
+            } else if (opcao.startsWith(OPCAO_BASE)) {
+                config.setBase(Paths.get(
+                        opcao.substring(OPCAO_BASE.length())));
+            } else if (opcao.startsWith(OPCAO_ORCAMENTO)) {
+                config.setOrcamento(inteiroPositivo(opcao,
+                        OPCAO_ORCAMENTO.length()) / PORCENTAGEM);
+            } else if (opcao.startsWith(OPCAO_CONEXOES)) {
+                config.setConexoesPorHost(inteiroPositivo(opcao,
+                        OPCAO_CONEXOES.length()));
+            } else if (opcao.startsWith(OPCAO_TENTATIVAS)) {
+                config.setTentativas(inteiroPositivo(opcao,
+                        OPCAO_TENTATIVAS.length()));
+            } else if (opcao.startsWith(OPCAO_LIMITE)) {
+                config.setLimiteTeste(inteiroPositivo(opcao,
+                        OPCAO_LIMITE.length()));
+            } else if (opcao.equals("-sem-limite")) {
+                config.setLimiteTeste(0);
+            } else if (opcao.startsWith(OPCAO_PILHA)) {
+                config.setPilha(inteiroPositivo(opcao, OPCAO_PILHA.length())
+                        * BYTES_POR_KIB);
+            } else if (opcao.startsWith(OPCAO_PROCESSOS)) {
+                config.setProcessos(inteiroPositivo(opcao,
+                        OPCAO_PROCESSOS.length()));
+            } else if (opcao.startsWith(OPCAO_JFR)) {
+                config.setJfr(Paths.get(opcao.substring(OPCAO_JFR.length())));
+            } else if (opcao.equals("-jmx")) {
+                config.setJmx(true);
+            } else if (opcao.equals("-fases")) {
+                config.setFases(true);
+            } else if (opcao.equals("-incremental")) {
+                config.setIncremental(true);
+            } else if (opcao.equals(OPCAO_PARALELO)) {
+                config.setThreads(Runtime.getRuntime().availableProcessors());
+            } else if (opcao.startsWith(OPCAO_PARALELO + "=")) {
+                config.setThreads(inteiroPositivo(opcao,
+                        OPCAO_PARALELO.length() + 1));
+            } else {
+                throw new IllegalArgumentException("Parâmetro inválido: "
+                        + opcao + ".");
+            }
+        }
+        if (config.isFases() && config.getProcessos() > 1) {
+            throw new IllegalArgumentException("As fases do Parser não são "
+                    + "medidas com vários processos.");
+        }
+        return config;
+    }
+
+    /**
+     * Obtém o valor inteiro positivo de uma opção no formato "-opcao=N".
+     *
+     * @param opcao Opção completa.
+     * @param inicio Posição em que o valor começa.
+     * @return Valor da opção.
+     * @throws IllegalArgumentException Quando o valor não for um inteiro
+     * positivo.
+     */
+    private static int inteiroPositivo(final String opcao, final int inicio) {
+        int valor;
+        try {
+            valor = Integer.parseInt(opcao.substring(inicio));
+        } catch (NumberFormatException nfe) {
+            valor = 0;
+        }
+        if (valor <= 0) {
+            throw new IllegalArgumentException("Valor inválido em " + opcao
+                    + ". Deve ser um inteiro positivo.");
+        }
+        return valor;
+    }
+
+    /**
+     * Obtém o local do arquivo de testes.
+     *
+     * @return Local do arquivo de testes.
+     */
+    public String getCaminho() {
+        return caminho;
+    }
+
+    /**
+     * Define o local do arquivo de testes.
+     *
+     * @param caminho Local do arquivo de testes, local ou remoto (http).
+     */
+    public void setCaminho(final String caminho) {
+        this.caminho = caminho;
+    }
+
+    /**
+     * Verifica se o arquivo de testes deve ser obtido localmente.
+     *
+     * @return Falso se o caminho for um endereço http.
+     */
+    public boolean isLocal() {
+        return caminho == null || isLocal(caminho);
+    }
+
+    /**
+     * Verifica se um arquivo deve ser obtido localmente.
+     *
+     * @param caminho Local do arquivo.
+     * @return Falso se o caminho for um endereço http.
+     */
+    static boolean isLocal(final String caminho) {
+        return !caminho.startsWith("http");
+    }
+
+    /**
+     * Obtém se o relatório deve ser HTML.
+     *
+     * @return Verdadeiro para relatório HTML, falso para JSON.
+     */
+    public boolean isHtml() {
+        return html;
+    }
+
+    /**
+     * Define o formato do relatório.
+     *
+     * @param html Verdadeiro para relatório HTML, falso para JSON.
+     */
+    public void setHtml(final boolean html) {
+        this.html = html;
+    }
+
+    /**
+     * Obtém se também deve ser gerado o relatório binário.
+     *
+     * @return Verdadeiro se o relatório binário deve ser gerado junto ao
+     * HTML ou JSON.
+     */
+    public boolean isBinario() {
+        return binario;
+    }
+
+    /**
+     * Define se também deve ser gerado o relatório binário.
+     *
+     * @param binario Verdadeiro para gerar o relatório binário junto ao HTML
+     * ou JSON.
+     */
+    public void setBinario(final boolean binario) {
+        this.binario = binario;
+    }
+
+    /**
+     * Obtém a quantidade de threads usadas na realização das expressões.
+     *
+     * @return Quantidade de threads (1 indica execução sequencial).
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Define a quantidade de threads usadas na realização das expressões.
+     *
+     * @param threads Quantidade de threads, maior que zero.
+     */
+    public void setThreads(final int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Quantidade de threads "
+                    + "inválida.");
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * Obtém se os testes devem ser processados em fluxo.
+     *
+     * @return Verdadeiro se o arquivo de testes não deve ser mantido inteiro
+     * em memória.
+     */
+    public boolean isFluxo() {
+        return fluxo;
+    }
+
+    /**
+     * Define se os testes devem ser processados em fluxo.
+     *
+     * @param fluxo Verdadeiro para ler, executar e escrever os testes sem
+     * manter o arquivo inteiro em memória.
+     */
+    public void setFluxo(final boolean fluxo) {
+        this.fluxo = fluxo;
+    }
+
+    /**
+     * Obtém se arquivos remotos passam pelo cache em disco.
+     *
+     * @return Verdadeiro se o cache de arquivos remotos está habilitado.
+     */
+    public boolean isCacheRemoto() {
+        return cacheRemoto;
+    }
+
+    /**
+     * Define se arquivos remotos passam pelo cache em disco.
+     *
+     * @param cacheRemoto Falso para sempre transferir arquivos remotos.
+     */
+    public void setCacheRemoto(final boolean cacheRemoto) {
+        this.cacheRemoto = cacheRemoto;
+    }
+
+    /**
+     * Obtém o diretório do cache de arquivos remotos.
+     *
+     * @return Diretório do cache.
+     */
+    public Path getDiretorioCacheRemoto() {
+        return diretorioCacheRemoto;
+    }
+
+    /**
+     * Define o diretório do cache de arquivos remotos.
+     *
+     * @param diretorio Diretório do cache.
+     */
+    public void setDiretorioCacheRemoto(final Path diretorio) {
+        this.diretorioCacheRemoto = diretorio;
+    }
+
+    /**
+     * Obtém o espaço máximo ocupado pelo cache de arquivos remotos.
+     *
+     * @return Limite em bytes.
+     */
+    public long getLimiteCacheRemoto() {
+        return limiteCacheRemoto;
+    }
+
+    /**
+     * Define o espaço máximo ocupado pelo cache de arquivos remotos.
+     *
+     * @param limite Limite em bytes.
+     */
+    public void setLimiteCacheRemoto(final long limite) {
+        this.limiteCacheRemoto = limite;
+    }
+
+    /**
+     * Cria o cache de arquivos remotos correspondente a esta configuração.
+     *
+     * @return Cache de arquivos remotos, ou null se estiver desabilitado.
+     */
+    public CacheRemoto criarCacheRemoto() {
+        if (!cacheRemoto) {
+            return null;
+        }
+        return new CacheRemoto(diretorioCacheRemoto, limiteCacheRemoto);
+    }
+
+    /**
+     * Obtém se as expressões interpretadas são guardadas em cache.
+     *
+     * @return Verdadeiro se o cache de expressões está habilitado.
+     */
+    public boolean isCacheExpressoes() {
+        return cacheExpressoes;
+    }
+
+    /**
+     * Define se as expressões interpretadas são guardadas em cache. Só
+     * compensa em suítes com muitas expressões repetidas; por padrão, toda
+     * expressão é novamente interpretada pelo Parser.
+     *
+     * @param cacheExpressoes Verdadeiro para guardar as expressões
+     * interpretadas.
+     */
+    public void setCacheExpressoes(final boolean cacheExpressoes) {
+        this.cacheExpressoes = cacheExpressoes;
+    }
+
+    /**
+     * Obtém a capacidade do cache de expressões.
+     *
+     * @return Quantidade máxima de expressões guardadas.
+     */
+    public int getCapacidadeCacheExpressoes() {
+        return capacidadeCacheExpressoes;
+    }
+
+    /**
+     * Define a capacidade do cache de expressões.
+     *
+     * @param capacidade Quantidade máxima de expressões guardadas, maior que
+     * zero.
+     */
+    public void setCapacidadeCacheExpressoes(final int capacidade) {
+        if (capacidade <= 0) {
+            throw new IllegalArgumentException("Capacidade do cache "
+                    + "inválida.");
+        }
+        this.capacidadeCacheExpressoes = capacidade;
+    }
+
+    /**
+     * Cria o cache de expressões correspondente a esta configuração.
+     *
+     * @return Cache de expressões, ou null se estiver desabilitado.
+     */
+    public CacheExpressoes criarCacheExpressoes() {
+        if (!cacheExpressoes) {
+            return null;
+        }
+        return new CacheExpressoes(capacidadeCacheExpressoes);
+    }
+
+    /**
+     * Obtém a quantidade de iterações de aquecimento.
+     *
+     * @return Iterações realizadas antes da medição.
+     */
+    public int getAquecimento() {
+        return aquecimento;
+    }
+
+    /**
+     * Define a quantidade de iterações de aquecimento.
+     *
+     * @param aquecimento Iterações realizadas antes da medição, maior ou
+     * igual a zero.
+     */
+    public void setAquecimento(final int aquecimento) {
+        if (aquecimento < 0) {
+            throw new IllegalArgumentException("Quantidade de iterações de "
+                    + "aquecimento inválida.");
+        }
+        this.aquecimento = aquecimento;
+    }
+
+    /**
+     * Obtém a quantidade de iterações medidas.
+     *
+     * @return Iterações medidas (1 indica uma única execução).
+     */
+    public int getIteracoes() {
+        return iteracoes;
+    }
+
+    /**
+     * Define a quantidade de iterações medidas.
+     *
+     * @param iteracoes Iterações medidas, maior que zero.
+     */
+    public void setIteracoes(final int iteracoes) {
+        if (iteracoes <= 0) {
+            throw new IllegalArgumentException("Quantidade de iterações "
+                    + "inválida.");
+        }
+        this.iteracoes = iteracoes;
+    }
+
+    /**
+     * Obtém se a execução é incremental.
+     *
+     * @return Verdadeiro se os resultados da execução anterior devem ser
+     * reaproveitados.
+     */
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    /**
+     * Define se a execução é incremental.
+     *
+     * @param incremental Verdadeiro para guardar os resultados junto ao
+     * relatório e realizar apenas os testes novos ou modificados.
+     */
+    public void setIncremental(final boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    /**
+     * Obtém se as métricas da execução em andamento são publicadas por JMX.
+     *
+     * @return Verdadeiro se um {@link MonitorExecucao} é registrado durante
+     * a execução.
+     */
+    public boolean isJmx() {
+        return jmx;
+    }
+
+    /**
+     * Define se as métricas da execução em andamento são publicadas por JMX
+     * ({@link MonitorExecucao}). O registro no servidor de MBeans da
+     * plataforma acrescenta alguns décimos de segundo à inicialização,
+     * portanto é opcional.
+     *
+     * @param jmx Verdadeiro para publicar as métricas.
+     */
+    public void setJmx(final boolean jmx) {
+        this.jmx = jmx;
+    }
+
+    /**
+     * Obtém o arquivo da gravação do Java Flight Recorder.
+     *
+     * @return Arquivo ".jfr", ou null se a execução não for gravada.
+     */
+    public Path getJfr() {
+        return jfr;
+    }
+
+    /**
+     * Define o arquivo em que a execução é gravada pelo Java Flight Recorder,
+     * com a configuração padrão e os eventos de cada fase do relatório
+     * ({@link EventoFase}) e de cada teste ({@link EventoAvaliacao}).
+     *
+     * @param jfr Arquivo ".jfr", ou null para não gravar.
+     */
+    public void setJfr(final Path jfr) {
+        this.jfr = jfr;
+    }
+
+    /**
+     * Obtém se o tempo de cada fase do Parser é medido.
+     *
+     * @return Verdadeiro se o relatório apresenta as fases do Parser.
+     */
+    public boolean isFases() {
+        return fases;
+    }
+
+    /**
+     * Define se o tempo de cada fase do Parser (análises léxica e sintática
+     * e avaliação) é medido nas iterações medidas e apresentado no
+     * relatório ({@link FasesParser}). A medição acrescenta algumas
+     * consultas ao relógio por teste, portanto é opcional.
+     *
+     * @param fases Verdadeiro para medir as fases.
+     */
+    public void setFases(final boolean fases) {
+        this.fases = fases;
+    }
+
+    /**
+     * Obtém o relatório binário da execução base.
+     *
+     * @return Local do relatório, ou null se o desempenho não deve ser
+     * comparado.
+     */
+    public Path getBase() {
+        return base;
+    }
+
+    /**
+     * Define o relatório binário da execução base.
+     *
+     * @param base Local do relatório, ou null para não comparar.
+     */
+    public void setBase(final Path base) {
+        this.base = base;
+    }
+
+    /**
+     * Obtém o aumento de tempo tolerado em relação à base.
+     *
+     * @return Orçamento em fração (0.1 para 10%).
+     */
+    public double getOrcamento() {
+        return orcamento;
+    }
+
+    /**
+     * Define o aumento de tempo tolerado em relação à base.
+     *
+     * @param orcamento Orçamento em fração, maior ou igual a zero.
+     */
+    public void setOrcamento(final double orcamento) {
+        if (!(orcamento >= 0)) {
+            throw new IllegalArgumentException("Orçamento inválido.");
+        }
+        this.orcamento = orcamento;
+    }
+
+    /**
+     * Obtém a quantidade máxima de conexões simultâneas com um mesmo
+     * servidor, na execução em lote.
+     *
+     * @return Quantidade de conexões.
+     */
+    public int getConexoesPorHost() {
+        return conexoesPorHost;
+    }
+
+    /**
+     * Define a quantidade máxima de conexões simultâneas com um mesmo
+     * servidor, na execução em lote.
+     *
+     * @param conexoesPorHost Quantidade de conexões, maior que zero.
+     */
+    public void setConexoesPorHost(final int conexoesPorHost) {
+        this.conexoesPorHost = conexoesPorHost;
+    }
+
+    /**
+     * Obtém a quantidade de tentativas de obter cada arquivo remoto, na
+     * execução em lote.
+     *
+     * @return Quantidade de tentativas.
+     */
+    public int getTentativas() {
+        return tentativas;
+    }
+
+    /**
+     * Define a quantidade de tentativas de obter cada arquivo remoto, na
+     * execução em lote.
+     *
+     * @param tentativas Quantidade de tentativas, maior que zero.
+     */
+    public void setTentativas(final int tentativas) {
+        this.tentativas = tentativas;
+    }
+
+    /**
+     * Obtém o tempo limite da realização de cada teste. Um teste que o
+     * excede é abandonado e registrado com tempo esgotado.
+     *
+     * @return Tempo em milissegundos, ou zero se não houver limite.
+     */
+    public long getLimiteTeste() {
+        return limiteTeste;
+    }
+
+    /**
+     * Define o tempo limite da realização de cada teste.
+     *
+     * @param limiteTeste Tempo em milissegundos, ou zero para não limitar.
+     */
+    public void setLimiteTeste(final long limiteTeste) {
+        if (limiteTeste < 0) {
+            throw new IllegalArgumentException("Tempo limite inválido.");
+        }
+        this.limiteTeste = limiteTeste;
+    }
+
+    /**
+     * Obtém o tamanho da pilha das threads que realizam as expressões.
+     *
+     * @return Tamanho em bytes, ou zero para o padrão da JVM.
+     */
+    public long getPilha() {
+        return pilha;
+    }
+
+    /**
+     * Define o tamanho da pilha das threads que realizam as expressões.
+     * Expressões muito aninhadas precisam de uma pilha maior; as que a
+     * esgotam são registradas com estouro de pilha.
+     *
+     * @param pilha Tamanho em bytes, ou zero para o padrão da JVM.
+     */
+    public void setPilha(final long pilha) {
+        if (pilha < 0) {
+            throw new IllegalArgumentException("Tamanho de pilha inválido.");
+        }
+        this.pilha = pilha;
+    }
+
+    /**
+     * Obtém a quantidade de processos que realizam as expressões.
+     *
+     * @return Quantidade de processos; 1 indica o próprio processo.
+     */
+    public int getProcessos() {
+        return processos;
+    }
+
+    /**
+     * Define a quantidade de processos que realizam as expressões. Com mais
+     * de um, os testes são divididos entre processos trabalhadores
+     * ({@link ExecutorProcessos}), cada um com as threads, o tempo limite,
+     * a pilha e o cache de expressões configurados.
+     *
+     * @param processos Quantidade de processos, maior que zero.
+     */
+    public void setProcessos(final int processos) {
+        if (processos <= 0) {
+            throw new IllegalArgumentException("Quantidade de processos "
+                    + "inválida.");
+        }
+        this.processos = processos;
+    }
+
+    /**
+     * Obtém o diretório em que os relatórios são salvos.
+     *
+     * @return Diretório dos relatórios, ou null para o diretório do
+     * programa.
+     */
+    public Path getDiretorioRelatorio() {
+        return diretorioRelatorio;
+    }
+
+    /**
+     * Define o diretório em que os relatórios são salvos. Não há parâmetro
+     * da linha de comando correspondente: é usado por {@link ClienteTestes}
+     * para que cada cliente receba os relatórios no próprio diretório.
+     *
+     * @param diretorioRelatorio Diretório dos relatórios, ou null para o
+     * diretório do programa.
+     */
+    public void setDiretorioRelatorio(final Path diretorioRelatorio) {
+        this.diretorioRelatorio = diretorioRelatorio;
+    }
+
+    /**
+     * Resolve os caminhos locais relativos (arquivo de testes, base,
+     * gravação do Java Flight Recorder e diretório do cache remoto) a partir
+     * de um diretório. Usado quando os parâmetros vêm de outro processo,
+     * cujo diretório atual é outro.
+     *
+     * @param diretorio Diretório a partir do qual os caminhos foram
+     * fornecidos.
+     */
+    public void resolver(final Path diretorio) {
+        if (caminho != null
+                && caminho.startsWith(ExecucaoLote.PREFIXO_LISTA)) {
+            String lista = caminho.substring(
+                    ExecucaoLote.PREFIXO_LISTA.length());
+            if (isLocal(lista)) {
+                caminho = ExecucaoLote.PREFIXO_LISTA
+                        + diretorio.resolve(lista);
+            }
+        } else if (caminho != null && isLocal()) {
+            caminho = diretorio.resolve(caminho).toString();
+        }
+        if (base != null) {
+            base = diretorio.resolve(base);
+        }
+        if (jfr != null) {
+            jfr = diretorio.resolve(jfr);
+        }
+        if (diretorioCacheRemoto != null) {
+            diretorioCacheRemoto = diretorio.resolve(diretorioCacheRemoto);
+        }
+    }
+
+}
@@ -0,0 +1,349 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Escreve o relatório de testes em formato binário compacto, lido por
+ * {@link LeitorBinario}. O arquivo tem três partes:
+ * <ol>
+ * <li>cabeçalho de {@link #TAMANHO_CABECALHO} bytes: {@link #MAGICO},
+ * {@link #VERSAO}, quantidade de testes, de falhas e de textos, tempo total e
+ * de CPU (milissegundos), threads, memória consumida, a posição da tabela de
+ * textos e a margem de erro (95%) do tempo total entre as iterações
+ * medidas;</li>
+ * <li>um registro de {@link #TAMANHO_REGISTRO} bytes por teste: ordem do
+ * teste no relatório (a partir de 0, na ordem em que os testes foram
+ * escritos; não é o número da linha no arquivo de testes), índice da
+ * expressão na tabela de textos, valor esperado, valor obtido, situação
+ * (obtido e sucesso), tempo em nanossegundos e bytes alocados;</li>
+ * <li>tabela de textos: cada expressão, em UTF-8, precedida do seu tamanho.
+ * Expressões repetidas são guardadas uma só vez (dentro de um limite de
+ * memória).</li>
+ * </ol>
+ * Os números são gravados em big-endian. O cabeçalho só é preenchido em
+ * {@link #finalizar(Estatisticas)}, portanto a escrita funciona também em
+ * fluxo. O relatório é escrito em um arquivo temporário no mesmo diretório,
+ * que só substitui o arquivo de destino ao final de
+ * {@link #finalizar(Estatisticas)}: até lá, um relatório anterior com o
+ * mesmo nome continua intacto (e pode ser lido, por exemplo, como base de
+ * comparação).
+ *
+ * @author Wesleywrl
+ */
+public final class EscritorBinario implements EscritorRelatorio {
+
+    /**
+     * Identificação do formato ("QPB1"), no início do arquivo.
+     */
+    public static final int MAGICO = 0x51504231;
+
+    /**
+     * Versão do formato.
+     */
+    public static final int VERSAO = 1;
+
+    /**
+     * Tamanho do cabeçalho, em bytes.
+     */
+    public static final int TAMANHO_CABECALHO = 64;
+
+    /**
+     * Tamanho de cada registro de teste, em bytes.
+     */
+    public static final int TAMANHO_REGISTRO = 40;
+
+    /**
+     * Bit da situação que indica que o teste obteve um valor.
+     */
+    public static final byte OBTIDO = 1;
+
+    /**
+     * Bit da situação que indica que o teste obteve o valor esperado.
+     */
+    public static final byte SUCESSO = 2;
+
+    /**
+     * Quantidade máxima de expressões lembradas para que repetições não
+     * sejam gravadas novamente. Quando atingida, as expressões lembradas são
+     * esquecidas, e a memória usada não depende da quantidade de testes.
+     */
+    private static final int MAXIMO_LEMBRADOS = 65536;
+
+    /**
+     * Tamanho dos buffers de escrita, em bytes.
+     */
+    private static final int TAMANHO_BUFFER = 64 * 1024;
+
+    /**
+     * Bytes de preenchimento ao final de cada registro.
+     */
+    static final int PREENCHIMENTO = 3;
+
+    /**
+     * Local em que o relatório deve ser salvo.
+     */
+    private final Path arquivo;
+
+    /**
+     * Arquivo temporário em que o relatório é escrito.
+     */
+    private final Path temporario;
+
+    /**
+     * Relatório em construção, no arquivo temporário.
+     */
+    private final FileChannel canal;
+
+    /**
+     * Arquivo temporário da tabela de textos, anexada ao relatório ao final.
+     */
+    private final Path arquivoTextos;
+
+    /**
+     * Tabela de textos em construção.
+     */
+    private final FileChannel textos;
+
+    /**
+     * Registros ainda não gravados.
+     */
+    private final ByteBuffer registros = ByteBuffer.allocate(TAMANHO_BUFFER);
+
+    /**
+     * Textos ainda não gravados.
+     */
+    private final ByteBuffer bufferTextos =
+            ByteBuffer.allocate(TAMANHO_BUFFER);
+
+    /**
+     * Índice, na tabela de textos, das expressões já gravadas.
+     */
+    private final Map<String, Integer> lembrados = new HashMap<>();
+
+    /**
+     * Quantidade de textos gravados.
+     */
+    private int quantidadeTextos;
+
+    /**
+     * Se verdadeiro, o arquivo temporário já substituiu o de destino.
+     */
+    private boolean concluido;
+
+    /**
+     * Quantidade de testes gravados, que é também a ordem do próximo teste
+     * no relatório.
+     */
+    private long testes;
+
+    /**
+     * Cria o arquivo binário do relatório.
+     *
+     * @param arquivo Local em que o arquivo deve ser salvo.
+     * @throws IOException Quando não é possível criar o arquivo.
+     */
+    public EscritorBinario(final Path arquivo) throws IOException {
+        this.arquivo = arquivo;
+        temporario = temporario(arquivo, ".tmp");
+        arquivoTextos = temporario(arquivo, ".textos");
+        canal = FileChannel.open(temporario, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.WRITE);
+        try {
+            textos = FileChannel.open(arquivoTextos,
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+        } catch (IOException ex) {
+            try {
+                canal.close();
+            } finally {
+                Files.deleteIfExists(temporario);
+            }
+            throw ex;
+        }
+        canal.position(TAMANHO_CABECALHO);
+    }
+
+    /**
+     * Obtém um nome de arquivo temporário, ao lado do relatório, que não
+     * coincide com o de outro escritor no mesmo diretório.
+     *
+     * @param arquivo Local do relatório.
+     * @param sufixo Sufixo do arquivo temporário.
+     * @return Local do arquivo temporário.
+     */
+    private static Path temporario(final Path arquivo, final String sufixo) {
+        return arquivo.resolveSibling(arquivo.getFileName() + "."
+                + Long.toHexString(ThreadLocalRandom.current().nextLong())
+                + sufixo);
+    }
+
+    /**
+     * Nada é escrito no início: o cabeçalho é preenchido em
+     * {@link #finalizar(Estatisticas)}.
+     *
+     * @param resumo Ignorado.
+     */
+    @Override
+    public void iniciar(final Estatisticas resumo) {
+    }
+
+    @Override
+    public void escreverTeste(final SuiteTestes suite, final int teste)
+            throws IOException {
+        if (registros.remaining() < TAMANHO_REGISTRO) {
+            gravar(registros, canal);
+        }
+        byte situacao = 0;
+        if (suite.isObtido(teste)) {
+            situacao |= OBTIDO;
+        }
+        if (suite.getSucesso(teste)) {
+            situacao |= SUCESSO;
+        }
+        registros.putLong(testes);
+        registros.putInt(indiceTexto(suite.getExpressao(teste)));
+        registros.putFloat(suite.getEsperado(teste));
+        registros.putFloat(suite.getObtido(teste));
+        registros.put(situacao);
+        for (int i = 0; i < PREENCHIMENTO; i++) {
+            registros.put((byte) 0);
+        }
+        registros.putLong(suite.getTempo(teste));
+        registros.putLong(suite.getAlocados(teste));
+        testes++;
+    }
+
+    /**
+     * Obtém o índice de uma expressão na tabela de textos, gravando-a se não
+     * estiver entre as lembradas.
+     *
+     * @param expressao Expressão do teste.
+     * @return Índice na tabela de textos.
+     * @throws IOException Quando não é possível gravar a tabela.
+     */
+    private int indiceTexto(final String expressao) throws IOException {
+        Integer indice = lembrados.get(expressao);
+        if (indice != null) {
+            return indice;
+        }
+        if (quantidadeTextos == Integer.MAX_VALUE) {
+            throw new IllegalStateException("Quantidade de expressões "
+                    + "acima do suportado pelo formato.");
+        }
+        byte[] bytes = expressao.getBytes(StandardCharsets.UTF_8);
+        if (bufferTextos.remaining() < Integer.BYTES + bytes.length) {
+            gravar(bufferTextos, textos);
+        }
+        if (bufferTextos.remaining() < Integer.BYTES + bytes.length) {
+            ByteBuffer grande = ByteBuffer.allocate(Integer.BYTES
+                    + bytes.length);
+            grande.putInt(bytes.length).put(bytes);
+            gravar(grande, textos);
+        } else {
+            bufferTextos.putInt(bytes.length).put(bytes);
+        }
+
+        if (lembrados.size() == MAXIMO_LEMBRADOS) {
+            lembrados.clear();
+        }
+        lembrados.put(expressao, quantidadeTextos);
+        return quantidadeTextos++;
+    }
+
+    @Override
+    public void finalizar(final Estatisticas resumo) throws IOException {
+        gravar(registros, canal);
+        gravar(bufferTextos, textos);
+
+        //Anexa a tabela de textos após os registros
+        long inicioTextos = TAMANHO_CABECALHO + testes * TAMANHO_REGISTRO;
+        long tamanho = textos.size();
+        long copiados = 0;
+        while (copiados < tamanho) {
+            copiados += textos.transferTo(copiados, tamanho - copiados,
+                    canal);
+        }
+
+        ByteBuffer cabecalho = ByteBuffer.allocate(TAMANHO_CABECALHO);
+        cabecalho.putInt(MAGICO);
+        cabecalho.putInt(VERSAO);
+        cabecalho.putLong(testes);
+        cabecalho.putLong(resumo.getFalhas());
+        cabecalho.putInt(quantidadeTextos);
+        cabecalho.putFloat(resumo.getTempoTotal());
+        cabecalho.putFloat(resumo.getTempoCpu());
+        cabecalho.putInt(resumo.getThreads());
+        cabecalho.putLong(resumo.getMemoriaConsumida());
+        cabecalho.putLong(inicioTextos);
+        cabecalho.putFloat((float) resumo.getIteracoes().getMargemErro());
+        cabecalho.position(TAMANHO_CABECALHO);
+        cabecalho.flip();
+        long posicao = 0;
+        while (cabecalho.hasRemaining()) {
+            posicao += canal.write(cabecalho, posicao);
+        }
+
+        canal.close();
+        Files.move(temporario, arquivo, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        concluido = true;
+    }
+
+    /**
+     * Grava em um arquivo o conteúdo de um buffer e o esvazia.
+     *
+     * @param buffer Buffer com os bytes a serem gravados.
+     * @param destino Arquivo de destino.
+     * @throws IOException Quando não é possível gravar no arquivo.
+     */
+    private static void gravar(final ByteBuffer buffer,
+            final FileChannel destino) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            destino.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Fecha os arquivos e remove os temporários. Se
+     * {@link #finalizar(Estatisticas)} não foi concluído, o arquivo de
+     * destino não é alterado.
+     *
+     * @throws IOException Quando não é possível fechar ou remover os
+     * arquivos.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            canal.close();
+        } finally {
+            try {
+                textos.close();
+            } finally {
+                try {
+                    Files.deleteIfExists(arquivoTextos);
+                } finally {
+                    if (!concluido) {
+                        Files.deleteIfExists(temporario);
+                    }
+                }
+            }
+        }
+    }
+
+}
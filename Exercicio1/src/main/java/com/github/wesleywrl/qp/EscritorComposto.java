@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import java.io.IOException;
+
+/**
+ * Repassa cada chamada a vários escritores, de modo que o mesmo relatório
+ * seja gerado em mais de um formato com uma só passagem pelos testes.
+ *
+ * @author Wesleywrl
+ */
+public final class EscritorComposto implements EscritorRelatorio {
+
+    /**
+     * Escritores que recebem as chamadas, na ordem fornecida.
+     */
+    private final EscritorRelatorio[] escritores;
+
+    /**
+     * Cria o escritor a partir dos escritores já abertos. A partir daqui,
+     * todos são fechados por {@link #close()}.
+     *
+     * @param escritores Escritores que recebem as chamadas.
+     */
+    public EscritorComposto(final EscritorRelatorio... escritores) {
+        this.escritores = escritores.clone();
+    }
+
+    @Override
+    public void iniciar(final Estatisticas resumo) throws IOException {
+        for (EscritorRelatorio escritor : escritores) {
+            escritor.iniciar(resumo);
+        }
+    }
+
+    @Override
+    public void escreverTeste(final SuiteTestes suite, final int teste)
+            throws IOException {
+        for (EscritorRelatorio escritor : escritores) {
+            escritor.escreverTeste(suite, teste);
+        }
+    }
+
+    @Override
+    public void finalizar(final Estatisticas resumo) throws IOException {
+        for (EscritorRelatorio escritor : escritores) {
+            escritor.finalizar(resumo);
+        }
+    }
+
+    /**
+     * Fecha todos os escritores, mesmo que algum falhe. A primeira falha é
+     * lançada ao final.
+     *
+     * @throws IOException Quando não é possível fechar algum escritor.
+     */
+    @Override
+    public void close() throws IOException {
+        IOException falha = null;
+        for (EscritorRelatorio escritor : escritores) {
+            try {
+                escritor.close();
+            } catch (IOException ex) {
+                if (falha == null) {
+                    falha = ex;
+                } else {
+                    falha.addSuppressed(ex);
+                }
+            }
+        }
+        if (falha != null) {
+            throw falha;
+        }
+    }
+
+}
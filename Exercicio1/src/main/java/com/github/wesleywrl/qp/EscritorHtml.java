@@ -0,0 +1,844 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Escreve o relatório de testes no formato HTML, diretamente nos arquivos
+ * (através de {@link SaidaUtf8}), sem montá-lo em memória. Os testes são
+ * divididos em páginas de tamanho fixo ("relatorio-1.html",
+ * "relatorio-2.html"...), que o navegador consegue abrir mesmo em suítes com
+ * milhões de testes. A página principal ("relatorio.html") é escrita ao
+ * final, com as informações gerais, os primeiros testes que falharam e a
+ * lista de páginas. Quando todos os testes cabem em uma página, eles são
+ * copiados para a página principal, que passa a ser o relatório inteiro.
+ *
+ * @author Wesleywrl
+ */
+public final class EscritorHtml implements EscritorRelatorio {
+
+    /**
+     * Quantidade padrão de testes em cada página.
+     */
+    public static final int LINHAS_POR_PAGINA_PADRAO = 10000;
+
+    /**
+     * Quantidade máxima de testes que falharam exibidos na página principal.
+     */
+    public static final int MAXIMO_FALHAS = 1000;
+
+    /**
+     * Valor para conversão de taxas em porcentagens (ex.: a taxa 0.5 vira 50
+     * porcento).
+     */
+    private static final float RATE_TO_PERCENT = 100f;
+
+    /**
+     * Quantidade de nanossegundos em um microssegundo.
+     */
+    private static final double NANOS_POR_MICRO = 1000.0;
+
+    /**
+     * Extensão dos arquivos do relatório.
+     */
+    private static final String EXTENSAO = ".html";
+
+    /**
+     * Página principal do relatório.
+     */
+    private final Path arquivo;
+
+    /**
+     * Quantidade de testes em cada página.
+     */
+    private final int linhasPorPagina;
+
+    /**
+     * Página principal, aberta apenas ao final.
+     */
+    private SaidaUtf8 saida;
+
+    /**
+     * Página de testes atual.
+     */
+    private SaidaUtf8 pagina;
+
+    /**
+     * Quantidade de páginas de testes já abertas.
+     */
+    private int paginas;
+
+    /**
+     * Quantidade de testes escritos na página atual.
+     */
+    private int linhasNaPagina;
+
+    /**
+     * Posição, em bytes, da primeira linha de testes na primeira página.
+     */
+    private long inicioLinhas;
+
+    /**
+     * Posição, em bytes, logo após a última linha de testes na primeira
+     * página.
+     */
+    private long fimLinhas;
+
+    /**
+     * Quantidade de testes escritos.
+     */
+    private long testes;
+
+    /**
+     * Quantidade de testes escritos que falharam.
+     */
+    private long falhas;
+
+    /**
+     * Linhas da tabela dos primeiros testes que falharam, exibida na página
+     * principal.
+     */
+    private final StringBuilder tabelaFalhas = new StringBuilder();
+
+    /**
+     * Linha da tabela do teste sendo escrito (reaproveitada entre testes).
+     */
+    private final StringBuilder linhaTeste = new StringBuilder();
+
+    /**
+     * Cria o relatório HTML com a quantidade padrão de testes por página.
+     *
+     * @param arquivo Local em que a página principal deve ser salva. As
+     * páginas de testes são salvas no mesmo diretório.
+     * @throws IOException Quando não é possível criar o arquivo.
+     */
+    public EscritorHtml(final Path arquivo) throws IOException {
+        this(arquivo, LINHAS_POR_PAGINA_PADRAO);
+    }
+
+    /**
+     * Cria o relatório HTML.
+     *
+     * @param arquivo Local em que a página principal deve ser salva. As
+     * páginas de testes são salvas no mesmo diretório.
+     * @param linhasPorPagina Quantidade de testes em cada página.
+     * @throws IOException Quando não é possível criar o arquivo.
+     */
+    public EscritorHtml(final Path arquivo, final int linhasPorPagina)
+            throws IOException {
+        if (linhasPorPagina <= 0) {
+            throw new IllegalArgumentException("Quantidade de testes por "
+                    + "página inválida.");
+        }
+        this.arquivo = arquivo;
+        this.linhasPorPagina = linhasPorPagina;
+        abrirPagina();
+    }
+
+    /**
+     * Nenhuma informação é escrita no início: as informações gerais ficam
+     * na página principal, escrita em {@link #finalizar(Estatisticas)}.
+     *
+     * @param resumo Ignorado.
+     */
+    @Override
+    public void iniciar(final Estatisticas resumo) {
+    }
+
+    @Override
+    public void escreverTeste(final SuiteTestes suite, final int teste)
+            throws IOException {
+        if (linhasNaPagina == linhasPorPagina) {
+            fecharPagina(true);
+            abrirPagina();
+        }
+        testes++;
+        linhasNaPagina++;
+
+        StringBuilder linha = linhaTeste;
+        linha.setLength(0);
+        linha.append("<tr>\n<td>").append(testes).append("</td>\n<td>");
+        escapar(linha, suite.getExpressao(teste));
+        linha.append("</td>\n<td>");
+        escapar(linha, suite.getVariaveis(teste));
+        linha.append("</td>\n<td>")
+                .append(String.format("%.4f", suite.getEsperado(teste)))
+                .append("</td>\n<td>");
+        if (suite.isObtido(teste)) {
+            linha.append(String.format("%.4f", suite.getObtido(teste)));
+        } else if (suite.isTempoEsgotado(teste)) {
+            linha.append("<i>tempo esgotado</i>");
+        } else if (suite.isEstouroPilha(teste)) {
+            linha.append("<i>estouro de pilha</i>");
+        } else {
+            linha.append("null");
+        }
+        linha.append("</td>\n");
+        if (suite.getSucesso(teste)) {
+            linha.append("<td><span style=\"color:#00FF00\">SIM</span>");
+        } else {
+            linha.append("<td><span style=\"color:#FF0000\">NÃO</span>");
+        }
+        linha.append("</td>\n<td>").append(suite.getAlocados(teste))
+                .append("</td>\n</tr>\n");
+        pagina.escrever(linha);
+
+        if (!suite.getSucesso(teste)) {
+            falhas++;
+            if (falhas <= MAXIMO_FALHAS) {
+                tabelaFalhas.append(linha);
+            }
+        }
+    }
+
+    @Override
+    public void finalizar(final Estatisticas resumo) throws IOException {
+        fecharPagina(false);
+
+        saida = new SaidaUtf8(arquivo);
+        cabecalho(saida, "Relatório de Testes");
+        linha("<h1>Relatório de testes do Parser</h1>");
+        linha("");
+        escreverResumo(resumo);
+        if (falhas > 0) {
+            escreverFalhas();
+        }
+
+        linha("<h2>Testes detalhados</h2>");
+        if (paginas == 1) {
+            //Todos os testes cabem na página principal
+            inicioTabela(saida);
+            saida.copiar(arquivoPagina(1), inicioLinhas,
+                    fimLinhas - inicioLinhas);
+            linha("</table>");
+            Files.delete(arquivoPagina(1));
+        } else {
+            linha("<ul>");
+            for (int i = 1; i <= paginas; i++) {
+                long primeiro = (long) (i - 1) * linhasPorPagina + 1;
+                long ultimo = Math.min(testes, (long) i * linhasPorPagina);
+                linha("<li><a href=\"" + nomePagina(i) + "\">Página " + i
+                        + "</a> (testes " + primeiro + " a " + ultimo
+                        + ")</li>");
+            }
+            linha("</ul>");
+        }
+        linha("");
+
+        if (resumo.getFalhas() == 0) {
+            linha("<b><span style=\"color:#00FF00\">Todos os testes "
+                    + "passaram.</span></b>");
+        } else {
+            linha("<b><span style=\"color:#FF0000\">Os testes não foram "
+                    + "executados com sucesso.</span></b>");
+        }
+        linha("");
+        rodape(saida);
+
+        //Páginas de uma execução anterior com mais testes
+        int antiga = Math.max(paginas, 1) + 1;
+        while (Files.deleteIfExists(arquivoPagina(antiga))) {
+            antiga++;
+        }
+    }
+
+    /**
+     * Escreve a tabela dos primeiros testes que falharam.
+     *
+     * @throws IOException Quando não é possível escrever o relatório.
+     */
+    private void escreverFalhas() throws IOException {
+        linha("<h2>Testes que falharam</h2>");
+        if (falhas > MAXIMO_FALHAS) {
+            linha("<p>Exibindo os primeiros " + MAXIMO_FALHAS + " de "
+                    + falhas + " testes que falharam.</p>");
+        }
+        inicioTabela(saida);
+        saida.escrever(tabelaFalhas);
+        linha("</table>");
+        linha("");
+    }
+
+    /**
+     * Abre a próxima página de testes e escreve o seu início.
+     *
+     * @throws IOException Quando não é possível criar o arquivo.
+     */
+    private void abrirPagina() throws IOException {
+        paginas++;
+        linhasNaPagina = 0;
+        pagina = new SaidaUtf8(arquivoPagina(paginas));
+        cabecalho(pagina, "Relatório de Testes - Página " + paginas);
+        pagina.escrever("<h1>Relatório de testes do Parser - Página "
+                + paginas + "</h1>\n");
+        navegacao(false);
+        inicioTabela(pagina);
+        if (paginas == 1) {
+            inicioLinhas = pagina.getPosicao();
+        }
+    }
+
+    /**
+     * Escreve o final da página de testes atual e a fecha.
+     *
+     * @param proxima Se verdadeiro, há uma página seguinte.
+     * @throws IOException Quando não é possível escrever o relatório.
+     */
+    private void fecharPagina(final boolean proxima) throws IOException {
+        if (paginas == 1) {
+            fimLinhas = pagina.getPosicao();
+        }
+        pagina.escrever("</table>\n");
+        navegacao(proxima);
+        rodape(pagina);
+        pagina.close();
+        pagina = null;
+    }
+
+    /**
+     * Escreve os links da página de testes atual para a página principal e
+     * para as páginas vizinhas.
+     *
+     * @param proxima Se verdadeiro, inclui o link para a página seguinte.
+     * @throws IOException Quando não é possível escrever o relatório.
+     */
+    private void navegacao(final boolean proxima) throws IOException {
+        pagina.escrever("<p><a href=\"" + arquivo.getFileName()
+                + "\">Página principal</a>");
+        if (paginas > 1) {
+            pagina.escrever(" | <a href=\"" + nomePagina(paginas - 1)
+                    + "\">Anterior</a>");
+        }
+        if (proxima) {
+            pagina.escrever(" | <a href=\"" + nomePagina(paginas + 1)
+                    + "\">Próxima</a>");
+        }
+        pagina.escrever("</p>\n");
+    }
+
+    /**
+     * Escreve o cabeçalho de um arquivo HTML, até a abertura do corpo.
+     *
+     * @param destino Arquivo a ser escrito.
+     * @param titulo Título do documento.
+     * @throws IOException Quando não é possível escrever o relatório.
+     */
+    private static void cabecalho(final SaidaUtf8 destino,
+            final String titulo) throws IOException {
+        destino.escrever("<!DOCTYPE html>\n<html>\n\n<head>\n"
+                + "<meta charset=\"UTF-8\">\n<title>" + titulo + "</title>\n"
+                + "<style>th, td {padding: 5px;"
+                + "border-bottom: 1px solid #ddd;}</style>\n</head>\n\n"
+                + "<body>\n");
+    }
+
+    /**
+     * Escreve o final de um arquivo HTML.
+     *
+     * @param destino Arquivo a ser escrito.
+     * @throws IOException Quando não é possível escrever o relatório.
+     */
+    private static void rodape(final SaidaUtf8 destino) throws IOException {
+        destino.escrever("</body>\n\n</html>\n");
+    }
+
+    /**
+     * Escreve o início de uma tabela de testes, com os títulos das colunas.
+     *
+     * @param destino Arquivo a ser escrito.
+     * @throws IOException Quando não é possível escrever o relatório.
+     */
+    private static void inicioTabela(final SaidaUtf8 destino)
+            throws IOException {
+        destino.escrever("<table>\n<tr>\n<th><b>Teste</b></th>\n"
+                + "<th><b>Expressão</b></th>\n<th><b>Variáveis</b></th>\n"
+                + "<th><b>Esperado</b></th>\n<th><b>Obtido</b></th>\n"
+                + "<th><b>Sucesso</b></th>\n<th><b>Memória (bytes)</b></th>\n"
+                + "</tr>\n");
+    }
+
+    /**
+     * Obtém o local de uma página de testes, no mesmo diretório da página
+     * principal.
+     *
+     * @param numero Número da página (a partir de 1).
+     * @return Local da página.
+     */
+    private Path arquivoPagina(final int numero) {
+        return arquivo.resolveSibling(nomePagina(numero));
+    }
+
+    /**
+     * Obtém o nome do arquivo de uma página de testes: o nome da página
+     * principal seguido do número da página.
+     *
+     * @param numero Número da página (a partir de 1).
+     * @return Nome do arquivo.
+     */
+    private String nomePagina(final int numero) {
+        String nome = arquivo.getFileName().toString();
+        if (nome.endsWith(EXTENSAO)) {
+            nome = nome.substring(0, nome.length() - EXTENSAO.length());
+        }
+        return nome + "-" + numero + EXTENSAO;
+    }
+
+    /**
+     * Acrescenta um texto com os caracteres especiais do HTML escapados.
+     *
+     * @param destino Onde o texto será acrescentado.
+     * @param texto Texto a ser escapado.
+     */
+    private static void escapar(final StringBuilder destino,
+            final CharSequence texto) {
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            switch (c) {
+                case '<':
+                    destino.append("&lt;");
+                    break;
+                case '>':
+                    destino.append("&gt;");
+                    break;
+                case '&':
+                    destino.append("&amp;");
+                    break;
+                case '"':
+                    destino.append("&quot;");
+                    break;
+                default:
+                    destino.append(c);
+            }
+        }
+    }
+
+    /**
+     * Obtém um texto com os caracteres especiais do HTML escapados.
+     *
+     * @param texto Texto a ser escapado.
+     * @return Texto escapado.
+     */
+    private static String escapar(final String texto) {
+        StringBuilder destino = new StringBuilder(texto.length());
+        escapar(destino, texto);
+        return destino.toString();
+    }
+
+    /**
+     * Escreve a seção de informações gerais.
+     *
+     * @param resumo Informações gerais da execução.
+     * @throws IOException Quando não é possível escrever o relatório.
+     */
+    private void escreverResumo(final Estatisticas resumo) throws IOException {
+        linha("<h2>Informações gerais</h2>");
+        linha("<p><b>Testes executados:</b> " + resumo.getTestes()
+                + " testes.");
+        linha("</br><b>Testes que falharam:</b> " + resumo.getFalhas()
+                + " testes (" + String.format("%.0f", resumo.getTaxaFalhas()
+                        * RATE_TO_PERCENT) + "%).");
+        if (resumo.getTemposEsgotados() > 0 || resumo.getEstourosPilha() > 0) {
+            linha("</br><b>Testes interrompidos:</b> "
+                    + resumo.getTemposEsgotados() + " por tempo esgotado e "
+                    + resumo.getEstourosPilha() + " por estouro de pilha.");
+        }
+        linha("</br><b>Tempo total:</b> "
+                + String.format("%.0f", resumo.getTempoTotal())
+                + " milisegundos.");
+        linha("</br><b>Tempo de CPU:</b> "
+                + String.format("%.0f", resumo.getTempoCpu())
+                + " milisegundos, somados entre " + resumo.getThreads()
+                + " thread(s).");
+        linha("</br><b>Tempo médio:</b> "
+                + String.format("%.3f", resumo.getTempoMedio())
+                + " milisegundos por teste.");
+        if (resumo.isCacheHabilitado()) {
+            linha("</br><b>Cache de expressões:</b> "
+                    + resumo.getAcertosCache() + " acertos e "
+                    + resumo.getFaltasCache() + " faltas.");
+        } else if (resumo.isCacheCompartilhado()) {
+            linha("</br><b>Cache de expressões:</b> compartilhado pelas "
+                    + "suítes do lote (consultas no resumo do lote).");
+        } else {
+            linha("</br><b>Cache de expressões:</b> desabilitado.");
+        }
+        if (resumo.isIncremental()) {
+            linha("</br><b>Execução incremental:</b> "
+                    + resumo.getReaproveitados() + " resultados "
+                    + "reaproveitados e " + resumo.getRecalculados()
+                    + " recalculados.");
+        }
+        escreverLatencias(resumo.getLatencias());
+        FasesParser fases = resumo.getFases();
+        if (fases != null) {
+            escreverFases(fases);
+        }
+        if (resumo.isIterativo()) {
+            escreverIteracoes(resumo);
+        }
+        escreverMemoria(resumo);
+        ComparacaoBase comparacao = resumo.getComparacao();
+        if (comparacao != null) {
+            escreverComparacao(comparacao);
+        }
+        linha("</p>");
+        linha("");
+        escreverMaiores("Testes mais lentos", "Tempo (microssegundos)",
+                resumo.getLatencias(), NANOS_POR_MICRO);
+        if (fases != null) {
+            escreverFaixas("Fases do Parser por tamanho da expressão",
+                    "Caracteres", fases, FasesParser.TAMANHO);
+            escreverFaixas("Fases do Parser por quantidade de tokens",
+                    "Tokens", fases, FasesParser.TOKENS);
+            escreverFaixas("Fases do Parser por quantidade de variáveis",
+                    "Variáveis", fases, FasesParser.VARIAVEIS);
+        }
+        escreverMaiores("Testes que mais alocam memória", "Memória (bytes)",
+                resumo.getAlocacoes(), 1);
+        if (resumo.isIterativo()) {
+            escreverTemposIteracoes(resumo.getIteracoes());
+        }
+        if (comparacao != null) {
+            escreverRegredidos(comparacao);
+        }
+    }
+
+    /**
+     * Escreve o resultado da comparação com a execução base.
+     *
+     * @param comparacao Comparação concluída.
+     * @throws IOException Quando não é possível escrever o relatório.
+     */
+    private void escreverComparacao(final ComparacaoBase comparacao)
+            throws IOException {
+        String situacao = "dentro do orçamento";
+        if (comparacao.isRegressao()) {
+            situacao = "<b>REGREDIU</b>";
+        }
+        linha("</br><b>Comparação com a base:</b> tempo médio "
+                + String.format("%.4f ± %.4f", comparacao.getMediaAtual(),
+                        comparacao.getMargemAtual())
+                + " contra "
+                + String.format("%.4f ± %.4f", comparacao.getMediaBase(),
+                        comparacao.getMargemBase())
+                + " milisegundos por teste, " + situacao + " ("
+                + String.format("%.0f", comparacao.getOrcamento()
+                        * RATE_TO_PERCENT) + "%). "
+                + comparacao.getComparados() + " testes comparados, "
+                + comparacao.getSemBase() + " sem base, "
+                + comparacao.getRegredidos() + " regredidos (mais de "
+                + String.format("%.2f", comparacao.getLimite())
+                + " vezes o tempo da base).");
+    }
+
+    /**
+     * Escreve a tabela dos testes que mais regrediram em relação à base.
+     *
+     * @param comparacao Comparação concluída.
+     * @throws IOException Quando não é possível escrever o relatório.
+     */
+    private void escreverRegredidos(final ComparacaoBase comparacao)
+            throws IOException {
+        int[] ordem = comparacao.ordemRegredidos();
+        if (ordem.length == 0) {
+            return;
+        }
+        Latencias candidatos = comparacao.getCandidatos();
+        linha("<h2>Testes regredidos</h2>");
+        linha("<table>");
+        linha("<tr>");
+        linha("<th><b>Teste</b></th>");
+        linha("<th><b>Expressão</b></th>");
+        linha("<th><b>Tempo em relação à base</b></th>");
+        linha("</tr>");
+        for (int regredido : ordem) {
+            linha("<tr>");
+            linha("<td>" + (candidatos.getPosicao(regredido) + 1) + "</td>");
+            linha("<td>" + escapar(candidatos.getExpressao(regredido))
+                    + "</td>");
+            linha("<td>" + String.format("%.2f",
+                    comparacao.getRazao(regredido)) + "x</td>");
+            linha("</tr>");
+        }
+        linha("</table>");
+        linha("");
+    }
+
+    /**
+     * Escreve os percentis do tempo por teste.
+     *
+     * @param latencias Tempo de cada teste.
+     * @throws IOException Quando não é possível escrever o relatório.
+     */
+    private void escreverLatencias(final Latencias latencias)
+            throws IOException {
+        linha("</br><b>Tempo por teste:</b> "
+                + percentis(latencias.getHistograma(), NANOS_POR_MICRO)
+                + " microssegundos.");
+    }
+
+    /**
+     * Escreve o tempo médio de cada fase do Parser por expressão analisada,
+     * encontrada no cache ou avaliada.
+     *
+     * @param fases Tempo de cada fase do Parser.
+     * @throws IOException Quando não é possível escrever o relatório.
+     */
+    private void escreverFases(final FasesParser fases) throws IOException {
+        linha("</br><b>Fases do Parser:</b> análise léxica "
+                + media(fases.getNanosLexica(), fases.getAnalises())
+                + ", sintática "
+                + media(fases.getNanosSintatica(), fases.getAnalises())
+                + ", consulta ao cache "
+                + media(fases.getNanosConsulta(), fases.getAcertos())
+                + " e avaliação "
+                + media(fases.getNanosAvaliacao(), fases.getAvaliacoes())
+                + " microssegundos por expressão (" + fases.getAnalises()
+                + " análises, " + fases.getAcertos() + " acertos do cache e "
+                + fases.getAvaliacoes() + " avaliações).");
+    }
+
+    /**
+     * Escreve a tabela do tempo médio de cada fase do Parser por faixa de
+     * uma dimensão. Faixas vazias são omitidas.
+     *
+     * @param titulo Título da tabela.
+     * @param coluna Título da coluna das faixas.
+     * @param fases Tempo de cada fase do Parser.
+     * @param dimensao Dimensão das faixas.
+     * @throws IOException Quando não é possível escrever o relatório.
+     */
+    private void escreverFaixas(final String titulo, final String coluna,
+            final FasesParser fases, final int dimensao) throws IOException {
+        linha("<h2>" + titulo + "</h2>");
+        linha("<table>");
+        linha("<tr>");
+        linha("<th><b>" + coluna + "</b></th>");
+        linha("<th><b>Análises</b></th>");
+        linha("<th><b>Léxica (microssegundos)</b></th>");
+        linha("<th><b>Sintática (microssegundos)</b></th>");
+        linha("<th><b>Acertos do cache</b></th>");
+        linha("<th><b>Consulta ao cache (microssegundos)</b></th>");
+        linha("<th><b>Avaliações</b></th>");
+        linha("<th><b>Avaliação (microssegundos)</b></th>");
+        linha("</tr>");
+        for (int i = 0; i < FasesParser.FAIXAS; i++) {
+            if (!fases.isOcupada(dimensao, i)) {
+                continue;
+            }
+            long inicio = FasesParser.inicioFaixa(i);
+            long fim = FasesParser.fimFaixa(i);
+            String faixa = Long.toString(inicio);
+            if (fim > inicio) {
+                faixa += " a " + fim;
+            }
+            long analises = fases.getAnalises(dimensao, i);
+            long acertos = fases.getAcertos(dimensao, i);
+            long avaliacoes = fases.getAvaliacoes(dimensao, i);
+            linha("<tr>");
+            linha("<td>" + faixa + "</td>");
+            linha("<td>" + analises + "</td>");
+            linha("<td>" + media(fases.getNanosLexica(dimensao, i), analises)
+                    + "</td>");
+            linha("<td>" + media(fases.getNanosSintatica(dimensao, i),
+                    analises) + "</td>");
+            linha("<td>" + acertos + "</td>");
+            linha("<td>" + media(fases.getNanosConsulta(dimensao, i),
+                    acertos) + "</td>");
+            linha("<td>" + avaliacoes + "</td>");
+            linha("<td>" + media(fases.getNanosAvaliacao(dimensao, i),
+                    avaliacoes) + "</td>");
+            linha("</tr>");
+        }
+        linha("</table>");
+        linha("");
+    }
+
+    /**
+     * Formata o tempo médio, em microssegundos, de uma fase do Parser.
+     *
+     * @param nanos Tempo somado, em nanossegundos.
+     * @param quantidade Quantidade de expressões.
+     * @return Média com três casas decimais, ou "-" se não houver
+     * expressões.
+     */
+    private static String media(final long nanos, final long quantidade) {
+        if (quantidade == 0) {
+            return "-";
+        }
+        return String.format("%.3f", nanos / NANOS_POR_MICRO / quantidade);
+    }
+
+    /**
+     * Escreve a memória alocada em cada fase da execução e os percentis da
+     * memória alocada por teste.
+     *
+     * @param resumo Informações gerais da execução.
+     * @throws IOException Quando não é possível escrever o relatório.
+     */
+    private void escreverMemoria(final Estatisticas resumo)
+            throws IOException {
+        String relatorio = "";
+        if (resumo.isRelatorioMedido()) {
+            relatorio = ", escrita do relatório: "
+                    + resumo.getAlocadosRelatorio();
+        }
+        linha("</br><b>Memória alocada:</b> "
+                + resumo.getMemoriaConsumida()
+                + " bytes (leitura e análise das linhas: "
+                + resumo.getAlocadosAnalise()
+                + ", realização das expressões: "
+                + resumo.getAlocadosExecucao() + relatorio + ").");
+        Histograma histograma = resumo.getAlocacoes().getHistograma();
+        linha("</br><b>Memória por teste:</b> média "
+                + String.format("%.0f", histograma.getMedia()) + ", "
+                + percentis(histograma, 1) + " bytes.");
+    }
+
+    /**
+     * Formata os percentis apresentados no relatório e o máximo de um
+     * histograma.
+     *
+     * @param histograma Histograma com a medida de cada teste.
+     * @param divisor Divisor para conversão da unidade do histograma.
+     * @return Percentis separados por vírgula.
+     */
+    private static String percentis(final Histograma histograma,
+            final double divisor) {
+        StringBuilder texto = new StringBuilder();
+        for (int i = 0; i < Latencias.PERCENTIS.length; i++) {
+            texto.append(Latencias.NOMES_PERCENTIS[i]).append(' ')
+                    .append(formatar(histograma.percentil(
+                            Latencias.PERCENTIS[i]), divisor)).append(", ");
+        }
+        return texto.append("máximo ")
+                .append(formatar(histograma.getMaximo(), divisor)).toString();
+    }
+
+    /**
+     * Escreve a quantidade de iterações e a média do tempo por iteração, com
+     * o intervalo de confiança de 95% e o desvio padrão.
+     *
+     * @param resumo Informações gerais da execução.
+     * @throws IOException Quando não é possível escrever o relatório.
+     */
+    private void escreverIteracoes(final Estatisticas resumo)
+            throws IOException {
+        AmostraTempos amostra = resumo.getIteracoes();
+        double media = amostra.getMedia();
+        double margem = amostra.getMargemErro();
+        linha("</br><b>Iterações:</b> " + resumo.getAquecimento()
+                + " de aquecimento e " + amostra.getQuantidade()
+                + " medidas. Média de " + String.format("%.4f", media)
+                + " milissegundos por iteração (intervalo de confiança de "
+                + "95%: " + String.format("%.4f", media - margem) + " a "
+                + String.format("%.4f", media + margem)
+                + "), desvio padrão de "
+                + String.format("%.4f", amostra.getDesvioPadrao()) + ".");
+    }
+
+    /**
+     * Escreve a tabela com o tempo de cada iteração medida.
+     *
+     * @param amostra Tempos das iterações.
+     * @throws IOException Quando não é possível escrever o relatório.
+     */
+    private void escreverTemposIteracoes(final AmostraTempos amostra)
+            throws IOException {
+        linha("<h2>Tempo por iteração</h2>");
+        linha("<table>");
+        linha("<tr>");
+        linha("<th><b>Iteração</b></th>");
+        linha("<th><b>Tempo (milissegundos)</b></th>");
+        linha("</tr>");
+        for (int i = 0; i < amostra.getQuantidade(); i++) {
+            linha("<tr>");
+            linha("<td>" + (i + 1) + "</td>");
+            linha("<td>" + String.format("%.4f", amostra.getTempo(i))
+                    + "</td>");
+            linha("</tr>");
+        }
+        linha("</table>");
+        linha("");
+    }
+
+    /**
+     * Escreve a tabela dos testes em que uma medida (tempo ou memória) foi
+     * maior.
+     *
+     * @param titulo Título da tabela.
+     * @param coluna Título da coluna da medida, com a unidade.
+     * @param medidas Medida de cada teste.
+     * @param divisor Divisor para conversão da unidade das medidas.
+     * @throws IOException Quando não é possível escrever o relatório.
+     */
+    private void escreverMaiores(final String titulo, final String coluna,
+            final Latencias medidas, final double divisor)
+            throws IOException {
+        int[] ordem = medidas.ordemLentos();
+        if (ordem.length == 0) {
+            return;
+        }
+        linha("<h2>" + titulo + "</h2>");
+        linha("<table>");
+        linha("<tr>");
+        linha("<th><b>Teste</b></th>");
+        linha("<th><b>Expressão</b></th>");
+        linha("<th><b>" + coluna + "</b></th>");
+        linha("</tr>");
+        for (int maior : ordem) {
+            linha("<tr>");
+            linha("<td>" + (medidas.getPosicao(maior) + 1) + "</td>");
+            linha("<td>" + escapar(medidas.getExpressao(maior)) + "</td>");
+            linha("<td>" + formatar(medidas.getValor(maior), divisor)
+                    + "</td>");
+            linha("</tr>");
+        }
+        linha("</table>");
+        linha("");
+    }
+
+    /**
+     * Formata uma medida em outra unidade.
+     *
+     * @param valor Medida na unidade original.
+     * @param divisor Divisor para conversão da unidade (1 mantém o valor).
+     * @return Medida convertida, com uma casa decimal quando há conversão.
+     */
+    private static String formatar(final long valor, final double divisor) {
+        if (divisor == 1) {
+            return Long.toString(valor);
+        }
+        return String.format("%.1f", valor / divisor);
+    }
+
+    /**
+     * Escreve uma linha no arquivo.
+     *
+     * @param texto Conteúdo da linha.
+     * @throws IOException Quando não é possível escrever o relatório.
+     */
+    private void linha(final String texto) throws IOException {
+        saida.escrever(texto);
+        saida.escrever('\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (pagina != null) {
+                pagina.close();
+            }
+        } finally {
+            if (saida != null) {
+                saida.close();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,486 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Escreve o relatório de testes no formato JSON, diretamente no arquivo
+ * (através de {@link SaidaUtf8}), à medida que os testes são fornecidos: o
+ * tempo de escrita é linear e a memória usada não depende da quantidade de
+ * testes. Textos (expressões e nomes de variáveis) são escapados conforme a
+ * especificação do JSON, e valores não finitos, que não existem em JSON, são
+ * escritos como os textos "NaN", "Infinity" e "-Infinity".
+ *
+ * @author Wesleywrl
+ */
+public final class EscritorJson implements EscritorRelatorio {
+
+    /**
+     * Maior caractere que precisa ser escapado como "\\uXXXX".
+     */
+    private static final char ULTIMO_CONTROLE = 0x1F;
+
+    /**
+     * Dígitos hexadecimais, para o escape de caracteres de controle.
+     */
+    private static final String HEXADECIMAL = "0123456789abcdef";
+
+    /**
+     * Deslocamentos, em bits, dos dígitos hexadecimais de um caractere, do
+     * mais ao menos significativo.
+     */
+    private static final int[] DESLOCAMENTOS_HEX = {12, 8, 4, 0};
+
+    /**
+     * Máscara de um dígito hexadecimal.
+     */
+    private static final int MASCARA_HEX = 0xF;
+
+    /**
+     * Arquivo de saída.
+     */
+    private final SaidaUtf8 saida;
+
+    /**
+     * Indica se as informações gerais já foram escritas.
+     */
+    private boolean resumoEscrito;
+
+    /**
+     * Indica se nenhum teste foi escrito ainda (o primeiro não é precedido de
+     * vírgula).
+     */
+    private boolean primeiro = true;
+
+    /**
+     * Cria o arquivo JSON do relatório.
+     *
+     * @param arquivo Local em que o arquivo deve ser salvo.
+     * @throws IOException Quando não é possível criar o arquivo.
+     */
+    public EscritorJson(final Path arquivo) throws IOException {
+        saida = new SaidaUtf8(arquivo);
+    }
+
+    @Override
+    public void iniciar(final Estatisticas resumo) throws IOException {
+        linha("{");
+        if (resumo != null) {
+            escreverResumo(resumo);
+            saida.escrever(',');
+            saida.novaLinha();
+            resumoEscrito = true;
+        }
+        linha("    \"testes\":[");
+    }
+
+    @Override
+    public void escreverTeste(final SuiteTestes suite, final int teste)
+            throws IOException {
+        if (!primeiro) {
+            saida.escrever(',');
+            saida.novaLinha();
+        }
+        primeiro = false;
+
+        linha("        {");
+        saida.escrever("            \"expressao\":");
+        texto(suite.getExpressao(teste));
+        saida.escrever(',');
+        saida.novaLinha();
+        int quantidade = suite.getQuantidadeVariaveis(teste);
+        if (quantidade > 0) {
+            linha("            \"variaveis\":[");
+            for (int i = 0; i < quantidade; i++) {
+                linha("                {");
+                saida.escrever("                    ");
+                texto(suite.getNomeVariavel(teste, i));
+                saida.escrever(':');
+                numero(suite.getValorVariavel(teste, i));
+                saida.novaLinha();
+                saida.escrever("                }");
+                if (i < quantidade - 1) {
+                    saida.escrever(',');
+                }
+                saida.novaLinha();
+            }
+            linha("            ],");
+        }
+        saida.escrever("            \"esperado\":");
+        numero(suite.getEsperado(teste));
+        saida.escrever(',');
+        saida.novaLinha();
+        saida.escrever("            \"obtido\":");
+        if (suite.isObtido(teste)) {
+            numero(suite.getObtido(teste));
+        } else {
+            saida.escrever("null");
+        }
+        saida.escrever(',');
+        saida.novaLinha();
+        if (suite.isTempoEsgotado(teste)) {
+            linha("            \"interrupcao\":\"tempoEsgotado\",");
+        } else if (suite.isEstouroPilha(teste)) {
+            linha("            \"interrupcao\":\"estouroPilha\",");
+        }
+        saida.escrever("            \"memoria\":");
+        saida.escrever(suite.getAlocados(teste));
+        saida.escrever(',');
+        saida.novaLinha();
+        saida.escrever("            \"sucesso\":");
+        if (suite.getSucesso(teste)) {
+            saida.escrever("true");
+        } else {
+            saida.escrever("false");
+        }
+        saida.novaLinha();
+        saida.escrever("        }");
+    }
+
+    @Override
+    public void finalizar(final Estatisticas resumo) throws IOException {
+        if (!primeiro) {
+            saida.novaLinha();
+        }
+        if (resumoEscrito) {
+            linha("    ]");
+        } else {
+            linha("    ],");
+            escreverResumo(resumo);
+            saida.novaLinha();
+        }
+        linha("}");
+    }
+
+    /**
+     * Escreve as informações gerais. A última não é seguida de vírgula nem de
+     * quebra de linha.
+     *
+     * @param resumo Informações gerais da execução.
+     * @throws IOException Quando não é possível escrever o relatório.
+     */
+    private void escreverResumo(final Estatisticas resumo) throws IOException {
+        linha("    \"testesTotais\":" + resumo.getTestes() + ",");
+        linha("    \"testesFalhos\":" + resumo.getFalhas() + ",");
+        linha("    \"testesTempoEsgotado\":" + resumo.getTemposEsgotados()
+                + ",");
+        linha("    \"testesEstouroPilha\":" + resumo.getEstourosPilha() + ",");
+        campo("tempoTotal", resumo.getTempoTotal());
+        campo("tempoMedio", resumo.getTempoMedio());
+        campo("tempoCpu", resumo.getTempoCpu());
+        linha("    \"threads\":" + resumo.getThreads() + ",");
+        if (resumo.isCacheHabilitado()) {
+            linha("    \"cacheAcertos\":" + resumo.getAcertosCache() + ",");
+            linha("    \"cacheFaltas\":" + resumo.getFaltasCache() + ",");
+        }
+        if (resumo.isIncremental()) {
+            linha("    \"reaproveitados\":" + resumo.getReaproveitados()
+                    + ",");
+            linha("    \"recalculados\":" + resumo.getRecalculados() + ",");
+        }
+        escreverPorTeste("latenciaNanos", resumo.getLatencias(), "lentos",
+                "tempo");
+        if (resumo.getFases() != null) {
+            escreverFases(resumo.getFases());
+        }
+        if (resumo.isIterativo()) {
+            escreverIteracoes(resumo);
+        }
+        if (resumo.getComparacao() != null) {
+            escreverComparacao(resumo.getComparacao());
+        }
+        escreverPorTeste("alocacaoBytes", resumo.getAlocacoes(), "maiores",
+                "bytes");
+        linha("    \"memoriaAnalise\":" + resumo.getAlocadosAnalise() + ",");
+        linha("    \"memoriaExecucao\":" + resumo.getAlocadosExecucao() + ",");
+        if (resumo.isRelatorioMedido()) {
+            linha("    \"memoriaRelatorio\":" + resumo.getAlocadosRelatorio()
+                    + ",");
+        }
+        saida.escrever("    \"memoriaConsumida\":");
+        saida.escrever(resumo.getMemoriaConsumida());
+    }
+
+    /**
+     * Escreve os percentis de uma medida feita em cada teste (tempo em
+     * nanossegundos ou memória em bytes) e os testes em que ela foi maior
+     * (posição do teste, expressão e valor).
+     *
+     * @param chave Nome do objeto no relatório.
+     * @param medidas Medida de cada teste.
+     * @param lista Nome da lista dos testes de maior medida.
+     * @param campo Nome do valor de cada teste da lista.
+     * @throws IOException Quando não é possível escrever o relatório.
+     */
+    private void escreverPorTeste(final String chave, final Latencias medidas,
+            final String lista, final String campo) throws IOException {
+        Histograma histograma = medidas.getHistograma();
+        linha("    \"" + chave + "\":{");
+        for (int i = 0; i < Latencias.PERCENTIS.length; i++) {
+            linha("        \"" + Latencias.NOMES_PERCENTIS[i] + "\":"
+                    + histograma.percentil(Latencias.PERCENTIS[i]) + ",");
+        }
+        linha("        \"max\":" + histograma.getMaximo() + ",");
+        linha("        \"" + lista + "\":[");
+        int[] ordem = medidas.ordemLentos();
+        for (int i = 0; i < ordem.length; i++) {
+            String virgula = ",";
+            if (i == ordem.length - 1) {
+                virgula = "";
+            }
+            int maior = ordem[i];
+            saida.escrever("            {\"teste\":"
+                    + (medidas.getPosicao(maior) + 1) + ", \"expressao\":");
+            texto(medidas.getExpressao(maior));
+            linha(", \"" + campo + "\":" + medidas.getValor(maior) + "}"
+                    + virgula);
+        }
+        linha("        ]");
+        linha("    },");
+    }
+
+    /**
+     * Escreve o tempo de cada fase do Parser (nanossegundos somados e
+     * quantidade de análises, de acertos do cache e de avaliações), no total
+     * e por faixa de tamanho da expressão, de quantidade de tokens e de
+     * variáveis. Faixas vazias são omitidas.
+     *
+     * @param fases Tempo de cada fase do Parser.
+     * @throws IOException Quando não é possível escrever o relatório.
+     */
+    private void escreverFases(final FasesParser fases) throws IOException {
+        linha("    \"fasesParser\":{");
+        linha("        \"analises\":" + fases.getAnalises() + ",");
+        linha("        \"lexicaNanos\":" + fases.getNanosLexica() + ",");
+        linha("        \"sintaticaNanos\":" + fases.getNanosSintatica()
+                + ",");
+        linha("        \"acertosCache\":" + fases.getAcertos() + ",");
+        linha("        \"consultaCacheNanos\":" + fases.getNanosConsulta()
+                + ",");
+        linha("        \"avaliacoes\":" + fases.getAvaliacoes() + ",");
+        linha("        \"avaliacaoNanos\":" + fases.getNanosAvaliacao()
+                + ",");
+        escreverFaixas("porTamanho", fases, FasesParser.TAMANHO, ",");
+        escreverFaixas("porTokens", fases, FasesParser.TOKENS, ",");
+        escreverFaixas("porVariaveis", fases, FasesParser.VARIAVEIS, "");
+        linha("    },");
+    }
+
+    /**
+     * Escreve as faixas ocupadas de uma dimensão das fases do Parser, cada
+     * uma com os seus limites (inclusivos).
+     *
+     * @param chave Nome da lista no relatório.
+     * @param fases Tempo de cada fase do Parser.
+     * @param dimensao Dimensão das faixas.
+     * @param fim Texto após o fim da lista.
+     * @throws IOException Quando não é possível escrever o relatório.
+     */
+    private void escreverFaixas(final String chave, final FasesParser fases,
+            final int dimensao, final String fim) throws IOException {
+        linha("        \"" + chave + "\":[");
+        boolean primeira = true;
+        for (int i = 0; i < FasesParser.FAIXAS; i++) {
+            if (!fases.isOcupada(dimensao, i)) {
+                continue;
+            }
+            if (!primeira) {
+                linha(",");
+            }
+            primeira = false;
+            saida.escrever("            {\"de\":"
+                    + FasesParser.inicioFaixa(i) + ", \"ate\":"
+                    + FasesParser.fimFaixa(i) + ", \"analises\":"
+                    + fases.getAnalises(dimensao, i) + ", \"lexicaNanos\":"
+                    + fases.getNanosLexica(dimensao, i)
+                    + ", \"sintaticaNanos\":"
+                    + fases.getNanosSintatica(dimensao, i)
+                    + ", \"acertosCache\":" + fases.getAcertos(dimensao, i)
+                    + ", \"consultaCacheNanos\":"
+                    + fases.getNanosConsulta(dimensao, i)
+                    + ", \"avaliacoes\":" + fases.getAvaliacoes(dimensao, i)
+                    + ", \"avaliacaoNanos\":"
+                    + fases.getNanosAvaliacao(dimensao, i) + "}");
+        }
+        if (!primeira) {
+            saida.novaLinha();
+        }
+        linha("        ]" + fim);
+    }
+
+    /**
+     * Escreve o tempo de cada iteração medida, em milissegundos, com a média,
+     * o desvio padrão e o intervalo de confiança de 95% da média.
+     *
+     * @param resumo Informações gerais da execução.
+     * @throws IOException Quando não é possível escrever o relatório.
+     */
+    private void escreverIteracoes(final Estatisticas resumo)
+            throws IOException {
+        AmostraTempos amostra = resumo.getIteracoes();
+        linha("    \"iteracoes\":{");
+        linha("        \"aquecimento\":" + resumo.getAquecimento() + ",");
+        StringBuilder tempos = new StringBuilder("        \"tempos\":[");
+        for (int i = 0; i < amostra.getQuantidade(); i++) {
+            if (i > 0) {
+                tempos.append(", ");
+            }
+            tempos.append(amostra.getTempo(i));
+        }
+        linha(tempos.append("],").toString());
+        double media = amostra.getMedia();
+        double margem = amostra.getMargemErro();
+        linha("        \"media\":" + media + ",");
+        linha("        \"desvioPadrao\":" + amostra.getDesvioPadrao() + ",");
+        linha("        \"intervaloConfianca95\":[" + (media - margem) + ", "
+                + (media + margem) + "]");
+        linha("    },");
+    }
+
+    /**
+     * Escreve o resultado da comparação com a execução base: tempo médio por
+     * teste (milissegundos) e margem de erro de cada execução, se houve
+     * regressão e os testes que mais regrediram.
+     *
+     * @param comparacao Comparação concluída.
+     * @throws IOException Quando não é possível escrever o relatório.
+     */
+    private void escreverComparacao(final ComparacaoBase comparacao)
+            throws IOException {
+        linha("    \"base\":{");
+        linha("        \"mediaBase\":" + comparacao.getMediaBase() + ",");
+        linha("        \"margemBase\":" + comparacao.getMargemBase() + ",");
+        linha("        \"mediaAtual\":" + comparacao.getMediaAtual() + ",");
+        linha("        \"margemAtual\":" + comparacao.getMargemAtual() + ",");
+        linha("        \"orcamento\":" + comparacao.getOrcamento() + ",");
+        linha("        \"regressao\":" + comparacao.isRegressao() + ",");
+        linha("        \"testesBase\":" + comparacao.getTestesBase() + ",");
+        linha("        \"comparados\":" + comparacao.getComparados() + ",");
+        linha("        \"semBase\":" + comparacao.getSemBase() + ",");
+        linha("        \"limiteRazao\":" + comparacao.getLimite() + ",");
+        linha("        \"regredidos\":" + comparacao.getRegredidos() + ",");
+        linha("        \"maisRegredidos\":[");
+        Latencias candidatos = comparacao.getCandidatos();
+        int[] ordem = comparacao.ordemRegredidos();
+        for (int i = 0; i < ordem.length; i++) {
+            String virgula = ",";
+            if (i == ordem.length - 1) {
+                virgula = "";
+            }
+            int regredido = ordem[i];
+            saida.escrever("            {\"teste\":"
+                    + (candidatos.getPosicao(regredido) + 1)
+                    + ", \"expressao\":");
+            texto(candidatos.getExpressao(regredido));
+            linha(", \"razao\":" + comparacao.getRazao(regredido) + "}"
+                    + virgula);
+        }
+        linha("        ]");
+        linha("    },");
+    }
+
+    /**
+     * Escreve um texto JSON: entre aspas, com aspas, barras invertidas e
+     * caracteres de controle escapados.
+     *
+     * @param conteudo Conteúdo do texto.
+     * @throws IOException Quando não é possível escrever o relatório.
+     */
+    private void texto(final CharSequence conteudo) throws IOException {
+        texto(saida, conteudo);
+    }
+
+    /**
+     * Escreve um texto JSON: entre aspas, com aspas, barras invertidas e
+     * caracteres de controle escapados.
+     *
+     * @param saida Destino do texto.
+     * @param conteudo Conteúdo do texto.
+     * @throws IOException Quando não é possível escrever o texto.
+     */
+    static void texto(final SaidaUtf8 saida, final CharSequence conteudo)
+            throws IOException {
+        saida.escrever('"');
+        for (int i = 0; i < conteudo.length(); i++) {
+            char c = conteudo.charAt(i);
+            switch (c) {
+                case '"':
+                    saida.escrever("\\\"");
+                    break;
+                case '\\':
+                    saida.escrever("\\\\");
+                    break;
+                case '\n':
+                    saida.escrever("\\n");
+                    break;
+                case '\r':
+                    saida.escrever("\\r");
+                    break;
+                case '\t':
+                    saida.escrever("\\t");
+                    break;
+                default:
+                    if (c <= ULTIMO_CONTROLE) {
+                        saida.escrever("\\u");
+                        for (int deslocamento : DESLOCAMENTOS_HEX) {
+                            saida.escrever(HEXADECIMAL.charAt(
+                                    c >> deslocamento & MASCARA_HEX));
+                        }
+                    } else {
+                        saida.escrever(c);
+                    }
+            }
+        }
+        saida.escrever('"');
+    }
+
+    /**
+     * Escreve um número JSON. Valores não finitos são escritos como texto.
+     *
+     * @param valor Valor a ser escrito.
+     * @throws IOException Quando não é possível escrever o relatório.
+     */
+    private void numero(final float valor) throws IOException {
+        if (Float.isNaN(valor) || Float.isInfinite(valor)) {
+            texto(Float.toString(valor));
+        } else {
+            saida.escrever(valor);
+        }
+    }
+
+    /**
+     * Escreve um campo numérico das informações gerais, seguido de vírgula.
+     *
+     * @param nome Nome do campo.
+     * @param valor Valor do campo.
+     * @throws IOException Quando não é possível escrever o relatório.
+     */
+    private void campo(final String nome, final float valor)
+            throws IOException {
+        saida.escrever("    \"" + nome + "\":");
+        numero(valor);
+        saida.escrever(',');
+        saida.novaLinha();
+    }
+
+    /**
+     * Escreve uma linha no arquivo.
+     *
+     * @param texto Conteúdo da linha.
+     * @throws IOException Quando não é possível escrever o relatório.
+     */
+    private void linha(final String texto) throws IOException {
+        saida.escrever(texto);
+        saida.novaLinha();
+    }
+
+    @Override
+    public void close() throws IOException {
+        saida.close();
+    }
+
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Escreve um relatório de testes de forma incremental: cada teste é escrito
+ * assim que fornecido, sem que o relatório inteiro seja montado em memória.
+ * A ordem de chamadas deve ser {@link #iniciar(Estatisticas)}, zero ou mais
+ * {@link #escreverTeste(SuiteTestes, int)}, {@link #finalizar(Estatisticas)} e, por fim,
+ * {@link #close()}.
+ *
+ * @author Wesleywrl
+ */
+public interface EscritorRelatorio extends Closeable {
+
+    /**
+     * Escreve o início do relatório.
+     *
+     * @param resumo Informações gerais da execução, caso já sejam conhecidas
+     * (todos os testes já executados). Se null, as informações gerais são
+     * escritas em {@link #finalizar(Estatisticas)}.
+     * @throws IOException Quando não é possível escrever o relatório.
+     */
+    void iniciar(Estatisticas resumo) throws IOException;
+
+    /**
+     * Escreve um teste já executado e com o sucesso já atualizado.
+     *
+     * @param suite Conjunto que contém o teste.
+     * @param teste Posição do teste a ser escrito.
+     * @throws IOException Quando não é possível escrever o relatório.
+     */
+    void escreverTeste(SuiteTestes suite, int teste) throws IOException;
+
+    /**
+     * Escreve o final do relatório.
+     *
+     * @param resumo Informações gerais da execução, já completas.
+     * @throws IOException Quando não é possível escrever o relatório.
+     */
+    void finalizar(Estatisticas resumo) throws IOException;
+
+}
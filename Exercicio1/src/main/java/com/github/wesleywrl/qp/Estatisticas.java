@@ -0,0 +1,555 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+/**
+ * Informações gerais de uma execução de testes (quantidade de testes,
+ * falhas, tempo e memória alocada). Os valores são acumulados à medida que
+ * os testes são executados, sem que seja necessário guardar os testes.
+ *
+ * @author Wesleywrl
+ */
+public final class Estatisticas {
+
+    /**
+     * Quantidade de nanossegundos em um milissegundo.
+     */
+    private static final float NANOS_POR_MILI = 1000000f;
+
+    /**
+     * Quantidade de testes executados.
+     */
+    private long testes;
+
+    /**
+     * Quantidade de testes que não obtiveram sucesso.
+     */
+    private long falhas;
+
+    /**
+     * Quantidade de testes abandonados por exceder o tempo limite.
+     */
+    private long temposEsgotados;
+
+    /**
+     * Quantidade de testes cuja realização esgotou a pilha da thread.
+     */
+    private long estourosPilha;
+
+    /**
+     * Tempo de relógio gasto na realização das expressões, em nanossegundos.
+     */
+    private long nanosTotal;
+
+    /**
+     * Tempo de CPU gasto na realização das expressões, somado entre todas as
+     * threads, em nanossegundos.
+     */
+    private long nanosCpu;
+
+    /**
+     * Bytes alocados na análise das linhas de teste.
+     */
+    private long alocadosAnalise;
+
+    /**
+     * Bytes alocados na realização das expressões, somados entre os testes.
+     */
+    private long alocadosExecucao;
+
+    /**
+     * Bytes alocados na escrita do relatório.
+     */
+    private long alocadosRelatorio;
+
+    /**
+     * Indica se a memória alocada na escrita do relatório já foi medida.
+     */
+    private boolean relatorioMedido;
+
+    /**
+     * Quantidade de threads usadas na realização das expressões.
+     */
+    private int threads = 1;
+
+    /**
+     * Indica se as expressões interpretadas foram guardadas em cache.
+     */
+    private boolean cacheHabilitado;
+
+    /**
+     * Indica se o cache de expressões foi compartilhado com outras suítes
+     * realizadas ao mesmo tempo, caso em que as consultas não são
+     * contabilizadas por suíte.
+     */
+    private boolean cacheCompartilhado;
+
+    /**
+     * Quantidade de expressões obtidas do cache, sem nova interpretação.
+     */
+    private long acertosCache;
+
+    /**
+     * Quantidade de expressões que precisaram ser interpretadas.
+     */
+    private long faltasCache;
+
+    /**
+     * Indica se os resultados de execuções anteriores foram consultados
+     * ({@link CacheResultados}).
+     */
+    private boolean incremental;
+
+    /**
+     * Quantidade de testes cujo resultado veio de uma execução anterior.
+     */
+    private long reaproveitados;
+
+    /**
+     * Quantidade de testes realizados na execução incremental por não terem
+     * resultado anterior.
+     */
+    private long recalculados;
+
+    /**
+     * Comparação com a execução base, ou null se não houver base.
+     */
+    private ComparacaoBase comparacao;
+
+    /**
+     * Tempo de cada teste (percentis e testes mais lentos).
+     */
+    private final Latencias latencias = new Latencias();
+
+    /**
+     * Bytes alocados por cada teste (percentis e testes que mais alocam),
+     * registrados da mesma forma que os tempos.
+     */
+    private final Latencias alocacoes = new Latencias();
+
+    /**
+     * Quantidade de iterações de aquecimento, não medidas, sobre cada teste.
+     */
+    private int aquecimento;
+
+    /**
+     * Tempo de relógio de cada iteração medida.
+     */
+    private AmostraTempos iteracoes = new AmostraTempos(1);
+
+    /**
+     * Contabiliza um teste já executado e com o sucesso já atualizado.
+     *
+     * @param sucesso Verdadeiro se o teste obteve o valor esperado.
+     */
+    public void registrar(final boolean sucesso) {
+        testes++;
+        if (!sucesso) {
+            falhas++;
+        }
+    }
+
+    /**
+     * Contabiliza um teste cuja realização não terminou. Deve ser chamado
+     * além de {@link #registrar(boolean)}, que o conta como falha.
+     *
+     * @param tempoEsgotado Verdadeiro se o teste excedeu o tempo limite;
+     * falso se esgotou a pilha da thread.
+     */
+    public void registrarInterrupcao(final boolean tempoEsgotado) {
+        if (tempoEsgotado) {
+            temposEsgotados++;
+        } else {
+            estourosPilha++;
+        }
+    }
+
+    /**
+     * Acrescenta o tempo gasto na realização de um conjunto de expressões,
+     * somado entre as iterações medidas.
+     *
+     * @param relogio Tempo de relógio, em nanossegundos.
+     * @param cpu Tempo de CPU somado entre as threads, em nanossegundos.
+     */
+    public void adicionarTempo(final long relogio, final long cpu) {
+        nanosTotal += relogio;
+        nanosCpu += cpu;
+    }
+
+    /**
+     * Define as iterações realizadas sobre os testes. Deve ser chamado antes
+     * da execução, pois descarta os tempos das iterações.
+     *
+     * @param aquecimento Iterações de aquecimento, não medidas.
+     * @param medidas Iterações medidas, maior que zero.
+     */
+    public void setIteracoes(final int aquecimento, final int medidas) {
+        this.aquecimento = aquecimento;
+        this.iteracoes = new AmostraTempos(medidas);
+    }
+
+    /**
+     * Obtém a quantidade de iterações de aquecimento.
+     *
+     * @return Iterações não medidas.
+     */
+    public int getAquecimento() {
+        return aquecimento;
+    }
+
+    /**
+     * Obtém o tempo de relógio de cada iteração medida, no qual a execução
+     * acrescenta o tempo de cada iteração.
+     *
+     * @return Tempos das iterações.
+     */
+    public AmostraTempos getIteracoes() {
+        return iteracoes;
+    }
+
+    /**
+     * Indica se os testes foram realizados mais de uma vez (com aquecimento
+     * ou mais de uma iteração medida).
+     *
+     * @return Falso se cada teste foi realizado uma única vez.
+     */
+    public boolean isIterativo() {
+        return aquecimento > 0 || iteracoes.getQuantidade() > 1;
+    }
+
+    /**
+     * Obtém a quantidade de testes executados.
+     *
+     * @return Quantidade de testes.
+     */
+    public long getTestes() {
+        return testes;
+    }
+
+    /**
+     * Obtém a quantidade de testes que não obtiveram sucesso.
+     *
+     * @return Quantidade de falhas.
+     */
+    public long getFalhas() {
+        return falhas;
+    }
+
+    /**
+     * Obtém a quantidade de testes abandonados por exceder o tempo limite.
+     *
+     * @return Quantidade de testes com tempo esgotado.
+     */
+    public long getTemposEsgotados() {
+        return temposEsgotados;
+    }
+
+    /**
+     * Obtém a quantidade de testes cuja realização esgotou a pilha da
+     * thread.
+     *
+     * @return Quantidade de estouros de pilha.
+     */
+    public long getEstourosPilha() {
+        return estourosPilha;
+    }
+
+    /**
+     * Obtém a taxa de falhas entre os testes executados.
+     *
+     * @return Taxa entre 0 e 1 (NaN caso nenhum teste tenha sido executado).
+     */
+    public float getTaxaFalhas() {
+        return (float) falhas / (float) testes;
+    }
+
+    /**
+     * Obtém o tempo total (de relógio) gasto na realização das expressões.
+     * Com mais de uma iteração medida, é a média de uma iteração.
+     *
+     * @return Tempo em milissegundos.
+     */
+    public float getTempoTotal() {
+        return nanosTotal / NANOS_POR_MILI / iteracoes.getQuantidade();
+    }
+
+    /**
+     * Obtém o tempo médio gasto por expressão.
+     *
+     * @return Tempo em milissegundos.
+     */
+    public float getTempoMedio() {
+        return getTempoTotal() / testes;
+    }
+
+    /**
+     * Obtém o tempo de CPU gasto na realização das expressões, somado entre
+     * todas as threads. Com mais de uma iteração medida, é a média de uma
+     * iteração.
+     *
+     * @return Tempo em milissegundos.
+     */
+    public float getTempoCpu() {
+        return nanosCpu / NANOS_POR_MILI / iteracoes.getQuantidade();
+    }
+
+    /**
+     * Contabiliza a memória alocada na realização da expressão de um teste.
+     *
+     * @param posicao Posição do teste na execução (a partir de 0).
+     * @param expressao Expressão do teste.
+     * @param bytes Bytes alocados.
+     */
+    public void registrarAlocacao(final long posicao, final String expressao,
+            final long bytes) {
+        alocadosExecucao += bytes;
+        alocacoes.registrar(posicao, expressao, bytes);
+    }
+
+    /**
+     * Acrescenta a memória alocada na análise de linhas de teste.
+     *
+     * @param bytes Bytes alocados.
+     */
+    public void adicionarAlocacaoAnalise(final long bytes) {
+        alocadosAnalise += bytes;
+    }
+
+    /**
+     * Acrescenta a memória alocada na escrita do relatório.
+     *
+     * @param bytes Bytes alocados.
+     */
+    public void adicionarAlocacaoRelatorio(final long bytes) {
+        relatorioMedido = true;
+        alocadosRelatorio += bytes;
+    }
+
+    /**
+     * Indica se a memória alocada na escrita do relatório já foi medida. Não
+     * foi quando as informações gerais são escritas antes dos testes.
+     *
+     * @return Falso se {@link #getAlocadosRelatorio()} ainda não é conhecido.
+     */
+    public boolean isRelatorioMedido() {
+        return relatorioMedido;
+    }
+
+    /**
+     * Obtém a memória alocada na análise das linhas de teste.
+     *
+     * @return Bytes alocados.
+     */
+    public long getAlocadosAnalise() {
+        return alocadosAnalise;
+    }
+
+    /**
+     * Obtém a memória alocada na realização das expressões.
+     *
+     * @return Bytes alocados, somados entre os testes.
+     */
+    public long getAlocadosExecucao() {
+        return alocadosExecucao;
+    }
+
+    /**
+     * Obtém a memória alocada na escrita do relatório.
+     *
+     * @return Bytes alocados.
+     */
+    public long getAlocadosRelatorio() {
+        return alocadosRelatorio;
+    }
+
+    /**
+     * Obtém o registro da memória alocada por cada teste.
+     *
+     * @return Percentis e testes que mais alocam.
+     */
+    public Latencias getAlocacoes() {
+        return alocacoes;
+    }
+
+    /**
+     * Obtém a memória consumida durante a execução dos testes: o total
+     * alocado na análise das linhas, na realização das expressões e na
+     * escrita do relatório (medido por {@link MedidorAlocacao}).
+     *
+     * @return Memória em bytes.
+     */
+    public long getMemoriaConsumida() {
+        return alocadosAnalise + alocadosExecucao + alocadosRelatorio;
+    }
+
+    /**
+     * Obtém a quantidade de threads usadas na realização das expressões.
+     *
+     * @return Quantidade de threads.
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Define a quantidade de threads usadas na realização das expressões.
+     *
+     * @param threads Quantidade de threads.
+     */
+    public void setThreads(final int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * Acrescenta as consultas feitas ao cache de expressões durante a
+     * realização de um conjunto de expressões.
+     *
+     * @param acertos Expressões obtidas do cache.
+     * @param faltas Expressões que precisaram ser interpretadas.
+     */
+    public void adicionarCache(final long acertos, final long faltas) {
+        cacheHabilitado = true;
+        acertosCache += acertos;
+        faltasCache += faltas;
+    }
+
+    /**
+     * Indica se as expressões interpretadas foram guardadas em cache.
+     *
+     * @return Falso se o cache de expressões estava desabilitado.
+     */
+    public boolean isCacheHabilitado() {
+        return cacheHabilitado;
+    }
+
+    /**
+     * Indica que o cache de expressões foi compartilhado com outras suítes
+     * realizadas ao mesmo tempo (execução em lote): as suas consultas não
+     * podem ser atribuídas a esta suíte e não são contabilizadas.
+     *
+     * @param cacheCompartilhado Verdadeiro se o cache foi compartilhado.
+     */
+    public void setCacheCompartilhado(final boolean cacheCompartilhado) {
+        this.cacheCompartilhado = cacheCompartilhado;
+    }
+
+    /**
+     * Indica se o cache de expressões foi compartilhado com outras suítes.
+     *
+     * @return Verdadeiro se as consultas ao cache não foram contabilizadas
+     * por ser o cache compartilhado.
+     */
+    public boolean isCacheCompartilhado() {
+        return cacheCompartilhado;
+    }
+
+    /**
+     * Obtém a quantidade de expressões obtidas do cache.
+     *
+     * @return Quantidade de acertos do cache.
+     */
+    public long getAcertosCache() {
+        return acertosCache;
+    }
+
+    /**
+     * Obtém a quantidade de expressões que precisaram ser interpretadas.
+     *
+     * @return Quantidade de faltas do cache.
+     */
+    public long getFaltasCache() {
+        return faltasCache;
+    }
+
+    /**
+     * Acrescenta os testes de um conjunto executado de forma incremental.
+     *
+     * @param reaproveitadosConjunto Testes cujo resultado veio de uma
+     * execução anterior.
+     * @param recalculadosConjunto Testes realizados pelo Parser.
+     */
+    public void adicionarIncremental(final long reaproveitadosConjunto,
+            final long recalculadosConjunto) {
+        incremental = true;
+        reaproveitados += reaproveitadosConjunto;
+        recalculados += recalculadosConjunto;
+    }
+
+    /**
+     * Indica se a execução foi incremental.
+     *
+     * @return Verdadeiro se os resultados de execuções anteriores foram
+     * consultados.
+     */
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    /**
+     * Obtém a quantidade de testes cujo resultado veio de uma execução
+     * anterior.
+     *
+     * @return Quantidade de testes reaproveitados.
+     */
+    public long getReaproveitados() {
+        return reaproveitados;
+    }
+
+    /**
+     * Obtém a quantidade de testes realizados pelo Parser na execução
+     * incremental.
+     *
+     * @return Quantidade de testes novos ou modificados.
+     */
+    public long getRecalculados() {
+        return recalculados;
+    }
+
+    /**
+     * Define a comparação com a execução base, já concluída.
+     *
+     * @param comparacao Comparação com a base.
+     */
+    public void setComparacao(final ComparacaoBase comparacao) {
+        this.comparacao = comparacao;
+    }
+
+    /**
+     * Obtém a comparação com a execução base.
+     *
+     * @return Comparação concluída, ou null se não houver base.
+     */
+    public ComparacaoBase getComparacao() {
+        return comparacao;
+    }
+
+    /**
+     * Obtém o registro do tempo de cada teste, no qual a execução registra
+     * os testes realizados.
+     *
+     * @return Percentis e testes mais lentos.
+     */
+    public Latencias getLatencias() {
+        return latencias;
+    }
+
+    /**
+     * Passa a medir o tempo de cada fase do Parser, junto ao tempo de cada
+     * teste ({@link Latencias#getFases()}).
+     */
+    public void medirFases() {
+        latencias.setFases(new FasesParser());
+    }
+
+    /**
+     * Obtém o tempo de cada fase do Parser.
+     *
+     * @return Tempo das fases, ou null se não foram medidas.
+     */
+    public FasesParser getFases() {
+        return latencias.getFases();
+    }
+
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evento do Java Flight Recorder emitido na realização da expressão de cada
+ * teste, permitindo associar as amostras do Parser às linhas de teste. É
+ * criado apenas enquanto alguma gravação o habilita
+ * ({@link EventosJfr#avaliacoesHabilitadas()}).
+ *
+ * @author Wesleywrl
+ */
+@Name("com.github.wesleywrl.qp.Avaliacao")
+@Label("Avaliação de teste")
+@Description("Realização da expressão de um teste pelo Parser.")
+@Category("Parser de testes")
+@StackTrace(false)
+public final class EventoAvaliacao extends Event {
+
+    /**
+     * Posição do teste na execução (a partir de 0).
+     */
+    @Label("Índice do teste")
+    long indice;
+
+    /**
+     * Quantidade de caracteres da expressão.
+     */
+    @Label("Tamanho da expressão")
+    int tamanhoExpressao;
+
+    /**
+     * Resultado do teste: "sucesso", "falha", "invalida", "tempoEsgotado" ou
+     * "estouroPilha".
+     */
+    @Label("Resultado")
+    String resultado;
+
+    /**
+     * Fase da execução: "aquecimento" ou "medicao".
+     */
+    @Label("Fase")
+    String fase;
+
+}
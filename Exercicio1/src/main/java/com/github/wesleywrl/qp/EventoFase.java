@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evento do Java Flight Recorder emitido em cada fase da geração de um
+ * relatório: carga (análise das linhas), realização das expressões e
+ * escrita. Na execução em fluxo, há um evento de cada fase por bloco.
+ *
+ * @author Wesleywrl
+ */
+@Name("com.github.wesleywrl.qp.Fase")
+@Label("Fase do relatório")
+@Description("Fase da geração de um relatório de testes.")
+@Category("Parser de testes")
+@StackTrace(false)
+public final class EventoFase extends Event {
+
+    /**
+     * Nome da fase: "carga", "realizacao" ou "escrita".
+     */
+    @Label("Fase")
+    String fase;
+
+    /**
+     * Quantidade de testes tratados na fase.
+     */
+    @Label("Testes")
+    long testes;
+
+}
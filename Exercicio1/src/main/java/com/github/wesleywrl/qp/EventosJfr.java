@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import jdk.jfr.EventType;
+
+/**
+ * Emissão dos eventos do Java Flight Recorder ({@link EventoAvaliacao} e
+ * {@link EventoFase}). Os eventos de avaliação são os mais frequentes: os
+ * executores consultam {@link #avaliacoesHabilitadas()} uma vez por bloco de
+ * testes e, sem gravação em andamento, nenhum evento é criado. Em JVMs sem
+ * o módulo {@code jdk.jfr}, nenhum evento é emitido.
+ *
+ * @author Wesleywrl
+ */
+final class EventosJfr {
+
+    /**
+     * Fase dos testes cujo tempo é medido.
+     */
+    static final String MEDICAO = "medicao";
+
+    /**
+     * Fase dos testes realizados apenas para aquecimento.
+     */
+    static final String AQUECIMENTO = "aquecimento";
+
+    /**
+     * Fase de carga (análise das linhas) do relatório.
+     */
+    static final String CARGA = "carga";
+
+    /**
+     * Fase de realização das expressões do relatório.
+     */
+    static final String REALIZACAO = "realizacao";
+
+    /**
+     * Fase de escrita do relatório.
+     */
+    static final String ESCRITA = "escrita";
+
+    /**
+     * Indica se a JVM oferece o Java Flight Recorder.
+     */
+    static final boolean DISPONIVEL = disponivel();
+
+    /**
+     * Impede instancialização de classe utilitária.
+     */
+    private EventosJfr() {
+    }
+
+    /**
+     * Verifica se a JVM oferece a API de eventos do Java Flight Recorder.
+     *
+     * @return Verdadeiro se {@code jdk.jfr.Event} existe.
+     */
+    private static boolean disponivel() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return true;
+        } catch (ClassNotFoundException | LinkageError ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Verifica se alguma gravação em andamento habilita os eventos de
+     * avaliação.
+     *
+     * @return Verdadeiro se os eventos de avaliação devem ser emitidos.
+     */
+    static boolean avaliacoesHabilitadas() {
+        return DISPONIVEL && Tipos.AVALIACAO.isEnabled();
+    }
+
+    /**
+     * Inicia o evento de avaliação de um teste.
+     *
+     * @return Evento iniciado.
+     */
+    static EventoAvaliacao iniciarAvaliacao() {
+        EventoAvaliacao evento = new EventoAvaliacao();
+        evento.begin();
+        return evento;
+    }
+
+    /**
+     * Conclui o evento de avaliação de um teste já realizado.
+     *
+     * @param evento Evento iniciado antes da realização.
+     * @param testes Testes realizados.
+     * @param teste Posição do teste em testes.
+     * @param indice Posição do teste na execução.
+     * @param medido Se o tempo do teste é medido (caso contrário, é
+     * aquecimento).
+     */
+    static void concluirAvaliacao(final EventoAvaliacao evento,
+            final SuiteTestes testes, final int teste, final long indice,
+            final boolean medido) {
+        evento.end();
+        if (!evento.shouldCommit()) {
+            return;
+        }
+        evento.indice = indice;
+        evento.tamanhoExpressao = testes.getExpressao(teste).length();
+        evento.resultado = resultado(testes, teste);
+        if (medido) {
+            evento.fase = MEDICAO;
+        } else {
+            evento.fase = AQUECIMENTO;
+        }
+        evento.commit();
+    }
+
+    /**
+     * Descreve o resultado de um teste já realizado.
+     *
+     * @param testes Testes realizados.
+     * @param teste Posição do teste.
+     * @return Resultado, como em {@link EventoAvaliacao}.
+     */
+    private static String resultado(final SuiteTestes testes,
+            final int teste) {
+        if (testes.isTempoEsgotado(teste)) {
+            return "tempoEsgotado";
+        }
+        if (testes.isEstouroPilha(teste)) {
+            return "estouroPilha";
+        }
+        if (!testes.isObtido(teste)) {
+            return "invalida";
+        }
+        if (testes.isValorEsperado(teste)) {
+            return "sucesso";
+        }
+        return "falha";
+    }
+
+    /**
+     * Inicia o evento de uma fase do relatório.
+     *
+     * @param fase Nome da fase.
+     * @return Evento iniciado, ou null se a JVM não oferece o Java Flight
+     * Recorder.
+     */
+    static EventoFase iniciarFase(final String fase) {
+        if (!DISPONIVEL) {
+            return null;
+        }
+        EventoFase evento = new EventoFase();
+        evento.fase = fase;
+        evento.begin();
+        return evento;
+    }
+
+    /**
+     * Conclui o evento de uma fase do relatório.
+     *
+     * @param evento Evento iniciado, ou null.
+     * @param testes Quantidade de testes tratados na fase.
+     */
+    static void concluirFase(final EventoFase evento, final long testes) {
+        if (evento == null) {
+            return;
+        }
+        evento.end();
+        if (evento.shouldCommit()) {
+            evento.testes = testes;
+            evento.commit();
+        }
+    }
+
+    /**
+     * Tipos de evento, obtidos apenas quando o Java Flight Recorder está
+     * disponível.
+     */
+    private static final class Tipos {
+
+        /**
+         * Tipo do evento de avaliação.
+         */
+        static final EventType AVALIACAO =
+                EventType.getEventType(EventoAvaliacao.class);
+
+        /**
+         * Impede instancialização.
+         */
+        private Tipos() {
+        }
+    }
+
+}
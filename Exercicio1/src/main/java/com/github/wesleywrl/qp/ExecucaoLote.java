@@ -0,0 +1,693 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Realiza várias suítes de testes em um mesmo processo. As suítes são
+ * indicadas por um diretório (todos os arquivos ".txt"), por um padrão
+ * ("testes/*.txt", apenas no nome do arquivo) ou por uma lista
+ * ("@lista.txt", local ou remota), com um arquivo ou URL por linha; linhas
+ * vazias e iniciadas por "#" são ignoradas, e caminhos relativos partem do
+ * local da lista.
+ * <p>
+ * As suítes são obtidas e analisadas ao mesmo tempo (as remotas, por um
+ * {@link CarregadorRemoto}, todas desde o início do lote), e todas
+ * realizam as expressões em um único {@link ExecutorTestes}, que divide as
+ * threads entre elas em rodízio: uma suíte grande não impede o progresso
+ * das pequenas.
+ * Cada suíte tem o seu relatório, em um subdiretório de {@link #DIRETORIO},
+ * e o lote tem um resumo ({@link #RESUMO}) com a vazão total. Os tempos de
+ * cada suíte incluem a espera pelas demais; o tempo de CPU não. As consultas
+ * ao cache de expressões, compartilhado pelas suítes, só são contabilizadas
+ * no resumo, para todo o lote.
+ *
+ * @author Wesleywrl
+ */
+public final class ExecucaoLote {
+
+    /**
+     * Prefixo que indica uma lista de suítes.
+     */
+    public static final String PREFIXO_LISTA = "@";
+
+    /**
+     * Diretório, junto ao resumo, com os relatórios das suítes.
+     */
+    public static final String DIRETORIO = "lote";
+
+    /**
+     * Nome do arquivo com o resumo do lote.
+     */
+    public static final String RESUMO = "lote.json";
+
+    /**
+     * Padrão dos arquivos de suítes em um diretório.
+     */
+    private static final String PADRAO_DIRETORIO = "*.txt";
+
+    /**
+     * Extensão removida do nome do arquivo de uma suíte no nome do seu
+     * diretório de relatório.
+     */
+    private static final String EXTENSAO = ".txt";
+
+    /**
+     * Início das linhas ignoradas em uma lista de suítes.
+     */
+    private static final String COMENTARIO = "#";
+
+    /**
+     * Nanossegundos em um milissegundo.
+     */
+    private static final float NANOS_POR_MS = 1000000f;
+
+    /**
+     * Milissegundos em um segundo.
+     */
+    private static final float MS_POR_SEGUNDO = 1000f;
+
+    /**
+     * Configuração usada em todas as suítes.
+     */
+    private final Configuracao config;
+
+    /**
+     * Cache dos arquivos remotos, ou null.
+     */
+    private final CacheRemoto cache;
+
+    /**
+     * Local de cada suíte.
+     */
+    private final List<String> suites;
+
+    /**
+     * Nome do diretório do relatório de cada suíte.
+     */
+    private final String[] nomes;
+
+    /**
+     * Quantidade de testes de cada suíte.
+     */
+    private final long[] testes;
+
+    /**
+     * Quantidade de testes que falharam em cada suíte.
+     */
+    private final long[] falhas;
+
+    /**
+     * Tempo total de cada suíte, em milissegundos.
+     */
+    private final float[] tempos;
+
+    /**
+     * Tempo de CPU de cada suíte, em milissegundos.
+     */
+    private final float[] temposCpu;
+
+    /**
+     * Erro que impediu a realização de cada suíte, ou null.
+     */
+    private final String[] erros;
+
+    /**
+     * Tempo de relógio de todo o lote, em nanossegundos.
+     */
+    private long tempo;
+
+    /**
+     * Cache de expressões usado pelo lote, ou null se desabilitado.
+     */
+    private CacheExpressoes cacheExpressoes;
+
+    /**
+     * Expressões do lote obtidas do cache de expressões.
+     */
+    private long acertosCache;
+
+    /**
+     * Expressões do lote que precisaram ser interpretadas.
+     */
+    private long faltasCache;
+
+    /**
+     * Obtém a lista das suítes a serem realizadas.
+     *
+     * @param config Configuração da execução, cujo caminho indica as suítes.
+     * @throws IOException Quando não é possível obter a lista das suítes.
+     * @throws IllegalArgumentException Quando nenhuma suíte é encontrada ou
+     * a configuração não é aceita em lote.
+     */
+    public ExecucaoLote(final Configuracao config) throws IOException {
+        if (config.getBase() != null) {
+            throw new IllegalArgumentException("A comparação com a base não "
+                    + "é aceita na execução em lote.");
+        }
+        if (config.getProcessos() > 1) {
+            throw new IllegalArgumentException("A realização em vários "
+                    + "processos não é aceita na execução em lote.");
+        }
+        if (config.isJmx()) {
+            throw new IllegalArgumentException("A publicação de métricas por "
+                    + "JMX não é aceita na execução em lote.");
+        }
+        this.config = config;
+        this.cache = config.criarCacheRemoto();
+        this.suites = listarSuites(config.getCaminho(), cache);
+        if (suites.isEmpty()) {
+            throw new IllegalArgumentException("Nenhuma suíte de testes "
+                    + "encontrada em " + config.getCaminho() + ".");
+        }
+        int quantidade = suites.size();
+        nomes = nomear(suites);
+        testes = new long[quantidade];
+        falhas = new long[quantidade];
+        tempos = new float[quantidade];
+        temposCpu = new float[quantidade];
+        erros = new String[quantidade];
+    }
+
+    /**
+     * Verifica se um caminho indica várias suítes: uma lista, um padrão ou
+     * um diretório.
+     *
+     * @param caminho Caminho fornecido como arquivo de testes.
+     * @return Verdadeiro se o caminho deve ser realizado em lote.
+     */
+    public static boolean isLote(final String caminho) {
+        if (caminho.startsWith(PREFIXO_LISTA)) {
+            return true;
+        }
+        return Configuracao.isLocal(caminho) && (caminho.indexOf('*') >= 0
+                || caminho.indexOf('?') >= 0
+                || Files.isDirectory(Paths.get(caminho)));
+    }
+
+    /**
+     * Obtém o local de cada suíte indicada por um caminho.
+     *
+     * @param caminho Lista ("@lista.txt"), padrão ou diretório.
+     * @param cache Cache de arquivos remotos, ou null.
+     * @return Locais das suítes. Suítes de um diretório ou padrão vêm em
+     * ordem alfabética; as de uma lista, na ordem da lista.
+     * @throws IOException Quando não é possível ler a lista ou o diretório.
+     */
+    static List<String> listarSuites(final String caminho,
+            final CacheRemoto cache) throws IOException {
+        if (caminho.startsWith(PREFIXO_LISTA)) {
+            return lerLista(caminho.substring(PREFIXO_LISTA.length()),
+                    cache);
+        }
+        Path local = Paths.get(caminho);
+        if (Files.isDirectory(local)) {
+            return listarDiretorio(local, PADRAO_DIRETORIO);
+        }
+        Path pasta = local.getParent();
+        if (pasta == null) {
+            pasta = Paths.get("");
+        }
+        return listarDiretorio(pasta, local.getFileName().toString());
+    }
+
+    /**
+     * Lê uma lista de suítes.
+     *
+     * @param lista Local da lista, local ou remoto.
+     * @param cache Cache de arquivos remotos, ou null.
+     * @return Locais das suítes, resolvidos a partir do local da lista.
+     * @throws IOException Quando não é possível ler a lista.
+     */
+    private static List<String> lerLista(final String lista,
+            final CacheRemoto cache) throws IOException {
+        boolean local = Configuracao.isLocal(lista);
+        Path pasta = null;
+        URL endereco = null;
+        if (local) {
+            pasta = Paths.get(lista).toAbsolutePath().getParent();
+        } else {
+            endereco = new URL(lista);
+        }
+        List<String> suites = new ArrayList<>();
+        for (String linha : Ler.obterLinhas(lista, local, cache)) {
+            String suite = linha.trim();
+            if (suite.isEmpty() || suite.startsWith(COMENTARIO)) {
+                continue;
+            }
+            if (!Configuracao.isLocal(suite)) {
+                suites.add(suite);
+            } else if (local) {
+                suites.add(pasta.resolve(suite).toString());
+            } else {
+                suites.add(new URL(endereco, suite).toString());
+            }
+        }
+        return suites;
+    }
+
+    /**
+     * Lista os arquivos de um diretório que seguem um padrão.
+     *
+     * @param pasta Diretório.
+     * @param padrao Padrão do nome dos arquivos ("*.txt").
+     * @return Locais dos arquivos, em ordem alfabética.
+     * @throws IOException Quando não é possível ler o diretório.
+     */
+    private static List<String> listarDiretorio(final Path pasta,
+            final String padrao) throws IOException {
+        List<String> suites = new ArrayList<>();
+        try (DirectoryStream<Path> arquivos = Files.newDirectoryStream(pasta,
+                padrao)) {
+            for (Path arquivo : arquivos) {
+                if (Files.isRegularFile(arquivo)) {
+                    suites.add(arquivo.toString());
+                }
+            }
+        }
+        Collections.sort(suites);
+        return suites;
+    }
+
+    /**
+     * Escolhe o nome do diretório do relatório de cada suíte: o nome do
+     * arquivo, sem a extensão, acrescido de um número quando repetido.
+     *
+     * @param suites Locais das suítes.
+     * @return Nomes distintos, na ordem das suítes.
+     */
+    private static String[] nomear(final List<String> suites) {
+        String[] nomes = new String[suites.size()];
+        Set<String> usados = new HashSet<>();
+        for (int i = 0; i < nomes.length; i++) {
+            String suite = suites.get(i);
+            int consulta = suite.indexOf('?');
+            if (consulta >= 0) {
+                suite = suite.substring(0, consulta);
+            }
+            int barra = Math.max(suite.lastIndexOf('/'),
+                    suite.lastIndexOf('\\'));
+            String nome = suite.substring(barra + 1);
+            if (nome.endsWith(EXTENSAO)) {
+                nome = nome.substring(0, nome.length() - EXTENSAO.length());
+            }
+            nome = nome.replaceAll("[^A-Za-z0-9._-]", "_");
+            if (nome.isEmpty() || nome.startsWith(".")) {
+                nome = "suite" + nome;
+            }
+            String unico = nome;
+            for (int n = 2; !usados.add(unico); n++) {
+                unico = nome + "-" + n;
+            }
+            nomes[i] = unico;
+        }
+        return nomes;
+    }
+
+    /**
+     * Realiza todas as suítes e escreve o resumo do lote.
+     *
+     * @param diretorio Diretório em que o resumo é salvo, e em cujo
+     * subdiretório {@link #DIRETORIO} ficam os relatórios das suítes.
+     * @throws IOException Quando não é possível escrever o resumo.
+     */
+    public void executar(final String diretorio) throws IOException {
+        final Path raiz = Paths.get(diretorio, DIRETORIO);
+        int threads = config.getThreads();
+        cacheExpressoes = Calcular.getCache();
+        long acertos = 0;
+        long faltas = 0;
+        if (cacheExpressoes != null) {
+            acertos = cacheExpressoes.getAcertos();
+            faltas = cacheExpressoes.getFaltas();
+        }
+        long inicio = System.nanoTime();
+        ExecutorService coordenadores = Executors.newFixedThreadPool(
+                Math.min(threads, suites.size()),
+                new ExecutorTestes.FabricaThreads("qp-lote-"));
+        try (final ExecutorTestes executor = new ExecutorTestes(threads,
+                config.getLimiteTeste(), config.getPilha());
+                final CarregadorRemoto carregador = new CarregadorRemoto(
+                        cache, config.getConexoesPorHost(),
+                        config.getTentativas())) {
+            //Todas as suítes remotas começam a ser obtidas de imediato
+            final List<Future<Path>> copias = new ArrayList<>();
+            for (String suite : suites) {
+                if (Configuracao.isLocal(suite)) {
+                    copias.add(null);
+                } else {
+                    copias.add(carregador.agendar(suite));
+                }
+            }
+            List<Future<?>> tarefas = new ArrayList<>();
+            for (int i = 0; i < suites.size(); i++) {
+                final int suite = i;
+                tarefas.add(coordenadores.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        realizar(suite, raiz, executor, carregador,
+                                copias.get(suite));
+                    }
+                }));
+            }
+            for (Future<?> tarefa : tarefas) {
+                aguardar(tarefa);
+            }
+        } finally {
+            coordenadores.shutdownNow();
+        }
+        tempo = System.nanoTime() - inicio;
+        if (cacheExpressoes != null) {
+            acertosCache = cacheExpressoes.getAcertos() - acertos;
+            faltasCache = cacheExpressoes.getFaltas() - faltas;
+        }
+        escreverResumo(Paths.get(diretorio, RESUMO));
+    }
+
+    /**
+     * Obtém, realiza e gera o relatório de uma suíte. Erros são guardados,
+     * sem interromper as demais suítes.
+     *
+     * @param suite Posição da suíte.
+     * @param raiz Diretório dos relatórios das suítes.
+     * @param executor Executor compartilhado pelas suítes.
+     * @param carregador Carregador das suítes remotas.
+     * @param transferencia Cópia local da suíte remota, ou null se a suíte
+     * for local.
+     */
+    private void realizar(final int suite, final Path raiz,
+            final ExecutorTestes executor, final CarregadorRemoto carregador,
+            final Future<Path> transferencia) {
+        FonteLinhas fonte = null;
+        Path copia = null;
+        try {
+            String arquivo = suites.get(suite);
+            if (transferencia != null) {
+                copia = aguardarCopia(transferencia);
+                arquivo = copia.toString();
+            }
+            Path destino = raiz.resolve(nomes[suite]);
+            Files.createDirectories(destino);
+            RelatorioTeste gerador;
+            if (config.isFluxo()) {
+                fonte = Ler.abrirLinhas(arquivo, true);
+                gerador = new RelatorioTeste(fonte, config);
+            } else {
+                gerador = new RelatorioTeste(Ler.obterLinhas(arquivo, true),
+                        config);
+            }
+            gerador.gerarRelatorioTeste(destino.toString(), executor);
+            Estatisticas estatisticas = gerador.getEstatisticas();
+            testes[suite] = estatisticas.getTestes();
+            falhas[suite] = estatisticas.getFalhas();
+            tempos[suite] = estatisticas.getTempoTotal();
+            temposCpu[suite] = estatisticas.getTempoCpu();
+        } catch (FileNotFoundException ex) {
+            erros[suite] = "Arquivo não encontrado.";
+        } catch (MalformedURLException ex) {
+            erros[suite] = "A URL fornecida é inválida.";
+        } catch (IOException | UncheckedIOException ex) {
+            erros[suite] = "Não foi possível acessar o arquivo: "
+                    + ex.getMessage();
+        } catch (IllegalArgumentException ex) {
+            erros[suite] = "Arquivo de testes inválido. " + ex.getMessage();
+        } finally {
+            try {
+                if (fonte != null) {
+                    fonte.close();
+                }
+                if (copia != null) {
+                    carregador.liberar(copia);
+                }
+            } catch (IOException ex) {
+                erros[suite] = "Não foi possível fechar o arquivo.";
+            }
+        }
+    }
+
+    /**
+     * Aguarda a cópia local de uma suíte remota.
+     *
+     * @param transferencia Transferência agendada.
+     * @return Local da cópia.
+     * @throws IOException Quando não foi possível obter a suíte.
+     */
+    private static Path aguardarCopia(final Future<Path> transferencia)
+            throws IOException {
+        try {
+            return transferencia.get();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Execução interrompida.");
+        } catch (ExecutionException ee) {
+            if (ee.getCause() instanceof IOException) {
+                throw (IOException) ee.getCause();
+            }
+            throw new IllegalStateException(ee.getCause());
+        }
+    }
+
+    /**
+     * Aguarda o término da tarefa de uma suíte.
+     *
+     * @param tarefa Tarefa a ser aguardada.
+     */
+    private static void aguardar(final Future<?> tarefa) {
+        try {
+            tarefa.get();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Execução interrompida.", ie);
+        } catch (ExecutionException ee) {
+            if (ee.getCause() instanceof Error) {
+                throw (Error) ee.getCause();
+            }
+            throw new IllegalStateException(ee.getCause());
+        }
+    }
+
+    /**
+     * Escreve o resumo do lote em JSON: os totais e, para cada suíte, o
+     * local do relatório, a quantidade de testes e falhas, os tempos e o
+     * erro, se houver.
+     *
+     * @param arquivo Arquivo do resumo.
+     * @throws IOException Quando não é possível escrever o resumo.
+     */
+    private void escreverResumo(final Path arquivo) throws IOException {
+        String relatorio;
+        if (config.isHtml()) {
+            relatorio = "/relatorio.html";
+        } else {
+            relatorio = "/relatorio.json";
+        }
+        try (SaidaUtf8 saida = new SaidaUtf8(arquivo)) {
+            saida.escrever("{");
+            saida.novaLinha();
+            saida.escrever("    \"suites\":");
+            saida.escrever(suites.size());
+            saida.escrever(",");
+            saida.novaLinha();
+            saida.escrever("    \"erros\":");
+            saida.escrever(getErros());
+            saida.escrever(",");
+            saida.novaLinha();
+            saida.escrever("    \"testes\":");
+            saida.escrever(getTestes());
+            saida.escrever(",");
+            saida.novaLinha();
+            saida.escrever("    \"testesFalhos\":");
+            saida.escrever(getFalhas());
+            saida.escrever(",");
+            saida.novaLinha();
+            saida.escrever("    \"tempoTotal\":");
+            saida.escrever(getTempo());
+            saida.escrever(",");
+            saida.novaLinha();
+            saida.escrever("    \"vazao\":");
+            saida.escrever(getVazao());
+            saida.escrever(",");
+            saida.novaLinha();
+            saida.escrever("    \"threads\":");
+            saida.escrever(config.getThreads());
+            saida.escrever(",");
+            saida.novaLinha();
+            if (cacheExpressoes != null) {
+                saida.escrever("    \"cacheAcertos\":");
+                saida.escrever(acertosCache);
+                saida.escrever(",");
+                saida.novaLinha();
+                saida.escrever("    \"cacheFaltas\":");
+                saida.escrever(faltasCache);
+                saida.escrever(",");
+                saida.novaLinha();
+            }
+            saida.escrever("    \"resultados\":[");
+            saida.novaLinha();
+            for (int i = 0; i < suites.size(); i++) {
+                saida.escrever("        {\"suite\":");
+                EscritorJson.texto(saida, suites.get(i));
+                saida.escrever(",\"relatorio\":");
+                EscritorJson.texto(saida, DIRETORIO + "/" + nomes[i]
+                        + relatorio);
+                saida.escrever(",\"testes\":");
+                saida.escrever(testes[i]);
+                saida.escrever(",\"testesFalhos\":");
+                saida.escrever(falhas[i]);
+                saida.escrever(",\"tempoTotal\":");
+                saida.escrever(tempos[i]);
+                saida.escrever(",\"tempoCpu\":");
+                saida.escrever(temposCpu[i]);
+                saida.escrever(",\"erro\":");
+                if (erros[i] == null) {
+                    saida.escrever("null");
+                } else {
+                    EscritorJson.texto(saida, erros[i]);
+                }
+                saida.escrever("}");
+                if (i < suites.size() - 1) {
+                    saida.escrever(",");
+                }
+                saida.novaLinha();
+            }
+            saida.escrever("    ]");
+            saida.novaLinha();
+            saida.escrever("}");
+            saida.novaLinha();
+        }
+    }
+
+    /**
+     * Obtém a quantidade de suítes do lote.
+     *
+     * @return Quantidade de suítes.
+     */
+    public int getSuites() {
+        return suites.size();
+    }
+
+    /**
+     * Obtém o local de uma suíte.
+     *
+     * @param suite Posição da suíte.
+     * @return Local da suíte, como indicado no diretório, padrão ou lista.
+     */
+    public String getSuite(final int suite) {
+        return suites.get(suite);
+    }
+
+    /**
+     * Obtém o erro que impediu a realização de uma suíte.
+     *
+     * @param suite Posição da suíte.
+     * @return Descrição do erro, ou null se a suíte foi realizada.
+     */
+    public String getErro(final int suite) {
+        return erros[suite];
+    }
+
+    /**
+     * Obtém a quantidade de suítes que não puderam ser realizadas.
+     *
+     * @return Quantidade de suítes com erro.
+     */
+    public int getErros() {
+        int quantidade = 0;
+        for (String erro : erros) {
+            if (erro != null) {
+                quantidade++;
+            }
+        }
+        return quantidade;
+    }
+
+    /**
+     * Obtém a quantidade de testes de todas as suítes.
+     *
+     * @return Quantidade de testes.
+     */
+    public long getTestes() {
+        long total = 0;
+        for (long quantidade : testes) {
+            total += quantidade;
+        }
+        return total;
+    }
+
+    /**
+     * Obtém a quantidade de testes que falharam em todas as suítes.
+     *
+     * @return Quantidade de falhas.
+     */
+    public long getFalhas() {
+        long total = 0;
+        for (long quantidade : falhas) {
+            total += quantidade;
+        }
+        return total;
+    }
+
+    /**
+     * Obtém o tempo de relógio de todo o lote, da obtenção da primeira suíte
+     * à escrita do último relatório.
+     *
+     * @return Tempo em milissegundos.
+     */
+    public float getTempo() {
+        return tempo / NANOS_POR_MS;
+    }
+
+    /**
+     * Obtém a quantidade de expressões do lote, inclusive nas iterações de
+     * aquecimento, obtidas do cache de expressões.
+     *
+     * @return Quantidade de acertos do cache (zero se desabilitado).
+     */
+    public long getAcertosCache() {
+        return acertosCache;
+    }
+
+    /**
+     * Obtém a quantidade de expressões do lote, inclusive nas iterações de
+     * aquecimento, que precisaram ser interpretadas.
+     *
+     * @return Quantidade de faltas do cache (zero se desabilitado).
+     */
+    public long getFaltasCache() {
+        return faltasCache;
+    }
+
+    /**
+     * Obtém a vazão do lote: testes realizados por segundo de relógio.
+     *
+     * @return Testes por segundo.
+     */
+    public float getVazao() {
+        if (tempo == 0) {
+            return 0;
+        }
+        return getTestes() * MS_POR_SEGUNDO / getTempo();
+    }
+
+}
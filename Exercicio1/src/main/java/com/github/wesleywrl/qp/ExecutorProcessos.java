@@ -0,0 +1,594 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Realiza as expressões em vários processos (JVMs) da mesma máquina, cada
+ * um com o seu heap, o seu coletor de lixo e as suas threads
+ * ({@link TrabalhadorProcesso}). A cada chamada, os testes são divididos em
+ * fragmentos consecutivos, um por processo, enviados pela entrada padrão;
+ * os resultados voltam pela saída padrão e são guardados nos próprios
+ * testes, e os tempos de cada fragmento são combinados no registro
+ * fornecido. As consultas aos caches de expressões dos processos são
+ * somadas às do cache deste processo ({@link Calcular#getCache()}). Os
+ * processos são criados uma única vez e mantidos até o fechamento do
+ * executor.
+ * <p>
+ * Se um processo termina de forma inesperada, os resultados já recebidos
+ * são mantidos e apenas os testes restantes do seu fragmento são enviados a
+ * um novo processo, até {@link #TENTATIVAS} vezes seguidas sem que nenhum
+ * resultado seja recebido.
+ * <p>
+ * Os processos recebem as opções da JVM deste processo (heap, coletor,
+ * propriedades {@code -D}...), exceto as que não podem ser repetidas em
+ * vários processos ao mesmo tempo: agentes, depuração, gravação de eventos
+ * e a porta do JMX remoto ({@link #opcoesJvm(List)}).
+ *
+ * @author Wesleywrl
+ */
+public final class ExecutorProcessos implements RealizadorTestes {
+
+    /**
+     * Quantidade de falhas seguidas de um processo antes que a execução
+     * seja interrompida.
+     */
+    public static final int TENTATIVAS = 3;
+
+    /**
+     * Tempo de espera pelo término de cada processo no fechamento, em
+     * milissegundos.
+     */
+    private static final long ESPERA_TERMINO = 5000;
+
+    /**
+     * Tamanho dos buffers de comunicação com os processos, em bytes.
+     */
+    private static final int TAMANHO_BUFFER = 65536;
+
+    /**
+     * Quantidade de resultados recebidos antes de cada publicação ao
+     * monitor.
+     */
+    private static final int BLOCO_PUBLICACAO = 1024;
+
+    /**
+     * Prefixos das opções da JVM que não são repassadas aos processos
+     * trabalhadores: agentes e depuração ocupariam as mesmas portas, a
+     * gravação de eventos escreveria no mesmo arquivo e o JMX remoto
+     * disputaria a mesma porta.
+     */
+    private static final String[] OPCOES_EXCLUSIVAS = {"-agentlib:",
+        "-agentpath:", "-javaagent:", "-Xdebug", "-Xrunjdwp",
+        "-XX:StartFlightRecording", "-XX:FlightRecorderOptions",
+        "-Dcom.sun.management.jmxremote"};
+
+    /**
+     * Comando que inicia um processo trabalhador.
+     */
+    private final List<String> comando;
+
+    /**
+     * Processos trabalhadores, um por fragmento. Posições null indicam
+     * processos ainda não iniciados ou descartados após uma falha.
+     */
+    private final Trabalhador[] trabalhadores;
+
+    /**
+     * Threads que enviam os testes e recebem os resultados de cada
+     * processo.
+     */
+    private final ExecutorService comunicacao;
+
+    /**
+     * Quantidade de processos reiniciados após uma falha.
+     */
+    private final AtomicInteger reinicios = new AtomicInteger();
+
+    /**
+     * Monitor ao qual os resultados recebidos são publicados, ou null.
+     */
+    private volatile MonitorExecucao monitor;
+
+    /**
+     * Cria o executor e inicia os processos trabalhadores.
+     *
+     * @param processos Quantidade de processos.
+     * @param threads Quantidade de threads de cada processo.
+     * @param limite Tempo limite da realização de cada teste, em
+     * milissegundos, ou zero para não limitar.
+     * @param pilha Tamanho da pilha das threads, em bytes, ou zero para o
+     * padrão da JVM.
+     * @param cache Capacidade do cache de expressões de cada processo, ou
+     * zero para desabilitá-lo.
+     */
+    public ExecutorProcessos(final int processos, final int threads,
+            final long limite, final long pilha, final int cache) {
+        this(processos, TrabalhadorProcesso.class.getName(),
+                argumentos(threads, limite, pilha, cache));
+    }
+
+    /**
+     * Monta os parâmetros dos processos trabalhadores.
+     *
+     * @param threads Quantidade de threads de cada processo.
+     * @param limite Tempo limite de cada teste, em milissegundos.
+     * @param pilha Tamanho da pilha das threads, em bytes.
+     * @param cache Capacidade do cache de expressões.
+     * @return Parâmetros de {@link TrabalhadorProcesso#main(String[])}.
+     */
+    private static List<String> argumentos(final int threads,
+            final long limite, final long pilha, final int cache) {
+        if (threads <= 0 || limite < 0 || pilha < 0 || cache < 0) {
+            throw new IllegalArgumentException("Configuração dos processos "
+                    + "inválida.");
+        }
+        return Arrays.asList(Integer.toString(threads),
+                Long.toString(limite), Long.toString(pilha),
+                Integer.toString(cache));
+    }
+
+    /**
+     * Cria o executor com outra classe de processo trabalhador, que deve
+     * seguir o protocolo de {@link TrabalhadorProcesso}.
+     *
+     * @param processos Quantidade de processos.
+     * @param classe Nome da classe executada em cada processo.
+     * @param argumentos Parâmetros fornecidos a cada processo.
+     */
+    ExecutorProcessos(final int processos, final String classe,
+            final List<String> argumentos) {
+        if (processos <= 0) {
+            throw new IllegalArgumentException("Quantidade de processos "
+                    + "inválida.");
+        }
+        comando = new ArrayList<>();
+        comando.add(Paths.get(System.getProperty("java.home"), "bin",
+                "java").toString());
+        comando.addAll(opcoesJvm(ManagementFactory.getRuntimeMXBean()
+                .getInputArguments()));
+        comando.add("-cp");
+        comando.add(System.getProperty("java.class.path"));
+        comando.add(classe);
+        comando.addAll(argumentos);
+        trabalhadores = new Trabalhador[processos];
+        comunicacao = Executors.newCachedThreadPool(
+                new ExecutorTestes.FabricaThreads("qp-processos-"));
+        for (int i = 0; i < processos; i++) {
+            try {
+                trabalhadores[i] = new Trabalhador(comando);
+            } catch (IOException ex) {
+                //Nova tentativa na primeira chamada que usar o processo
+                trabalhadores[i] = null;
+            }
+        }
+    }
+
+    /**
+     * Seleciona as opções da JVM repassadas aos processos trabalhadores.
+     *
+     * @param opcoes Opções com que esta JVM foi iniciada.
+     * @return Opções, na mesma ordem, exceto as de
+     * {@link #OPCOES_EXCLUSIVAS}.
+     */
+    static List<String> opcoesJvm(final List<String> opcoes) {
+        List<String> repassadas = new ArrayList<>();
+        for (String opcao : opcoes) {
+            boolean exclusiva = false;
+            for (String prefixo : OPCOES_EXCLUSIVAS) {
+                if (opcao.startsWith(prefixo)) {
+                    exclusiva = true;
+                    break;
+                }
+            }
+            if (!exclusiva) {
+                repassadas.add(opcao);
+            }
+        }
+        return repassadas;
+    }
+
+    @Override
+    public long executar(final SuiteTestes testes) {
+        return executar(testes, 0, null);
+    }
+
+    @Override
+    public long executar(final SuiteTestes testes, final long primeiro,
+            final Latencias latencias) {
+        int[] pendentes = new int[testes.getTamanho()];
+        int quantidade = 0;
+        for (int i = 0; i < testes.getTamanho(); i++) {
+            if (testes.isRealizavel(i)) {
+                pendentes[quantidade] = i;
+                quantidade++;
+            }
+        }
+        int partes = Math.min(trabalhadores.length, quantidade);
+        List<Future<Long>> fragmentos = new ArrayList<>();
+        List<Latencias> parciais = new ArrayList<>();
+        for (int i = 0; i < partes; i++) {
+            Latencias parcial = null;
+            if (latencias != null) {
+                parcial = latencias.criarParcial();
+                parciais.add(parcial);
+            }
+            int de = (int) ((long) quantidade * i / partes);
+            int ate = (int) ((long) quantidade * (i + 1) / partes);
+            fragmentos.add(comunicacao.submit(new Fragmento(i, testes,
+                    pendentes, de, ate, primeiro, parcial)));
+        }
+
+        long cpu = 0;
+        for (Future<Long> fragmento : fragmentos) {
+            cpu += aguardar(fragmento);
+        }
+        for (Latencias parcial : parciais) {
+            latencias.combinar(parcial);
+        }
+        return cpu;
+    }
+
+    @Override
+    public void setMonitor(final MonitorExecucao monitor) {
+        this.monitor = monitor;
+    }
+
+    /**
+     * Aguarda o término de um fragmento, repassando o erro ocorrido nele.
+     *
+     * @param fragmento Fragmento em andamento.
+     * @return Tempo de CPU do fragmento, em nanossegundos.
+     */
+    private static long aguardar(final Future<Long> fragmento) {
+        try {
+            return fragmento.get();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Execução interrompida.", ie);
+        } catch (ExecutionException ex) {
+            Throwable causa = ex.getCause();
+            if (causa instanceof RuntimeException) {
+                throw (RuntimeException) causa;
+            }
+            if (causa instanceof Error) {
+                throw (Error) causa;
+            }
+            throw new IllegalStateException(causa);
+        }
+    }
+
+    /**
+     * Obtém a quantidade de processos reiniciados após uma falha, somando
+     * todas as chamadas.
+     *
+     * @return Quantidade de reinícios.
+     */
+    public int getReinicios() {
+        return reinicios.get();
+    }
+
+    /**
+     * Encerra os processos trabalhadores: a entrada de cada um é fechada e,
+     * se não terminar em {@link #ESPERA_TERMINO} milissegundos, o processo é
+     * destruído.
+     */
+    @Override
+    public void close() {
+        for (int i = 0; i < trabalhadores.length; i++) {
+            if (trabalhadores[i] != null) {
+                trabalhadores[i].encerrar();
+                trabalhadores[i] = null;
+            }
+        }
+        comunicacao.shutdownNow();
+    }
+
+    /**
+     * Envio de um fragmento de testes a um processo trabalhador e
+     * recebimento dos resultados, reiniciando o processo em caso de falha.
+     */
+    private final class Fragmento implements Callable<Long> {
+
+        /**
+         * Posição do processo trabalhador.
+         */
+        private final int processo;
+
+        /**
+         * Testes da chamada.
+         */
+        private final SuiteTestes testes;
+
+        /**
+         * Posições dos testes a serem realizados na chamada.
+         */
+        private final int[] pendentes;
+
+        /**
+         * Próxima posição, em {@link #pendentes}, cujo resultado ainda não
+         * foi recebido.
+         */
+        private int recebidos;
+
+        /**
+         * Posição, em {@link #pendentes}, logo após o fim do fragmento.
+         */
+        private final int ate;
+
+        /**
+         * Posição, na execução completa, do teste 0.
+         */
+        private final long primeiro;
+
+        /**
+         * Registro dos tempos do fragmento, ou null.
+         */
+        private final Latencias parcial;
+
+        /**
+         * Cria um fragmento.
+         *
+         * @param processo Posição do processo trabalhador.
+         * @param testes Testes da chamada.
+         * @param pendentes Posições dos testes a serem realizados.
+         * @param de Início do fragmento em pendentes.
+         * @param ate Fim do fragmento em pendentes.
+         * @param primeiro Posição, na execução completa, do teste 0.
+         * @param parcial Registro dos tempos do fragmento, ou null.
+         */
+        Fragmento(final int processo, final SuiteTestes testes,
+                final int[] pendentes, final int de, final int ate,
+                final long primeiro, final Latencias parcial) {
+            this.processo = processo;
+            this.testes = testes;
+            this.pendentes = pendentes;
+            this.recebidos = de;
+            this.ate = ate;
+            this.primeiro = primeiro;
+            this.parcial = parcial;
+        }
+
+        @Override
+        public Long call() {
+            int falhas = 0;
+            while (true) {
+                Trabalhador trabalhador = trabalhadores[processo];
+                int inicio = recebidos;
+                try {
+                    if (trabalhador == null) {
+                        trabalhador = new Trabalhador(comando);
+                        trabalhadores[processo] = trabalhador;
+                    }
+                    return realizar(trabalhador);
+                } catch (IOException ex) {
+                    if (trabalhador != null) {
+                        trabalhador.destruir();
+                        trabalhadores[processo] = null;
+                    }
+                    //só falhas sem nenhum resultado recebido são seguidas
+                    if (recebidos > inicio) {
+                        falhas = 0;
+                    }
+                    falhas++;
+                    if (falhas >= TENTATIVAS) {
+                        throw new IllegalStateException("O processo "
+                                + "trabalhador " + (processo + 1)
+                                + " falhou " + falhas + " vezes seguidas.",
+                                ex);
+                    }
+                    reinicios.incrementAndGet();
+                }
+            }
+        }
+
+        /**
+         * Envia ao processo os testes cujo resultado ainda não foi recebido
+         * e guarda os resultados à medida que chegam.
+         *
+         * @param trabalhador Processo trabalhador.
+         * @return Tempo de CPU informado pelo processo, em nanossegundos.
+         * @throws IOException Quando o processo termina ou a comunicação
+         * falha antes do fim do fragmento.
+         */
+        private long realizar(final Trabalhador trabalhador)
+                throws IOException {
+            final int de = recebidos;
+            Future<?> envio = comunicacao.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws IOException {
+                    trabalhador.enviar(testes, pendentes, de, ate);
+                    return null;
+                }
+            });
+            DataInputStream entrada = trabalhador.resultados;
+            int publicados = recebidos;
+            while (recebidos < ate) {
+                int teste = pendentes[recebidos];
+                byte situacao = entrada.readByte();
+                float valor = entrada.readFloat();
+                long tempo = entrada.readLong();
+                long alocados = entrada.readLong();
+                guardar(teste, situacao, valor, tempo, alocados);
+                recebidos++;
+                if (recebidos - publicados == BLOCO_PUBLICACAO
+                        || recebidos == ate) {
+                    publicar(publicados, recebidos);
+                    publicados = recebidos;
+                }
+            }
+            long cpu = entrada.readLong();
+            long acertos = entrada.readLong();
+            long faltas = entrada.readLong();
+            try {
+                envio.get();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Execução interrompida.", ie);
+            } catch (ExecutionException ex) {
+                throw new IOException(ex.getCause());
+            }
+            CacheExpressoes cache = Calcular.getCache();
+            if (cache != null) {
+                cache.registrarConsultas(acertos, faltas);
+            }
+            return cpu;
+        }
+
+        /**
+         * Publica ao monitor, se houver, os resultados recebidos de um
+         * intervalo de {@link #pendentes}. Os testes reaproveitados entre
+         * eles são ignorados pelo monitor.
+         *
+         * @param de Início do intervalo em pendentes.
+         * @param fim Fim do intervalo em pendentes.
+         */
+        private void publicar(final int de, final int fim) {
+            MonitorExecucao atual = monitor;
+            if (atual != null) {
+                atual.publicar(testes, pendentes[de], pendentes[fim - 1] + 1,
+                        parcial != null);
+            }
+        }
+
+        /**
+         * Guarda o resultado de um teste recebido do processo.
+         *
+         * @param teste Posição do teste.
+         * @param situacao Situação do teste, como em
+         * {@link TrabalhadorProcesso}.
+         * @param valor Valor obtido.
+         * @param tempo Tempo da realização, em nanossegundos.
+         * @param alocados Memória alocada na realização, em bytes.
+         */
+        private void guardar(final int teste, final byte situacao,
+                final float valor, final long tempo, final long alocados) {
+            if (situacao == TrabalhadorProcesso.TEMPO_ESGOTADO) {
+                testes.interromper(teste, true);
+            } else if (situacao == TrabalhadorProcesso.ESTOURO_PILHA) {
+                testes.interromper(teste, false);
+            } else {
+                testes.guardarResultado(teste,
+                        situacao == TrabalhadorProcesso.OBTIDO, valor);
+            }
+            if (parcial != null) {
+                testes.setTempo(teste, tempo);
+                testes.setAlocados(teste, alocados);
+                parcial.registrar(primeiro + teste,
+                        testes.getExpressao(teste), tempo);
+            }
+        }
+    }
+
+    /**
+     * Processo trabalhador em execução e os canais de comunicação com ele.
+     */
+    private static final class Trabalhador {
+
+        /**
+         * Processo trabalhador.
+         */
+        private final Process processo;
+
+        /**
+         * Entrada do processo, para a qual os testes são enviados.
+         */
+        private final DataOutputStream testes;
+
+        /**
+         * Saída do processo, da qual os resultados são recebidos.
+         */
+        private final DataInputStream resultados;
+
+        /**
+         * Inicia um processo trabalhador. As mensagens que o processo
+         * escreve na saída de erros vão para a do coordenador.
+         *
+         * @param comando Comando que inicia o processo.
+         * @throws IOException Quando não é possível iniciar o processo.
+         */
+        Trabalhador(final List<String> comando) throws IOException {
+            processo = new ProcessBuilder(comando)
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start();
+            testes = new DataOutputStream(new BufferedOutputStream(
+                    processo.getOutputStream(), TAMANHO_BUFFER));
+            resultados = new DataInputStream(new BufferedInputStream(
+                    processo.getInputStream(), TAMANHO_BUFFER));
+        }
+
+        /**
+         * Envia uma chamada ao processo: a quantidade de testes e a linha
+         * de cada um.
+         *
+         * @param suite Testes da chamada.
+         * @param pendentes Posições dos testes a serem realizados.
+         * @param de Início dos testes enviados em pendentes.
+         * @param ate Fim dos testes enviados em pendentes.
+         * @throws IOException Quando não é possível enviar.
+         */
+        void enviar(final SuiteTestes suite, final int[] pendentes,
+                final int de, final int ate) throws IOException {
+            testes.writeInt(ate - de);
+            StringBuilder linha = new StringBuilder();
+            for (int i = de; i < ate; i++) {
+                int teste = pendentes[i];
+                linha.setLength(0);
+                linha.append(suite.getExpressao(teste)).append(';')
+                        .append(suite.getVariaveis(teste)).append(";0");
+                byte[] bytes = linha.toString()
+                        .getBytes(StandardCharsets.UTF_8);
+                testes.writeInt(bytes.length);
+                testes.write(bytes);
+            }
+            testes.flush();
+        }
+
+        /**
+         * Fecha a entrada do processo, que então termina, e aguarda o
+         * término. O processo é destruído se não terminar a tempo.
+         */
+        void encerrar() {
+            try {
+                testes.close();
+                if (!processo.waitFor(ESPERA_TERMINO,
+                        TimeUnit.MILLISECONDS)) {
+                    processo.destroyForcibly();
+                }
+            } catch (IOException ex) {
+                processo.destroyForcibly();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                processo.destroyForcibly();
+            }
+        }
+
+        /**
+         * Destrói o processo após uma falha.
+         */
+        void destruir() {
+            processo.destroyForcibly();
+        }
+    }
+
+}
@@ -0,0 +1,867 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Realiza as expressões de um conjunto de testes, sequencialmente ou em um
+ * conjunto de threads. Cada teste guarda o próprio resultado, portanto a ordem
+ * do conjunto (e do relatório) não depende da ordem em que as threads
+ * terminam. As threads são criadas uma única vez e reaproveitadas em todas as
+ * chamadas de {@link #executar(SuiteTestes)}, até que o executor seja
+ * fechado. Um mesmo executor pode ser usado por várias suítes ao mesmo tempo
+ * (execução em lote); as threads são então divididas entre elas em rodízio.
+ * <p>
+ * Com tempo limite por teste, uma thread de vigia verifica periodicamente
+ * os testes em andamento. Como uma thread não pode ser interrompida no meio
+ * do Parser, o teste que excede o limite é registrado como
+ * {@link SuiteTestes#isTempoEsgotado(int)} e abandonado: o restante do seu
+ * bloco passa a outra tarefa, o pool ganha uma thread no lugar da que ficou
+ * presa e o resultado que ela vier a obter é descartado. O teste abandonado
+ * não é realizado de novo nas chamadas seguintes sobre a mesma suíte
+ * (aquecimento e iterações), que o prenderiam outra vez. O estouro de pilha
+ * é registrado no próprio teste ({@link SuiteTestes#isEstouroPilha(int)});
+ * o tamanho da pilha das threads é configurável.
+ *
+ * @author Wesleywrl
+ */
+public final class ExecutorTestes implements RealizadorTestes {
+
+    /**
+     * Tempo limite padrão da realização de cada teste, em milissegundos.
+     */
+    public static final long LIMITE_PADRAO = 10000;
+
+    /**
+     * Quantidade de testes obtidos de uma só vez por cada thread. Blocos
+     * pequenos equilibram a carga entre as threads; blocos grandes reduzem a
+     * disputa pelo contador compartilhado.
+     */
+    private static final int TAMANHO_BLOCO = 256;
+
+    /**
+     * Quantidade de blocos realizados por uma tarefa antes de voltar ao fim
+     * da fila do pool.
+     */
+    private static final int BLOCOS_POR_VEZ = 16;
+
+    /**
+     * Quantidade de verificações da vigia a cada tempo limite. Um teste é
+     * abandonado, no máximo, uma fração do limite após excedê-lo.
+     */
+    private static final int VERIFICACOES_POR_LIMITE = 4;
+
+    /**
+     * Situação de uma tarefa cuja realização em andamento foi abandonada
+     * pela vigia.
+     */
+    private static final long ABANDONADA = Long.MIN_VALUE;
+
+    /**
+     * Quantidade de threads usadas na realização das expressões.
+     */
+    private final int threads;
+
+    /**
+     * Tempo limite da realização de cada teste, em nanossegundos, ou zero
+     * se não houver limite.
+     */
+    private final long limite;
+
+    /**
+     * Se verdadeiro, as expressões são sempre realizadas nas threads do
+     * pool, mesmo com uma única thread ou poucos testes.
+     */
+    private final boolean isolado;
+
+    /**
+     * Threads usadas na realização das expressões, ou null na execução
+     * sequencial.
+     */
+    private final ThreadPoolExecutor pool;
+
+    /**
+     * Thread que verifica o tempo dos testes em andamento, ou null se não
+     * houver limite.
+     */
+    private final ScheduledExecutorService vigia;
+
+    /**
+     * Tarefas em execução, verificadas pela vigia.
+     */
+    private final Set<Tarefa> ativas = ConcurrentHashMap.<Tarefa>newKeySet();
+
+    /**
+     * Quantidade de testes abandonados por exceder o tempo limite.
+     */
+    private final AtomicInteger abandonados = new AtomicInteger();
+
+    /**
+     * Monitor ao qual os blocos realizados são publicados, ou null.
+     */
+    private volatile MonitorExecucao monitor;
+
+    /**
+     * Avaliação dos testes realizados com tempo limite.
+     */
+    private volatile Avaliador avaliador = Avaliador.PARSER;
+
+    /**
+     * Cria um executor de testes, sem tempo limite por teste.
+     *
+     * @param threads Quantidade de threads. O valor 1 indica execução
+     * sequencial na thread que chamar {@link #executar(SuiteTestes)}.
+     */
+    public ExecutorTestes(final int threads) {
+        this(threads, 0, 0);
+    }
+
+    /**
+     * Cria um executor de testes. Com tempo limite ou tamanho de pilha, as
+     * expressões são sempre realizadas nas threads do executor, mesmo com
+     * uma única thread.
+     *
+     * @param threads Quantidade de threads. O valor 1 indica execução
+     * sequencial.
+     * @param limite Tempo limite da realização de cada teste, em
+     * milissegundos, ou zero para não limitar.
+     * @param pilha Tamanho da pilha de cada thread, em bytes, ou zero para
+     * o padrão da JVM.
+     */
+    public ExecutorTestes(final int threads, final long limite,
+            final long pilha) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Quantidade de threads "
+                    + "inválida.");
+        }
+        if (limite < 0 || pilha < 0) {
+            throw new IllegalArgumentException("Tempo limite ou tamanho de "
+                    + "pilha inválido.");
+        }
+        this.threads = threads;
+        this.limite = TimeUnit.MILLISECONDS.toNanos(limite);
+        this.isolado = limite > 0 || pilha > 0;
+        if (threads > 1 || isolado) {
+            pool = new ThreadPoolExecutor(threads, threads, 0L,
+                    TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
+                    new FabricaThreads("qp-executor-", pilha));
+        } else {
+            pool = null;
+        }
+        if (limite > 0) {
+            long periodo = Math.max(1, limite / VERIFICACOES_POR_LIMITE);
+            vigia = Executors.newSingleThreadScheduledExecutor(
+                    new FabricaThreads("qp-vigia-"));
+            vigia.scheduleAtFixedRate(new Runnable() {
+                @Override
+                public void run() {
+                    vigiar();
+                }
+            }, periodo, periodo, TimeUnit.MILLISECONDS);
+        } else {
+            vigia = null;
+        }
+    }
+
+    /**
+     * Realiza as expressões de todos os testes fornecidos. Testes
+     * reaproveitados de uma execução anterior e testes que já esgotaram o
+     * tempo limite ({@link SuiteTestes#isRealizavel(int)}) não são
+     * realizados.
+     *
+     * @param testes Testes a serem executados.
+     * @return Tempo de CPU, em nanossegundos, somado entre todas as threads
+     * que realizaram expressões.
+     */
+    @Override
+    public long executar(final SuiteTestes testes) {
+        return executar(testes, 0, null);
+    }
+
+    /**
+     * Realiza as expressões de todos os testes fornecidos, registrando o
+     * tempo de cada um. Cada thread registra em seu próprio
+     * {@link Latencias}, combinado ao fornecido no final. O tempo e a memória
+     * alocada por cada teste, medida na thread que o realizou, também são
+     * guardados no próprio teste ({@link SuiteTestes#getTempo(int)} e
+     * {@link SuiteTestes#getAlocados(int)}).
+     *
+     * @param testes Testes a serem executados.
+     * @param primeiro Posição, na execução completa, do primeiro teste
+     * fornecido (os testes podem ser um bloco de uma execução maior).
+     * @param latencias Registro dos tempos, ou null para não medir o tempo
+     * nem a memória de cada teste.
+     * @return Tempo de CPU, em nanossegundos, somado entre todas as threads
+     * que realizaram expressões.
+     */
+    @Override
+    public long executar(final SuiteTestes testes, final long primeiro,
+            final Latencias latencias) {
+        if (pool == null
+                || (!isolado && testes.getTamanho() <= TAMANHO_BLOCO)) {
+            long inicio = tempoCpu();
+            for (int de = 0; de < testes.getTamanho(); de += TAMANHO_BLOCO) {
+                int ate = Math.min(de + TAMANHO_BLOCO, testes.getTamanho());
+                realizar(testes, de, ate, primeiro, latencias);
+                publicar(testes, de, ate, latencias != null);
+            }
+            return tempoCpu() - inicio;
+        }
+        return executarParalelo(testes, primeiro, latencias);
+    }
+
+    @Override
+    public void setMonitor(final MonitorExecucao monitor) {
+        this.monitor = monitor;
+    }
+
+    /**
+     * Substitui a avaliação dos testes realizados com tempo limite. Usado
+     * nos testes do executor, para que o abandono não dependa da duração
+     * real de uma expressão.
+     *
+     * @param novo Avaliação a ser usada.
+     */
+    void setAvaliador(final Avaliador novo) {
+        avaliador = novo;
+    }
+
+    /**
+     * Publica um intervalo de testes realizados ao monitor, se houver.
+     *
+     * @param testes Testes realizados.
+     * @param de Posição do primeiro teste do intervalo.
+     * @param ate Posição logo após o último teste do intervalo.
+     * @param medido Se o tempo de cada teste foi medido.
+     */
+    private void publicar(final SuiteTestes testes, final int de,
+            final int ate, final boolean medido) {
+        MonitorExecucao atual = monitor;
+        if (atual != null) {
+            atual.publicar(testes, de, ate, medido);
+        }
+    }
+
+    /**
+     * Realiza as expressões de um intervalo de testes na thread atual. Se
+     * uma gravação do Java Flight Recorder estiver em andamento, cada teste
+     * emite um {@link EventoAvaliacao}. Se o registro dos tempos medir as
+     * fases do Parser ({@link Latencias#getFases()}), elas também são
+     * registradas.
+     *
+     * @param testes Testes a serem executados.
+     * @param de Posição do primeiro teste do intervalo.
+     * @param ate Posição logo após o último teste do intervalo.
+     * @param primeiro Posição, na execução completa, do teste 0.
+     * @param latencias Registro dos tempos, ou null.
+     */
+    private static void realizar(final SuiteTestes testes, final int de,
+            final int ate, final long primeiro, final Latencias latencias) {
+        boolean eventos = EventosJfr.avaliacoesHabilitadas();
+        if (latencias == null) {
+            for (int i = de; i < ate; i++) {
+                if (!testes.isRealizavel(i)) {
+                    continue;
+                }
+                if (eventos) {
+                    EventoAvaliacao evento = EventosJfr.iniciarAvaliacao();
+                    testes.calcularValor(i);
+                    EventosJfr.concluirAvaliacao(evento, testes, i,
+                            primeiro + i, false);
+                } else {
+                    testes.calcularValor(i);
+                }
+            }
+            return;
+        }
+        FasesParser fases = latencias.getFases();
+        for (int i = de; i < ate; i++) {
+            if (!testes.isRealizavel(i)) {
+                continue;
+            }
+            EventoAvaliacao evento = null;
+            if (eventos) {
+                evento = EventosJfr.iniciarAvaliacao();
+            }
+            long bytes = MedidorAlocacao.alocados();
+            long inicio = System.nanoTime();
+            testes.calcularValor(i, fases);
+            long nanos = System.nanoTime() - inicio;
+            testes.setTempo(i, nanos);
+            testes.setAlocados(i, MedidorAlocacao.alocados() - bytes);
+            latencias.registrar(primeiro + i, testes.getExpressao(i), nanos);
+            if (evento != null) {
+                EventosJfr.concluirAvaliacao(evento, testes, i, primeiro + i,
+                        true);
+            }
+        }
+    }
+
+    /**
+     * Realiza as expressões em um conjunto de threads. Cada tarefa obtém
+     * blocos de testes consecutivos de um contador compartilhado até que não
+     * restem testes. Após {@link #BLOCOS_POR_VEZ} blocos, a tarefa volta ao
+     * fim da fila do pool, de modo que as chamadas simultâneas (várias
+     * suítes sobre o mesmo executor) avançam em rodízio.
+     *
+     * @param testes Testes a serem executados.
+     * @param primeiro Posição, na execução completa, do teste 0.
+     * @param latencias Registro dos tempos, ou null.
+     * @return Tempo de CPU somado entre as threads, em nanossegundos.
+     */
+    private long executarParalelo(final SuiteTestes testes,
+            final long primeiro, final Latencias latencias) {
+        Rodada rodada = new Rodada(testes, primeiro);
+        final List<Latencias> parciais = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            final Latencias parcial;
+            if (latencias == null) {
+                parcial = null;
+            } else {
+                parcial = latencias.criarParcial();
+                parciais.add(parcial);
+            }
+            rodada.agendar(new Tarefa(rodada, parcial, 0, 0));
+        }
+
+        rodada.aguardar();
+        for (Latencias parcial : parciais) {
+            latencias.combinar(parcial);
+        }
+        return rodada.cpu.get();
+    }
+
+    /**
+     * Verifica os testes em andamento, abandonando os que excederam o tempo
+     * limite. Executado periodicamente pela vigia.
+     */
+    private void vigiar() {
+        long agora = System.nanoTime();
+        for (Tarefa tarefa : ativas) {
+            long vez = tarefa.execucao.get();
+            if ((vez & 1) == 0) {
+                continue;
+            }
+            //Campos escritos antes de a execução se tornar ímpar; se ela
+            //ainda for a mesma no compareAndSet, correspondem a esse teste
+            int bloco = tarefa.bloco;
+            int teste = tarefa.teste;
+            int fim = tarefa.fim;
+            long nanos = agora - tarefa.inicio;
+            if (nanos > limite
+                    && tarefa.execucao.compareAndSet(vez, ABANDONADA)) {
+                abandonar(tarefa, bloco, teste, fim, nanos);
+            }
+        }
+    }
+
+    /**
+     * Abandona o teste em andamento de uma tarefa: registra o tempo
+     * esgotado, publica ao monitor os testes do bloco realizados até ele,
+     * acrescenta uma thread ao pool, no lugar da que ficou presa, e agenda
+     * uma nova tarefa com o restante do bloco. A tarefa abandonada não
+     * altera mais os testes nem o seu registro de tempos, em que já estão as
+     * fases do Parser dos testes concluídos.
+     *
+     * @param tarefa Tarefa abandonada.
+     * @param bloco Posição do primeiro teste do bloco em andamento.
+     * @param teste Posição do teste em andamento.
+     * @param fim Posição logo após o último teste do bloco em andamento.
+     * @param nanos Tempo decorrido desde o início do teste.
+     */
+    private void abandonar(final Tarefa tarefa, final int bloco,
+            final int teste, final int fim, final long nanos) {
+        ativas.remove(tarefa);
+        abandonados.incrementAndGet();
+        Rodada rodada = tarefa.rodada;
+        rodada.testes.interromper(teste, true);
+        rodada.testes.setTempo(teste, nanos);
+        rodada.testes.setAlocados(teste, 0);
+        if (tarefa.parcial != null) {
+            tarefa.parcial.registrar(rodada.primeiro + teste,
+                    rodada.testes.getExpressao(teste), nanos);
+        }
+        publicar(rodada.testes, bloco, teste + 1, tarefa.parcial != null);
+        redimensionar(1);
+        rodada.agendar(new Tarefa(rodada, tarefa.parcial, teste + 1, fim));
+    }
+
+    /**
+     * Altera a quantidade de threads do pool.
+     *
+     * @param diferenca Threads acrescentadas (positivo) ou removidas
+     * (negativo).
+     */
+    private void redimensionar(final int diferenca) {
+        synchronized (pool) {
+            int tamanho = pool.getCorePoolSize() + diferenca;
+            if (diferenca > 0) {
+                pool.setMaximumPoolSize(tamanho);
+                pool.setCorePoolSize(tamanho);
+            } else {
+                pool.setCorePoolSize(tamanho);
+                pool.setMaximumPoolSize(tamanho);
+            }
+        }
+    }
+
+    /**
+     * Obtém a quantidade de testes abandonados por exceder o tempo limite,
+     * somando todas as chamadas de {@link #executar(SuiteTestes)}.
+     *
+     * @return Quantidade de testes abandonados.
+     */
+    public int getAbandonados() {
+        return abandonados.get();
+    }
+
+    /**
+     * Encerra as threads do executor. Após o fechamento, o executor não
+     * deve mais ser usado. Threads presas em testes abandonados terminam
+     * sozinhas, pois são daemon.
+     */
+    @Override
+    public void close() {
+        if (vigia != null) {
+            vigia.shutdownNow();
+        }
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Obtém o tempo de CPU da thread atual. Caso a JVM não ofereça essa
+     * medição, usa o tempo de relógio.
+     *
+     * @return Tempo em nanossegundos.
+     */
+    private static long tempoCpu() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean.isCurrentThreadCpuTimeSupported()) {
+            return bean.getCurrentThreadCpuTime();
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * Estado compartilhado pelas tarefas de uma chamada de
+     * {@link #executarParalelo(SuiteTestes, long, Latencias)}.
+     */
+    private final class Rodada {
+
+        /**
+         * Testes a serem executados.
+         */
+        private final SuiteTestes testes;
+
+        /**
+         * Posição, na execução completa, do teste 0.
+         */
+        private final long primeiro;
+
+        /**
+         * Início do próximo bloco a ser obtido por uma tarefa.
+         */
+        private final AtomicInteger proximo = new AtomicInteger();
+
+        /**
+         * Tempo de CPU somado entre as tarefas, em nanossegundos.
+         */
+        private final AtomicLong cpu = new AtomicLong();
+
+        /**
+         * Primeiro erro ocorrido em uma tarefa, ou null.
+         */
+        private final AtomicReference<Throwable> erro =
+                new AtomicReference<>();
+
+        /**
+         * Quantidade de tarefas ainda não concluídas.
+         */
+        private final CountDownLatch pendentes = new CountDownLatch(threads);
+
+        /**
+         * Cria o estado de uma chamada.
+         *
+         * @param testes Testes a serem executados.
+         * @param primeiro Posição, na execução completa, do teste 0.
+         */
+        Rodada(final SuiteTestes testes, final long primeiro) {
+            this.testes = testes;
+            this.primeiro = primeiro;
+        }
+
+        /**
+         * Coloca uma tarefa no fim da fila do pool.
+         *
+         * @param tarefa Tarefa a ser agendada.
+         */
+        void agendar(final Tarefa tarefa) {
+            try {
+                pool.execute(tarefa);
+            } catch (RejectedExecutionException ex) {
+                concluir(ex);
+            }
+        }
+
+        /**
+         * Registra o término de uma tarefa.
+         *
+         * @param falha Erro ocorrido na tarefa, ou null.
+         */
+        void concluir(final Throwable falha) {
+            if (falha != null) {
+                erro.compareAndSet(null, falha);
+            }
+            pendentes.countDown();
+        }
+
+        /**
+         * Aguarda o término de todas as tarefas, repassando erros ocorridos
+         * nelas.
+         */
+        void aguardar() {
+            try {
+                pendentes.await();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Execução interrompida.", ie);
+            }
+            Throwable falha = erro.get();
+            if (falha instanceof Error) {
+                throw (Error) falha;
+            }
+            if (falha != null) {
+                throw new IllegalStateException(falha);
+            }
+        }
+    }
+
+    /**
+     * Tarefa que realiza blocos de testes de uma {@link Rodada}. Cada tarefa
+     * tem o seu registro parcial de tempos, e só executa em uma thread de
+     * cada vez.
+     */
+    private final class Tarefa implements Runnable {
+
+        /**
+         * Chamada à qual a tarefa pertence.
+         */
+        private final Rodada rodada;
+
+        /**
+         * Registro dos tempos desta tarefa, ou null.
+         */
+        private final Latencias parcial;
+
+        /**
+         * Tempo das fases do Parser do teste em andamento, com tempo limite,
+         * ou null. Só é acrescentado ao registro parcial ao fim do teste,
+         * pois a thread de um teste abandonado ainda pode alterá-lo.
+         */
+        private final FasesParser fases;
+
+        /**
+         * Início do restante de um bloco herdado de uma tarefa abandonada.
+         */
+        private int pendenteDe;
+
+        /**
+         * Posição logo após o fim do restante herdado.
+         */
+        private int pendenteAte;
+
+        /**
+         * Contador das realizações com tempo limite: ímpar enquanto um teste
+         * é realizado, par entre testes, ou {@link #ABANDONADA}.
+         */
+        private final AtomicLong execucao = new AtomicLong();
+
+        /**
+         * Posição do primeiro teste do bloco em andamento.
+         */
+        private volatile int bloco;
+
+        /**
+         * Posição do teste em andamento.
+         */
+        private volatile int teste;
+
+        /**
+         * Posição logo após o último teste do bloco em andamento.
+         */
+        private volatile int fim;
+
+        /**
+         * Início do teste em andamento ({@link System#nanoTime()}).
+         */
+        private volatile long inicio;
+
+        /**
+         * Cria uma tarefa.
+         *
+         * @param rodada Chamada à qual a tarefa pertence.
+         * @param parcial Registro dos tempos desta tarefa, ou null.
+         * @param pendenteDe Início do restante de um bloco abandonado, a ser
+         * realizado antes dos demais blocos.
+         * @param pendenteAte Fim do restante (igual ao início se não
+         * houver).
+         */
+        Tarefa(final Rodada rodada, final Latencias parcial,
+                final int pendenteDe, final int pendenteAte) {
+            this.rodada = rodada;
+            this.parcial = parcial;
+            if (vigia != null && parcial != null
+                    && parcial.getFases() != null) {
+                this.fases = new FasesParser();
+            } else {
+                this.fases = null;
+            }
+            this.pendenteDe = pendenteDe;
+            this.pendenteAte = pendenteAte;
+        }
+
+        @Override
+        public void run() {
+            int total = rodada.testes.getTamanho();
+            boolean restam = true;
+            Throwable falha = null;
+            long inicioCpu = tempoCpu();
+            if (vigia != null) {
+                ativas.add(this);
+            }
+            try {
+                if (pendenteDe < pendenteAte) {
+                    int de = pendenteDe;
+                    pendenteDe = pendenteAte;
+                    if (!realizar(de, pendenteAte)) {
+                        redimensionar(-1);
+                        return;
+                    }
+                }
+                for (int i = 0; i < BLOCOS_POR_VEZ && restam; i++) {
+                    int bloco = rodada.proximo.getAndAdd(TAMANHO_BLOCO);
+                    if (bloco >= total) {
+                        restam = false;
+                    } else if (!realizar(bloco,
+                            Math.min(bloco + TAMANHO_BLOCO, total))) {
+                        redimensionar(-1);
+                        return;
+                    }
+                }
+            } catch (RuntimeException | Error ex) {
+                if (!encerrar()) {
+                    redimensionar(-1);
+                    return;
+                }
+                falha = ex;
+            }
+            ativas.remove(this);
+            rodada.cpu.addAndGet(tempoCpu() - inicioCpu);
+            if (falha == null && restam && rodada.erro.get() == null
+                    && rodada.proximo.get() < total) {
+                rodada.agendar(this);
+            } else {
+                rodada.concluir(falha);
+            }
+        }
+
+        /**
+         * Realiza um intervalo de testes e o publica ao monitor. Sem tempo
+         * limite, equivale a {@link ExecutorTestes#realizar(SuiteTestes, int,
+         * int, long, Latencias)}; com tempo limite, cada resultado, e as
+         * fases do Parser do teste, só são guardados se o teste não tiver
+         * sido abandonado pela vigia. Nesse caso, a vigia publica os testes
+         * já concluídos do intervalo.
+         *
+         * @param de Posição do primeiro teste do intervalo.
+         * @param ate Posição logo após o último teste do intervalo.
+         * @return Falso se a tarefa foi abandonada, caso em que a thread
+         * não deve mais alterar a rodada.
+         */
+        private boolean realizar(final int de, final int ate) {
+            SuiteTestes testes = rodada.testes;
+            if (vigia == null) {
+                ExecutorTestes.realizar(testes, de, ate, rodada.primeiro,
+                        parcial);
+                publicar(testes, de, ate, parcial != null);
+                return true;
+            }
+            bloco = de;
+            fim = ate;
+            Avaliador atual = avaliador;
+            boolean eventos = EventosJfr.avaliacoesHabilitadas();
+            for (int i = de; i < ate; i++) {
+                if (!testes.isRealizavel(i)) {
+                    continue;
+                }
+                EventoAvaliacao evento = null;
+                if (eventos) {
+                    evento = EventosJfr.iniciarAvaliacao();
+                }
+                long bytes = 0;
+                if (parcial != null) {
+                    bytes = MedidorAlocacao.alocados();
+                }
+                long comeco = System.nanoTime();
+                teste = i;
+                inicio = comeco;
+                long vez = execucao.incrementAndGet();
+                float valor = 0;
+                boolean obtido;
+                boolean estouro = false;
+                try {
+                    valor = atual.avaliar(testes, i, fases);
+                    obtido = true;
+                } catch (Exception ex) {
+                    obtido = false;
+                } catch (StackOverflowError soe) {
+                    obtido = false;
+                    estouro = true;
+                }
+                long nanos = System.nanoTime() - comeco;
+                if (!execucao.compareAndSet(vez, vez + 1)) {
+                    return false;
+                }
+                if (estouro) {
+                    testes.interromper(i, false);
+                } else {
+                    testes.guardarResultado(i, obtido, valor);
+                }
+                if (fases != null) {
+                    parcial.getFases().combinar(fases);
+                    fases.limpar();
+                }
+                if (parcial != null) {
+                    testes.setTempo(i, nanos);
+                    testes.setAlocados(i, MedidorAlocacao.alocados() - bytes);
+                    parcial.registrar(rodada.primeiro + i,
+                            testes.getExpressao(i), nanos);
+                }
+                if (evento != null) {
+                    EventosJfr.concluirAvaliacao(evento, testes, i,
+                            rodada.primeiro + i, parcial != null);
+                }
+            }
+            publicar(testes, de, ate, parcial != null);
+            return true;
+        }
+
+        /**
+         * Encerra a realização em andamento após um erro, para que a vigia
+         * não a abandone depois.
+         *
+         * @return Falso se a realização já tinha sido abandonada.
+         */
+        private boolean encerrar() {
+            long vez = execucao.get();
+            if (vez == ABANDONADA) {
+                return false;
+            }
+            return (vez & 1) == 0 || execucao.compareAndSet(vez, vez + 1);
+        }
+    }
+
+    /**
+     * Avaliação de um teste realizado com tempo limite.
+     */
+    interface Avaliador {
+
+        /**
+         * Avaliação pelo Parser ({@link SuiteTestes#avaliar(int,
+         * FasesParser)}).
+         */
+        Avaliador PARSER = new Avaliador() {
+            @Override
+            public float avaliar(final SuiteTestes testes, final int teste,
+                    final FasesParser fases) throws Exception {
+                return testes.avaliar(teste, fases);
+            }
+        };
+
+        /**
+         * Obtém o valor de um teste, sem guardá-lo.
+         *
+         * @param testes Testes em realização.
+         * @param teste Posição do teste.
+         * @param fases Registro do tempo de cada fase, ou null.
+         * @return Valor da expressão do teste.
+         * @throws Exception Quando a expressão é inválida.
+         */
+        float avaliar(SuiteTestes testes, int teste, FasesParser fases)
+                throws Exception;
+    }
+
+    /**
+     * Cria as threads do executor como daemon, para que nunca impeçam o
+     * término do programa, opcionalmente com um tamanho de pilha.
+     */
+    static final class FabricaThreads implements ThreadFactory {
+
+        /**
+         * Início do nome das threads criadas.
+         */
+        private final String prefixo;
+
+        /**
+         * Quantidade de threads já criadas, usada na numeração dos nomes.
+         */
+        private final AtomicInteger criadas = new AtomicInteger();
+
+        /**
+         * Tamanho da pilha das threads, em bytes, ou zero para o padrão da
+         * JVM.
+         */
+        private final long pilha;
+
+        /**
+         * Cria uma fábrica de threads com o tamanho de pilha padrão.
+         *
+         * @param prefixo Início do nome das threads criadas.
+         */
+        FabricaThreads(final String prefixo) {
+            this(prefixo, 0);
+        }
+
+        /**
+         * Cria uma fábrica de threads.
+         *
+         * @param prefixo Início do nome das threads criadas.
+         * @param pilha Tamanho da pilha das threads, em bytes, ou zero para
+         * o padrão da JVM.
+         */
+        FabricaThreads(final String prefixo, final long pilha) {
+            this.prefixo = prefixo;
+            this.pilha = pilha;
+        }
+
+        @Override
+        public Thread newThread(final Runnable tarefa) {
+            Thread thread = new Thread(null, tarefa, prefixo
+                    + criadas.incrementAndGet(), pilha);
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+}
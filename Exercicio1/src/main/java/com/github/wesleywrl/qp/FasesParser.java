@@ -0,0 +1,445 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+/**
+ * Tempo gasto em cada fase do Parser: análise léxica
+ * ({@code Lexer.tokenize()}), análise sintática ({@code Parser.expressao()}),
+ * consulta ao {@link CacheExpressoes} que encontrou a expressão (acerto) e
+ * avaliação ({@code valor()} ou {@code valor(ctx)}). Os tempos são
+ * somados por faixa de tamanho da expressão (em caracteres), de quantidade
+ * de tokens e de quantidade de variáveis, de modo que se possa ver qual
+ * fase cresce mais rápido com a entrada. As faixas são potências de 2
+ * (0, 1, 2 a 3, 4 a 7...), e a memória ocupada é fixa.
+ * <p>
+ * Expressões obtidas do cache não passam pelas análises léxica e
+ * sintática: cada uma conta como um acerto, em vez de uma análise, e entra
+ * em todas as faixas, inclusive nas de tokens, cuja quantidade é guardada
+ * no cache junto com a expressão. Assim, análises e acertos somados dão a
+ * quantidade de avaliações. Expressões que o Parser não consegue interpretar
+ * não são contabilizadas.
+ * <p>
+ * Não é seguro para uso simultâneo: cada thread deve registrar em sua própria
+ * instância, combinando-as ao final com {@link #combinar(FasesParser)}. A
+ * combinação e a limpeza percorrem apenas as faixas ocupadas, de modo que
+ * combinar uma instância com um único teste custa poucas somas.
+ *
+ * @author Wesleywrl
+ */
+public final class FasesParser {
+
+    /**
+     * Faixas por tamanho da expressão, em caracteres.
+     */
+    public static final int TAMANHO = 0;
+
+    /**
+     * Faixas por quantidade de tokens da expressão.
+     */
+    public static final int TOKENS = 1;
+
+    /**
+     * Faixas por quantidade de variáveis do teste.
+     */
+    public static final int VARIAVEIS = 2;
+
+    /**
+     * Quantidade de faixas de cada dimensão: uma para o zero e uma para cada
+     * bit de um inteiro positivo.
+     */
+    public static final int FAIXAS = Integer.SIZE;
+
+    /**
+     * Quantidade de dimensões (tamanho, tokens e variáveis).
+     */
+    private static final int DIMENSOES = 3;
+
+    /**
+     * Faixas com algum registro desde a última limpeza, por dimensão: o bit
+     * de cada faixa.
+     */
+    private final int[] ocupadas = new int[DIMENSOES];
+
+    /**
+     * Quantidade de expressões analisadas, por dimensão e faixa.
+     */
+    private final long[][] analises = new long[DIMENSOES][FAIXAS];
+
+    /**
+     * Tempo da análise léxica, em nanossegundos, por dimensão e faixa.
+     */
+    private final long[][] lexica = new long[DIMENSOES][FAIXAS];
+
+    /**
+     * Tempo da análise sintática, em nanossegundos, por dimensão e faixa.
+     */
+    private final long[][] sintatica = new long[DIMENSOES][FAIXAS];
+
+    /**
+     * Quantidade de expressões encontradas no cache, por dimensão e faixa.
+     */
+    private final long[][] acertos = new long[DIMENSOES][FAIXAS];
+
+    /**
+     * Tempo das consultas ao cache que encontraram a expressão, em
+     * nanossegundos, por dimensão e faixa.
+     */
+    private final long[][] consulta = new long[DIMENSOES][FAIXAS];
+
+    /**
+     * Quantidade de expressões avaliadas, por dimensão e faixa.
+     */
+    private final long[][] avaliacoes = new long[DIMENSOES][FAIXAS];
+
+    /**
+     * Tempo da avaliação, em nanossegundos, por dimensão e faixa.
+     */
+    private final long[][] avaliacao = new long[DIMENSOES][FAIXAS];
+
+    /**
+     * Obtém a faixa de um valor.
+     *
+     * @param valor Tamanho ou quantidade (não negativo).
+     * @return Zero para o zero; para os demais, a quantidade de bits
+     * significativos do valor.
+     */
+    public static int faixa(final int valor) {
+        return Integer.SIZE - Integer.numberOfLeadingZeros(valor);
+    }
+
+    /**
+     * Obtém o menor valor de uma faixa.
+     *
+     * @param faixa Faixa, entre 0 e {@link #FAIXAS} - 1.
+     * @return Menor valor contido na faixa.
+     */
+    public static long inicioFaixa(final int faixa) {
+        if (faixa == 0) {
+            return 0;
+        }
+        return 1L << (faixa - 1);
+    }
+
+    /**
+     * Obtém o maior valor de uma faixa.
+     *
+     * @param faixa Faixa, entre 0 e {@link #FAIXAS} - 1.
+     * @return Maior valor contido na faixa.
+     */
+    public static long fimFaixa(final int faixa) {
+        return (1L << faixa) - 1;
+    }
+
+    /**
+     * Registra as análises léxica e sintática de uma expressão.
+     *
+     * @param tamanho Tamanho da expressão, em caracteres.
+     * @param tokens Quantidade de tokens obtidos pela análise léxica.
+     * @param variaveis Quantidade de variáveis do teste.
+     * @param nanosLexica Tempo da análise léxica.
+     * @param nanosSintatica Tempo da análise sintática.
+     */
+    public void registrarAnalise(final int tamanho, final int tokens,
+            final int variaveis, final long nanosLexica,
+            final long nanosSintatica) {
+        registrarAnalise(TAMANHO, faixa(tamanho), nanosLexica,
+                nanosSintatica);
+        registrarAnalise(TOKENS, faixa(tokens), nanosLexica, nanosSintatica);
+        registrarAnalise(VARIAVEIS, faixa(variaveis), nanosLexica,
+                nanosSintatica);
+    }
+
+    /**
+     * Registra uma análise em uma faixa de uma dimensão.
+     *
+     * @param dimensao Dimensão.
+     * @param faixa Faixa da análise na dimensão.
+     * @param nanosLexica Tempo da análise léxica.
+     * @param nanosSintatica Tempo da análise sintática.
+     */
+    private void registrarAnalise(final int dimensao, final int faixa,
+            final long nanosLexica, final long nanosSintatica) {
+        ocupadas[dimensao] |= 1 << faixa;
+        analises[dimensao][faixa]++;
+        lexica[dimensao][faixa] += nanosLexica;
+        sintatica[dimensao][faixa] += nanosSintatica;
+    }
+
+    /**
+     * Registra uma expressão encontrada no cache, sem análise.
+     *
+     * @param tamanho Tamanho da expressão, em caracteres.
+     * @param tokens Quantidade de tokens guardada com a expressão.
+     * @param variaveis Quantidade de variáveis do teste.
+     * @param nanos Tempo da consulta ao cache.
+     */
+    public void registrarAcerto(final int tamanho, final int tokens,
+            final int variaveis, final long nanos) {
+        registrarAcerto(TAMANHO, faixa(tamanho), nanos);
+        registrarAcerto(TOKENS, faixa(tokens), nanos);
+        registrarAcerto(VARIAVEIS, faixa(variaveis), nanos);
+    }
+
+    /**
+     * Registra um acerto do cache em uma faixa de uma dimensão.
+     *
+     * @param dimensao Dimensão.
+     * @param faixa Faixa do acerto na dimensão.
+     * @param nanos Tempo da consulta ao cache.
+     */
+    private void registrarAcerto(final int dimensao, final int faixa,
+            final long nanos) {
+        ocupadas[dimensao] |= 1 << faixa;
+        acertos[dimensao][faixa]++;
+        consulta[dimensao][faixa] += nanos;
+    }
+
+    /**
+     * Registra a avaliação de uma expressão já analisada ou encontrada no
+     * cache.
+     *
+     * @param tamanho Tamanho da expressão, em caracteres.
+     * @param tokens Quantidade de tokens da expressão.
+     * @param variaveis Quantidade de variáveis do teste.
+     * @param nanos Tempo da avaliação.
+     */
+    public void registrarAvaliacao(final int tamanho, final int tokens,
+            final int variaveis, final long nanos) {
+        registrarAvaliacao(TAMANHO, faixa(tamanho), nanos);
+        registrarAvaliacao(TOKENS, faixa(tokens), nanos);
+        registrarAvaliacao(VARIAVEIS, faixa(variaveis), nanos);
+    }
+
+    /**
+     * Registra uma avaliação em uma faixa de uma dimensão.
+     *
+     * @param dimensao Dimensão.
+     * @param faixa Faixa da avaliação na dimensão.
+     * @param nanos Tempo da avaliação.
+     */
+    private void registrarAvaliacao(final int dimensao, final int faixa,
+            final long nanos) {
+        ocupadas[dimensao] |= 1 << faixa;
+        avaliacoes[dimensao][faixa]++;
+        avaliacao[dimensao][faixa] += nanos;
+    }
+
+    /**
+     * Acrescenta a este registro os tempos de outro.
+     *
+     * @param outro Registro a ser acrescentado.
+     */
+    public void combinar(final FasesParser outro) {
+        for (int i = 0; i < DIMENSOES; i++) {
+            int faixas = outro.ocupadas[i];
+            ocupadas[i] |= faixas;
+            while (faixas != 0) {
+                int j = Integer.numberOfTrailingZeros(faixas);
+                faixas &= faixas - 1;
+                analises[i][j] += outro.analises[i][j];
+                lexica[i][j] += outro.lexica[i][j];
+                sintatica[i][j] += outro.sintatica[i][j];
+                acertos[i][j] += outro.acertos[i][j];
+                consulta[i][j] += outro.consulta[i][j];
+                avaliacoes[i][j] += outro.avaliacoes[i][j];
+                avaliacao[i][j] += outro.avaliacao[i][j];
+            }
+        }
+    }
+
+    /**
+     * Descarta todos os tempos registrados.
+     */
+    public void limpar() {
+        for (int i = 0; i < DIMENSOES; i++) {
+            int faixas = ocupadas[i];
+            ocupadas[i] = 0;
+            while (faixas != 0) {
+                int j = Integer.numberOfTrailingZeros(faixas);
+                faixas &= faixas - 1;
+                analises[i][j] = 0;
+                lexica[i][j] = 0;
+                sintatica[i][j] = 0;
+                acertos[i][j] = 0;
+                consulta[i][j] = 0;
+                avaliacoes[i][j] = 0;
+                avaliacao[i][j] = 0;
+            }
+        }
+    }
+
+    /**
+     * Verifica se uma faixa tem alguma análise, acerto ou avaliação
+     * registrada.
+     *
+     * @param dimensao Dimensão ({@link #TAMANHO}, {@link #TOKENS} ou
+     * {@link #VARIAVEIS}).
+     * @param faixa Faixa na dimensão.
+     * @return Falso se a faixa estiver vazia.
+     */
+    public boolean isOcupada(final int dimensao, final int faixa) {
+        return analises[dimensao][faixa] > 0
+                || acertos[dimensao][faixa] > 0
+                || avaliacoes[dimensao][faixa] > 0;
+    }
+
+    /**
+     * Obtém a quantidade de expressões analisadas em uma faixa.
+     *
+     * @param dimensao Dimensão.
+     * @param faixa Faixa na dimensão.
+     * @return Quantidade de análises.
+     */
+    public long getAnalises(final int dimensao, final int faixa) {
+        return analises[dimensao][faixa];
+    }
+
+    /**
+     * Obtém o tempo da análise léxica em uma faixa.
+     *
+     * @param dimensao Dimensão.
+     * @param faixa Faixa na dimensão.
+     * @return Tempo somado, em nanossegundos.
+     */
+    public long getNanosLexica(final int dimensao, final int faixa) {
+        return lexica[dimensao][faixa];
+    }
+
+    /**
+     * Obtém o tempo da análise sintática em uma faixa.
+     *
+     * @param dimensao Dimensão.
+     * @param faixa Faixa na dimensão.
+     * @return Tempo somado, em nanossegundos.
+     */
+    public long getNanosSintatica(final int dimensao, final int faixa) {
+        return sintatica[dimensao][faixa];
+    }
+
+    /**
+     * Obtém a quantidade de expressões encontradas no cache em uma faixa.
+     *
+     * @param dimensao Dimensão.
+     * @param faixa Faixa na dimensão.
+     * @return Quantidade de acertos.
+     */
+    public long getAcertos(final int dimensao, final int faixa) {
+        return acertos[dimensao][faixa];
+    }
+
+    /**
+     * Obtém o tempo das consultas ao cache que encontraram a expressão em
+     * uma faixa.
+     *
+     * @param dimensao Dimensão.
+     * @param faixa Faixa na dimensão.
+     * @return Tempo somado, em nanossegundos.
+     */
+    public long getNanosConsulta(final int dimensao, final int faixa) {
+        return consulta[dimensao][faixa];
+    }
+
+    /**
+     * Obtém a quantidade de expressões avaliadas em uma faixa.
+     *
+     * @param dimensao Dimensão.
+     * @param faixa Faixa na dimensão.
+     * @return Quantidade de avaliações.
+     */
+    public long getAvaliacoes(final int dimensao, final int faixa) {
+        return avaliacoes[dimensao][faixa];
+    }
+
+    /**
+     * Obtém o tempo da avaliação em uma faixa.
+     *
+     * @param dimensao Dimensão.
+     * @param faixa Faixa na dimensão.
+     * @return Tempo somado, em nanossegundos.
+     */
+    public long getNanosAvaliacao(final int dimensao, final int faixa) {
+        return avaliacao[dimensao][faixa];
+    }
+
+    /**
+     * Obtém a quantidade total de expressões analisadas.
+     *
+     * @return Quantidade de análises.
+     */
+    public long getAnalises() {
+        return somar(analises);
+    }
+
+    /**
+     * Obtém o tempo total da análise léxica.
+     *
+     * @return Tempo em nanossegundos.
+     */
+    public long getNanosLexica() {
+        return somar(lexica);
+    }
+
+    /**
+     * Obtém o tempo total da análise sintática.
+     *
+     * @return Tempo em nanossegundos.
+     */
+    public long getNanosSintatica() {
+        return somar(sintatica);
+    }
+
+    /**
+     * Obtém a quantidade total de expressões encontradas no cache.
+     *
+     * @return Quantidade de acertos.
+     */
+    public long getAcertos() {
+        return somar(acertos);
+    }
+
+    /**
+     * Obtém o tempo total das consultas ao cache que encontraram a
+     * expressão.
+     *
+     * @return Tempo em nanossegundos.
+     */
+    public long getNanosConsulta() {
+        return somar(consulta);
+    }
+
+    /**
+     * Obtém a quantidade total de expressões avaliadas.
+     *
+     * @return Quantidade de avaliações.
+     */
+    public long getAvaliacoes() {
+        return somar(avaliacoes);
+    }
+
+    /**
+     * Obtém o tempo total da avaliação.
+     *
+     * @return Tempo em nanossegundos.
+     */
+    public long getNanosAvaliacao() {
+        return somar(avaliacao);
+    }
+
+    /**
+     * Soma as faixas de tamanho de uma medida, nas quais entram todas as
+     * análises, acertos e avaliações.
+     *
+     * @param medida Medida por dimensão e faixa.
+     * @return Soma da medida.
+     */
+    private static long somar(final long[][] medida) {
+        long soma = 0;
+        for (long valor : medida[TAMANHO]) {
+            soma += valor;
+        }
+        return soma;
+    }
+
+}
@@ -0,0 +1,19 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+/**
+ * Sequência de linhas de um arquivo de testes, obtidas sob demanda. Permite
+ * percorrer arquivos de qualquer tamanho sem mantê-los inteiros na memória.
+ * Falhas de leitura durante a iteração são lançadas como
+ * {@link java.io.UncheckedIOException}.
+ *
+ * @author Wesleywrl
+ */
+public interface FonteLinhas extends Iterator<String>, Closeable {
+}
@@ -0,0 +1,594 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Gera suítes de testes sintéticas, no formato
+ * "expressao;variaveis;esperado", para medir o programa com milhares a
+ * centenas de milhões de linhas sem depender de suítes reais. São
+ * configuráveis a quantidade de linhas, a profundidade das expressões, a
+ * proporção entre os operadores, a quantidade de variáveis e a fração de
+ * linhas que repetem uma expressão recente. Com a mesma semente, o arquivo
+ * gerado é sempre o mesmo.
+ * <p>
+ * As expressões seguem a gramática aceita pelo Parser: um único operador
+ * binário por nível, sempre entre parênteses. O valor esperado não vem do
+ * Parser, e sim de um avaliador de referência próprio, que realiza cada
+ * expressão como um programa pós-fixo com a mesma aritmética de float do
+ * Parser (inclusive a divisão por valores próximos de zero, que resulta em
+ * zero). Assim, uma divergência entre o Parser e o avaliador aparece como
+ * falha no relatório.
+ *
+ * @author Wesleywrl
+ */
+public final class GeradorSuite {
+
+    /**
+     * Profundidade máxima padrão das expressões, em níveis de operadores.
+     */
+    public static final int PROFUNDIDADE_PADRAO = 3;
+
+    /**
+     * Quantidade padrão de variáveis por linha.
+     */
+    public static final int VARIAVEIS_PADRAO = 2;
+
+    /**
+     * Operadores gerados, na ordem dos pesos de {@link #setPesos(int[])}.
+     */
+    private static final char[] OPERADORES = {'+', '-', '*', '/'};
+
+    /**
+     * Código de um operando constante no programa pós-fixo. Os operadores
+     * usam a sua posição em {@link #OPERADORES}.
+     */
+    private static final byte CONSTANTE = 4;
+
+    /**
+     * Código de um operando variável no programa pós-fixo.
+     */
+    private static final byte VARIAVEL = 5;
+
+    /**
+     * Menor divisor, em valor absoluto, cuja divisão o Parser realiza;
+     * abaixo dele, o resultado é zero.
+     */
+    private static final double MENOR_DIVISOR = 1.0E-5;
+
+    /**
+     * Quantidade de décimos dos valores gerados (constantes de 0 a 99,9 e
+     * variáveis de -99,9 a 99,9).
+     */
+    private static final int DECIMOS = 1000;
+
+    /**
+     * Quantidade de décimos em uma unidade.
+     */
+    private static final int DECIMOS_POR_UNIDADE = 10;
+
+    /**
+     * Quantidade de expressões recentes das quais as repetições são
+     * sorteadas.
+     */
+    private static final int RECENTES = 4096;
+
+    /**
+     * Fator de conversão de porcentagem para fração.
+     */
+    private static final double PORCENTAGEM = 100.0;
+
+    /**
+     * Números aleatórios da geração, a partir da semente.
+     */
+    private final Random aleatorio;
+
+    /**
+     * Profundidade máxima das expressões.
+     */
+    private int profundidade = PROFUNDIDADE_PADRAO;
+
+    /**
+     * Quantidade de variáveis de cada linha.
+     */
+    private int variaveis = VARIAVEIS_PADRAO;
+
+    /**
+     * Fração das linhas que repetem uma expressão recente.
+     */
+    private double repetidas;
+
+    /**
+     * Peso de cada operador, acumulado ("+" até o primeiro valor, "-" até o
+     * segundo, etc.).
+     */
+    private int[] pesos = {1, 2, 3, 4};
+
+    /**
+     * Expressões geradas mais recentemente, em rodízio.
+     */
+    private final Modelo[] recentes = new Modelo[RECENTES];
+
+    /**
+     * Quantidade de expressões já geradas (as últimas {@link #RECENTES}
+     * estão em {@link #recentes}).
+     */
+    private long geradas;
+
+    /**
+     * Valores das variáveis da linha atual.
+     */
+    private float[] valores = new float[VARIAVEIS_PADRAO];
+
+    /**
+     * Pilha do avaliador de referência.
+     */
+    private float[] pilha = new float[PROFUNDIDADE_PADRAO + 2];
+
+    /**
+     * Linha em construção.
+     */
+    private final StringBuilder linha = new StringBuilder();
+
+    /**
+     * Cria um gerador com as opções padrão.
+     *
+     * @param semente Semente dos números aleatórios.
+     */
+    public GeradorSuite(final long semente) {
+        aleatorio = new Random(semente);
+    }
+
+    /**
+     * Gera uma suíte a partir da linha de comando e finaliza o programa com
+     * {@link Main#SAIDA_SUCESSO} ou {@link Main#SAIDA_ERRO}.
+     *
+     * @param args Arquivo a ser gerado, seguido das opções "-linhas=N"
+     * (padrão 1000), "-profundidade=N", "-variaveis=N",
+     * "-operadores=A,B,C,D" (pesos de "+", "-", "*" e "/"),
+     * "-repetidas=PCT" (porcentagem de linhas com expressão repetida) e
+     * "-semente=N".
+     */
+    public static void main(final String[] args) {
+        System.exit(executar(args, System.out));
+    }
+
+    /**
+     * Gera uma suíte a partir dos parâmetros de {@link #main(String[])},
+     * sem finalizar a JVM.
+     *
+     * @param args Parâmetros, como em {@link #main(String[])}.
+     * @param saida Destino das mensagens.
+     * @return {@link Main#SAIDA_SUCESSO} ou {@link Main#SAIDA_ERRO}.
+     */
+    public static int executar(final String[] args, final PrintStream saida) {
+        if (args.length == 0) {
+            saida.println("Uso: GeradorSuite suite.txt [-linhas=N] "
+                    + "[-profundidade=N] [-variaveis=N] "
+                    + "[-operadores=A,B,C,D] [-repetidas=PCT] "
+                    + "[-semente=N]");
+            return Main.SAIDA_ERRO;
+        }
+        long linhas = 1000;
+        long semente = 1;
+        int profundidade = PROFUNDIDADE_PADRAO;
+        int variaveis = VARIAVEIS_PADRAO;
+        int[] pesos = {1, 1, 1, 1};
+        int repetidas = 0;
+        try {
+            for (int i = 1; i < args.length; i++) {
+                String opcao = args[i];
+                String valor = opcao.substring(opcao.indexOf('=') + 1);
+                if (opcao.startsWith("-linhas=")) {
+                    linhas = numero(opcao, valor, 1);
+                } else if (opcao.startsWith("-profundidade=")) {
+                    profundidade = (int) numero(opcao, valor, 1);
+                } else if (opcao.startsWith("-variaveis=")) {
+                    variaveis = (int) numero(opcao, valor, 0);
+                } else if (opcao.startsWith("-repetidas=")) {
+                    repetidas = (int) numero(opcao, valor, 0);
+                } else if (opcao.startsWith("-semente=")) {
+                    semente = numero(opcao, valor, Long.MIN_VALUE);
+                } else if (opcao.startsWith("-operadores=")) {
+                    String[] partes = valor.split(",");
+                    if (partes.length != OPERADORES.length) {
+                        throw new IllegalArgumentException("Informe um peso "
+                                + "para cada operador em " + opcao + ".");
+                    }
+                    for (int j = 0; j < pesos.length; j++) {
+                        pesos[j] = (int) numero(opcao, partes[j], 0);
+                    }
+                } else {
+                    throw new IllegalArgumentException("Parâmetro inválido: "
+                            + opcao + ".");
+                }
+            }
+            GeradorSuite gerador = new GeradorSuite(semente);
+            gerador.setProfundidade(profundidade);
+            gerador.setVariaveis(variaveis);
+            gerador.setPesos(pesos);
+            gerador.setRepetidas(repetidas / PORCENTAGEM);
+            gerador.gerar(Paths.get(args[0]), linhas);
+        } catch (IllegalArgumentException ex) {
+            saida.println(ex.getMessage());
+            return Main.SAIDA_ERRO;
+        } catch (IOException ex) {
+            saida.println("Não foi possível gerar o arquivo.");
+            return Main.SAIDA_ERRO;
+        }
+        saida.println("Suíte com " + linhas + " linhas gerada em \""
+                + args[0] + ".\"");
+        return Main.SAIDA_SUCESSO;
+    }
+
+    /**
+     * Obtém o valor numérico de uma opção.
+     *
+     * @param opcao Opção completa, usada na mensagem de erro.
+     * @param valor Texto do valor.
+     * @param minimo Menor valor aceito.
+     * @return Valor da opção.
+     * @throws IllegalArgumentException Quando o valor não é um número
+     * inteiro maior ou igual ao mínimo.
+     */
+    private static long numero(final String opcao, final String valor,
+            final long minimo) {
+        long numero;
+        try {
+            numero = Long.parseLong(valor);
+        } catch (NumberFormatException nfe) {
+            throw new IllegalArgumentException("Valor inválido em " + opcao
+                    + ".");
+        }
+        if (numero < minimo) {
+            throw new IllegalArgumentException("Valor inválido em " + opcao
+                    + ". Deve ser no mínimo " + minimo + ".");
+        }
+        return numero;
+    }
+
+    /**
+     * Define a profundidade máxima das expressões. Cada operando de um
+     * operador abaixo dessa profundidade é, com a mesma probabilidade, outra
+     * expressão ou um valor.
+     *
+     * @param profundidade Níveis de operadores, maior que zero.
+     */
+    public void setProfundidade(final int profundidade) {
+        if (profundidade <= 0) {
+            throw new IllegalArgumentException("Profundidade inválida.");
+        }
+        this.profundidade = profundidade;
+        this.pilha = new float[profundidade + 2];
+        limparRecentes();
+    }
+
+    /**
+     * Define a quantidade de variáveis de cada linha (x0, x1, ...). Sem
+     * variáveis, todos os operandos são constantes.
+     *
+     * @param variaveis Quantidade de variáveis, maior ou igual a zero.
+     */
+    public void setVariaveis(final int variaveis) {
+        if (variaveis < 0) {
+            throw new IllegalArgumentException("Quantidade de variáveis "
+                    + "inválida.");
+        }
+        this.variaveis = variaveis;
+        this.valores = new float[variaveis];
+        limparRecentes();
+    }
+
+    /**
+     * Define a proporção entre os operadores gerados.
+     *
+     * @param novos Peso de "+", "-", "*" e "/", nessa ordem, maiores ou
+     * iguais a zero e não todos zero.
+     */
+    public void setPesos(final int[] novos) {
+        if (novos.length != OPERADORES.length) {
+            throw new IllegalArgumentException("Informe um peso para cada "
+                    + "operador.");
+        }
+        int[] acumulados = new int[novos.length];
+        int total = 0;
+        for (int i = 0; i < novos.length; i++) {
+            if (novos[i] < 0) {
+                throw new IllegalArgumentException("Peso inválido.");
+            }
+            total += novos[i];
+            acumulados[i] = total;
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("Algum operador deve ter "
+                    + "peso maior que zero.");
+        }
+        this.pesos = acumulados;
+    }
+
+    /**
+     * Define a fração das linhas que repetem uma das últimas expressões
+     * geradas, com novos valores das variáveis. Sem variáveis, a linha
+     * repetida é idêntica à original.
+     *
+     * @param repetidas Fração entre 0 e 1.
+     */
+    public void setRepetidas(final double repetidas) {
+        if (!(repetidas >= 0 && repetidas <= 1)) {
+            throw new IllegalArgumentException("Fração de repetidas "
+                    + "inválida.");
+        }
+        this.repetidas = repetidas;
+    }
+
+    /**
+     * Descarta as expressões recentes, que não seguem mais as opções.
+     */
+    private void limparRecentes() {
+        Arrays.fill(recentes, null);
+        geradas = 0;
+    }
+
+    /**
+     * Gera um arquivo de testes.
+     *
+     * @param arquivo Local do arquivo, criado ou substituído.
+     * @param linhas Quantidade de linhas.
+     * @throws IOException Quando não é possível escrever o arquivo.
+     */
+    public void gerar(final Path arquivo, final long linhas)
+            throws IOException {
+        try (SaidaUtf8 saida = new SaidaUtf8(arquivo)) {
+            for (long i = 0; i < linhas; i++) {
+                saida.escrever(proximaLinha());
+                saida.novaLinha();
+            }
+        }
+    }
+
+    /**
+     * Gera a próxima linha de teste.
+     *
+     * @return Linha sem a quebra, válida até a próxima chamada.
+     */
+    public CharSequence proximaLinha() {
+        Modelo modelo;
+        if (geradas > 0 && aleatorio.nextDouble() < repetidas) {
+            int disponiveis = (int) Math.min(geradas, RECENTES);
+            modelo = recentes[aleatorio.nextInt(disponiveis)];
+        } else {
+            modelo = new Modelo();
+            linha.setLength(0);
+            gerarOperacao(modelo, 1);
+            modelo.concluir(linha.toString());
+            recentes[(int) (geradas % RECENTES)] = modelo;
+            geradas++;
+        }
+
+        linha.setLength(0);
+        linha.append(modelo.texto).append(';');
+        for (int i = 0; i < variaveis; i++) {
+            if (i > 0) {
+                linha.append(',');
+            }
+            linha.append('x').append(i).append('=');
+            int decimos = aleatorio.nextInt(2 * DECIMOS - 1) - (DECIMOS - 1);
+            valores[i] = valor(linha, decimos);
+        }
+        linha.append(';').append(avaliar(modelo, valores));
+        return linha;
+    }
+
+    /**
+     * Gera uma operação entre parênteses em {@link #linha}, acrescentando-a
+     * ao programa pós-fixo do modelo.
+     *
+     * @param modelo Expressão em geração.
+     * @param nivel Nível da operação (1 na raiz).
+     */
+    private void gerarOperacao(final Modelo modelo, final int nivel) {
+        linha.append('(');
+        gerarOperando(modelo, nivel);
+        int sorteio = aleatorio.nextInt(pesos[pesos.length - 1]);
+        int operador = 0;
+        while (sorteio >= pesos[operador]) {
+            operador++;
+        }
+        linha.append(' ').append(OPERADORES[operador]).append(' ');
+        gerarOperando(modelo, nivel);
+        linha.append(')');
+        modelo.codigo((byte) operador);
+    }
+
+    /**
+     * Gera um operando de uma operação: outra operação (abaixo da
+     * profundidade máxima), uma variável ou uma constante.
+     *
+     * @param modelo Expressão em geração.
+     * @param nivel Nível da operação à qual o operando pertence.
+     */
+    private void gerarOperando(final Modelo modelo, final int nivel) {
+        if (nivel < profundidade && aleatorio.nextBoolean()) {
+            gerarOperacao(modelo, nivel + 1);
+        } else if (variaveis > 0 && aleatorio.nextBoolean()) {
+            int variavel = aleatorio.nextInt(variaveis);
+            linha.append('x').append(variavel);
+            modelo.variavel(variavel);
+        } else {
+            modelo.constante(valor(linha, aleatorio.nextInt(DECIMOS)));
+        }
+    }
+
+    /**
+     * Escreve um valor com uma casa decimal (inteiros sem ela) e obtém o
+     * float que o Parser e a análise das linhas obtêm desse texto.
+     *
+     * @param destino Destino do texto.
+     * @param decimos Valor em décimos.
+     * @return Valor escrito.
+     */
+    private static float valor(final StringBuilder destino,
+            final int decimos) {
+        int inicio = destino.length();
+        if (decimos < 0) {
+            destino.append('-');
+        }
+        int absoluto = Math.abs(decimos);
+        destino.append(absoluto / DECIMOS_POR_UNIDADE);
+        if (absoluto % DECIMOS_POR_UNIDADE != 0) {
+            destino.append('.').append(absoluto % DECIMOS_POR_UNIDADE);
+        }
+        return Float.parseFloat(destino.substring(inicio));
+    }
+
+    /**
+     * Avaliador de referência: realiza o programa pós-fixo de uma expressão.
+     *
+     * @param modelo Expressão gerada.
+     * @param variaveis Valores das variáveis, pela posição.
+     * @return Valor da expressão.
+     */
+    private float avaliar(final Modelo modelo, final float[] variaveis) {
+        int topo = 0;
+        int constante = 0;
+        int variavel = 0;
+        for (int i = 0; i < modelo.tamanho; i++) {
+            byte codigo = modelo.codigos[i];
+            if (codigo == CONSTANTE) {
+                pilha[topo++] = modelo.constantes[constante++];
+            } else if (codigo == VARIAVEL) {
+                pilha[topo++] = variaveis[modelo.variaveis[variavel++]];
+            } else {
+                topo--;
+                pilha[topo - 1] = aplicar(OPERADORES[codigo],
+                        pilha[topo - 1], pilha[topo]);
+            }
+        }
+        return pilha[0];
+    }
+
+    /**
+     * Aplica um operador como o Parser, em aritmética de float.
+     *
+     * @param operador "+", "-", "*" ou "/".
+     * @param a Primeiro operando.
+     * @param b Segundo operando.
+     * @return Resultado; na divisão por valor absoluto menor que
+     * {@link #MENOR_DIVISOR}, zero.
+     */
+    static float aplicar(final char operador, final float a, final float b) {
+        switch (operador) {
+            case '+':
+                return a + b;
+            case '-':
+                return a - b;
+            case '*':
+                return a * b;
+            default:
+                if (Math.abs(b) < MENOR_DIVISOR) {
+                    return 0;
+                }
+                return a / b;
+        }
+    }
+
+    /**
+     * Expressão gerada: o texto e o programa pós-fixo equivalente, realizado
+     * pelo avaliador de referência.
+     */
+    private static final class Modelo {
+
+        /**
+         * Texto da expressão.
+         */
+        private String texto;
+
+        /**
+         * Operadores (posição em {@link #OPERADORES}), {@link #CONSTANTE}
+         * ou {@link #VARIAVEL}, em ordem pós-fixa.
+         */
+        private byte[] codigos = new byte[PROFUNDIDADE_PADRAO * 2];
+
+        /**
+         * Quantidade de códigos.
+         */
+        private int tamanho;
+
+        /**
+         * Valores das constantes, na ordem em que aparecem.
+         */
+        private float[] constantes = new float[PROFUNDIDADE_PADRAO];
+
+        /**
+         * Quantidade de constantes.
+         */
+        private int quantidadeConstantes;
+
+        /**
+         * Posição das variáveis, na ordem em que aparecem.
+         */
+        private int[] variaveis = new int[PROFUNDIDADE_PADRAO];
+
+        /**
+         * Quantidade de variáveis.
+         */
+        private int quantidadeVariaveis;
+
+        /**
+         * Acrescenta um código ao programa.
+         *
+         * @param codigo Código a ser acrescentado.
+         */
+        void codigo(final byte codigo) {
+            if (tamanho == codigos.length) {
+                codigos = Arrays.copyOf(codigos, tamanho * 2);
+            }
+            codigos[tamanho++] = codigo;
+        }
+
+        /**
+         * Acrescenta uma constante ao programa.
+         *
+         * @param valor Valor da constante.
+         */
+        void constante(final float valor) {
+            if (quantidadeConstantes == constantes.length) {
+                constantes = Arrays.copyOf(constantes,
+                        quantidadeConstantes * 2);
+            }
+            constantes[quantidadeConstantes++] = valor;
+            codigo(CONSTANTE);
+        }
+
+        /**
+         * Acrescenta uma variável ao programa.
+         *
+         * @param posicao Posição da variável.
+         */
+        void variavel(final int posicao) {
+            if (quantidadeVariaveis == variaveis.length) {
+                variaveis = Arrays.copyOf(variaveis, quantidadeVariaveis * 2);
+            }
+            variaveis[quantidadeVariaveis++] = posicao;
+            codigo(VARIAVEL);
+        }
+
+        /**
+         * Conclui a geração, guardando o texto da expressão.
+         *
+         * @param expressao Texto da expressão.
+         */
+        void concluir(final String expressao) {
+            this.texto = expressao;
+        }
+    }
+
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+/**
+ * Gravação do Java Flight Recorder durante uma execução, com a
+ * configuração padrão da JVM e os eventos do programa ({@link EventoFase} e
+ * {@link EventoAvaliacao}). O arquivo é escrito quando a gravação é
+ * fechada.
+ *
+ * @author Wesleywrl
+ */
+final class GravacaoJfr implements Closeable {
+
+    /**
+     * Gravação em andamento.
+     */
+    private final Recording gravacao;
+
+    /**
+     * Inicia a gravação.
+     *
+     * @param destino Arquivo ".jfr" em que a gravação será salva.
+     * @throws IOException Quando o destino não pode ser usado ou a
+     * configuração padrão não pode ser lida.
+     */
+    GravacaoJfr(final Path destino) throws IOException {
+        Configuration configuracao;
+        try {
+            configuracao = Configuration.getConfiguration("default");
+        } catch (ParseException ex) {
+            throw new IOException(ex);
+        }
+        gravacao = new Recording(configuracao);
+        gravacao.setName("qp");
+        gravacao.enable(EventoFase.class);
+        gravacao.enable(EventoAvaliacao.class);
+        try {
+            gravacao.setDestination(destino);
+            gravacao.start();
+        } catch (IOException | IllegalStateException ex) {
+            gravacao.close();
+            throw new IOException(ex);
+        }
+    }
+
+    /**
+     * Encerra a gravação e a salva no destino.
+     */
+    @Override
+    public void close() {
+        gravacao.stop();
+        gravacao.close();
+    }
+
+}
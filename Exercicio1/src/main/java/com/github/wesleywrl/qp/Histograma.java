@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+/**
+ * Histograma de valores inteiros não negativos (tempos em nanossegundos) com
+ * memória fixa. Cada potência de 2 é dividida em {@link #SUBFAIXAS} faixas de
+ * mesma largura, portanto o erro relativo de cada valor é de no máximo
+ * 1/{@link #SUBFAIXAS} (cerca de 3%), qualquer que seja a grandeza, e o
+ * histograma inteiro ocupa alguns KiB.
+ * <p>
+ * Não é seguro para uso simultâneo: cada thread deve registrar em seu próprio
+ * histograma, combinando-os ao final com {@link #combinar(Histograma)}.
+ *
+ * @author Wesleywrl
+ */
+public final class Histograma {
+
+    /**
+     * Bits de precisão dentro de cada potência de 2.
+     */
+    private static final int BITS = 5;
+
+    /**
+     * Quantidade de faixas em cada potência de 2.
+     */
+    private static final int SUBFAIXAS = 1 << BITS;
+
+    /**
+     * Maior expoente de um long positivo.
+     */
+    private static final int EXPOENTE_MAXIMO = 62;
+
+    /**
+     * Quantidade total de faixas.
+     */
+    private static final int FAIXAS = (EXPOENTE_MAXIMO - BITS + 2) * SUBFAIXAS;
+
+    /**
+     * Quantidade de bits de um long.
+     */
+    private static final int BITS_LONG = 64;
+
+    /**
+     * Quantidade de valores em cada faixa.
+     */
+    private final long[] contagens = new long[FAIXAS];
+
+    /**
+     * Quantidade de valores registrados.
+     */
+    private long quantidade;
+
+    /**
+     * Soma dos valores registrados.
+     */
+    private long soma;
+
+    /**
+     * Menor valor registrado.
+     */
+    private long minimo = Long.MAX_VALUE;
+
+    /**
+     * Maior valor registrado.
+     */
+    private long maximo;
+
+    /**
+     * Registra um valor.
+     *
+     * @param valor Valor a ser registrado. Valores negativos são registrados
+     * como zero.
+     */
+    public void registrar(final long valor) {
+        long v = Math.max(0, valor);
+        contagens[faixa(v)]++;
+        quantidade++;
+        soma += v;
+        if (v < minimo) {
+            minimo = v;
+        }
+        if (v > maximo) {
+            maximo = v;
+        }
+    }
+
+    /**
+     * Acrescenta a este histograma os valores de outro.
+     *
+     * @param outro Histograma a ser acrescentado.
+     */
+    public void combinar(final Histograma outro) {
+        if (outro.quantidade == 0) {
+            return;
+        }
+        for (int i = 0; i < FAIXAS; i++) {
+            contagens[i] += outro.contagens[i];
+        }
+        quantidade += outro.quantidade;
+        soma += outro.soma;
+        minimo = Math.min(minimo, outro.minimo);
+        maximo = Math.max(maximo, outro.maximo);
+    }
+
+    /**
+     * Obtém a faixa de um valor.
+     *
+     * @param valor Valor não negativo.
+     * @return Índice da faixa.
+     */
+    static int faixa(final long valor) {
+        if (valor < SUBFAIXAS) {
+            return (int) valor;
+        }
+        int expoente = BITS_LONG - 1 - Long.numberOfLeadingZeros(valor);
+        int deslocamento = expoente - BITS;
+        int mantissa = (int) (valor >>> deslocamento);
+        return (deslocamento + 1) * SUBFAIXAS + mantissa - SUBFAIXAS;
+    }
+
+    /**
+     * Obtém o maior valor que pertence a uma faixa.
+     *
+     * @param faixa Índice da faixa.
+     * @return Limite superior (inclusivo) da faixa.
+     */
+    static long limiteSuperior(final int faixa) {
+        if (faixa < SUBFAIXAS) {
+            return faixa;
+        }
+        int deslocamento = faixa / SUBFAIXAS - 1;
+        long mantissa = faixa % SUBFAIXAS + SUBFAIXAS;
+        return ((mantissa + 1) << deslocamento) - 1;
+    }
+
+    /**
+     * Obtém o valor abaixo do qual (inclusive) está a fração fornecida dos
+     * valores registrados. O resultado é o limite superior da faixa
+     * correspondente, sem ultrapassar o maior valor registrado.
+     *
+     * @param fracao Fração entre 0 e 1 (por exemplo, 0.99 para o percentil
+     * 99).
+     * @return Valor do percentil, ou zero se nada foi registrado.
+     */
+    public long percentil(final double fracao) {
+        if (quantidade == 0) {
+            return 0;
+        }
+        long posicao = Math.max(1, (long) Math.ceil(fracao * quantidade));
+        long acumulado = 0;
+        for (int i = 0; i < FAIXAS; i++) {
+            acumulado += contagens[i];
+            if (acumulado >= posicao) {
+                return Math.min(limiteSuperior(i), maximo);
+            }
+        }
+        return maximo;
+    }
+
+    /**
+     * Obtém a quantidade de valores registrados acima do valor fornecido, com
+     * a precisão das faixas: os valores da mesma faixa do valor fornecido não
+     * são contados.
+     *
+     * @param valor Valor de referência, não negativo.
+     * @return Quantidade de valores nas faixas acima da do valor fornecido.
+     */
+    public long quantidadeAcima(final long valor) {
+        long acima = 0;
+        for (int i = faixa(valor) + 1; i < FAIXAS; i++) {
+            acima += contagens[i];
+        }
+        return acima;
+    }
+
+    /**
+     * Obtém a quantidade de valores registrados.
+     *
+     * @return Quantidade de valores.
+     */
+    public long getQuantidade() {
+        return quantidade;
+    }
+
+    /**
+     * Obtém a média dos valores registrados.
+     *
+     * @return Média, ou zero se nada foi registrado.
+     */
+    public double getMedia() {
+        if (quantidade == 0) {
+            return 0;
+        }
+        return (double) soma / quantidade;
+    }
+
+    /**
+     * Obtém o menor valor registrado.
+     *
+     * @return Menor valor, ou zero se nada foi registrado.
+     */
+    public long getMinimo() {
+        if (quantidade == 0) {
+            return 0;
+        }
+        return minimo;
+    }
+
+    /**
+     * Obtém o maior valor registrado.
+     *
+     * @return Maior valor, ou zero se nada foi registrado.
+     */
+    public long getMaximo() {
+        return maximo;
+    }
+
+}
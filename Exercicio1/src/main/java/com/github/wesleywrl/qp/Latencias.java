@@ -0,0 +1,254 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+/**
+ * Tempo gasto na realização de cada teste: um {@link Histograma}, do qual
+ * são obtidos os percentis, e os testes mais lentos, com suas expressões.
+ * Ocupa memória fixa, qualquer que seja a quantidade de testes. Também é
+ * usado para outras medidas por teste, como a memória alocada (em bytes, no
+ * lugar de nanossegundos). Opcionalmente, também guarda o tempo de cada
+ * fase do Parser ({@link FasesParser}).
+ * <p>
+ * Não é seguro para uso simultâneo: cada thread deve registrar em sua própria
+ * instância, combinando-as ao final com {@link #combinar(Latencias)}.
+ *
+ * @author Wesleywrl
+ */
+public final class Latencias {
+
+    /**
+     * Quantidade padrão de testes mais lentos guardados.
+     */
+    public static final int LENTOS_PADRAO = 10;
+
+    /**
+     * Percentis apresentados nos relatórios, como frações.
+     */
+    static final double[] PERCENTIS = {0.5, 0.9, 0.99, 0.999};
+
+    /**
+     * Nomes dos percentis apresentados nos relatórios.
+     */
+    static final String[] NOMES_PERCENTIS = {"p50", "p90", "p99", "p99.9"};
+
+    /**
+     * Tempo de todos os testes.
+     */
+    private final Histograma histograma = new Histograma();
+
+    /**
+     * Tempo, em nanossegundos, dos testes mais lentos (sem ordem).
+     */
+    private final long[] tempos;
+
+    /**
+     * Posição, na execução, dos testes mais lentos.
+     */
+    private final long[] posicoes;
+
+    /**
+     * Expressão dos testes mais lentos.
+     */
+    private final String[] expressoes;
+
+    /**
+     * Tempo de cada fase do Parser, ou null se as fases não são medidas.
+     */
+    private FasesParser fases;
+
+    /**
+     * Quantidade de testes lentos guardados.
+     */
+    private int lentos;
+
+    /**
+     * Índice, nos vetores de testes lentos, do mais rápido entre eles (o
+     * próximo a ser substituído).
+     */
+    private int menor;
+
+    /**
+     * Cria o registro de tempos guardando a quantidade padrão de testes
+     * lentos.
+     */
+    public Latencias() {
+        this(LENTOS_PADRAO);
+    }
+
+    /**
+     * Cria o registro de tempos.
+     *
+     * @param maximoLentos Quantidade de testes mais lentos guardados.
+     */
+    public Latencias(final int maximoLentos) {
+        tempos = new long[maximoLentos];
+        posicoes = new long[maximoLentos];
+        expressoes = new String[maximoLentos];
+    }
+
+    /**
+     * Registra o tempo de um teste.
+     *
+     * @param posicao Posição do teste na execução (a partir de 0).
+     * @param expressao Expressão do teste.
+     * @param nanos Tempo gasto, em nanossegundos.
+     */
+    public void registrar(final long posicao, final String expressao,
+            final long nanos) {
+        histograma.registrar(nanos);
+        guardarLento(posicao, expressao, nanos);
+    }
+
+    /**
+     * Guarda um teste entre os mais lentos, se for o caso.
+     *
+     * @param posicao Posição do teste na execução.
+     * @param expressao Expressão do teste.
+     * @param nanos Tempo gasto, em nanossegundos.
+     */
+    private void guardarLento(final long posicao, final String expressao,
+            final long nanos) {
+        int destino;
+        if (lentos < tempos.length) {
+            destino = lentos;
+            lentos++;
+        } else if (tempos.length > 0 && nanos > tempos[menor]) {
+            destino = menor;
+        } else {
+            return;
+        }
+        tempos[destino] = nanos;
+        posicoes[destino] = posicao;
+        expressoes[destino] = expressao;
+
+        menor = 0;
+        for (int i = 1; i < lentos; i++) {
+            if (tempos[i] < tempos[menor]) {
+                menor = i;
+            }
+        }
+    }
+
+    /**
+     * Acrescenta a este registro os tempos de outro.
+     *
+     * @param outro Registro a ser acrescentado.
+     */
+    public void combinar(final Latencias outro) {
+        histograma.combinar(outro.histograma);
+        for (int i = 0; i < outro.lentos; i++) {
+            guardarLento(outro.posicoes[i], outro.expressoes[i],
+                    outro.tempos[i]);
+        }
+        if (fases != null && outro.fases != null) {
+            fases.combinar(outro.fases);
+        }
+    }
+
+    /**
+     * Cria um registro vazio com a mesma quantidade de testes lentos, para
+     * uso por outra thread.
+     *
+     * @return Registro vazio.
+     */
+    public Latencias criarParcial() {
+        Latencias parcial = new Latencias(tempos.length);
+        if (fases != null) {
+            parcial.fases = new FasesParser();
+        }
+        return parcial;
+    }
+
+    /**
+     * Obtém o tempo de cada fase do Parser, registrado pelos executores
+     * junto ao tempo de cada teste.
+     *
+     * @return Tempo das fases, ou null se as fases não são medidas.
+     */
+    public FasesParser getFases() {
+        return fases;
+    }
+
+    /**
+     * Define o registro do tempo de cada fase do Parser. Os registros
+     * criados por {@link #criarParcial()} também medem as fases, e são
+     * acrescentados a este por {@link #combinar(Latencias)}.
+     *
+     * @param fases Registro das fases, ou null para não medi-las.
+     */
+    public void setFases(final FasesParser fases) {
+        this.fases = fases;
+    }
+
+    /**
+     * Obtém o histograma dos tempos de todos os testes.
+     *
+     * @return Histograma em nanossegundos.
+     */
+    public Histograma getHistograma() {
+        return histograma;
+    }
+
+    /**
+     * Obtém a quantidade de testes lentos guardados.
+     *
+     * @return Quantidade, no máximo a definida na criação.
+     */
+    public int getQuantidadeLentos() {
+        return lentos;
+    }
+
+    /**
+     * Obtém os índices dos testes lentos guardados, do mais lento ao mais
+     * rápido, para uso em {@link #getValor(int)}, {@link #getPosicao(int)} e
+     * {@link #getExpressao(int)}.
+     *
+     * @return Índices ordenados.
+     */
+    public int[] ordemLentos() {
+        int[] ordem = new int[lentos];
+        for (int i = 0; i < lentos; i++) {
+            int j = i;
+            while (j > 0 && tempos[ordem[j - 1]] < tempos[i]) {
+                ordem[j] = ordem[j - 1];
+                j--;
+            }
+            ordem[j] = i;
+        }
+        return ordem;
+    }
+
+    /**
+     * Obtém o tempo (ou outra medida registrada) de um teste lento.
+     *
+     * @param lento Índice do teste lento.
+     * @return Tempo em nanossegundos.
+     */
+    public long getValor(final int lento) {
+        return tempos[lento];
+    }
+
+    /**
+     * Obtém a posição, na execução, de um teste lento.
+     *
+     * @param lento Índice do teste lento.
+     * @return Posição do teste (a partir de 0).
+     */
+    public long getPosicao(final int lento) {
+        return posicoes[lento];
+    }
+
+    /**
+     * Obtém a expressão de um teste lento.
+     *
+     * @param lento Índice do teste lento.
+     * @return Expressão do teste.
+     */
+    public String getExpressao(final int lento) {
+        return expressoes[lento];
+    }
+
+}
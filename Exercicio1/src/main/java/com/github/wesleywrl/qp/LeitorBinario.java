@@ -0,0 +1,463 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Lê um relatório binário gerado por {@link EscritorBinario}. As informações
+ * gerais do cabeçalho ficam disponíveis logo após a abertura; os testes são
+ * percorridos em ordem com {@link #avancar()}, que lê os registros em blocos
+ * sem criar objetos por teste. A expressão de um teste só é decodificada
+ * quando solicitada, e cada texto da tabela é decodificado uma única vez.
+ *
+ * @author Wesleywrl
+ */
+public final class LeitorBinario implements Closeable {
+
+    /**
+     * Quantidade de registros lidos do arquivo de cada vez.
+     */
+    private static final int REGISTROS_POR_LEITURA = 1024;
+
+    /**
+     * Tamanho do bloco lido de cada vez ao percorrer a tabela de textos, em
+     * bytes.
+     */
+    private static final int TAMANHO_LEITURA_TEXTOS = 64 * 1024;
+
+    /**
+     * Arquivo do relatório.
+     */
+    private final FileChannel canal;
+
+    /**
+     * Quantidade de testes.
+     */
+    private final long testes;
+
+    /**
+     * Quantidade de testes que falharam.
+     */
+    private final long falhas;
+
+    /**
+     * Quantidade de textos na tabela de textos.
+     */
+    private final int quantidadeTextos;
+
+    /**
+     * Tempo total gasto pelo Parser, em milissegundos.
+     */
+    private final float tempoTotal;
+
+    /**
+     * Tempo de CPU gasto pelo Parser, em milissegundos.
+     */
+    private final float tempoCpu;
+
+    /**
+     * Quantidade de threads usadas na execução.
+     */
+    private final int threads;
+
+    /**
+     * Memória consumida na execução, em bytes.
+     */
+    private final long memoriaConsumida;
+
+    /**
+     * Posição da tabela de textos no arquivo.
+     */
+    private final long inicioTextos;
+
+    /**
+     * Margem de erro (95%) do tempo total, em milissegundos.
+     */
+    private final float margemErro;
+
+    /**
+     * Registros lidos e ainda não percorridos.
+     */
+    private final ByteBuffer registros = ByteBuffer.allocate(
+            REGISTROS_POR_LEITURA * EscritorBinario.TAMANHO_REGISTRO);
+
+    /**
+     * Posição, no arquivo, de cada texto da tabela. Montada na primeira
+     * consulta a uma expressão.
+     */
+    private long[] posicoesTextos;
+
+    /**
+     * Textos da tabela já decodificados, pelo índice.
+     */
+    private String[] textos;
+
+    /**
+     * Quantidade de testes já percorridos.
+     */
+    private long lidos;
+
+    /**
+     * Ordem do teste atual no relatório.
+     */
+    private long ordem;
+
+    /**
+     * Índice da expressão do teste atual na tabela de textos.
+     */
+    private int indiceTexto;
+
+    /**
+     * Valor esperado do teste atual.
+     */
+    private float esperado;
+
+    /**
+     * Valor obtido pelo teste atual.
+     */
+    private float obtido;
+
+    /**
+     * Situação do teste atual (bits {@link EscritorBinario#OBTIDO} e
+     * {@link EscritorBinario#SUCESSO}).
+     */
+    private byte situacao;
+
+    /**
+     * Tempo de realização do teste atual, em nanossegundos.
+     */
+    private long tempo;
+
+    /**
+     * Bytes alocados pelo teste atual.
+     */
+    private long alocados;
+
+    /**
+     * Abre um relatório binário e lê o seu cabeçalho.
+     *
+     * @param arquivo Local do relatório.
+     * @throws IOException Quando não é possível ler o arquivo ou quando ele
+     * não é um relatório binário válido.
+     */
+    public LeitorBinario(final Path arquivo) throws IOException {
+        canal = FileChannel.open(arquivo, StandardOpenOption.READ);
+        try {
+            ByteBuffer cabecalho = ByteBuffer.allocate(
+                    EscritorBinario.TAMANHO_CABECALHO);
+            ler(cabecalho, 0);
+            if (cabecalho.getInt() != EscritorBinario.MAGICO) {
+                throw new IOException("Arquivo não é um relatório binário.");
+            }
+            if (cabecalho.getInt() != EscritorBinario.VERSAO) {
+                throw new IOException("Versão do relatório binário não "
+                        + "suportada.");
+            }
+            testes = cabecalho.getLong();
+            falhas = cabecalho.getLong();
+            quantidadeTextos = cabecalho.getInt();
+            tempoTotal = cabecalho.getFloat();
+            tempoCpu = cabecalho.getFloat();
+            threads = cabecalho.getInt();
+            memoriaConsumida = cabecalho.getLong();
+            inicioTextos = cabecalho.getLong();
+            margemErro = cabecalho.getFloat();
+            if (testes < 0 || quantidadeTextos < 0
+                    || inicioTextos != EscritorBinario.TAMANHO_CABECALHO
+                    + testes * EscritorBinario.TAMANHO_REGISTRO
+                    || inicioTextos > canal.size()) {
+                throw new IOException("Relatório binário corrompido.");
+            }
+        } catch (IOException ex) {
+            canal.close();
+            throw ex;
+        }
+        registros.limit(0);
+    }
+
+    /**
+     * Preenche um buffer com bytes do arquivo a partir de uma posição e o
+     * prepara para leitura.
+     *
+     * @param buffer Buffer a ser preenchido por completo.
+     * @param posicao Posição inicial no arquivo.
+     * @throws IOException Quando o arquivo termina antes do esperado.
+     */
+    private void ler(final ByteBuffer buffer, final long posicao)
+            throws IOException {
+        long atual = posicao;
+        while (buffer.hasRemaining()) {
+            int lidosAgora = canal.read(buffer, atual);
+            if (lidosAgora < 0) {
+                throw new IOException("Relatório binário incompleto.");
+            }
+            atual += lidosAgora;
+        }
+        buffer.flip();
+    }
+
+    /**
+     * Passa para o próximo teste do relatório.
+     *
+     * @return Falso se não houver mais testes.
+     * @throws IOException Quando não é possível ler o arquivo.
+     */
+    public boolean avancar() throws IOException {
+        if (lidos == testes) {
+            return false;
+        }
+        if (!registros.hasRemaining()) {
+            long restantes = testes - lidos;
+            registros.clear();
+            if (restantes < REGISTROS_POR_LEITURA) {
+                registros.limit((int) restantes
+                        * EscritorBinario.TAMANHO_REGISTRO);
+            }
+            ler(registros, EscritorBinario.TAMANHO_CABECALHO
+                    + lidos * EscritorBinario.TAMANHO_REGISTRO);
+        }
+        ordem = registros.getLong();
+        indiceTexto = registros.getInt();
+        esperado = registros.getFloat();
+        obtido = registros.getFloat();
+        situacao = registros.get();
+        registros.position(registros.position()
+                + EscritorBinario.PREENCHIMENTO);
+        tempo = registros.getLong();
+        alocados = registros.getLong();
+        lidos++;
+        return true;
+    }
+
+    /**
+     * Obtém a ordem do teste atual no relatório, a partir de 0. É a ordem em
+     * que os testes foram escritos, e não o número da linha do teste no
+     * arquivo de testes.
+     *
+     * @return Ordem do teste.
+     */
+    public long getOrdem() {
+        return ordem;
+    }
+
+    /**
+     * Obtém a expressão do teste atual, lendo-a da tabela de textos.
+     *
+     * @return Expressão do teste.
+     * @throws IOException Quando não é possível ler a tabela de textos.
+     */
+    public String getExpressao() throws IOException {
+        if (posicoesTextos == null) {
+            posicoesTextos = indexarTextos();
+            textos = new String[quantidadeTextos];
+        }
+        if (indiceTexto < 0 || indiceTexto >= quantidadeTextos) {
+            throw new IOException("Relatório binário corrompido.");
+        }
+        if (textos[indiceTexto] == null) {
+            long posicao = posicoesTextos[indiceTexto];
+            ByteBuffer tamanho = ByteBuffer.allocate(Integer.BYTES);
+            ler(tamanho, posicao);
+            ByteBuffer texto = ByteBuffer.allocate(tamanho.getInt());
+            ler(texto, posicao + Integer.BYTES);
+            textos[indiceTexto] = new String(texto.array(),
+                    StandardCharsets.UTF_8);
+        }
+        return textos[indiceTexto];
+    }
+
+    /**
+     * Percorre a tabela de textos, obtendo a posição de cada texto. A tabela
+     * é lida em sequência, em blocos de {@link #TAMANHO_LEITURA_TEXTOS}
+     * bytes; textos maiores que o bloco são saltados sem serem lidos.
+     *
+     * @return Posição de cada texto no arquivo.
+     * @throws IOException Quando a tabela está incompleta.
+     */
+    private long[] indexarTextos() throws IOException {
+        long[] posicoes = new long[quantidadeTextos];
+        ByteBuffer bloco = ByteBuffer.allocate(TAMANHO_LEITURA_TEXTOS);
+        bloco.limit(0);
+        long fimBloco = inicioTextos;
+        long posicao = inicioTextos;
+        for (int i = 0; i < quantidadeTextos; i++) {
+            posicoes[i] = posicao;
+            if (bloco.remaining() < Integer.BYTES) {
+                bloco.compact();
+                fimBloco = preencher(bloco, fimBloco);
+                if (bloco.remaining() < Integer.BYTES) {
+                    throw new IOException("Relatório binário incompleto.");
+                }
+            }
+            int bytes = bloco.getInt();
+            if (bytes < 0) {
+                throw new IOException("Relatório binário corrompido.");
+            }
+            posicao += Integer.BYTES + bytes;
+            if (bytes <= bloco.remaining()) {
+                bloco.position(bloco.position() + bytes);
+            } else {
+                bloco.limit(0);
+                fimBloco = posicao;
+            }
+        }
+        return posicoes;
+    }
+
+    /**
+     * Lê bytes do arquivo até encher um buffer ou até o fim do arquivo, e o
+     * prepara para leitura.
+     *
+     * @param buffer Buffer a ser preenchido.
+     * @param posicao Posição no arquivo do primeiro byte a ser lido.
+     * @return Posição no arquivo após o último byte lido.
+     * @throws IOException Quando não é possível ler o arquivo.
+     */
+    private long preencher(final ByteBuffer buffer, final long posicao)
+            throws IOException {
+        long atual = posicao;
+        while (buffer.hasRemaining()) {
+            int lidosAgora = canal.read(buffer, atual);
+            if (lidosAgora < 0) {
+                break;
+            }
+            atual += lidosAgora;
+        }
+        buffer.flip();
+        return atual;
+    }
+
+    /**
+     * Obtém o valor esperado do teste atual.
+     *
+     * @return Valor esperado.
+     */
+    public float getEsperado() {
+        return esperado;
+    }
+
+    /**
+     * Indica se o teste atual obteve um valor.
+     *
+     * @return Falso se o teste não foi realizado.
+     */
+    public boolean isObtido() {
+        return (situacao & EscritorBinario.OBTIDO) != 0;
+    }
+
+    /**
+     * Obtém o valor obtido pelo teste atual.
+     *
+     * @return Valor obtido (sem significado se {@link #isObtido()} for
+     * falso).
+     */
+    public float getObtido() {
+        return obtido;
+    }
+
+    /**
+     * Indica se o teste atual obteve o valor esperado.
+     *
+     * @return Verdadeiro se o teste teve sucesso.
+     */
+    public boolean getSucesso() {
+        return (situacao & EscritorBinario.SUCESSO) != 0;
+    }
+
+    /**
+     * Obtém o tempo de realização do teste atual.
+     *
+     * @return Tempo em nanossegundos.
+     */
+    public long getTempo() {
+        return tempo;
+    }
+
+    /**
+     * Obtém a memória alocada na realização do teste atual.
+     *
+     * @return Bytes alocados.
+     */
+    public long getAlocados() {
+        return alocados;
+    }
+
+    /**
+     * Obtém a quantidade de testes do relatório.
+     *
+     * @return Quantidade de testes.
+     */
+    public long getTestes() {
+        return testes;
+    }
+
+    /**
+     * Obtém a quantidade de testes que falharam.
+     *
+     * @return Quantidade de falhas.
+     */
+    public long getFalhas() {
+        return falhas;
+    }
+
+    /**
+     * Obtém o tempo total gasto pelo Parser na execução.
+     *
+     * @return Tempo em milissegundos.
+     */
+    public float getTempoTotal() {
+        return tempoTotal;
+    }
+
+    /**
+     * Obtém a margem de erro (95%) do tempo total, calculada entre as
+     * iterações medidas.
+     *
+     * @return Margem em milissegundos (zero com uma só iteração).
+     */
+    public float getMargemErro() {
+        return margemErro;
+    }
+
+    /**
+     * Obtém o tempo de CPU gasto pelo Parser na execução.
+     *
+     * @return Tempo em milissegundos.
+     */
+    public float getTempoCpu() {
+        return tempoCpu;
+    }
+
+    /**
+     * Obtém a quantidade de threads usadas na execução.
+     *
+     * @return Quantidade de threads.
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Obtém a memória consumida na execução.
+     *
+     * @return Bytes alocados em todas as fases.
+     */
+    public long getMemoriaConsumida() {
+        return memoriaConsumida;
+    }
+
+    @Override
+    public void close() throws IOException {
+        canal.close();
+    }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.NoSuchElementException;
+
+/**
+ * Fonte de linhas que lê, sob demanda, um {@link BufferedReader}. Apenas a
+ * próxima linha é mantida em memória.
+ *
+ * @author Wesleywrl
+ */
+public final class LeitorLinhas implements FonteLinhas {
+
+    /**
+     * Leitor de onde as linhas são obtidas.
+     */
+    private final BufferedReader leitor;
+
+    /**
+     * Próxima linha a ser entregue, ou null quando o fim já foi alcançado.
+     */
+    private String proxima;
+
+    /**
+     * Indica se a próxima linha já foi lida do leitor.
+     */
+    private boolean lida;
+
+    /**
+     * Cria uma fonte de linhas sobre o leitor fornecido.
+     *
+     * @param leitor Leitor de onde as linhas serão obtidas. É fechado junto
+     * com esta fonte.
+     */
+    public LeitorLinhas(final BufferedReader leitor) {
+        this.leitor = leitor;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!lida) {
+            try {
+                proxima = leitor.readLine();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            lida = true;
+        }
+        return proxima != null;
+    }
+
+    @Override
+    public String next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        lida = false;
+        return proxima;
+    }
+
+    @Override
+    public void close() throws IOException {
+        leitor.close();
+    }
+
+}
@@ -0,0 +1,383 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+
+/**
+ * Lê as linhas de um arquivo local mapeando-o em memória
+ * ({@link FileChannel#map}). As quebras de linha são localizadas diretamente
+ * nos bytes (UTF-8), sem expressões regulares e sem cópias intermediárias.
+ * Arquivos maiores que a região mapeada são percorridos em regiões
+ * consecutivas, sempre iniciadas no começo de uma linha.
+ * <p>
+ * Além de {@link #next()}, que entrega cada linha como String, é possível
+ * percorrer as linhas com {@link #avancar()} e consultar a linha atual como
+ * fatia de bytes ({@link #getInicio()}, {@link #getFim()} e
+ * {@link #getRegiao()}) ou como {@link CharSequence} ({@link #fatia()}), sem
+ * criar um objeto por linha.
+ *
+ * @author Wesleywrl
+ */
+public final class LeitorMapeado implements FonteLinhas {
+
+    /**
+     * Tamanho padrão da região do arquivo mapeada de cada vez (64 MiB).
+     */
+    public static final int REGIAO_PADRAO = 64 * 1024 * 1024;
+
+    /**
+     * Bytes com o bit mais significativo ligado não são ASCII.
+     */
+    private static final int NAO_ASCII = 0x80;
+
+    /**
+     * Mascara para converter um byte em valor sem sinal.
+     */
+    private static final int BYTE = 0xFF;
+
+    /**
+     * Canal do arquivo lido.
+     */
+    private final FileChannel canal;
+
+    /**
+     * Tamanho do arquivo, em bytes.
+     */
+    private final long tamanho;
+
+    /**
+     * Tamanho máximo de cada região mapeada.
+     */
+    private final int tamanhoRegiao;
+
+    /**
+     * Região do arquivo atualmente mapeada.
+     */
+    private MappedByteBuffer regiao;
+
+    /**
+     * Posição, no arquivo, do primeiro byte da região mapeada.
+     */
+    private long inicioRegiao;
+
+    /**
+     * Posição, na região, do próximo byte ainda não lido.
+     */
+    private int posicao;
+
+    /**
+     * Posição, na região, do primeiro byte da linha atual.
+     */
+    private int inicio;
+
+    /**
+     * Posição, na região, logo após o último byte da linha atual (sem a
+     * quebra de linha).
+     */
+    private int fim;
+
+    /**
+     * Indica se a linha atual contém apenas caracteres ASCII.
+     */
+    private boolean ascii;
+
+    /**
+     * Indica se a próxima linha já foi localizada por {@link #hasNext()}.
+     */
+    private boolean localizada;
+
+    /**
+     * Resultado da última localização de linha.
+     */
+    private boolean existe;
+
+    /**
+     * Área reaproveitada na conversão de linhas não ASCII.
+     */
+    private byte[] copia = new byte[0];
+
+    /**
+     * Visão da linha atual como sequência de caracteres.
+     */
+    private final Fatia fatia = new Fatia();
+
+    /**
+     * Abre o arquivo fornecido, mapeando regiões de tamanho padrão.
+     *
+     * @param path Local do arquivo.
+     * @throws FileNotFoundException Quando o arquivo não existir.
+     * @throws IOException Quando não for possível mapear o arquivo.
+     */
+    public LeitorMapeado(final String path) throws IOException {
+        this(path, REGIAO_PADRAO);
+    }
+
+    /**
+     * Abre o arquivo fornecido.
+     *
+     * @param path Local do arquivo.
+     * @param tamanhoRegiao Tamanho máximo, em bytes, de cada região mapeada.
+     * Deve comportar a maior linha do arquivo, incluindo a quebra de linha.
+     * @throws FileNotFoundException Quando o arquivo não existir.
+     * @throws IOException Quando não for possível mapear o arquivo.
+     */
+    public LeitorMapeado(final String path, final int tamanhoRegiao)
+            throws IOException {
+        if (tamanhoRegiao <= 0) {
+            throw new IllegalArgumentException("Tamanho de região inválido.");
+        }
+        this.canal = new FileInputStream(path).getChannel();
+        this.tamanho = canal.size();
+        this.tamanhoRegiao = tamanhoRegiao;
+        mapear(0);
+    }
+
+    /**
+     * Mapeia a região do arquivo que começa na posição fornecida.
+     *
+     * @param posicaoArquivo Posição, no arquivo, do início da região.
+     * @throws IOException Quando não for possível mapear o arquivo.
+     */
+    private void mapear(final long posicaoArquivo) throws IOException {
+        long restante = tamanho - posicaoArquivo;
+        regiao = canal.map(FileChannel.MapMode.READ_ONLY, posicaoArquivo,
+                Math.min(restante, tamanhoRegiao));
+        inicioRegiao = posicaoArquivo;
+        posicao = 0;
+    }
+
+    /**
+     * Avança para a próxima linha do arquivo, que passa a ser a linha atual.
+     *
+     * @return Falso se não houver mais linhas.
+     */
+    public boolean avancar() {
+        boolean resultado = hasNext();
+        localizada = false;
+        return resultado;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!localizada) {
+            try {
+                existe = localizar();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            localizada = true;
+        }
+        return existe;
+    }
+
+    /**
+     * Localiza a próxima linha a partir da posição atual, mapeando a região
+     * seguinte do arquivo quando necessário.
+     *
+     * @return Falso se não houver mais linhas.
+     * @throws IOException Quando não for possível mapear o arquivo.
+     */
+    private boolean localizar() throws IOException {
+        while (true) {
+            int limite = regiao.limit();
+            boolean ultimaRegiao = inicioRegiao + limite >= tamanho;
+            if (posicao >= limite && ultimaRegiao) {
+                return false;
+            }
+
+            int acumulado = 0;
+            int i = posicao;
+            while (i < limite) {
+                int b = regiao.get(i);
+                if (b == '\n' || b == '\r') {
+                    break;
+                }
+                acumulado |= b;
+                i++;
+            }
+
+            //Uma quebra "\r" no fim da região pode ser seguida de "\n" na
+            //próxima, por isso só é aceita se houver o byte seguinte.
+            boolean quebraCompleta = i < limite
+                    && (regiao.get(i) == '\n' || i + 1 < limite);
+            if (quebraCompleta || ultimaRegiao) {
+                inicio = posicao;
+                fim = i;
+                ascii = (acumulado & NAO_ASCII) == 0;
+                posicao = i;
+                if (i < limite) {
+                    posicao++;
+                    if (regiao.get(i) == '\r' && posicao < limite
+                            && regiao.get(posicao) == '\n') {
+                        posicao++;
+                    }
+                }
+                return true;
+            }
+
+            if (posicao == 0) {
+                throw new IOException("Linha maior que a região mapeada ("
+                        + tamanhoRegiao + " bytes).");
+            }
+            mapear(inicioRegiao + posicao);
+        }
+    }
+
+    @Override
+    public String next() {
+        if (!avancar()) {
+            throw new NoSuchElementException();
+        }
+        return linhaAtual();
+    }
+
+    /**
+     * Converte a linha atual em String.
+     *
+     * @return Conteúdo da linha atual, sem a quebra de linha.
+     */
+    public String linhaAtual() {
+        int tamanhoLinha = fim - inicio;
+        if (copia.length < tamanhoLinha) {
+            copia = new byte[Math.max(tamanhoLinha, copia.length * 2)];
+        }
+        regiao.position(inicio);
+        regiao.get(copia, 0, tamanhoLinha);
+        if (ascii) {
+            return new String(copia, 0, tamanhoLinha,
+                    StandardCharsets.ISO_8859_1);
+        }
+        return new String(copia, 0, tamanhoLinha, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Obtém a linha atual como sequência de caracteres. Para linhas ASCII, a
+     * sequência é uma visão direta dos bytes mapeados, reaproveitada a cada
+     * linha: só é válida até a próxima chamada de {@link #avancar()} e deve
+     * ser copiada (toString) caso precise ser guardada. Linhas com outros
+     * caracteres são convertidas em String.
+     *
+     * @return Conteúdo da linha atual, sem a quebra de linha.
+     */
+    public CharSequence fatia() {
+        if (ascii) {
+            fatia.deslocamento = inicio;
+            fatia.comprimento = fim - inicio;
+            return fatia;
+        }
+        return linhaAtual();
+    }
+
+    /**
+     * Obtém a região mapeada que contém a linha atual.
+     *
+     * @return Região mapeada. Não deve ter a posição nem o limite alterados.
+     */
+    public MappedByteBuffer getRegiao() {
+        return regiao;
+    }
+
+    /**
+     * Obtém o início da linha atual na região mapeada.
+     *
+     * @return Posição do primeiro byte da linha atual.
+     */
+    public int getInicio() {
+        return inicio;
+    }
+
+    /**
+     * Obtém o fim da linha atual na região mapeada.
+     *
+     * @return Posição logo após o último byte da linha (sem a quebra).
+     */
+    public int getFim() {
+        return fim;
+    }
+
+    /**
+     * Indica se a linha atual contém apenas caracteres ASCII.
+     *
+     * @return Verdadeiro se cada byte da linha for um caractere.
+     */
+    public boolean isAscii() {
+        return ascii;
+    }
+
+    /**
+     * Fecha o arquivo. As regiões já mapeadas são liberadas pela coleta de
+     * lixo.
+     *
+     * @throws IOException Quando não for possível fechar o arquivo.
+     */
+    @Override
+    public void close() throws IOException {
+        canal.close();
+    }
+
+    /**
+     * Visão, como sequência de caracteres, de uma linha ASCII da região
+     * mapeada.
+     */
+    private final class Fatia implements CharSequence {
+
+        /**
+         * Posição do primeiro byte da linha na região.
+         */
+        private int deslocamento;
+
+        /**
+         * Quantidade de bytes (e de caracteres) da linha.
+         */
+        private int comprimento;
+
+        @Override
+        public int length() {
+            return comprimento;
+        }
+
+        @Override
+        public char charAt(final int indice) {
+            if (indice < 0 || indice >= comprimento) {
+                throw new IndexOutOfBoundsException(String.valueOf(indice));
+            }
+            return (char) (regiao.get(deslocamento + indice) & BYTE);
+        }
+
+        @Override
+        public CharSequence subSequence(final int de, final int ate) {
+            return toString().substring(de, ate);
+        }
+
+        @Override
+        public String toString() {
+            return new String(copiar(), 0, comprimento,
+                    StandardCharsets.ISO_8859_1);
+        }
+
+        /**
+         * Copia os bytes da linha para a área reaproveitada.
+         *
+         * @return Área com os bytes da linha no início.
+         */
+        private byte[] copiar() {
+            if (copia.length < comprimento) {
+                copia = new byte[Math.max(comprimento, copia.length * 2)];
+            }
+            regiao.position(deslocamento);
+            regiao.get(copia, 0, comprimento);
+            return copia;
+        }
+    }
+
+}
@@ -4,16 +4,19 @@
  */
 package com.github.wesleywrl.qp;
 
+import java.io.BufferedReader;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Scanner;
 
 /**
  * Permite obter o arquivo com os testes, remotamente ou localmente.
@@ -22,6 +25,18 @@ import java.util.Scanner;
  */
 public final class Ler {
 
+    /**
+     * Tempo máximo, em milissegundos, para estabelecer a conexão com um
+     * servidor.
+     */
+    static final int TEMPO_CONEXAO = 10000;
+
+    /**
+     * Tempo máximo, em milissegundos, de espera por dados do servidor, uma
+     * vez estabelecida a conexão.
+     */
+    static final int TEMPO_LEITURA = 30000;
+
     /**
      * Impede instancialização de classe utilitária.
      */
@@ -44,14 +59,103 @@ public final class Ler {
             final boolean local)
             throws FileNotFoundException, MalformedURLException, IOException {
 
+        return obterLinhas(path, local, null);
+    }
+
+    /**
+     * Tenta obter o conteúdo de um arquivo de texto no computador ou em um
+     * servidor. Arquivos remotos passam pelo cache fornecido: se não tiverem
+     * sido modificados desde o último acesso, a cópia local é usada.
+     *
+     * @param path Local do arquivo a ser obtido, local ou remoto (http).
+     * @param local Se falso, o arquivo será obtido de um servidor remoto via
+     * internet. Se verdade, o arquivo está no computador do usuário.
+     * @param cache Cache de arquivos remotos. Se null, o arquivo remoto é
+     * sempre transferido.
+     * @return Lista com as linhas do arquivo obtido.
+     * @throws java.io.FileNotFoundException Caso o arquivo não exista.
+     * @throws java.net.MalformedURLException Caso a URL inserida for inválida.
+     * @throws IOException Caso não for possível acessar a URL.
+     */
+    public static List<String> obterLinhas(final String path,
+            final boolean local, final CacheRemoto cache)
+            throws FileNotFoundException, MalformedURLException, IOException {
+
         if (local) {
             return obterLinhasLocal(path);
+        } else if (cache != null) {
+            Path copia = cache.obter(path);
+            try {
+                return obterLinhasLocal(copia.toString());
+            } finally {
+                cache.liberar(copia);
+            }
         } else {
             return obterLinhasOnline(path);
         }
 
     }
 
+    /**
+     * Abre um arquivo de testes, no computador ou em um servidor, para leitura
+     * sob demanda. Diferente de {@link #obterLinhas(String, boolean)}, as
+     * linhas não são guardadas: cada uma é lida apenas quando solicitada, de
+     * modo que a memória usada não depende do tamanho do arquivo. O conteúdo é
+     * interpretado como UTF-8. Arquivos locais são mapeados em memória
+     * ({@link LeitorMapeado}).
+     *
+     * @param path Local do arquivo a ser lido, local ou remoto (http).
+     * @param local Se falso, o arquivo será obtido de um servidor remoto via
+     * internet. Se verdade, o arquivo está no computador do usuário.
+     * @return Fonte das linhas do arquivo. Deve ser fechada após o uso.
+     * @throws java.io.FileNotFoundException Caso o arquivo não exista.
+     * @throws java.net.MalformedURLException Caso a URL inserida for inválida.
+     * @throws IOException Caso não for possível acessar a URL.
+     */
+    public static FonteLinhas abrirLinhas(final String path,
+            final boolean local)
+            throws FileNotFoundException, MalformedURLException, IOException {
+
+        return abrirLinhas(path, local, null);
+    }
+
+    /**
+     * Abre um arquivo de testes, no computador ou em um servidor, para leitura
+     * sob demanda. Arquivos remotos passam pelo cache fornecido e são lidos a
+     * partir da cópia local.
+     *
+     * @param path Local do arquivo a ser lido, local ou remoto (http).
+     * @param local Se falso, o arquivo será obtido de um servidor remoto via
+     * internet. Se verdade, o arquivo está no computador do usuário.
+     * @param cache Cache de arquivos remotos. Se null, o arquivo remoto é
+     * lido diretamente da conexão.
+     * @return Fonte das linhas do arquivo. Deve ser fechada após o uso.
+     * @throws java.io.FileNotFoundException Caso o arquivo não exista.
+     * @throws java.net.MalformedURLException Caso a URL inserida for inválida.
+     * @throws IOException Caso não for possível acessar a URL.
+     */
+    public static FonteLinhas abrirLinhas(final String path,
+            final boolean local, final CacheRemoto cache)
+            throws FileNotFoundException, MalformedURLException, IOException {
+
+        if (local) {
+            return new LeitorMapeado(path);
+        } else if (cache != null) {
+            //o mapeamento continua válido mesmo que a cópia seja removida
+            Path copia = cache.obter(path);
+            try {
+                return new LeitorMapeado(copia.toString());
+            } finally {
+                cache.liberar(copia);
+            }
+        }
+
+        HttpURLConnection connection = conectar(path);
+        InputStream entrada = connection.getInputStream();
+        return new LeitorLinhas(new BufferedReader(
+                new InputStreamReader(entrada, StandardCharsets.UTF_8)));
+    }
+
     /**
      * Acessa uma URL e retorna as linhas do arquivo acessado.
      *
@@ -64,39 +168,61 @@ public final class Ler {
             throws MalformedURLException, IOException {
 
         List<String> linhas = new ArrayList<>();
-        URL url = new URL(urlPath);
-        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-        connection.setRequestMethod("GET");
 
-        try (Scanner leitor = new Scanner(
-                new InputStreamReader(connection.getInputStream()))) {
-            while (leitor.hasNextLine()) {
-                linhas.add(leitor.nextLine());
+        try (FonteLinhas leitor = abrirLinhas(urlPath, false, null)) {
+            while (leitor.hasNext()) {
+                linhas.add(leitor.next());
             }
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
         }
 
         return linhas;
     }
 
     /**
-     * Acessa um arquivo local e retorna as linhas do arquivo.
+     * Acessa um arquivo local e retorna as linhas do arquivo. O arquivo é
+     * mapeado em memória e interpretado como UTF-8.
      *
      * @param path Diretório do arquivo local.
      * @return Todas as linhas do arquivo acessado.
      * @throws FileNotFoundException Quando o arquivo não existir.
+     * @throws IOException Quando não for possível ler o arquivo.
      */
     private static List<String> obterLinhasLocal(final String path)
-            throws FileNotFoundException {
+            throws FileNotFoundException, IOException {
 
         List<String> linhas = new ArrayList<>();
 
-        try (Scanner leitor = new Scanner(new FileReader(path))) {
-            while (leitor.hasNextLine()) {
-                linhas.add(leitor.nextLine());
+        try (LeitorMapeado leitor = new LeitorMapeado(path)) {
+            while (leitor.hasNext()) {
+                linhas.add(leitor.next());
             }
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
         }
 
         return linhas;
     }
 
+    /**
+     * Prepara uma requisição GET a uma URL, com tempos máximos de conexão e
+     * de leitura, para que um servidor que não responde não bloqueie a
+     * execução indefinidamente.
+     *
+     * @param urlPath Endereço do arquivo.
+     * @return Conexão ainda não estabelecida.
+     * @throws MalformedURLException Quando a URL for inválida.
+     * @throws IOException Quando não for possível criar a conexão.
+     */
+    static HttpURLConnection conectar(final String urlPath)
+            throws MalformedURLException, IOException {
+        HttpURLConnection connection =
+                (HttpURLConnection) new URL(urlPath).openConnection();
+        connection.setRequestMethod("GET");
+        connection.setConnectTimeout(TEMPO_CONEXAO);
+        connection.setReadTimeout(TEMPO_LEITURA);
+        return connection;
+    }
+
 }
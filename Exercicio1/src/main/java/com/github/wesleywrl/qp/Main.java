@@ -7,9 +7,12 @@ package com.github.wesleywrl.qp;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
 import java.net.MalformedURLException;
 import java.net.URISyntaxException;
 import java.util.List;
+import java.util.Locale;
 
 /**
  * Lógica principal do programa com base nos parâmetros fornecidos.
@@ -18,6 +21,23 @@ import java.util.List;
  */
 public final class Main {
 
+    /**
+     * Código de saída quando a execução foi concluída (mesmo com testes que
+     * falharam).
+     */
+    public static final int SAIDA_SUCESSO = 0;
+
+    /**
+     * Código de saída quando um erro impediu a execução.
+     */
+    public static final int SAIDA_ERRO = 1;
+
+    /**
+     * Código de saída quando o desempenho regrediu em relação à base além
+     * do orçamento.
+     */
+    public static final int SAIDA_REGRESSAO = 3;
+
     /**
      * Impede instancialização de classe utilitária.
      */
@@ -30,81 +50,338 @@ public final class Main {
      * gera o relatório no formato escolhido.
      *
      * @param args Parâmetros. O primeiro parâmetro deve ser o local do arquivo
-     * TXT de testes, podendo ser local ou remoto. O segundo parâmetro é
-     * opcional, mas caso fornecido, deve ser "-h" e indica geração de relatório
-     * HTML e não JSON. Outros parâmetros não são aceitos.
+     * TXT de testes, podendo ser local ou remoto, ou um diretório, padrão
+     * ("testes/*.txt") ou lista ("@lista.txt") de suítes, realizadas em lote
+     * ({@link ExecucaoLote}). Os demais são opcionais:
+     * "-h" indica geração de relatório HTML e não JSON; "-b" também gera o
+     * relatório binário, que {@link CompararBinarios} compara entre
+     * execuções; "-p" realiza as
+     * expressões em paralelo, com uma thread por processador, e "-p=N" com N
+     * threads; "-f" processa o arquivo em fluxo, sem mantê-lo inteiro em
+     * memória. Arquivos remotos são guardados em um cache em disco e só são
+     * transferidos novamente quando modificados; "-cache-remoto=DIR" e
+     * "-cache-remoto-max=MiB" configuram esse cache e "-sem-cache-remoto" o
+     * desabilita. As expressões interpretadas pelo Parser podem ficar em
+     * cache, o que só compensa com muitas expressões repetidas: "-cache" o
+     * habilita, "-cache=N" o habilita com capacidade N e "-sem-cache" (o
+     * padrão) o desabilita.
+     * "-aquecimento=N" realiza os testes N vezes antes da medição e
+     * "-iteracoes=N" mede N realizações, cujos tempos entram no relatório.
+     * "-incremental" guarda os resultados junto ao relatório e, nas
+     * execuções seguintes, só realiza os testes novos ou modificados.
+     * "-base=ARQ" compara o desempenho com o do relatório binário ARQ e,
+     * caso o tempo médio regrida além de "-orcamento=PCT" (10% se omitido),
+     * finaliza o programa com {@link #SAIDA_REGRESSAO}.
+     * "-limite=MS" abandona os testes cuja realização exceder MS
+     * milissegundos (10 segundos se omitido; "-sem-limite" desabilita) e
+     * "-pilha=KiB" define a pilha das threads que realizam as expressões;
+     * testes abandonados ou que esgotam a pilha falham e são indicados nos
+     * relatórios, sem interromper os demais.
+     * "-processos=N" divide os testes entre N processos trabalhadores
+     * ({@link ExecutorProcessos}), cada um com as threads de "-p"; o
+     * relatório reúne os resultados e os tempos de todos eles.
+     * "-jmx" publica as métricas da execução em andamento por JMX
+     * ({@link MonitorExecucao}), legíveis pelo JConsole. "-jfr=ARQ" grava
+     * a execução com o Java Flight Recorder, incluindo um evento por fase do
+     * relatório e por teste realizado. "-fases" acrescenta ao relatório o
+     * tempo das análises léxica e sintática e da avaliação, por faixa de
+     * tamanho da expressão, de tokens e de variáveis ({@link FasesParser}).
+     * Outros parâmetros não são aceitos.
      */
     public static void main(final String[] args) {
-        boolean exportHtml = false;
-        boolean localFile = true;
-        List<String> testes = null;
+        System.exit(executar(args, System.out));
+    }
 
-        //Checa quantidade de parâmetros (deve ser 1 ou 2)
-        if (args.length != 1 && args.length != 2) {
-            erro("Quantidade de parâmetros inválida.");
+    /**
+     * Executa o programa sem finalizar a JVM, como em {@link #main(String[])},
+     * permitindo realizar várias suítes no mesmo processo.
+     *
+     * @param args Parâmetros, como em {@link #main(String[])}.
+     * @param saida Destino das mensagens do programa.
+     * @return Código de saída: {@link #SAIDA_SUCESSO}, {@link #SAIDA_ERRO}
+     * ou {@link #SAIDA_REGRESSAO}.
+     */
+    public static int executar(final String[] args, final PrintStream saida) {
+        Configuracao config;
+        try {
+            config = Configuracao.interpretar(args);
+        } catch (IllegalArgumentException ex) {
+            return erro(saida, ex.getMessage());
         }
+        return executar(config, saida);
+    }
 
-        //Checa o segundo parâmetro (só pode ser "-h")
-        if (args.length == 2) {
-            if (args[1].equals("-h")) {
-                exportHtml = true;
-            } else {
-                erro("Segundo parâmetro inválido.");
-            }
+    /**
+     * Executa o programa com uma configuração já interpretada. Com
+     * {@link Configuracao#getJfr()}, a execução é gravada pelo Java Flight
+     * Recorder.
+     *
+     * @param config Configuração da execução.
+     * @param saida Destino das mensagens do programa.
+     * @return Código de saída: {@link #SAIDA_SUCESSO}, {@link #SAIDA_ERRO}
+     * ou {@link #SAIDA_REGRESSAO}.
+     */
+    public static int executar(final Configuracao config,
+            final PrintStream saida) {
+        if (config.getJfr() == null) {
+            return executarSemGravacao(config, saida);
+        }
+        if (!EventosJfr.DISPONIVEL) {
+            return erro(saida, "Java Flight Recorder indisponível nesta JVM.");
         }
+        GravacaoJfr gravacao;
+        try {
+            gravacao = new GravacaoJfr(config.getJfr());
+        } catch (IOException ex) {
+            return erro(saida, "Não foi possível iniciar a gravação JFR.");
+        }
+        try {
+            return executarSemGravacao(config, saida);
+        } finally {
+            gravacao.close();
+            saida.println("Gravação JFR salva em \"" + config.getJfr()
+                    + ".\"");
+        }
+    }
+
+    /**
+     * Executa o programa, como em {@link #executar(Configuracao,
+     * PrintStream)}, sem iniciar a gravação do Java Flight Recorder.
+     *
+     * @param config Configuração da execução.
+     * @param saida Destino das mensagens do programa.
+     * @return Código de saída.
+     */
+    private static int executarSemGravacao(final Configuracao config,
+            final PrintStream saida) {
+        if (ExecucaoLote.isLote(config.getCaminho())) {
+            return executarLote(config, saida);
+        }
+        List<String> testes = null;
+        FonteLinhas fonte = null;
+        boolean exportHtml = config.isHtml();
+        boolean localFile = config.isLocal();
 
         //Checa se é local ou remoto
-        if (args[0].startsWith("http")) {
-            System.out.println("O arquivo de testes será obtido remotamente.");
-            localFile = false;
+        if (!localFile) {
+            saida.println("O arquivo de testes será obtido remotamente.");
         }
 
         //Obtém o arquivo
-        System.out.println("Obtendo arquivo de testes...");
+        saida.println("Obtendo arquivo de testes...");
         try {
-            testes = Ler.obterLinhas(args[0], localFile);
-            System.out.println("Arquivo de testes obtido.");
+            CacheRemoto cache = config.criarCacheRemoto();
+            if (config.isFluxo()) {
+                fonte = Ler.abrirLinhas(config.getCaminho(), localFile, cache);
+            } else {
+                testes = Ler.obterLinhas(config.getCaminho(), localFile,
+                        cache);
+            }
+            saida.println("Arquivo de testes obtido.");
+            if (cache != null && cache.getReaproveitados() > 0) {
+                saida.println("Arquivo remoto não modificado: cópia do "
+                        + "cache reutilizada.");
+            }
         } catch (FileNotFoundException ex) {
-            erro("Arquivo não encontrado.");
+            return erro(saida, "Arquivo não encontrado.");
         } catch (MalformedURLException ex) {
-            erro("A URL fornecida é inválida.");
+            return erro(saida, "A URL fornecida é inválida.");
         } catch (IOException ex) {
-            erro("Não foi possível acessar o arquivo.");
+            return erro(saida, "Não foi possível acessar o arquivo.");
         }
 
         //Obtém o diretório em que o relatório será salvo
-        String diretorioQp = null;
+        String diretorioQp;
         try {
-            diretorioQp = new File(Main.class.getProtectionDomain()
-                    .getCodeSource().getLocation().toURI().getPath())
-                    .getParent();
+            diretorioQp = diretorioRelatorio(config);
         } catch (URISyntaxException ex) {
-            erro("Não é possível gerar arquivo de relatório no "
+            fechar(fonte, saida);
+            return erro(saida, "Não é possível gerar arquivo de relatório no "
                     + "diretório atual.");
         }
 
+        try {
+            RelatorioTeste.verificarBase(config.getBase(),
+                    config.isBinario(), diretorioQp);
+        } catch (IllegalArgumentException ex) {
+            fechar(fonte, saida);
+            return erro(saida, ex.getMessage());
+        }
+
         //Realiza as expressões e gera o relatório
-        System.out.println("Realizando expressões matemáticas...");
-        RelatorioTeste gerador = new RelatorioTeste(testes, exportHtml);
+        saida.println("Realizando expressões matemáticas...");
+        Calcular.setCache(config.criarCacheExpressoes());
+        RelatorioTeste gerador;
         try {
+            if (fonte == null) {
+                gerador = new RelatorioTeste(testes, config);
+            } else {
+                gerador = new RelatorioTeste(fonte, config);
+            }
+            if (gerador.publicarMetricas()) {
+                saida.println("Métricas da execução publicadas por JMX em "
+                        + MonitorExecucao.NOME + ".");
+            } else if (config.isJmx()) {
+                saida.println("Não foi possível publicar as métricas por "
+                        + "JMX em " + MonitorExecucao.NOME + " ("
+                        + gerador.getFalhaRegistro() + "); a execução segue "
+                        + "sem publicação.");
+            }
             gerador.gerarRelatorioTeste(diretorioQp);
+        } catch (IllegalArgumentException ex) {
+            return erro(saida, "Arquivo de testes inválido. "
+                    + ex.getMessage());
+        } catch (UncheckedIOException ex) {
+            return erro(saida, "Não foi possível acessar o arquivo.");
+        } catch (IllegalStateException ex) {
+            return erro(saida, "Não foi possível realizar as expressões. "
+                    + ex.getMessage());
         } catch (IOException ex) {
-            erro("Não foi possível gerar arquivo de relatório.");
+            return erro(saida, "Não foi possível gerar arquivo de relatório.");
+        } finally {
+            fechar(fonte, saida);
+        }
+        saida.println("Expressões realizadas.");
+        Estatisticas estatisticas = gerador.getEstatisticas();
+        if (estatisticas.isIncremental()) {
+            saida.println("Resultados reaproveitados: "
+                    + estatisticas.getReaproveitados() + "; recalculados: "
+                    + estatisticas.getRecalculados() + ".");
         }
-        System.out.println("Expressões realizadas.");
         if (gerador.todosSucessos()) {
-            System.out.println("Todos os testes obtiveram SUCESSO.");
+            saida.println("Todos os testes obtiveram SUCESSO.");
         } else {
-            System.out.println("Houveram testes que FALHARAM.");
+            saida.println("Houveram testes que FALHARAM.");
+        }
+        if (estatisticas.getTemposEsgotados() > 0
+                || estatisticas.getEstourosPilha() > 0) {
+            saida.println("Testes interrompidos: "
+                    + estatisticas.getTemposEsgotados()
+                    + " por tempo esgotado e "
+                    + estatisticas.getEstourosPilha()
+                    + " por estouro de pilha.");
         }
         if (exportHtml) {
-            System.out.println("Relatório HTML salvo em \"" + diretorioQp
+            saida.println("Relatório HTML salvo em \"" + diretorioQp
                     + "\\relatorio.html.\"");
         } else {
-            System.out.println("Relatório JSON salvo em \"" + diretorioQp
+            saida.println("Relatório JSON salvo em \"" + diretorioQp
                     + "\\relatorio.json.\"");
         }
-        System.exit(0);
+        if (config.isBinario()) {
+            saida.println("Relatório binário salvo em \"" + diretorioQp
+                    + "\\" + RelatorioTeste.ARQUIVO_BINARIO + ".\"");
+        }
+        ComparacaoBase comparacao = estatisticas.getComparacao();
+        if (comparacao != null) {
+            saida.println("Testes regredidos em relação à base: "
+                    + comparacao.getRegredidos() + ".");
+            if (comparacao.isRegressao()) {
+                saida.println("O desempenho REGREDIU além do orçamento "
+                        + "em relação à base.");
+                return SAIDA_REGRESSAO;
+            }
+            saida.println("Desempenho dentro do orçamento em relação à "
+                    + "base.");
+        }
+        return SAIDA_SUCESSO;
+    }
+
+    /**
+     * Realiza várias suítes de testes em lote ({@link ExecucaoLote}).
+     *
+     * @param config Configuração da execução, cujo caminho indica as suítes.
+     * @param saida Destino das mensagens do programa.
+     * @return {@link #SAIDA_SUCESSO}, ou {@link #SAIDA_ERRO} se alguma suíte
+     * não pôde ser realizada.
+     */
+    private static int executarLote(final Configuracao config,
+            final PrintStream saida) {
+        saida.println("Obtendo lista de suítes de testes...");
+        ExecucaoLote lote;
+        String diretorioQp;
+        try {
+            lote = new ExecucaoLote(config);
+            diretorioQp = diretorioRelatorio(config);
+        } catch (IllegalArgumentException ex) {
+            return erro(saida, ex.getMessage());
+        } catch (FileNotFoundException ex) {
+            return erro(saida, "Arquivo não encontrado.");
+        } catch (MalformedURLException ex) {
+            return erro(saida, "A URL fornecida é inválida.");
+        } catch (IOException ex) {
+            return erro(saida, "Não foi possível acessar o arquivo.");
+        } catch (URISyntaxException ex) {
+            return erro(saida, "Não é possível gerar arquivo de relatório no "
+                    + "diretório atual.");
+        }
+
+        saida.println("Realizando " + lote.getSuites()
+                + " suítes de testes...");
+        Calcular.setCache(config.criarCacheExpressoes());
+        try {
+            lote.executar(diretorioQp);
+        } catch (IllegalStateException ex) {
+            return erro(saida, "Não foi possível realizar as suítes. "
+                    + ex.getMessage());
+        } catch (IOException ex) {
+            return erro(saida, "Não foi possível gerar o resumo do lote.");
+        }
+        for (int i = 0; i < lote.getSuites(); i++) {
+            if (lote.getErro(i) != null) {
+                saida.println("Suíte " + lote.getSuite(i) + ": "
+                        + lote.getErro(i));
+            }
+        }
+        saida.println("Suítes: " + lote.getSuites() + "; com erro: "
+                + lote.getErros() + "; testes: " + lote.getTestes()
+                + "; falhas: " + lote.getFalhas() + ".");
+        saida.println(String.format(Locale.ROOT,
+                "Tempo: %.1f ms; vazão: %.0f testes/s.", lote.getTempo(),
+                lote.getVazao()));
+        saida.println("Relatórios das suítes salvos em \"" + diretorioQp
+                + "\\" + ExecucaoLote.DIRETORIO + "\"; resumo em \""
+                + diretorioQp + "\\" + ExecucaoLote.RESUMO + ".\"");
+        if (lote.getErros() > 0) {
+            return SAIDA_ERRO;
+        }
+        return SAIDA_SUCESSO;
+    }
+
+    /**
+     * Obtém o diretório em que os relatórios são salvos: o da configuração
+     * ou, se não houver, o do programa.
+     *
+     * @param config Configuração da execução.
+     * @return Diretório dos relatórios.
+     * @throws URISyntaxException Quando o local do programa não é um
+     * diretório local.
+     */
+    private static String diretorioRelatorio(final Configuracao config)
+            throws URISyntaxException {
+        if (config.getDiretorioRelatorio() != null) {
+            return config.getDiretorioRelatorio().toString();
+        }
+        return new File(Main.class.getProtectionDomain().getCodeSource()
+                .getLocation().toURI().getPath()).getParent();
+    }
+
+    /**
+     * Fecha a fonte de linhas dos testes, caso exista.
+     *
+     * @param fonte Fonte a ser fechada (pode ser null).
+     * @param saida Destino das mensagens do programa.
+     */
+    private static void fechar(final FonteLinhas fonte,
+            final PrintStream saida) {
+        if (fonte != null) {
+            try {
+                fonte.close();
+            } catch (IOException ex) {
+                saida.println("Não foi possível fechar o arquivo de "
+                        + "testes.");
+            }
+        }
     }
 
     /**
@@ -113,8 +390,19 @@ public final class Main {
      * @param mensagem Mensagem a ser exibida antes de finalizar.
      */
     public static void erro(final String mensagem) {
-        System.out.println(mensagem);
-        System.exit(1);
+        System.exit(erro(System.out, mensagem));
+    }
+
+    /**
+     * Exibe a mensagem de um erro que impede a execução.
+     *
+     * @param saida Destino das mensagens do programa.
+     * @param mensagem Mensagem a ser exibida.
+     * @return {@link #SAIDA_ERRO}.
+     */
+    private static int erro(final PrintStream saida, final String mensagem) {
+        saida.println(mensagem);
+        return SAIDA_ERRO;
     }
 
 }
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Mede a memória alocada pela thread atual, a partir do contador mantido
+ * pela JVM para cada thread ({@code com.sun.management.ThreadMXBean}). Ao
+ * contrário da diferença de memória em uso antes e depois de uma coleta de
+ * lixo, a medição não depende do coletor: a diferença entre duas leituras é
+ * exatamente o que a thread alocou entre elas, mesmo que já seja lixo.
+ *
+ * @author Wesleywrl
+ */
+public final class MedidorAlocacao {
+
+    /**
+     * Interface da JVM com a medição por thread, ou null se a JVM não a
+     * oferecer (ou se estiver desabilitada).
+     */
+    private static final com.sun.management.ThreadMXBean BEAN = obterBean();
+
+    /**
+     * Impede instancialização de classe utilitária.
+     */
+    private MedidorAlocacao() {
+    }
+
+    /**
+     * Obtém a interface da JVM com a medição por thread, habilitando-a se
+     * necessário.
+     *
+     * @return Interface da JVM, ou null se a medição não estiver disponível.
+     */
+    private static com.sun.management.ThreadMXBean obterBean() {
+        java.lang.management.ThreadMXBean bean =
+                ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        com.sun.management.ThreadMXBean sun =
+                (com.sun.management.ThreadMXBean) bean;
+        if (!sun.isThreadAllocatedMemorySupported()) {
+            return null;
+        }
+        if (!sun.isThreadAllocatedMemoryEnabled()) {
+            sun.setThreadAllocatedMemoryEnabled(true);
+        }
+        return sun;
+    }
+
+    /**
+     * Indica se a JVM oferece a medição da memória alocada por thread.
+     *
+     * @return Falso se {@link #alocados()} sempre retorna zero.
+     */
+    public static boolean isSuportado() {
+        return BEAN != null;
+    }
+
+    /**
+     * Obtém a quantidade de bytes alocados pela thread atual desde o seu
+     * início. Apenas a diferença entre duas leituras na mesma thread tem
+     * significado.
+     *
+     * @return Bytes alocados, ou zero se a medição não estiver disponível.
+     */
+    public static long alocados() {
+        if (BEAN == null) {
+            return 0;
+        }
+        return BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Acompanha a execução em andamento e a publica por JMX
+ * ({@link MonitorExecucaoMXBean}). Os executores publicam cada bloco de
+ * testes realizado ({@link #publicar(SuiteTestes, int, int, boolean)}), e
+ * não cada teste, de modo que o custo na realização das expressões é o de
+ * uma passagem pelos resultados já obtidos do bloco. As métricas derivadas
+ * (vazão, percentil e tempo restante) só são calculadas quando lidas.
+ *
+ * @author Wesleywrl
+ */
+public final class MonitorExecucao implements MonitorExecucaoMXBean {
+
+    /**
+     * Nome com que o monitor é registrado no servidor de MBeans da
+     * plataforma.
+     */
+    public static final String NOME =
+            "com.github.wesleywrl.qp:type=MonitorExecucao";
+
+    /**
+     * Fração correspondente ao percentil 99.
+     */
+    private static final double PERCENTIL_99 = 0.99;
+
+    /**
+     * Nanossegundos em um segundo.
+     */
+    private static final double NANOS_POR_SEGUNDO = 1e9;
+
+    /**
+     * Início da execução ({@link System#nanoTime()}).
+     */
+    private final long inicio = System.nanoTime();
+
+    /**
+     * Realizações concluídas.
+     */
+    private final LongAdder concluidos = new LongAdder();
+
+    /**
+     * Testes que falharam na última iteração medida.
+     */
+    private final LongAdder falhas = new LongAdder();
+
+    /**
+     * Tempos dos testes medidos, protegido pelo próprio monitor.
+     */
+    private final Histograma tempos = new Histograma();
+
+    /**
+     * Realizações previstas, ou -1 se desconhecida.
+     */
+    private volatile long previstos = -1;
+
+    /**
+     * Se verdadeiro, os blocos publicados pertencem à última iteração
+     * medida e as suas falhas são contadas.
+     */
+    private volatile boolean contarFalhas = true;
+
+    /**
+     * Nome do registro no servidor de MBeans, ou null se não registrado.
+     */
+    private ObjectName registro;
+
+    /**
+     * Registra o monitor no servidor de MBeans da plataforma, com o nome
+     * {@link #NOME}.
+     *
+     * @throws JMException Quando o servidor recusa o registro (por exemplo,
+     * outro monitor já registrado com o mesmo nome).
+     * @throws SecurityException Quando não há permissão para obter o
+     * servidor ou registrar o monitor.
+     */
+    public void registrar() throws JMException {
+        MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+        ObjectName nome = new ObjectName(NOME);
+        servidor.registerMBean(this, nome);
+        registro = nome;
+    }
+
+    /**
+     * Remove o registro do monitor, se houver.
+     */
+    public void remover() {
+        if (registro == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer()
+                    .unregisterMBean(registro);
+        } catch (JMException ex) {
+            //Registro já removido
+        }
+        registro = null;
+    }
+
+    /**
+     * Publica um intervalo de testes já realizados. Testes reaproveitados
+     * de uma execução anterior são ignorados.
+     *
+     * @param testes Testes realizados.
+     * @param de Posição do primeiro teste do intervalo.
+     * @param ate Posição logo após o último teste do intervalo.
+     * @param medido Se verdadeiro, o tempo de cada teste foi medido e é
+     * acrescentado aos tempos.
+     */
+    void publicar(final SuiteTestes testes, final int de, final int ate,
+            final boolean medido) {
+        int realizados = 0;
+        int falhos = 0;
+        for (int i = de; i < ate; i++) {
+            if (!testes.isReaproveitado(i)) {
+                realizados++;
+                if (!testes.isValorEsperado(i)) {
+                    falhos++;
+                }
+            }
+        }
+        concluidos.add(realizados);
+        if (contarFalhas) {
+            falhas.add(falhos);
+        }
+        if (medido) {
+            synchronized (this) {
+                for (int i = de; i < ate; i++) {
+                    if (!testes.isReaproveitado(i)) {
+                        tempos.registrar(testes.getTempo(i));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Define a quantidade de realizações previstas.
+     *
+     * @param realizacoes Realizações previstas, ou -1 se desconhecida.
+     */
+    void setPrevistos(final long realizacoes) {
+        previstos = realizacoes;
+    }
+
+    /**
+     * Define se os próximos blocos publicados pertencem à última iteração
+     * medida, cujas falhas são contadas.
+     *
+     * @param contar Verdadeiro para contar as falhas.
+     */
+    void setContarFalhas(final boolean contar) {
+        contarFalhas = contar;
+    }
+
+    @Override
+    public long getTestesConcluidos() {
+        return concluidos.sum();
+    }
+
+    @Override
+    public long getTestesPrevistos() {
+        return previstos;
+    }
+
+    @Override
+    public double getTestesPorSegundo() {
+        double segundos = (System.nanoTime() - inicio) / NANOS_POR_SEGUNDO;
+        if (segundos <= 0) {
+            return 0;
+        }
+        return concluidos.sum() / segundos;
+    }
+
+    @Override
+    public long getFalhas() {
+        return falhas.sum();
+    }
+
+    @Override
+    public synchronized long getP99Nanos() {
+        return tempos.percentil(PERCENTIL_99);
+    }
+
+    @Override
+    public long getAcertosCache() {
+        CacheExpressoes cache = Calcular.getCache();
+        if (cache == null) {
+            return 0;
+        }
+        return cache.getAcertos();
+    }
+
+    @Override
+    public long getFaltasCache() {
+        CacheExpressoes cache = Calcular.getCache();
+        if (cache == null) {
+            return 0;
+        }
+        return cache.getFaltas();
+    }
+
+    @Override
+    public double getSegundosRestantes() {
+        long total = previstos;
+        double vazao = getTestesPorSegundo();
+        if (total < 0 || vazao <= 0) {
+            return -1;
+        }
+        return Math.max(0, total - concluidos.sum()) / vazao;
+    }
+
+}
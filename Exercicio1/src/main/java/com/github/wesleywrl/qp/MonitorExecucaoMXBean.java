@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+/**
+ * Métricas da execução em andamento, publicadas por JMX
+ * ({@link MonitorExecucao}) e legíveis pelo JConsole ou por outro cliente
+ * JMX enquanto as expressões são realizadas.
+ *
+ * @author Wesleywrl
+ */
+public interface MonitorExecucaoMXBean {
+
+    /**
+     * Obtém a quantidade de realizações de testes concluídas, somando o
+     * aquecimento e as iterações.
+     *
+     * @return Realizações concluídas.
+     */
+    long getTestesConcluidos();
+
+    /**
+     * Obtém a quantidade de realizações previstas para toda a execução.
+     *
+     * @return Realizações previstas, ou -1 se desconhecida (execução em
+     * fluxo).
+     */
+    long getTestesPrevistos();
+
+    /**
+     * Obtém a vazão média desde o início da execução.
+     *
+     * @return Realizações por segundo.
+     */
+    double getTestesPorSegundo();
+
+    /**
+     * Obtém a quantidade de testes que falharam até o momento, considerando
+     * a última iteração medida de cada teste.
+     *
+     * @return Falhas até o momento.
+     */
+    long getFalhas();
+
+    /**
+     * Obtém o percentil 99 dos tempos dos testes medidos até o momento.
+     *
+     * @return Tempo em nanossegundos, ou zero se nenhum foi medido.
+     */
+    long getP99Nanos();
+
+    /**
+     * Obtém as consultas atendidas pelo cache de expressões.
+     *
+     * @return Acertos do cache, ou zero se desabilitado.
+     */
+    long getAcertosCache();
+
+    /**
+     * Obtém as consultas que exigiram a interpretação pelo Parser.
+     *
+     * @return Faltas do cache, ou zero se desabilitado.
+     */
+    long getFaltasCache();
+
+    /**
+     * Estima o tempo restante da realização das expressões, a partir da
+     * vazão média.
+     *
+     * @return Tempo em segundos, ou -1 se não for possível estimar.
+     */
+    double getSegundosRestantes();
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import java.io.Closeable;
+
+/**
+ * Realiza as expressões de conjuntos de testes, guardando o resultado em
+ * cada teste. As expressões podem ser realizadas em threads do próprio
+ * processo ({@link ExecutorTestes}) ou em outros processos
+ * ({@link ExecutorProcessos}); em ambos os casos, a ordem dos testes (e do
+ * relatório) é preservada.
+ *
+ * @author Wesleywrl
+ */
+public interface RealizadorTestes extends Closeable {
+
+    /**
+     * Realiza as expressões de todos os testes fornecidos, sem medir cada
+     * um. Testes reaproveitados de uma execução anterior e testes que já
+     * esgotaram o tempo limite ({@link SuiteTestes#isRealizavel(int)}) não
+     * são realizados.
+     *
+     * @param testes Testes a serem executados.
+     * @return Tempo de CPU, em nanossegundos, somado entre todas as threads
+     * que realizaram expressões.
+     */
+    long executar(SuiteTestes testes);
+
+    /**
+     * Realiza as expressões de todos os testes fornecidos, registrando o
+     * tempo de cada um e guardando nos testes o tempo e a memória alocada
+     * ({@link SuiteTestes#getTempo(int)} e
+     * {@link SuiteTestes#getAlocados(int)}).
+     *
+     * @param testes Testes a serem executados.
+     * @param primeiro Posição, na execução completa, do primeiro teste
+     * fornecido (os testes podem ser um bloco de uma execução maior).
+     * @param latencias Registro dos tempos, ou null para não medir o tempo
+     * nem a memória de cada teste.
+     * @return Tempo de CPU, em nanossegundos, somado entre todas as threads
+     * que realizaram expressões.
+     */
+    long executar(SuiteTestes testes, long primeiro, Latencias latencias);
+
+    /**
+     * Define o monitor ao qual cada bloco de testes realizado é publicado.
+     *
+     * @param monitor Monitor da execução, ou null para não publicar.
+     */
+    void setMonitor(MonitorExecucao monitor);
+
+    /**
+     * Libera as threads ou processos usados. Após o fechamento, o
+     * realizador não deve mais ser usado.
+     */
+    @Override
+    void close();
+
+}
@@ -5,31 +5,46 @@
 package com.github.wesleywrl.qp;
 
 import java.io.IOException;
-import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.ArrayList;
 import java.util.List;
+import javax.management.JMException;
 
 /**
  * Classe capaz de executar uma sequência de testes de Parser e gerar um
- * relatório HTML ou JSON.
+ * relatório HTML ou JSON. Os testes podem ser fornecidos de uma só vez (lista
+ * de linhas) ou em fluxo ({@link FonteLinhas}); neste caso, são lidos,
+ * executados e escritos no relatório em blocos, e a memória usada não depende
+ * da quantidade de testes. Os testes ficam em um {@link SuiteTestes}, que
+ * guarda seus atributos em vetores primitivos.
  *
  * @author Wesleywrl
  */
 public class RelatorioTeste {
 
     /**
-     * Valor para conversão de taxas em porcentagens (ex.: a taxa 0.5 vira 50
-     * porcento).
+     * Nome do relatório binário, no diretório do relatório.
      */
-    private static final float RATE_TO_PERCENT = 100f;
+    public static final String ARQUIVO_BINARIO = "relatorio.qpb";
 
     /**
-     * Todos os testes deste relatório.
+     * Quantidade de testes mantidos em memória de cada vez na execução em
+     * fluxo.
      */
-    private final List<Teste> testes = new ArrayList<>();
+    private static final int TAMANHO_BLOCO_FLUXO = 4096;
+
+    /**
+     * Todos os testes deste relatório. Na execução em fluxo, contém apenas o
+     * bloco atual.
+     */
+    private final SuiteTestes testes;
+
+    /**
+     * Fonte das linhas dos testes na execução em fluxo, ou null quando os
+     * testes foram fornecidos de uma só vez.
+     */
+    private final FonteLinhas fonte;
 
     /**
      * Se verdadeiro, será salvo um arquivo HTML. Se falso, será salvo um JSON.
@@ -37,19 +52,109 @@ public class RelatorioTeste {
     private final boolean gerarHtml;
 
     /**
-     * Tempo total gasto na realização das expressões.
+     * Se verdadeiro, também será salvo o relatório binário.
+     */
+    private final boolean gerarBinario;
+
+    /**
+     * Quantidade de threads usadas na realização das expressões.
+     */
+    private final int threads;
+
+    /**
+     * Tempo limite da realização de cada teste, em milissegundos, ou zero.
+     */
+    private final long limiteTeste;
+
+    /**
+     * Tamanho da pilha das threads que realizam as expressões, em bytes, ou
+     * zero.
+     */
+    private final long pilha;
+
+    /**
+     * Quantidade de processos que realizam as expressões.
+     */
+    private final int processos;
+
+    /**
+     * Capacidade do cache de expressões dos processos trabalhadores, ou
+     * zero se desabilitado.
+     */
+    private final int capacidadeCache;
+
+    /**
+     * Quantidade de iterações não medidas sobre cada teste.
+     */
+    private final int aquecimento;
+
+    /**
+     * Quantidade de iterações medidas sobre cada teste.
+     */
+    private final int iteracoes;
+
+    /**
+     * Se verdadeiro, os resultados da execução anterior são reaproveitados.
+     */
+    private final boolean incremental;
+
+    /**
+     * Se verdadeiro, as métricas da execução são publicadas por JMX.
+     */
+    private final boolean jmx;
+
+    /**
+     * Se verdadeiro, o tempo de cada fase do Parser é medido.
+     */
+    private final boolean fases;
+
+    /**
+     * Monitor da execução em andamento, ou null se as métricas não são
+     * publicadas.
+     */
+    private MonitorExecucao monitor;
+
+    /**
+     * Se verdadeiro, o registro do monitor já foi tentado nesta geração.
+     */
+    private boolean registroTentado;
+
+    /**
+     * Motivo pelo qual o registro do monitor foi recusado, ou null.
+     */
+    private Exception falhaRegistro;
+
+    /**
+     * Se verdadeiro, o executor é usado ao mesmo tempo por outras suítes
+     * (execução em lote).
+     */
+    private boolean executorCompartilhado;
+
+    /**
+     * Resultados de execuções anteriores, durante uma execução incremental.
      */
-    private float tempoTotal;
+    private CacheResultados resultados;
 
     /**
-     * Tempo gasto em média por expressão.
+     * Relatório binário da execução base, ou null.
      */
-    private float tempoMedio;
+    private final Path base;
 
     /**
-     * Memória consumida durante a execução dos testes.
+     * Aumento de tempo tolerado em relação à base.
      */
-    private float memoriaConsumida;
+    private final double orcamento;
+
+    /**
+     * Comparação com a execução base, durante a execução.
+     */
+    private ComparacaoBase comparacao;
+
+    /**
+     * Informações gerais da execução (quantidade de testes, falhas, tempo e
+     * memória).
+     */
+    private final Estatisticas estatisticas = new Estatisticas();
 
     /**
      * Constrói uma nova classe de relatório com a configuração do tipo de
@@ -60,16 +165,116 @@ public class RelatorioTeste {
      * será JSON.
      */
     public RelatorioTeste(final List<String> linhasTestes, final boolean html) {
+        this(linhasTestes, configuracaoHtml(html));
+    }
+
+    /**
+     * Constrói uma nova classe de relatório com as linhas dos testes a serem
+     * executados e as opções fornecidas (tipo de relatório, quantidade de
+     * threads e de iterações).
+     *
+     * @param linhasTestes Linhas dos testes a serem executados.
+     * @param config Opções de execução e de geração do relatório.
+     * @throws IllegalArgumentException Quando alguma linha não segue o
+     * formato "expressao;variaveis;esperado".
+     */
+    public RelatorioTeste(final List<String> linhasTestes,
+            final Configuracao config) {
         //Ao instanciar a classe Relatório, já transforma-se todas as linhas de
-        //teste fornecida em classes Teste propriamente ditas. Neste processo,
-        //cada Teste já tem seus atributos separados (expressão, variáveis e
-        //valor esperado). Este processo é antes da medição de tempo e memória
-        //pois não é de responsabilidade do Parser. Isto se dá pois o Parser só
-        //deve receber a expressão e as variáveis já separadas.
-        for (String linha : linhasTestes) {
-            testes.add(new Teste(linha));
+        //teste fornecida em testes propriamente ditos. Neste processo, cada
+        //teste já tem seus atributos separados (expressão, variáveis e valor
+        //esperado). Este processo é antes da medição de tempo e memória pois
+        //não é de responsabilidade do Parser. Isto se dá pois o Parser só deve
+        //receber a expressão e as variáveis já separadas.
+        EventoFase carga = EventosJfr.iniciarFase(EventosJfr.CARGA);
+        long alocados = MedidorAlocacao.alocados();
+        this.testes = SuiteTestes.de(linhasTestes);
+        estatisticas.adicionarAlocacaoAnalise(MedidorAlocacao.alocados()
+                - alocados);
+        EventosJfr.concluirFase(carga, testes.getTamanho());
+        this.fonte = null;
+        this.gerarHtml = config.isHtml();
+        this.gerarBinario = config.isBinario();
+        this.threads = config.getThreads();
+        this.limiteTeste = config.getLimiteTeste();
+        this.pilha = config.getPilha();
+        this.processos = config.getProcessos();
+        this.capacidadeCache = capacidadeCache(config);
+        this.aquecimento = config.getAquecimento();
+        this.iteracoes = config.getIteracoes();
+        this.incremental = config.isIncremental();
+        this.jmx = config.isJmx();
+        this.fases = config.isFases();
+        this.base = config.getBase();
+        this.orcamento = config.getOrcamento();
+    }
+
+    /**
+     * Constrói uma nova classe de relatório que obterá os testes em fluxo. As
+     * linhas só são lidas em {@link #gerarRelatorioTeste(String)}, e cada
+     * teste é descartado assim que escrito no relatório.
+     *
+     * @param fonteTestes Fonte das linhas dos testes a serem executados. Não é
+     * fechada por esta classe.
+     * @param config Opções de execução e de geração do relatório.
+     */
+    public RelatorioTeste(final FonteLinhas fonteTestes,
+            final Configuracao config) {
+        this.testes = new SuiteTestes(TAMANHO_BLOCO_FLUXO);
+        this.fonte = fonteTestes;
+        this.gerarHtml = config.isHtml();
+        this.gerarBinario = config.isBinario();
+        this.threads = config.getThreads();
+        this.limiteTeste = config.getLimiteTeste();
+        this.pilha = config.getPilha();
+        this.processos = config.getProcessos();
+        this.capacidadeCache = capacidadeCache(config);
+        this.aquecimento = config.getAquecimento();
+        this.iteracoes = config.getIteracoes();
+        this.incremental = config.isIncremental();
+        this.jmx = config.isJmx();
+        this.fases = config.isFases();
+        this.base = config.getBase();
+        this.orcamento = config.getOrcamento();
+    }
+
+    /**
+     * Cria a configuração padrão, alterando apenas o tipo de relatório.
+     *
+     * @param html Se verdadeiro, o relatório será HTML.
+     * @return Configuração com o tipo de relatório fornecido.
+     */
+    private static Configuracao configuracaoHtml(final boolean html) {
+        Configuracao config = new Configuracao();
+        config.setHtml(html);
+        return config;
+    }
+
+    /**
+     * Obtém a capacidade do cache de expressões dos processos trabalhadores.
+     *
+     * @param config Configuração da execução.
+     * @return Capacidade do cache, ou zero se desabilitado.
+     */
+    private static int capacidadeCache(final Configuracao config) {
+        if (!config.isCacheExpressoes()) {
+            return 0;
+        }
+        return config.getCapacidadeCacheExpressoes();
+    }
+
+    /**
+     * Cria o realizador das expressões: o executor de threads deste
+     * processo ou, com mais de um processo, o de processos trabalhadores.
+     *
+     * @return Realizador das expressões.
+     */
+    private RealizadorTestes criarRealizador() {
+        if (processos > 1) {
+            return new ExecutorProcessos(processos, threads, limiteTeste,
+                    pilha, capacidadeCache);
         }
-        this.gerarHtml = html;
+        return new ExecutorTestes(threads, limiteTeste, pilha);
     }
 
     /**
@@ -77,226 +282,433 @@ public class RelatorioTeste {
      * relatório mostra os testes que foram executados e o resultado de cada um.
      * Além disso, também a quantidade de testes rodados, a porcentagem de
      * falhas, o tempo total gasto pelo Parser, o tempo médio (por testes) e a
-     * memória necessária para a execução.
+     * memória alocada na execução, por fase e por teste. Na execução
+     * incremental, os resultados ficam no mesmo diretório, no arquivo
+     * {@link CacheResultados#ARQUIVO}. Se configurado, as métricas da
+     * execução em andamento são publicadas por JMX ({@link MonitorExecucao})
+     * até o fim da geração; caso o registro seja recusado, a geração segue
+     * sem publicação (veja {@link #publicarMetricas()}).
      *
      * @param diretorio Diretório local em que o relatório será salvo.
      * @throws java.io.IOException Quando não for possível guardar o arquivo no
      * diretório fornecido.
+     * @throws IllegalArgumentException Na execução em fluxo, quando alguma
+     * linha não segue o formato "expressao;variaveis;esperado".
      */
     public final void gerarRelatorioTeste(final String diretorio)
             throws IOException {
+        publicarMetricas();
+        try (RealizadorTestes executor = criarRealizador()) {
+            if (monitor != null) {
+                executor.setMonitor(monitor);
+            }
+            gerar(diretorio, executor);
+        } finally {
+            if (monitor != null) {
+                monitor.remover();
+                monitor = null;
+            }
+            registroTentado = false;
+        }
+    }
 
-        //Obtém tempo e memória iniciais
-        long inicio = System.currentTimeMillis();
-        Runtime runtime = Runtime.getRuntime();
-        runtime.gc();
-        long memInicio = runtime.totalMemory() - runtime.freeMemory();
+    /**
+     * Registra o monitor da execução no servidor de MBeans, se configurado.
+     * É chamado por {@link #gerarRelatorioTeste(String)}, mas pode ser
+     * chamado antes dele para saber, antes do início da execução, se as
+     * métricas serão publicadas. O registro é tentado uma única vez por
+     * geração.
+     *
+     * @return Verdadeiro se as métricas serão publicadas; falso se a
+     * publicação não foi configurada ou se o registro foi recusado (veja
+     * {@link #getFalhaRegistro()}).
+     */
+    public boolean publicarMetricas() {
+        if (jmx && !registroTentado) {
+            registroTentado = true;
+            falhaRegistro = null;
+            MonitorExecucao novo = new MonitorExecucao();
+            try {
+                novo.registrar();
+                monitor = novo;
+            } catch (JMException | SecurityException ex) {
+                falhaRegistro = ex;
+            }
+        }
+        return monitor != null;
+    }
 
-        //Executa e obtém os resultados das expressões a serem testadas
-        realizarExpressoes();
+    /**
+     * Obtém o motivo pelo qual o registro do monitor foi recusado na última
+     * tentativa de {@link #publicarMetricas()}.
+     *
+     * @return Exceção lançada no registro, ou null se não houve recusa.
+     */
+    public Exception getFalhaRegistro() {
+        return falhaRegistro;
+    }
 
-        //Obtém tempo e memória finais
-        tempoTotal = System.currentTimeMillis() - inicio;
-        tempoMedio = tempoTotal / testes.size();
-        runtime = Runtime.getRuntime();
-        runtime.gc();
-        long memFinal = runtime.totalMemory() - runtime.freeMemory();
-        memoriaConsumida = memFinal - memInicio;
+    /**
+     * Gera o relatório como em {@link #gerarRelatorioTeste(String)}, mas
+     * realizando as expressões em um executor fornecido, que pode estar
+     * sendo usado ao mesmo tempo por outras suítes (execução em lote).
+     *
+     * @param diretorio Diretório local em que o relatório será salvo.
+     * @param executor Executor usado na realização das expressões. Não é
+     * fechado por este método.
+     * @throws java.io.IOException Quando não for possível guardar o arquivo no
+     * diretório fornecido.
+     * @throws IllegalArgumentException Na execução em fluxo, quando alguma
+     * linha não segue o formato "expressao;variaveis;esperado".
+     */
+    public final void gerarRelatorioTeste(final String diretorio,
+            final RealizadorTestes executor) throws IOException {
+        executorCompartilhado = true;
+        gerar(diretorio, executor);
+    }
+
+    /**
+     * Gera o relatório, realizando as expressões no executor fornecido.
+     *
+     * @param diretorio Diretório local em que o relatório será salvo.
+     * @param executor Executor usado na realização das expressões.
+     * @throws IOException Quando não for possível guardar o arquivo no
+     * diretório fornecido.
+     */
+    private void gerar(final String diretorio,
+            final RealizadorTestes executor) throws IOException {
+        verificarBase(base, gerarBinario, diretorio);
+        estatisticas.setThreads(threads * processos);
+        estatisticas.setIteracoes(aquecimento, iteracoes);
+        if (fases) {
+            estatisticas.medirFases();
+        }
+        if (incremental) {
+            resultados = new CacheResultados(Paths.get(diretorio,
+                    CacheResultados.ARQUIVO), CacheResultados.versaoParser());
+        }
+        try {
+            if (base != null) {
+                comparacao = new ComparacaoBase(base, orcamento);
+            }
+            if (fonte == null) {
+                gerarRelatorioCompleto(executor, diretorio);
+            } else {
+                gerarRelatorioFluxo(executor, diretorio);
+            }
+            if (resultados != null) {
+                resultados.concluir();
+            }
+        } finally {
+            if (resultados != null) {
+                resultados.close();
+                resultados = null;
+            }
+            if (comparacao != null) {
+                comparacao.close();
+                comparacao = null;
+            }
+        }
+    }
+
+    /**
+     * Executa todos os testes já carregados e, em seguida, gera o relatório.
+     *
+     * @param executor Executor usado na realização das expressões.
+     * @param diretorio Diretório local em que o relatório será salvo.
+     * @throws IOException Quando não for possível guardar o arquivo.
+     */
+    private void gerarRelatorioCompleto(final RealizadorTestes executor,
+            final String diretorio) throws IOException {
+
+        //Executa e obtém os resultados das expressões a serem testadas
+        EventoFase fase = EventosJfr.iniciarFase(EventosJfr.REALIZACAO);
+        realizarExpressoes(executor, testes);
+        EventosJfr.concluirFase(fase, testes.getTamanho());
 
         //Atualiza a condição de sucesso dos testes
-        for (Teste teste : testes) {
-            teste.atualizarSucesso();
+        for (int i = 0; i < testes.getTamanho(); i++) {
+            testes.atualizarSucesso(i);
+            contabilizar(i);
         }
 
-        //Finalmente, gera o arquivo com o relatório dos testes
-        gerarArquivo(diretorio);
+        //Finalmente, gera o arquivo com o relatório dos testes. As
+        //informações gerais são escritas antes da tabela, portanto a memória
+        //alocada pelo relatório só é conhecida depois
+        concluirComparacao();
+        fase = EventosJfr.iniciarFase(EventosJfr.ESCRITA);
+        long alocados = MedidorAlocacao.alocados();
+        try (EscritorRelatorio escritor = criarEscritor(diretorio)) {
+            escritor.iniciar(estatisticas);
+            for (int i = 0; i < testes.getTamanho(); i++) {
+                escritor.escreverTeste(testes, i);
+            }
+            escritor.finalizar(estatisticas);
+        }
+        EventosJfr.concluirFase(fase, testes.getTamanho());
+        estatisticas.adicionarAlocacaoRelatorio(MedidorAlocacao.alocados()
+                - alocados);
     }
 
     /**
-     * Usa o Parser para realizar todas as expressoes inseridas (e já
-     * destrinchados) e guarda o resultado de cada uma.
+     * Lê os testes da fonte em blocos. Cada bloco é executado, contabilizado
+     * e escrito no relatório antes que o próximo seja lido. Apenas a
+     * realização das expressões entra na medição de tempo; a memória alocada
+     * é contabilizada separadamente na leitura e análise das linhas, na
+     * realização das expressões e na escrita do relatório. Cada uma dessas
+     * fases emite, por bloco, um {@link EventoFase}.
+     *
+     * @param executor Executor usado na realização das expressões.
+     * @param diretorio Diretório local em que o relatório será salvo.
+     * @throws IOException Quando não for possível guardar o arquivo.
      */
-    private void realizarExpressoes() {
-        for (Teste teste : testes) {
-            teste.calcularValor();
+    private void gerarRelatorioFluxo(final RealizadorTestes executor,
+            final String diretorio) throws IOException {
+
+        try (EscritorRelatorio escritor = criarEscritor(diretorio)) {
+            escritor.iniciar(null);
+            long numero = 0;
+            EventoFase carga = EventosJfr.iniciarFase(EventosJfr.CARGA);
+            long alocados = MedidorAlocacao.alocados();
+            while (fonte.hasNext()) {
+                numero++;
+                testes.adicionarLinha(proximaLinha(), numero);
+                if (testes.getTamanho() == TAMANHO_BLOCO_FLUXO) {
+                    estatisticas.adicionarAlocacaoAnalise(
+                            MedidorAlocacao.alocados() - alocados);
+                    EventosJfr.concluirFase(carga, testes.getTamanho());
+                    processarBloco(executor, escritor);
+                    carga = EventosJfr.iniciarFase(EventosJfr.CARGA);
+                    alocados = MedidorAlocacao.alocados();
+                }
+            }
+            estatisticas.adicionarAlocacaoAnalise(MedidorAlocacao.alocados()
+                    - alocados);
+            EventosJfr.concluirFase(carga, testes.getTamanho());
+            processarBloco(executor, escritor);
+            concluirComparacao();
+            escritor.finalizar(estatisticas);
         }
     }
 
     /**
-     * Gera o arquivo do relatório, determinando se será em JSON ou HTML.
+     * Obtém a próxima linha da fonte. Linhas de um {@link LeitorMapeado} são
+     * obtidas como fatias, sem a criação de uma String por linha.
      *
-     * @param diretorio Local em que o arquivo deverá ser salvo.
-     * @throws IOException Quando não foi possível salvar o arquivo.
+     * @return Próxima linha, válida até a próxima chamada.
      */
-    private void gerarArquivo(final String diretorio) throws IOException {
-        if (gerarHtml) {
-            gerarArquivoHtml(diretorio);
-        } else {
-            gerarArquivoJson(diretorio);
+    private CharSequence proximaLinha() {
+        if (fonte instanceof LeitorMapeado) {
+            LeitorMapeado mapeado = (LeitorMapeado) fonte;
+            mapeado.avancar();
+            return mapeado.fatia();
         }
+        return fonte.next();
     }
 
     /**
-     * Cria um arquivo HTML padrão para o relatório, e o salva no diretório
-     * deste programa.
+     * Executa o bloco atual de testes, escreve-os no relatório e esvazia o
+     * bloco.
      *
-     * @param diretorio Local em que o arquivo deverá ser salvo.
-     * @throws IOException Quando não é possível salvar o arquivo HTML.
-     */
-    private void gerarArquivoHtml(final String diretorio) throws IOException {
-        List<String> arquivo = new ArrayList<>();
-
-        //Cabeçalho e início do relatório
-        arquivo.add("<!DOCTYPE html>");
-        arquivo.add("<html>");
-        arquivo.add("");
-        arquivo.add("<head>");
-        arquivo.add("<meta charset=\"UTF-8\">");
-        arquivo.add("<title>Relatório de Testes</title>");
-        arquivo.add("<style>th, td {padding: 5px;"
-                + "border-bottom: 1px solid #ddd;}</style>");
-        arquivo.add("</head>");
-        arquivo.add("");
-        arquivo.add("<body>");
-        arquivo.add("<h1>Relatório de testes do Parser</h1>");
-        arquivo.add("");
-
-        //Informações gerais
-        int totTestes = testes.size();
-        int failTestes = 0;
-        for (Teste teste : testes) {
-            if (!teste.getSucesso()) {
-                failTestes++;
-            }
+     * @param executor Executor usado na realização das expressões.
+     * @param escritor Relatório em que os testes serão escritos.
+     * @throws IOException Quando não for possível escrever o relatório.
+     */
+    private void processarBloco(final RealizadorTestes executor,
+            final EscritorRelatorio escritor) throws IOException {
+
+        EventoFase fase = EventosJfr.iniciarFase(EventosJfr.REALIZACAO);
+        realizarExpressoes(executor, testes);
+        EventosJfr.concluirFase(fase, testes.getTamanho());
+        fase = EventosJfr.iniciarFase(EventosJfr.ESCRITA);
+        long alocados = MedidorAlocacao.alocados();
+        for (int i = 0; i < testes.getTamanho(); i++) {
+            testes.atualizarSucesso(i);
+            contabilizar(i);
+            escritor.escreverTeste(testes, i);
         }
-        float failRate = (float) failTestes / (float) totTestes;
-        arquivo.add("<h2>Informações gerais</h2>");
-        arquivo.add("<p><b>Testes executados:</b> " + totTestes + " testes.");
-        arquivo.add("</br><b>Testes que falharam:</b> " + failTestes
-                + " testes (" + String.format("%.0f", failRate
-                        * RATE_TO_PERCENT) + "%).");
-        arquivo.add("</br><b>Tempo total:</b> "
-                + String.format("%.0f", tempoTotal) + " milisegundos.");
-        arquivo.add("</br><b>Tempo médio:</b> "
-                + String.format("%.3f", tempoMedio)
-                + " milisegundos por teste.");
-        arquivo.add("</br><b>Memória consumida:</b> "
-                + String.format("%.2f", memoriaConsumida) + " bytes.");
-        arquivo.add("</br><small>Note que para arquivos de teste pequenos,"
-                + " a memória consumida pode não ser precisamente detectada."
-                + "</small>");
-        arquivo.add("</p>");
-        arquivo.add("");
-
-        //Testes um a um
-        arquivo.add("<h2>Testes detalhados</h2>");
-        arquivo.add("<table>");
-        arquivo.add("<tr>");
-        arquivo.add("<th><b>Expressão</b></th>");
-        arquivo.add("<th><b>Variáveis</b></th>");
-        arquivo.add("<th><b>Esperado</b></th>");
-        arquivo.add("<th><b>Obtido</b></th>");
-        arquivo.add("<th><b>Sucesso</b></th>");
-        arquivo.add("</tr>");
-        for (Teste teste : testes) {
-            arquivo.add("<tr>");
-            arquivo.add("<td>" + teste.getExpressao() + "</td>");
-            arquivo.add("<td>" + teste.getVariaveis() + "</td>");
-            arquivo.add("<td>" + String.format("%.4f", teste.getEsperado())
-                    + "</td>");
-            arquivo.add("<td>" + String.format("%.4f", teste.getObtido())
-                    + "</td>");
-            if (teste.getSucesso()) {
-                arquivo.add("<td><span style=\"color:#00FF00\">SIM</span>"
-                        + "</td>");
-            } else {
-                arquivo.add("<td><span style=\"color:#FF0000\">NÃO</span>"
-                        + "</td>");
-            }
-            arquivo.add("</tr>");
+        estatisticas.adicionarAlocacaoRelatorio(MedidorAlocacao.alocados()
+                - alocados);
+        EventosJfr.concluirFase(fase, testes.getTamanho());
+        testes.limpar();
+    }
+
+    /**
+     * Conclui a comparação com a execução base, caso exista, após todos os
+     * testes terem sido contabilizados, e a guarda nas informações gerais.
+     *
+     * @throws IOException Quando não é possível ler a base.
+     */
+    private void concluirComparacao() throws IOException {
+        if (comparacao != null) {
+            comparacao.concluir(estatisticas);
+            estatisticas.setComparacao(comparacao);
         }
-        arquivo.add("</table>");
-        arquivo.add("");
-        if (todosSucessos()) {
-            arquivo.add("<b><span style=\"color:#00FF00\">Todos os testes "
-                    + "passaram.</span></b>");
-        } else {
-            arquivo.add("<b><span style=\"color:#FF0000\">Os testes não foram "
-                    + "executados com sucesso.</span></b>");
+    }
+
+    /**
+     * Contabiliza um teste já executado e com o sucesso já atualizado: seu
+     * sucesso, se a realização foi interrompida e a memória alocada na
+     * realização da sua expressão. Na execução incremental, o resultado
+     * também é guardado para a próxima execução (exceto o de testes
+     * interrompidos, realizados novamente) e, havendo base, o tempo do teste
+     * é comparado ao dela.
+     *
+     * @param teste Posição do teste no conjunto atual.
+     * @throws IOException Quando não é possível guardar o resultado.
+     */
+    private void contabilizar(final int teste) throws IOException {
+        if (testes.isInterrompido(teste)) {
+            estatisticas.registrarInterrupcao(testes.isTempoEsgotado(teste));
+        } else if (resultados != null) {
+            resultados.guardar(testes, teste);
+        }
+        if (comparacao != null) {
+            comparacao.comparar(estatisticas.getTestes(), testes, teste);
         }
-        arquivo.add("");
-        arquivo.add("</body>");
-        arquivo.add("");
-        arquivo.add("</html>");
-
-        //Cria e salva o arquivo
-        Path file = Paths.get(diretorio + "/relatorio.html");
-        Files.write(file, arquivo, Charset.forName("UTF-8"));
+        estatisticas.registrarAlocacao(estatisticas.getTestes(),
+                testes.getExpressao(teste), testes.getAlocados(teste));
+        estatisticas.registrar(testes.getSucesso(teste));
     }
 
     /**
-     * Cria um arquivo JSON padrão para o relatório, e o salva no diretório
-     * deste programa.
+     * Usa o Parser para realizar todas as expressoes inseridas (e já
+     * destrinchados) e guarda o resultado de cada uma. Com mais de uma thread
+     * (ou processo), os testes são divididos entre elas, mas cada um guarda o
+     * seu resultado, de modo que a ordem do relatório é preservada. Os testes
+     * passam antes pelas iterações de aquecimento, que não são medidas, e então
+     * pelas iterações medidas; o resultado guardado, e portanto o sucesso, é o
+     * da última. O tempo de cada iteração, o de cada teste (e, se configurado,
+     * o de cada fase do Parser) e as consultas feitas ao cache de expressões
+     * nas iterações medidas também são contabilizados; as consultas não são
+     * contabilizadas quando o executor é compartilhado com outras suítes, cujas
+     * consultas ao mesmo cache se misturariam às desta. Na execução
+     * incremental, os testes com resultado de uma execução anterior não são
+     * realizados.
      *
-     * @param diretorio Local em que o relatório deve ser salvo.
-     * @throws IOException Quando não é possível salvar o arquivo JSON.
-     */
-    private void gerarArquivoJson(final String diretorio) throws IOException {
-        List<String> arquivo = new ArrayList<>();
-
-        //Informações gerais
-        int totTestes = testes.size();
-        int failTestes = 0;
-        for (Teste teste : testes) {
-            if (!teste.getSucesso()) {
-                failTestes++;
+     * @param executor Executor usado na realização das expressões.
+     * @param suite Testes a serem executados.
+     */
+    private void realizarExpressoes(final RealizadorTestes executor,
+            final SuiteTestes suite) {
+        int reaproveitados = 0;
+        if (resultados != null) {
+            reaproveitados = resultados.aplicar(suite);
+            estatisticas.adicionarIncremental(reaproveitados,
+                    suite.getTamanho() - reaproveitados);
+        }
+        if (monitor != null) {
+            if (fonte == null) {
+                monitor.setPrevistos((long) (suite.getTamanho()
+                        - reaproveitados) * (aquecimento + iteracoes));
             }
+            monitor.setContarFalhas(false);
+        }
+        for (int i = 0; i < aquecimento; i++) {
+            executor.executar(suite);
+        }
+
+        CacheExpressoes cache = Calcular.getCache();
+        if (cache != null && executorCompartilhado) {
+            estatisticas.setCacheCompartilhado(true);
+            cache = null;
+        }
+        long acertos = 0;
+        long faltas = 0;
+        if (cache != null) {
+            acertos = cache.getAcertos();
+            faltas = cache.getFaltas();
         }
-        arquivo.add("{");
-        arquivo.add("    \"testesTotais\":" + totTestes + ",");
-        arquivo.add("    \"testesFalhos\":" + failTestes + ",");
-        arquivo.add("    \"tempoTotal\":" + tempoTotal + ",");
-        arquivo.add("    \"tempoMedio\":" + tempoMedio + ",");
-        arquivo.add("    \"memoriaConsumida\":" + memoriaConsumida + ",");
-
-        //Testes
-        arquivo.add("    \"testes\":[");
-        for (Teste teste : testes) {
-            String virgula = ",";
-            if (testes.indexOf(teste) == testes.size() - 1) {
-                virgula = "";
+
+        AmostraTempos amostra = estatisticas.getIteracoes();
+        for (int i = 0; i < iteracoes; i++) {
+            if (monitor != null) {
+                monitor.setContarFalhas(i == iteracoes - 1);
             }
-            arquivo.add("        {");
-            arquivo.add("            \"expressao\":\"" + teste.getExpressao()
-                    + "\",");
-            if (teste.temVariaveis()) {
-                arquivo.add("            \"variaveis\":[");
-                for (int i = 0; i < teste.getVariaveisNome().length; i++) {
-                    String virgulaVar = ",";
-                    if (i == teste.getVariaveisNome().length - 1) {
-                        virgulaVar = "";
-                    }
-                    arquivo.add("                {");
-                    arquivo.add("                    \""
-                            + teste.getVariaveisNome()[i] + "\":"
-                            + teste.getVariaveisValor()[i]);
-                    arquivo.add("                }" + virgulaVar);
-                }
-                arquivo.add("            ],");
+            long inicio = System.nanoTime();
+            long cpu = executor.executar(suite, estatisticas.getTestes(),
+                    estatisticas.getLatencias());
+            long relogio = System.nanoTime() - inicio;
+            estatisticas.adicionarTempo(relogio, cpu);
+            amostra.adicionar(i, relogio);
+        }
+
+        if (cache != null) {
+            estatisticas.adicionarCache(cache.getAcertos() - acertos,
+                    cache.getFaltas() - faltas);
+        }
+    }
 
+    /**
+     * Verifica se o relatório binário usado como base de comparação não é o
+     * mesmo que será gerado pela execução.
+     *
+     * @param base Relatório binário da base, ou null.
+     * @param binario Se verdadeiro, a execução gera o relatório binário.
+     * @param diretorio Diretório em que o relatório será salvo.
+     * @throws IllegalArgumentException Quando a base é o relatório binário
+     * que será gerado.
+     */
+    static void verificarBase(final Path base, final boolean binario,
+            final String diretorio) {
+        if (base == null || !binario) {
+            return;
+        }
+        Path saida = Paths.get(diretorio, ARQUIVO_BINARIO);
+        boolean mesmo = base.toAbsolutePath().normalize().equals(
+                saida.toAbsolutePath().normalize());
+        if (!mesmo && Files.exists(base) && Files.exists(saida)) {
+            try {
+                mesmo = Files.isSameFile(base, saida);
+            } catch (IOException ex) {
+                mesmo = false;
             }
-            arquivo.add("            \"esperado\":" + teste.getEsperado()
-                    + ",");
-            arquivo.add("            \"obtido\":" + teste.getObtido() + ",");
-            arquivo.add("            \"sucesso\":" + teste.getSucesso());
-            arquivo.add("        }" + virgula);
         }
-        arquivo.add("    ]");
-        arquivo.add("}");
+        if (mesmo) {
+            throw new IllegalArgumentException("A base de comparação é o "
+                    + "próprio relatório binário que será gerado; use uma "
+                    + "cópia dele.");
+        }
+    }
+
+    /**
+     * Cria o arquivo do relatório, determinando se será em JSON ou HTML e se
+     * será acompanhado do relatório binário.
+     *
+     * @param diretorio Local em que o arquivo deverá ser salvo.
+     * @return Escritor do relatório.
+     * @throws IOException Quando não foi possível criar o arquivo.
+     */
+    private EscritorRelatorio criarEscritor(final String diretorio)
+            throws IOException {
+        EscritorRelatorio escritor;
+        if (gerarHtml) {
+            escritor = new EscritorHtml(Paths.get(diretorio
+                    + "/relatorio.html"));
+        } else {
+            escritor = new EscritorJson(Paths.get(diretorio
+                    + "/relatorio.json"));
+        }
+        if (!gerarBinario) {
+            return escritor;
+        }
+        try {
+            return new EscritorComposto(escritor, new EscritorBinario(
+                    Paths.get(diretorio, ARQUIVO_BINARIO)));
+        } catch (IOException ex) {
+            escritor.close();
+            throw ex;
+        }
+    }
 
-        //Cria e salva o arquivo
-        Path file = Paths.get(diretorio + "/relatorio.json");
-        Files.write(file, arquivo, Charset.forName("UTF-8"));
+    /**
+     * Obtém as informações gerais da execução. Devem ser consultadas após
+     * {@link #gerarRelatorioTeste(String)}.
+     *
+     * @return Informações gerais da execução.
+     */
+    public final Estatisticas getEstatisticas() {
+        return estatisticas;
     }
 
     /**
@@ -306,13 +718,7 @@ public class RelatorioTeste {
      * @return Falso se pelo menos um teste tiver dado errado.
      */
     public final boolean todosSucessos() {
-        for (Teste teste : testes) {
-            if (!teste.getSucesso()) {
-                return false;
-            }
-        }
-        return true;
+        return estatisticas.getFalhas() == 0;
     }
 
 }
-
@@ -0,0 +1,311 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Escreve texto em UTF-8 diretamente em um {@link FileChannel}, através de
+ * um buffer de tamanho fixo. Os caracteres são codificados à medida que são
+ * escritos, e números inteiros são convertidos sem a criação de Strings, de
+ * modo que a escrita de um relatório grande não aloca memória proporcional
+ * ao seu tamanho.
+ *
+ * @author Wesleywrl
+ */
+public final class SaidaUtf8 implements Closeable {
+
+    /**
+     * Tamanho do buffer, em bytes.
+     */
+    private static final int TAMANHO_BUFFER = 64 * 1024;
+
+    /**
+     * Maior quantidade de bytes de um caractere em UTF-8.
+     */
+    private static final int MAXIMO_BYTES_CARACTERE = 4;
+
+    /**
+     * Maior quantidade de dígitos de um long, com o sinal.
+     */
+    private static final int MAXIMO_DIGITOS = 20;
+
+    /**
+     * Base decimal.
+     */
+    private static final int BASE = 10;
+
+    /**
+     * Maior caractere codificado em um byte.
+     */
+    private static final char LIMITE_UM_BYTE = 0x80;
+
+    /**
+     * Maior caractere codificado em dois bytes.
+     */
+    private static final char LIMITE_DOIS_BYTES = 0x800;
+
+    /**
+     * Prefixo do primeiro byte de um caractere de dois bytes.
+     */
+    private static final int PREFIXO_DOIS = 0xC0;
+
+    /**
+     * Prefixo do primeiro byte de um caractere de três bytes.
+     */
+    private static final int PREFIXO_TRES = 0xE0;
+
+    /**
+     * Prefixo do primeiro byte de um caractere de quatro bytes.
+     */
+    private static final int PREFIXO_QUATRO = 0xF0;
+
+    /**
+     * Prefixo dos bytes de continuação.
+     */
+    private static final int PREFIXO_CONTINUACAO = 0x80;
+
+    /**
+     * Bits de dados em cada byte de continuação.
+     */
+    private static final int BITS_CONTINUACAO = 6;
+
+    /**
+     * Máscara dos bits de dados de um byte de continuação.
+     */
+    private static final int MASCARA_CONTINUACAO = 0x3F;
+
+    /**
+     * Byte escrito no lugar de um caractere substituto sem par (o mesmo
+     * adotado pelos codificadores da JVM).
+     */
+    private static final byte SUBSTITUTO = '?';
+
+    /**
+     * Separador de linhas do sistema.
+     */
+    private static final String SEPARADOR_LINHAS = System.lineSeparator();
+
+    /**
+     * Arquivo de saída.
+     */
+    private final FileChannel canal;
+
+    /**
+     * Bytes ainda não gravados no arquivo.
+     */
+    private final ByteBuffer buffer = ByteBuffer.allocate(TAMANHO_BUFFER);
+
+    /**
+     * Dígitos de um número em conversão, do último ao primeiro.
+     */
+    private final byte[] digitos = new byte[MAXIMO_DIGITOS];
+
+    /**
+     * Primeira parte de um par de substitutos cuja segunda parte ainda não
+     * foi escrita, ou zero.
+     */
+    private char alto;
+
+    /**
+     * Cria (ou substitui) o arquivo fornecido.
+     *
+     * @param arquivo Local do arquivo.
+     * @throws IOException Quando não é possível criar o arquivo.
+     */
+    public SaidaUtf8(final Path arquivo) throws IOException {
+        canal = FileChannel.open(arquivo, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * Escreve um texto.
+     *
+     * @param texto Texto a ser escrito.
+     * @throws IOException Quando não é possível gravar no arquivo.
+     */
+    public void escrever(final CharSequence texto) throws IOException {
+        for (int i = 0; i < texto.length(); i++) {
+            escrever(texto.charAt(i));
+        }
+    }
+
+    /**
+     * Escreve um caractere. Um par de substitutos (caracteres fora do plano
+     * básico) deve ser escrito em duas chamadas consecutivas.
+     *
+     * @param c Caractere a ser escrito.
+     * @throws IOException Quando não é possível gravar no arquivo.
+     */
+    public void escrever(final char c) throws IOException {
+        if (buffer.remaining() < MAXIMO_BYTES_CARACTERE) {
+            esvaziar();
+        }
+        if (alto != 0) {
+            char anterior = alto;
+            alto = 0;
+            if (Character.isLowSurrogate(c)) {
+                int codigo = Character.toCodePoint(anterior, c);
+                buffer.put((byte) (PREFIXO_QUATRO
+                        | codigo >> (3 * BITS_CONTINUACAO)));
+                continuacao(codigo >> (2 * BITS_CONTINUACAO));
+                continuacao(codigo >> BITS_CONTINUACAO);
+                continuacao(codigo);
+                return;
+            }
+            buffer.put(SUBSTITUTO);
+            escrever(c);
+            return;
+        }
+        if (c < LIMITE_UM_BYTE) {
+            buffer.put((byte) c);
+        } else if (c < LIMITE_DOIS_BYTES) {
+            buffer.put((byte) (PREFIXO_DOIS | c >> BITS_CONTINUACAO));
+            continuacao(c);
+        } else if (Character.isHighSurrogate(c)) {
+            alto = c;
+        } else if (Character.isLowSurrogate(c)) {
+            buffer.put(SUBSTITUTO);
+        } else {
+            buffer.put((byte) (PREFIXO_TRES | c >> (2 * BITS_CONTINUACAO)));
+            continuacao(c >> BITS_CONTINUACAO);
+            continuacao(c);
+        }
+    }
+
+    /**
+     * Escreve um byte de continuação com os 6 bits menos significativos do
+     * valor fornecido.
+     *
+     * @param bits Valor cujos bits serão escritos.
+     */
+    private void continuacao(final int bits) {
+        buffer.put((byte) (PREFIXO_CONTINUACAO | bits & MASCARA_CONTINUACAO));
+    }
+
+    /**
+     * Escreve um número inteiro em decimal.
+     *
+     * @param valor Número a ser escrito.
+     * @throws IOException Quando não é possível gravar no arquivo.
+     */
+    public void escrever(final long valor) throws IOException {
+        if (valor == Long.MIN_VALUE) {
+            escrever(Long.toString(valor));
+            return;
+        }
+        if (buffer.remaining() < MAXIMO_DIGITOS) {
+            esvaziar();
+        }
+        if (valor < 0) {
+            buffer.put((byte) '-');
+        }
+        long resto = Math.abs(valor);
+        int quantidade = 0;
+        do {
+            digitos[quantidade++] = (byte) ('0' + resto % BASE);
+            resto /= BASE;
+        } while (resto > 0);
+        while (quantidade > 0) {
+            buffer.put(digitos[--quantidade]);
+        }
+    }
+
+    /**
+     * Escreve um número real no formato de {@link Float#toString(float)}.
+     *
+     * @param valor Número a ser escrito.
+     * @throws IOException Quando não é possível gravar no arquivo.
+     */
+    public void escrever(final float valor) throws IOException {
+        escrever(Float.toString(valor));
+    }
+
+    /**
+     * Escreve o separador de linhas do sistema.
+     *
+     * @throws IOException Quando não é possível gravar no arquivo.
+     */
+    public void novaLinha() throws IOException {
+        escrever(SEPARADOR_LINHAS);
+    }
+
+    /**
+     * Obtém a quantidade de bytes já escritos, inclusive os que ainda estão
+     * no buffer.
+     *
+     * @return Posição atual no arquivo.
+     * @throws IOException Quando não é possível consultar o arquivo.
+     */
+    public long getPosicao() throws IOException {
+        return canal.position() + buffer.position();
+    }
+
+    /**
+     * Copia um trecho de outro arquivo, sem decodificá-lo, diretamente entre
+     * os canais.
+     *
+     * @param origem Arquivo de origem.
+     * @param inicio Posição, em bytes, do início do trecho.
+     * @param tamanho Tamanho do trecho, em bytes.
+     * @throws IOException Quando não é possível ler a origem ou gravar no
+     * arquivo.
+     */
+    public void copiar(final Path origem, final long inicio,
+            final long tamanho) throws IOException {
+        esvaziar();
+        try (FileChannel entrada = FileChannel.open(origem,
+                StandardOpenOption.READ)) {
+            long copiados = 0;
+            while (copiados < tamanho) {
+                long transferidos = entrada.transferTo(inicio + copiados,
+                        tamanho - copiados, canal);
+                if (transferidos <= 0) {
+                    throw new IOException("Trecho além do fim do arquivo.");
+                }
+                copiados += transferidos;
+            }
+        }
+    }
+
+    /**
+     * Grava no arquivo os bytes do buffer.
+     *
+     * @throws IOException Quando não é possível gravar no arquivo.
+     */
+    private void esvaziar() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Grava os bytes pendentes e fecha o arquivo.
+     *
+     * @throws IOException Quando não é possível gravar no arquivo.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            esvaziar();
+            if (alto != 0) {
+                alto = 0;
+                buffer.put(SUBSTITUTO);
+                esvaziar();
+            }
+        } finally {
+            canal.close();
+        }
+    }
+
+}
@@ -0,0 +1,376 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.EnumSet;
+
+/**
+ * Servidor que mantém uma JVM em execução e realiza as suítes de testes
+ * pedidas por {@link ClienteTestes}. Cada suíte evita a inicialização da JVM,
+ * o carregamento das classes e a compilação do Parser pelo JIT, já feitos
+ * pelas suítes anteriores.
+ * <p>
+ * O servidor só aceita conexões locais (loopback) e só atende pedidos de
+ * quem pode ler o seu arquivo de autorização ({@link #arquivoToken(Path,
+ * int)}), criado ao abrir o servidor com um token aleatório e legível apenas
+ * pelo usuário que o iniciou. Cada pedido é uma linha UTF-8 com campos
+ * separados por tabulação: o token, seguido de {@link #EXECUTAR}, o
+ * diretório atual do cliente e os parâmetros de
+ * {@link Main#main(String[])}; ou de {@link #PARAR}. Os relatórios de cada
+ * pedido são salvos no diretório do cliente. A resposta são as mensagens do
+ * programa, seguidas de uma linha {@link #FIM} com o código de saída. Os
+ * pedidos são atendidos um de cada vez, para que uma suíte não interfira
+ * nos tempos medidos da outra.
+ *
+ * @author Wesleywrl
+ */
+public final class ServidorTestes implements Closeable {
+
+    /**
+     * Porta usada quando nenhuma é informada.
+     */
+    public static final int PORTA_PADRAO = 7717;
+
+    /**
+     * Pedido de realização de uma suíte de testes.
+     */
+    static final String EXECUTAR = "EXECUTAR";
+
+    /**
+     * Pedido de finalização do servidor.
+     */
+    static final String PARAR = "PARAR";
+
+    /**
+     * Início da última linha da resposta, seguido do código de saída.
+     */
+    static final String FIM = "#saida ";
+
+    /**
+     * Separador dos campos de um pedido.
+     */
+    static final char SEPARADOR = '\t';
+
+    /**
+     * Opção que define a porta, no servidor e no cliente.
+     */
+    static final String OPCAO_PORTA = "-porta=";
+
+    /**
+     * Quantidade de bytes aleatórios do token.
+     */
+    private static final int BYTES_TOKEN = 32;
+
+    /**
+     * Maior número de porta válido.
+     */
+    private static final int PORTA_MAXIMA = 65535;
+
+    /**
+     * Tempo máximo, em milissegundos, para o cliente enviar o pedido.
+     */
+    private static final int TEMPO_PEDIDO = 10000;
+
+    /**
+     * Quantidade de conexões que aguardam enquanto um pedido é atendido.
+     */
+    private static final int FILA = 16;
+
+    /**
+     * Socket que aceita as conexões dos clientes.
+     */
+    private final ServerSocket socket;
+
+    /**
+     * Token que os clientes devem apresentar, em UTF-8.
+     */
+    private final byte[] token;
+
+    /**
+     * Arquivo de autorização, de onde os clientes leem o token.
+     */
+    private final Path arquivoToken;
+
+    /**
+     * Quantidade de suítes realizadas.
+     */
+    private long atendidas;
+
+    /**
+     * Abre o servidor na interface local, com o arquivo de autorização no
+     * diretório padrão ({@link #diretorioTokens()}).
+     *
+     * @param porta Porta em que as conexões são aceitas (0 escolhe uma porta
+     * livre).
+     * @throws IOException Quando não é possível usar a porta ou criar o
+     * arquivo de autorização.
+     */
+    public ServidorTestes(final int porta) throws IOException {
+        this(porta, diretorioTokens());
+    }
+
+    /**
+     * Abre o servidor na interface local.
+     *
+     * @param porta Porta em que as conexões são aceitas (0 escolhe uma porta
+     * livre).
+     * @param tokens Diretório do arquivo de autorização.
+     * @throws IOException Quando não é possível usar a porta ou criar o
+     * arquivo de autorização.
+     */
+    ServidorTestes(final int porta, final Path tokens) throws IOException {
+        socket = new ServerSocket(porta, FILA,
+                InetAddress.getLoopbackAddress());
+        byte[] aleatorios = new byte[BYTES_TOKEN];
+        new SecureRandom().nextBytes(aleatorios);
+        StringBuilder hexadecimal = new StringBuilder();
+        for (byte b : aleatorios) {
+            hexadecimal.append(String.format("%02x", b));
+        }
+        token = hexadecimal.toString().getBytes(StandardCharsets.UTF_8);
+        arquivoToken = arquivoToken(tokens, getPorta());
+        try {
+            criarArquivoToken();
+        } catch (IOException ex) {
+            socket.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Obtém o diretório padrão dos arquivos de autorização: ".qp", no
+     * diretório do usuário.
+     *
+     * @return Diretório dos arquivos de autorização.
+     */
+    public static Path diretorioTokens() {
+        return Paths.get(System.getProperty("user.home"), ".qp");
+    }
+
+    /**
+     * Obtém o arquivo de autorização do servidor de uma porta.
+     *
+     * @param tokens Diretório dos arquivos de autorização.
+     * @param porta Porta do servidor.
+     * @return Local do arquivo.
+     */
+    static Path arquivoToken(final Path tokens, final int porta) {
+        return tokens.resolve("servidor-" + porta + ".token");
+    }
+
+    /**
+     * Cria o arquivo de autorização, substituindo o de um servidor anterior
+     * na mesma porta. Em sistemas POSIX, o arquivo só pode ser lido e
+     * escrito pelo usuário que iniciou o servidor (0600).
+     *
+     * @throws IOException Quando não é possível criar o arquivo.
+     */
+    private void criarArquivoToken() throws IOException {
+        Files.createDirectories(arquivoToken.getParent());
+        Files.deleteIfExists(arquivoToken);
+        if (FileSystems.getDefault().supportedFileAttributeViews()
+                .contains("posix")) {
+            Files.createFile(arquivoToken, PosixFilePermissions
+                    .asFileAttribute(EnumSet.of(
+                            PosixFilePermission.OWNER_READ,
+                            PosixFilePermission.OWNER_WRITE)));
+        } else {
+            Files.createFile(arquivoToken);
+        }
+        Files.write(arquivoToken, token);
+    }
+
+    /**
+     * Inicia o servidor, que permanece em execução até receber o pedido
+     * {@link #PARAR}.
+     *
+     * @param args Opcionalmente, "-porta=N" (padrão {@link #PORTA_PADRAO}).
+     */
+    public static void main(final String[] args) {
+        int porta = PORTA_PADRAO;
+        for (String opcao : args) {
+            try {
+                porta = porta(opcao);
+            } catch (IllegalArgumentException ex) {
+                System.out.println(ex.getMessage());
+                System.exit(Main.SAIDA_ERRO);
+            }
+        }
+        try (ServidorTestes servidor = new ServidorTestes(porta)) {
+            System.out.println("Aguardando suítes de testes na porta "
+                    + servidor.getPorta() + ".");
+            servidor.atender();
+            System.out.println("Servidor finalizado após "
+                    + servidor.getAtendidas() + " suítes.");
+        } catch (IOException ex) {
+            System.out.println("Não foi possível usar a porta " + porta
+                    + ": " + ex.getMessage());
+            System.exit(Main.SAIDA_ERRO);
+        }
+    }
+
+    /**
+     * Obtém a porta de uma opção "-porta=N".
+     *
+     * @param opcao Opção completa.
+     * @return Número da porta.
+     * @throws IllegalArgumentException Quando a opção ou a porta for
+     * inválida.
+     */
+    static int porta(final String opcao) {
+        int porta = 0;
+        if (opcao.startsWith(OPCAO_PORTA)) {
+            try {
+                porta = Integer.parseInt(opcao.substring(
+                        OPCAO_PORTA.length()));
+            } catch (NumberFormatException nfe) {
+                porta = 0;
+            }
+        }
+        if (porta <= 0 || porta > PORTA_MAXIMA) {
+            throw new IllegalArgumentException("Parâmetro inválido: " + opcao
+                    + ".");
+        }
+        return porta;
+    }
+
+    /**
+     * Atende os pedidos, um de cada vez, até receber {@link #PARAR} ou até o
+     * servidor ser fechado.
+     */
+    public void atender() {
+        while (!socket.isClosed()) {
+            try (Socket cliente = socket.accept()) {
+                atender(cliente);
+            } catch (IOException ex) {
+                if (!socket.isClosed()) {
+                    System.out.println("Falha ao atender cliente: "
+                            + ex.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Atende o pedido de um cliente.
+     *
+     * @param cliente Conexão com o cliente.
+     * @throws IOException Quando não é possível se comunicar com o cliente.
+     */
+    private void atender(final Socket cliente) throws IOException {
+        cliente.setSoTimeout(TEMPO_PEDIDO);
+        BufferedReader entrada = new BufferedReader(new InputStreamReader(
+                cliente.getInputStream(), StandardCharsets.UTF_8));
+        String pedido = entrada.readLine();
+        if (pedido == null) {
+            return;
+        }
+        PrintStream saida = new PrintStream(new BufferedOutputStream(
+                cliente.getOutputStream()), true,
+                StandardCharsets.UTF_8.name());
+        String[] campos = pedido.split(String.valueOf(SEPARADOR), -1);
+        int codigo;
+        if (!MessageDigest.isEqual(token,
+                campos[0].getBytes(StandardCharsets.UTF_8))) {
+            saida.println("Pedido não autorizado.");
+            codigo = Main.SAIDA_ERRO;
+        } else if (campos.length == 2 && campos[1].equals(PARAR)) {
+            saida.println("Servidor finalizado.");
+            codigo = Main.SAIDA_SUCESSO;
+            close();
+        } else if (campos.length >= 3 && campos[1].equals(EXECUTAR)) {
+            codigo = executar(Paths.get(campos[2]),
+                    Arrays.copyOfRange(campos, 3, campos.length), saida);
+        } else {
+            saida.println("Pedido inválido.");
+            codigo = Main.SAIDA_ERRO;
+        }
+        saida.println(FIM + codigo);
+    }
+
+    /**
+     * Realiza uma suíte de testes.
+     *
+     * @param diretorio Diretório atual do cliente, a partir do qual os
+     * caminhos relativos são resolvidos e no qual os relatórios são salvos.
+     * @param args Parâmetros, como em {@link Main#main(String[])}.
+     * @param saida Destino das mensagens do programa.
+     * @return Código de saída, como em {@link Main#executar(String[],
+     * PrintStream)}.
+     */
+    private int executar(final Path diretorio, final String[] args,
+            final PrintStream saida) {
+        Configuracao config;
+        try {
+            config = Configuracao.interpretar(args);
+        } catch (IllegalArgumentException ex) {
+            saida.println(ex.getMessage());
+            return Main.SAIDA_ERRO;
+        }
+        config.resolver(diretorio);
+        config.setDiretorioRelatorio(diretorio);
+        atendidas++;
+        try {
+            return Main.executar(config, saida);
+        } catch (RuntimeException ex) {
+            //Uma suíte com problema não deve finalizar o servidor
+            saida.println("Erro inesperado: " + ex);
+            return Main.SAIDA_ERRO;
+        }
+    }
+
+    /**
+     * Obtém a porta em que as conexões são aceitas.
+     *
+     * @return Número da porta.
+     */
+    public int getPorta() {
+        return socket.getLocalPort();
+    }
+
+    /**
+     * Obtém a quantidade de suítes realizadas pelo servidor.
+     *
+     * @return Quantidade de suítes.
+     */
+    public long getAtendidas() {
+        return atendidas;
+    }
+
+    /**
+     * Fecha o servidor e remove o arquivo de autorização.
+     *
+     * @throws IOException Quando não é possível fechar o socket ou remover
+     * o arquivo.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            socket.close();
+        } finally {
+            Files.deleteIfExists(arquivoToken);
+        }
+    }
+
+}
@@ -0,0 +1,685 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Conjunto de testes armazenado em colunas: em vez de um objeto
+ * {@link Teste} por linha (com valores em {@link Float} e vetores de nomes e
+ * valores), cada atributo é guardado em um vetor primitivo indexado pela
+ * posição do teste. As variáveis de todos os testes ficam em vetores únicos,
+ * e cada nome de variável é guardado uma só vez.
+ * <p>
+ * Cada teste deve ser calculado e atualizado por uma única thread, mas testes
+ * diferentes podem ser calculados simultaneamente.
+ *
+ * @author Wesleywrl
+ */
+public final class SuiteTestes {
+
+    /**
+     * Capacidade inicial padrão, em quantidade de testes.
+     */
+    private static final int CAPACIDADE_INICIAL = 16;
+
+    /**
+     * Indica que o valor da expressão foi obtido pelo Parser.
+     */
+    private static final byte OBTIDO = 1;
+
+    /**
+     * Indica que o valor obtido é igual ao esperado.
+     */
+    private static final byte SUCESSO = 2;
+
+    /**
+     * Indica que o valor obtido veio de uma execução anterior
+     * ({@link CacheResultados}), sem que a expressão fosse realizada.
+     */
+    private static final byte REAPROVEITADO = 4;
+
+    /**
+     * Indica que a realização da expressão foi abandonada por exceder o
+     * tempo limite por teste ({@link ExecutorTestes}).
+     */
+    private static final byte TEMPO_ESGOTADO = 8;
+
+    /**
+     * Indica que a realização da expressão esgotou a pilha da thread.
+     */
+    private static final byte ESTOURO_PILHA = 16;
+
+    /**
+     * Quantidade de testes.
+     */
+    private int tamanho;
+
+    /**
+     * Expressão de cada teste, sem espaços.
+     */
+    private String[] expressoes;
+
+    /**
+     * Valor esperado de cada teste.
+     */
+    private float[] esperados;
+
+    /**
+     * Valor obtido pelo Parser para cada teste.
+     */
+    private float[] obtidos;
+
+    /**
+     * Situação de cada teste ({@link #OBTIDO}, {@link #SUCESSO},
+     * {@link #REAPROVEITADO}, {@link #TEMPO_ESGOTADO} e
+     * {@link #ESTOURO_PILHA}).
+     */
+    private byte[] situacoes;
+
+    /**
+     * Tempo, em nanossegundos, da última realização da expressão de cada
+     * teste.
+     */
+    private long[] tempos;
+
+    /**
+     * Bytes alocados na última realização da expressão de cada teste.
+     */
+    private long[] alocados;
+
+    /**
+     * Posição, em {@link #nomesVariaveis} e {@link #valoresVariaveis}, da
+     * primeira variável de cada teste. As variáveis do teste i vão até a
+     * posição inicial do teste i + 1.
+     */
+    private int[] inicioVariaveis;
+
+    /**
+     * Posição, em {@link #textoVariaveis}, do bloco de variáveis de cada
+     * teste. O bloco do teste i vai até a posição inicial do teste i + 1.
+     */
+    private int[] inicioTexto;
+
+    /**
+     * Quantidade de caracteres dos blocos de variáveis de todos os testes.
+     */
+    private int totalTexto;
+
+    /**
+     * Blocos de variáveis de todos os testes, como aparecem nas linhas mas
+     * sem espaços (por exemplo, "x=2,y=3"), um após o outro.
+     */
+    private char[] textoVariaveis;
+
+    /**
+     * Quantidade de variáveis de todos os testes.
+     */
+    private int totalVariaveis;
+
+    /**
+     * Índice, em {@link #nomes}, do nome de cada variável.
+     */
+    private int[] nomesVariaveis;
+
+    /**
+     * Valor de cada variável.
+     */
+    private float[] valoresVariaveis;
+
+    /**
+     * Analisador das linhas acrescentadas.
+     */
+    private final AnalisadorLinha analisador = new AnalisadorLinha();
+
+    /**
+     * Nomes distintos de variáveis.
+     */
+    private final List<String> nomes = new ArrayList<>();
+
+    /**
+     * Índice de cada nome em {@link #nomes}.
+     */
+    private final Map<String, Integer> indicesNomes = new HashMap<>();
+
+    /**
+     * Cria um conjunto de testes vazio.
+     */
+    public SuiteTestes() {
+        this(CAPACIDADE_INICIAL);
+    }
+
+    /**
+     * Cria um conjunto de testes vazio com espaço para a quantidade de testes
+     * fornecida (os vetores crescem quando necessário).
+     *
+     * @param capacidade Quantidade de testes esperada.
+     */
+    public SuiteTestes(final int capacidade) {
+        int inicial = Math.max(1, capacidade);
+        expressoes = new String[inicial];
+        esperados = new float[inicial];
+        obtidos = new float[inicial];
+        situacoes = new byte[inicial];
+        tempos = new long[inicial];
+        alocados = new long[inicial];
+        inicioVariaveis = new int[inicial + 1];
+        inicioTexto = new int[inicial + 1];
+        textoVariaveis = new char[inicial];
+        nomesVariaveis = new int[inicial];
+        valoresVariaveis = new float[inicial];
+    }
+
+    /**
+     * Cria um conjunto com os testes das linhas fornecidas.
+     *
+     * @param linhas Linhas dos testes, no formato "expressao;variaveis;
+     * esperado".
+     * @return Conjunto de testes.
+     * @throws IllegalArgumentException Quando alguma linha não segue o
+     * formato. A mensagem indica a linha (a partir de 1) e a coluna.
+     */
+    public static SuiteTestes de(final List<String> linhas) {
+        SuiteTestes suite = new SuiteTestes(linhas.size());
+        for (String linha : linhas) {
+            suite.adicionarLinha(linha, suite.getTamanho() + 1);
+        }
+        return suite;
+    }
+
+    /**
+     * Acrescenta um teste, indicando o número da linha em caso de erro.
+     *
+     * @param completo Linha completa do teste.
+     * @param numero Número da linha no arquivo de testes (a partir de 1).
+     * @return Posição do teste no conjunto.
+     * @throws IllegalArgumentException Quando a linha não segue o formato. A
+     * mensagem indica a linha e a coluna.
+     */
+    public int adicionarLinha(final CharSequence completo, final long numero) {
+        try {
+            return adicionar(completo);
+        } catch (IllegalArgumentException iae) {
+            throw new IllegalArgumentException("Linha " + numero + ", "
+                    + iae.getMessage(), iae);
+        }
+    }
+
+    /**
+     * Acrescenta um teste, obtendo seus atributos com base na linha completa.
+     * Se a linha for inválida, o conjunto não é alterado.
+     *
+     * @param completo Linha completa do teste, no formato
+     * "expressao;variaveis;esperado". Por exemplo: "x+2 ; x=2; 4". Pode ser
+     * uma visão reaproveitada (como {@link LeitorMapeado#fatia()}), pois os
+     * atributos são copiados.
+     * @return Posição do teste no conjunto.
+     * @throws IllegalArgumentException Quando a linha não segue o formato
+     * (ver {@link AnalisadorLinha}).
+     */
+    public int adicionar(final CharSequence completo) {
+        analisador.analisar(completo);
+
+        int quantidade = analisador.getQuantidadeVariaveis();
+        garantirVariaveis(totalVariaveis + quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            nomesVariaveis[totalVariaveis + i] =
+                    indiceNome(analisador.getNome(i));
+            valoresVariaveis[totalVariaveis + i] = analisador.getValor(i);
+        }
+
+        String bloco = "";
+        if (quantidade > 0) {
+            bloco = analisador.getVariaveis();
+        }
+        garantirTexto(totalTexto + bloco.length());
+
+        garantirTestes(tamanho + 1);
+        int posicao = tamanho;
+        expressoes[posicao] = analisador.getExpressao();
+        esperados[posicao] = analisador.getEsperado();
+        obtidos[posicao] = 0;
+        situacoes[posicao] = 0;
+        tempos[posicao] = 0;
+        alocados[posicao] = 0;
+        inicioVariaveis[posicao] = totalVariaveis;
+        totalVariaveis += quantidade;
+        inicioVariaveis[posicao + 1] = totalVariaveis;
+        inicioTexto[posicao] = totalTexto;
+        bloco.getChars(0, bloco.length(), textoVariaveis, totalTexto);
+        totalTexto += bloco.length();
+        inicioTexto[posicao + 1] = totalTexto;
+        tamanho++;
+        return posicao;
+    }
+
+    /**
+     * Obtém o índice de um nome de variável, guardando-o se ainda não for
+     * conhecido.
+     *
+     * @param nome Nome da variável.
+     * @return Índice do nome em {@link #nomes}.
+     */
+    private int indiceNome(final String nome) {
+        Integer indice = indicesNomes.get(nome);
+        if (indice == null) {
+            indice = nomes.size();
+            nomes.add(nome);
+            indicesNomes.put(nome, indice);
+        }
+        return indice;
+    }
+
+    /**
+     * Garante espaço para a quantidade de testes fornecida.
+     *
+     * @param quantidade Quantidade de testes.
+     */
+    private void garantirTestes(final int quantidade) {
+        if (quantidade <= expressoes.length) {
+            return;
+        }
+        int capacidade = Math.max(quantidade, expressoes.length * 2);
+        expressoes = Arrays.copyOf(expressoes, capacidade);
+        esperados = Arrays.copyOf(esperados, capacidade);
+        obtidos = Arrays.copyOf(obtidos, capacidade);
+        situacoes = Arrays.copyOf(situacoes, capacidade);
+        tempos = Arrays.copyOf(tempos, capacidade);
+        alocados = Arrays.copyOf(alocados, capacidade);
+        inicioVariaveis = Arrays.copyOf(inicioVariaveis, capacidade + 1);
+        inicioTexto = Arrays.copyOf(inicioTexto, capacidade + 1);
+    }
+
+    /**
+     * Garante espaço para a quantidade de variáveis fornecida.
+     *
+     * @param quantidade Quantidade de variáveis de todos os testes.
+     */
+    private void garantirVariaveis(final int quantidade) {
+        if (quantidade <= nomesVariaveis.length) {
+            return;
+        }
+        int capacidade = Math.max(quantidade, nomesVariaveis.length * 2);
+        nomesVariaveis = Arrays.copyOf(nomesVariaveis, capacidade);
+        valoresVariaveis = Arrays.copyOf(valoresVariaveis, capacidade);
+    }
+
+    /**
+     * Garante espaço para a quantidade de caracteres de blocos de variáveis
+     * fornecida.
+     *
+     * @param quantidade Quantidade de caracteres de todos os testes.
+     */
+    private void garantirTexto(final int quantidade) {
+        if (quantidade <= textoVariaveis.length) {
+            return;
+        }
+        int capacidade = Math.max(quantidade, textoVariaveis.length * 2);
+        textoVariaveis = Arrays.copyOf(textoVariaveis, capacidade);
+    }
+
+    /**
+     * Remove todos os testes, mantendo o espaço já reservado e os nomes de
+     * variáveis conhecidos. Permite reaproveitar o conjunto em blocos
+     * sucessivos de testes.
+     */
+    public void limpar() {
+        Arrays.fill(expressoes, 0, tamanho, null);
+        tamanho = 0;
+        totalVariaveis = 0;
+        totalTexto = 0;
+    }
+
+    /**
+     * Obtém a quantidade de testes.
+     *
+     * @return Quantidade de testes.
+     */
+    public int getTamanho() {
+        return tamanho;
+    }
+
+    /**
+     * Obtém a expressão de um teste.
+     *
+     * @param teste Posição do teste.
+     * @return Expressão do teste, sem espaços.
+     */
+    public String getExpressao(final int teste) {
+        return expressoes[teste];
+    }
+
+    /**
+     * Obtém se um teste tem variáveis definidas.
+     *
+     * @param teste Posição do teste.
+     * @return Verdadeiro se o bloco de variáveis não for vazio.
+     */
+    public boolean temVariaveis(final int teste) {
+        return getQuantidadeVariaveis(teste) > 0;
+    }
+
+    /**
+     * Obtém a quantidade de variáveis definidas para um teste.
+     *
+     * @param teste Posição do teste.
+     * @return Quantidade de variáveis.
+     */
+    public int getQuantidadeVariaveis(final int teste) {
+        return inicioVariaveis[teste + 1] - inicioVariaveis[teste];
+    }
+
+    /**
+     * Obtém o nome de uma variável de um teste.
+     *
+     * @param teste Posição do teste.
+     * @param variavel Posição da variável no teste.
+     * @return Nome da variável.
+     */
+    public String getNomeVariavel(final int teste, final int variavel) {
+        return nomes.get(nomesVariaveis[inicioVariaveis[teste] + variavel]);
+    }
+
+    /**
+     * Obtém o valor de uma variável de um teste.
+     *
+     * @param teste Posição do teste.
+     * @param variavel Posição da variável no teste.
+     * @return Valor da variável.
+     */
+    public float getValorVariavel(final int teste, final int variavel) {
+        return valoresVariaveis[inicioVariaveis[teste] + variavel];
+    }
+
+    /**
+     * Obtém o bloco de variáveis de um teste como aparece na linha, sem
+     * espaços (por exemplo, "x=2,y=3").
+     *
+     * @param teste Posição do teste.
+     * @return Bloco de variáveis do teste. Pode ser vazio.
+     */
+    public String getVariaveis(final int teste) {
+        int inicio = inicioTexto[teste];
+        return new String(textoVariaveis, inicio,
+                inicioTexto[teste + 1] - inicio);
+    }
+
+    /**
+     * Obtém o valor esperado por um teste.
+     *
+     * @param teste Posição do teste.
+     * @return Valor esperado.
+     */
+    public float getEsperado(final int teste) {
+        return esperados[teste];
+    }
+
+    /**
+     * Obtém se o Parser conseguiu calcular o valor de um teste.
+     *
+     * @param teste Posição do teste.
+     * @return Falso se o teste ainda não foi calculado ou se a expressão é
+     * inválida.
+     */
+    public boolean isObtido(final int teste) {
+        return (situacoes[teste] & OBTIDO) != 0;
+    }
+
+    /**
+     * Obtém o valor obtido por um teste. Só é válido se
+     * {@link #isObtido(int)} for verdadeiro.
+     *
+     * @param teste Posição do teste.
+     * @return Valor obtido pela expressão (e as variáveis) do teste.
+     */
+    public float getObtido(final int teste) {
+        return obtidos[teste];
+    }
+
+    /**
+     * Obtém se um teste obteve sucesso. Só é válido após
+     * {@link #atualizarSucesso(int)}.
+     *
+     * @param teste Posição do teste.
+     * @return Verdadeiro caso o teste obteve o valor esperado.
+     */
+    public boolean getSucesso(final int teste) {
+        return (situacoes[teste] & SUCESSO) != 0;
+    }
+
+    /**
+     * Define o resultado de um teste a partir de uma execução anterior. O
+     * teste passa a ser reaproveitado e não precisa ser realizado.
+     *
+     * @param teste Posição do teste.
+     * @param obtido Se o Parser obteve um valor na execução anterior.
+     * @param valor Valor obtido (ignorado se não foi obtido).
+     */
+    public void reaproveitar(final int teste, final boolean obtido,
+            final float valor) {
+        obtidos[teste] = valor;
+        situacoes[teste] = REAPROVEITADO;
+        if (obtido) {
+            situacoes[teste] |= OBTIDO;
+        }
+    }
+
+    /**
+     * Obtém se o resultado de um teste veio de uma execução anterior.
+     *
+     * @param teste Posição do teste.
+     * @return Verdadeiro se o teste não precisa ser realizado.
+     */
+    public boolean isReaproveitado(final int teste) {
+        return (situacoes[teste] & REAPROVEITADO) != 0;
+    }
+
+    /**
+     * Obtém se um teste deve ser realizado: testes reaproveitados de uma
+     * execução anterior e testes que já esgotaram o tempo limite não são
+     * realizados de novo, nas iterações seguintes da mesma execução.
+     *
+     * @param teste Posição do teste.
+     * @return Falso se o teste é reaproveitado ou teve o tempo esgotado.
+     */
+    public boolean isRealizavel(final int teste) {
+        return (situacoes[teste] & (REAPROVEITADO | TEMPO_ESGOTADO)) == 0;
+    }
+
+    /**
+     * Obtém o tempo gasto na realização da expressão de um teste.
+     *
+     * @param teste Posição do teste.
+     * @return Tempo em nanossegundos, ou zero se não foi medido.
+     */
+    public long getTempo(final int teste) {
+        return tempos[teste];
+    }
+
+    /**
+     * Define o tempo gasto na realização da expressão de um teste.
+     *
+     * @param teste Posição do teste.
+     * @param nanos Tempo em nanossegundos.
+     */
+    public void setTempo(final int teste, final long nanos) {
+        tempos[teste] = nanos;
+    }
+
+    /**
+     * Obtém a memória alocada na realização da expressão de um teste.
+     *
+     * @param teste Posição do teste.
+     * @return Bytes alocados, ou zero se não foram medidos.
+     */
+    public long getAlocados(final int teste) {
+        return alocados[teste];
+    }
+
+    /**
+     * Define a memória alocada na realização da expressão de um teste.
+     *
+     * @param teste Posição do teste.
+     * @param bytes Bytes alocados.
+     */
+    public void setAlocados(final int teste, final long bytes) {
+        alocados[teste] = bytes;
+    }
+
+    /**
+     * Executa o Parser (através da classe Calcular) para definir o valor
+     * obtido por um teste. Uma expressão que esgota a pilha da thread é
+     * registrada como {@link #isEstouroPilha(int)}, sem interromper os
+     * demais testes.
+     *
+     * @param teste Posição do teste.
+     */
+    public void calcularValor(final int teste) {
+        calcularValor(teste, null);
+    }
+
+    /**
+     * Define o valor obtido por um teste como em {@link #calcularValor(int)},
+     * registrando o tempo de cada fase do Parser.
+     *
+     * @param teste Posição do teste.
+     * @param fases Registro do tempo de cada fase, ou null para não medir.
+     */
+    public void calcularValor(final int teste, final FasesParser fases) {
+        try {
+            guardarResultado(teste, true, avaliar(teste, fases));
+        } catch (Exception ex) {
+            guardarResultado(teste, false, 0);
+        } catch (StackOverflowError soe) {
+            interromper(teste, false);
+        }
+    }
+
+    /**
+     * Executa o Parser para obter o valor de um teste, sem guardá-lo. Usado
+     * quando o resultado só deve ser guardado se a realização não tiver
+     * sido abandonada ({@link ExecutorTestes}).
+     *
+     * @param teste Posição do teste.
+     * @return Valor da expressão do teste.
+     * @throws Exception Quando a expressão é inválida.
+     */
+    public float avaliar(final int teste) throws Exception {
+        return Calcular.resultadoExpressao(this, teste);
+    }
+
+    /**
+     * Executa o Parser para obter o valor de um teste, sem guardá-lo,
+     * registrando o tempo de cada fase do Parser.
+     *
+     * @param teste Posição do teste.
+     * @param fases Registro do tempo de cada fase, ou null para não medir.
+     * @return Valor da expressão do teste.
+     * @throws Exception Quando a expressão é inválida.
+     */
+    public float avaliar(final int teste, final FasesParser fases)
+            throws Exception {
+        return Calcular.resultadoExpressao(this, teste, fases);
+    }
+
+    /**
+     * Guarda o resultado da realização da expressão de um teste.
+     *
+     * @param teste Posição do teste.
+     * @param obtido Se o Parser obteve um valor.
+     * @param valor Valor obtido (ignorado se não foi obtido).
+     */
+    public void guardarResultado(final int teste, final boolean obtido,
+            final float valor) {
+        obtidos[teste] = valor;
+        if (obtido) {
+            situacoes[teste] = OBTIDO;
+        } else {
+            situacoes[teste] = 0;
+        }
+    }
+
+    /**
+     * Registra que a realização da expressão de um teste não terminou. O
+     * teste fica sem valor obtido e, portanto, falha.
+     *
+     * @param teste Posição do teste.
+     * @param tempoEsgotado Verdadeiro se a realização excedeu o tempo limite;
+     * falso se esgotou a pilha da thread.
+     */
+    public void interromper(final int teste, final boolean tempoEsgotado) {
+        if (tempoEsgotado) {
+            situacoes[teste] = TEMPO_ESGOTADO;
+        } else {
+            situacoes[teste] = ESTOURO_PILHA;
+        }
+    }
+
+    /**
+     * Obtém se a realização da expressão de um teste foi abandonada por
+     * exceder o tempo limite.
+     *
+     * @param teste Posição do teste.
+     * @return Verdadeiro se o tempo se esgotou.
+     */
+    public boolean isTempoEsgotado(final int teste) {
+        return (situacoes[teste] & TEMPO_ESGOTADO) != 0;
+    }
+
+    /**
+     * Obtém se a realização da expressão de um teste esgotou a pilha da
+     * thread.
+     *
+     * @param teste Posição do teste.
+     * @return Verdadeiro se houve estouro de pilha.
+     */
+    public boolean isEstouroPilha(final int teste) {
+        return (situacoes[teste] & ESTOURO_PILHA) != 0;
+    }
+
+    /**
+     * Obtém se a realização da expressão de um teste não terminou (tempo
+     * esgotado ou estouro de pilha).
+     *
+     * @param teste Posição do teste.
+     * @return Verdadeiro se a realização foi interrompida.
+     */
+    public boolean isInterrompido(final int teste) {
+        return (situacoes[teste] & (TEMPO_ESGOTADO | ESTOURO_PILHA)) != 0;
+    }
+
+    /**
+     * Verifica se o valor obtido por um teste é o esperado, sem atualizar o
+     * seu sucesso. A comparação segue {@link Float#equals(Object)}.
+     *
+     * @param teste Posição do teste.
+     * @return Verdadeiro se um valor foi obtido e é igual ao esperado.
+     */
+    public boolean isValorEsperado(final int teste) {
+        return isObtido(teste) && Float.floatToIntBits(obtidos[teste])
+                == Float.floatToIntBits(esperados[teste]);
+    }
+
+    /**
+     * Atualiza se um teste ocorreu com sucesso (resultado obtido é o
+     * esperado). Assim como em {@link Teste#atualizarSucesso()}, deve ser
+     * chamado após a medição do tempo. A comparação segue
+     * {@link Float#equals(Object)}.
+     *
+     * @param teste Posição do teste.
+     */
+    public void atualizarSucesso(final int teste) {
+        if (isValorEsperado(teste)) {
+            situacoes[teste] |= SUCESSO;
+        } else {
+            situacoes[teste] &= ~SUCESSO;
+        }
+    }
+
+}
@@ -56,33 +56,30 @@ public class Teste {
      *
      * @param completo Linha completa do teste, no formato
      * "expressao;variaveis;esperado". Por exemplo: "x+2 ; x=2; 4".
+     * @throws IllegalArgumentException Quando a linha não segue o formato
+     * (ver {@link AnalisadorLinha}).
      */
     public Teste(final String completo) {
-        String teste = completo.replace(" ", "");
+        AnalisadorLinha analisador = new AnalisadorLinha();
+        analisador.analisar(completo);
 
-        String[] partes;
-        partes = teste.split(";");
+        expressao = analisador.getExpressao();
 
-        expressao = partes[0];
-
-        variaveis = partes[1];
+        variaveis = analisador.getVariaveis();
         if (variaveis.isEmpty()) {
             variaveisNome = null;
             variaveisValor = null;
         } else {
-            String[] variaveisSeparadas = variaveis.split(",");
-            variaveisNome = new String[variaveisSeparadas.length];
-            variaveisValor = new Float[variaveisSeparadas.length];
-            int i = 0;
-            for (String variavel : variaveisSeparadas) {
-                String[] partesDaVariavel = variavel.split("=");
-                variaveisNome[i] = partesDaVariavel[0];
-                variaveisValor[i] = Float.parseFloat(partesDaVariavel[1]);
-                i++;
+            int quantidade = analisador.getQuantidadeVariaveis();
+            variaveisNome = new String[quantidade];
+            variaveisValor = new Float[quantidade];
+            for (int i = 0; i < quantidade; i++) {
+                variaveisNome[i] = analisador.getNome(i);
+                variaveisValor[i] = analisador.getValor(i);
             }
         }
 
-        esperado = Float.parseFloat(partes[2]);
+        esperado = analisador.getEsperado();
         obtido = null;
     }
 
@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Processo trabalhador de {@link ExecutorProcessos}: recebe testes pela
+ * entrada padrão, realiza as suas expressões e devolve os resultados pela
+ * saída padrão, até o fim da entrada. O processo é mantido entre as
+ * chamadas do coordenador, de modo que o aquecimento e a compilação pelo
+ * JIT valem para as iterações seguintes.
+ * <p>
+ * Cada chamada do coordenador é um inteiro com a quantidade de testes,
+ * seguido de cada linha ("expressao;variaveis;esperado") precedida do seu
+ * tamanho em bytes UTF-8. Os resultados são devolvidos em blocos, cada
+ * teste com a sua situação (byte), o valor obtido (float), o tempo e a
+ * memória alocada (long); após o último bloco, vêm o tempo de CPU da
+ * chamada e os acertos e as faltas do cache de expressões (long). A saída
+ * é esvaziada a cada bloco, de modo que o coordenador recebe os resultados
+ * à medida que são obtidos.
+ *
+ * @author Wesleywrl
+ */
+public final class TrabalhadorProcesso {
+
+    /**
+     * Situação do teste cuja expressão é inválida para o Parser.
+     */
+    static final byte SEM_VALOR = 0;
+
+    /**
+     * Situação do teste cujo valor foi obtido.
+     */
+    static final byte OBTIDO = 1;
+
+    /**
+     * Situação do teste abandonado por exceder o tempo limite.
+     */
+    static final byte TEMPO_ESGOTADO = 2;
+
+    /**
+     * Situação do teste que esgotou a pilha da thread.
+     */
+    static final byte ESTOURO_PILHA = 3;
+
+    /**
+     * Quantidade de testes realizados antes de cada envio de resultados.
+     */
+    private static final int TAMANHO_BLOCO = 1024;
+
+    /**
+     * Tamanho dos buffers da entrada e da saída, em bytes.
+     */
+    private static final int TAMANHO_BUFFER = 65536;
+
+    /**
+     * Quantidade de parâmetros esperados.
+     */
+    private static final int PARAMETROS = 4;
+
+    /**
+     * Impede instancialização de classe utilitária.
+     */
+    private TrabalhadorProcesso() {
+    }
+
+    /**
+     * Atende ao coordenador pela entrada e saída padrão. As mensagens
+     * escritas em {@link System#out} durante a execução vão para a saída de
+     * erros, reservando a saída padrão aos resultados.
+     *
+     * @param args Quantidade de threads, tempo limite de cada teste (ms),
+     * tamanho da pilha das threads (bytes) e capacidade do cache de
+     * expressões (zero o desabilita), nesta ordem.
+     * @throws IOException Quando não é possível ler os testes ou escrever os
+     * resultados.
+     */
+    public static void main(final String[] args) throws IOException {
+        OutputStream saida = new FileOutputStream(FileDescriptor.out);
+        System.setOut(System.err);
+        executar(args, System.in, saida);
+    }
+
+    /**
+     * Atende ao coordenador até o fim da entrada.
+     *
+     * @param args Parâmetros, como em {@link #main(String[])}.
+     * @param entrada Origem dos testes.
+     * @param saida Destino dos resultados.
+     * @throws IOException Quando não é possível ler os testes ou escrever os
+     * resultados.
+     */
+    static void executar(final String[] args, final InputStream entrada,
+            final OutputStream saida) throws IOException {
+        if (args.length != PARAMETROS) {
+            throw new IllegalArgumentException(
+                    "Quantidade de parâmetros inválida.");
+        }
+        int capacidade = Integer.parseInt(args[3]);
+        if (capacidade > 0) {
+            Calcular.setCache(new CacheExpressoes(capacidade));
+        } else {
+            Calcular.setCache(null);
+        }
+        try (ExecutorTestes executor = new ExecutorTestes(
+                Integer.parseInt(args[0]), Long.parseLong(args[1]),
+                Long.parseLong(args[2]))) {
+            atender(executor, new DataInputStream(new BufferedInputStream(
+                    entrada, TAMANHO_BUFFER)), new DataOutputStream(
+                    new BufferedOutputStream(saida, TAMANHO_BUFFER)));
+        }
+    }
+
+    /**
+     * Realiza as chamadas do coordenador, uma de cada vez, até o fim da
+     * entrada.
+     *
+     * @param executor Executor usado na realização das expressões.
+     * @param entrada Origem dos testes.
+     * @param saida Destino dos resultados.
+     * @throws IOException Quando não é possível ler os testes ou escrever os
+     * resultados.
+     */
+    private static void atender(final ExecutorTestes executor,
+            final DataInputStream entrada, final DataOutputStream saida)
+            throws IOException {
+        SuiteTestes bloco = new SuiteTestes(TAMANHO_BLOCO);
+        Latencias latencias = new Latencias(0);
+        byte[] linha = new byte[TAMANHO_BUFFER];
+        while (true) {
+            int quantidade;
+            try {
+                quantidade = entrada.readInt();
+            } catch (EOFException ex) {
+                return;
+            }
+            CacheExpressoes cache = Calcular.getCache();
+            long acertos = 0;
+            long faltas = 0;
+            if (cache != null) {
+                acertos = cache.getAcertos();
+                faltas = cache.getFaltas();
+            }
+            long cpu = 0;
+            for (int i = 0; i < quantidade; i++) {
+                int tamanho = entrada.readInt();
+                if (tamanho > linha.length) {
+                    linha = new byte[Math.max(tamanho, linha.length * 2)];
+                }
+                entrada.readFully(linha, 0, tamanho);
+                bloco.adicionar(new String(linha, 0, tamanho,
+                        StandardCharsets.UTF_8));
+                if (bloco.getTamanho() == TAMANHO_BLOCO
+                        || i == quantidade - 1) {
+                    cpu += executor.executar(bloco, 0, latencias);
+                    escrever(bloco, saida);
+                    saida.flush();
+                    bloco.limpar();
+                }
+            }
+            saida.writeLong(cpu);
+            if (cache != null) {
+                acertos = cache.getAcertos() - acertos;
+                faltas = cache.getFaltas() - faltas;
+            }
+            saida.writeLong(acertos);
+            saida.writeLong(faltas);
+            saida.flush();
+        }
+    }
+
+    /**
+     * Escreve os resultados de um bloco de testes já realizados.
+     *
+     * @param bloco Testes realizados.
+     * @param saida Destino dos resultados.
+     * @throws IOException Quando não é possível escrever.
+     */
+    private static void escrever(final SuiteTestes bloco,
+            final DataOutputStream saida) throws IOException {
+        for (int i = 0; i < bloco.getTamanho(); i++) {
+            byte situacao;
+            if (bloco.isTempoEsgotado(i)) {
+                situacao = TEMPO_ESGOTADO;
+            } else if (bloco.isEstouroPilha(i)) {
+                situacao = ESTOURO_PILHA;
+            } else if (bloco.isObtido(i)) {
+                situacao = OBTIDO;
+            } else {
+                situacao = SEM_VALOR;
+            }
+            saida.writeByte(situacao);
+            saida.writeFloat(bloco.getObtido(i));
+            saida.writeLong(bloco.getTempo(i));
+            saida.writeLong(bloco.getAlocados(i));
+        }
+    }
+
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AmostraTemposTest {
+
+    @Test
+    public void mediaDesvioIntervalo() {
+        AmostraTempos amostra = new AmostraTempos(4);
+        amostra.adicionar(0, 1000000);
+        amostra.adicionar(1, 2000000);
+        amostra.adicionar(2, 3000000);
+        amostra.adicionar(3, 3000000);
+        amostra.adicionar(3, 1000000);
+        Assert.assertEquals(4, amostra.getQuantidade());
+        Assert.assertEquals(4.0, amostra.getTempo(3), 1e-9);
+        Assert.assertEquals(2.5, amostra.getMedia(), 1e-9);
+        double desvio = Math.sqrt(5.0 / 3);
+        Assert.assertEquals(desvio, amostra.getDesvioPadrao(), 1e-9);
+        Assert.assertEquals(3.182 * desvio / 2, amostra.getMargemErro(),
+                1e-9);
+    }
+
+    @Test
+    public void umaIteracao() {
+        AmostraTempos amostra = new AmostraTempos(1);
+        amostra.adicionar(0, 5000000);
+        Assert.assertEquals(5.0, amostra.getMedia(), 1e-9);
+        Assert.assertEquals(0, amostra.getDesvioPadrao(), 0);
+        Assert.assertEquals(0, amostra.getMargemErro(), 0);
+    }
+
+    @Test
+    public void valorT() {
+        Assert.assertEquals(12.706, AmostraTempos.valorT(1), 0);
+        Assert.assertEquals(2.042, AmostraTempos.valorT(30), 0);
+        Assert.assertEquals(2.021, AmostraTempos.valorT(40), 0.005);
+        Assert.assertEquals(1.984, AmostraTempos.valorT(100), 0.005);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void semIteracoes() {
+        new AmostraTempos(0);
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AnalisadorLinhaTest {
+
+    private static String erro(final String linha) {
+        try {
+            new AnalisadorLinha().analisar(linha);
+        } catch (IllegalArgumentException iae) {
+            return iae.getMessage();
+        }
+        Assert.fail();
+        return null;
+    }
+
+    @Test
+    public void campos() {
+        AnalisadorLinha analisador = new AnalisadorLinha();
+        analisador.analisar(" x + y ; x = 2 , y=-3.5 ; 1e1 ");
+        Assert.assertEquals("x+y", analisador.getExpressao());
+        Assert.assertEquals("x=2,y=-3.5", analisador.getVariaveis());
+        Assert.assertEquals(2, analisador.getQuantidadeVariaveis());
+        Assert.assertEquals("x", analisador.getNome(0));
+        Assert.assertEquals(2f, analisador.getValor(0), 0f);
+        Assert.assertEquals("y", analisador.getNome(1));
+        Assert.assertEquals(-3.5f, analisador.getValor(1), 0f);
+        Assert.assertEquals(10f, analisador.getEsperado(), 0f);
+    }
+
+    @Test
+    public void semVariaveis() {
+        AnalisadorLinha analisador = new AnalisadorLinha();
+        analisador.analisar("7/ 2 ;; 3.5");
+        Assert.assertEquals("7/2", analisador.getExpressao());
+        Assert.assertEquals("", analisador.getVariaveis());
+        Assert.assertEquals(0, analisador.getQuantidadeVariaveis());
+        Assert.assertEquals(3.5f, analisador.getEsperado(), 0f);
+    }
+
+    @Test
+    public void nomesInternados() {
+        AnalisadorLinha analisador = new AnalisadorLinha();
+        analisador.analisar("a;abc=1;1");
+        String primeiro = analisador.getNome(0);
+        for (int i = 0; i < 200; i++) {
+            analisador.analisar("a;v" + i + "=1;1");
+        }
+        analisador.analisar(new StringBuilder("a;abc=2;2"));
+        Assert.assertSame(primeiro, analisador.getNome(0));
+    }
+
+    @Test
+    public void mesmosValoresQueParseFloat() {
+        String[] numeros = {"0", "-0", "+5", "3.14159", "0.1", "16777215",
+            "16777217", "123456789012", "1e10", "1e-10", "2.5E+3", "7e11",
+            "1.", ".5", "0.000001", "9999999.5", "NaN", "-Infinity", "0x1p3",
+            "1f", "3.4028235e38", "1e-45"};
+        AnalisadorLinha analisador = new AnalisadorLinha();
+        for (String numero : numeros) {
+            analisador.analisar("x;x=" + numero + ";" + numero);
+            float esperado = Float.parseFloat(numero);
+            Assert.assertEquals(numero, Float.floatToIntBits(esperado),
+                    Float.floatToIntBits(analisador.getValor(0)));
+            Assert.assertEquals(numero, Float.floatToIntBits(esperado),
+                    Float.floatToIntBits(analisador.getEsperado()));
+        }
+    }
+
+    @Test
+    public void mesmoResultadoQueSplit() {
+        for (int i = 0; i < 2000; i++) {
+            float valor = (i - 1000) / 7f;
+            String linha = "(x * " + i + ") + y; x=" + valor + ", y="
+                    + (i * 0.013f) + "; " + (valor * i);
+            Teste teste = new Teste(linha);
+            String[] partes = linha.replace(" ", "").split(";");
+            Assert.assertEquals(partes[0], teste.getExpressao());
+            Assert.assertEquals(partes[1], teste.getVariaveis());
+            Assert.assertEquals(Float.parseFloat(partes[2]),
+                    teste.getEsperado(), 0f);
+            String[] variaveis = partes[1].split(",");
+            for (int j = 0; j < variaveis.length; j++) {
+                String texto = variaveis[j].split("=")[1];
+                Assert.assertEquals(Float.parseFloat(texto),
+                        teste.getVariaveisValor()[j], 0f);
+            }
+        }
+    }
+
+    @Test
+    public void errosComColuna() {
+        Assert.assertEquals("Coluna 4: esperado \";\" após a expressão.",
+                erro("1+1"));
+        Assert.assertEquals("Coluna 8: esperado \"=\" após o nome da "
+                + "variável.", erro("x;x=1,y;1"));
+        Assert.assertEquals("Coluna 5: valor da variável inválido: \"a\".",
+                erro("x;x=a;1"));
+        Assert.assertEquals("Coluna 5: valor esperado ausente.", erro("1;; "));
+        Assert.assertEquals("Coluna 7: esperado nome de variável.",
+                erro("x;x=1,;1"));
+        Assert.assertEquals("Coluna 6: conteúdo inesperado após o valor "
+                + "esperado.", erro("1;;1 x"));
+    }
+
+    @Test
+    public void camposExtrasIgnorados() {
+        AnalisadorLinha analisador = new AnalisadorLinha();
+        analisador.analisar("x;x=2;2;comentario;outro");
+        Assert.assertEquals("x", analisador.getExpressao());
+        Assert.assertEquals(2f, analisador.getEsperado(), 0f);
+    }
+
+    @Test
+    public void pontoEVirgulaFinal() {
+        AnalisadorLinha analisador = new AnalisadorLinha();
+        analisador.analisar("1;;1;");
+        Assert.assertEquals(1f, analisador.getEsperado(), 0f);
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import com.github.kyriosdata.parser.Expressao;
+import com.github.kyriosdata.parser.Lexer;
+import com.github.kyriosdata.parser.Parser;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CacheExpressoesTest {
+
+    private static Expressao interpretar(final String texto) {
+        return new Parser(new Lexer(texto).tokenize()).expressao();
+    }
+
+    @Test
+    public void acertosEFaltas() {
+        CacheExpressoes cache = new CacheExpressoes(16);
+        Assert.assertNull(cache.obter("1 + 2"));
+        Expressao expressao = interpretar("1 + 2");
+        cache.guardar("1 + 2", expressao, 3);
+        CacheExpressoes.Interpretada guardada = cache.obter("1 + 2");
+        Assert.assertSame(expressao, guardada.getExpressao());
+        Assert.assertEquals(3, guardada.getTokens());
+        Assert.assertFalse(guardada.isInvalida());
+        Assert.assertEquals(1, cache.getAcertos());
+        Assert.assertEquals(1, cache.getFaltas());
+        Assert.assertEquals(1, cache.getTamanho());
+    }
+
+    @Test
+    public void expressaoInvalida() {
+        CacheExpressoes cache = new CacheExpressoes(16);
+        cache.guardar("3 + 2 + 1", null, 0);
+        Assert.assertTrue(cache.obter("3 + 2 + 1").isInvalida());
+        Assert.assertNull(cache.obter("3 + 2 + 1").getExpressao());
+    }
+
+    private static void consultar(final CacheExpressoes cache,
+            final String texto) {
+        if (cache.obter(texto) == null) {
+            cache.guardar(texto, interpretar(texto), 1);
+        }
+    }
+
+    private static int presentes(final CacheExpressoes cache,
+            final String prefixo, final int quantidade) {
+        int presentes = 0;
+        for (int i = 0; i < quantidade; i++) {
+            if (cache.obter(prefixo + i) != null) {
+                presentes++;
+            }
+        }
+        return presentes;
+    }
+
+    @Test
+    public void respeitaCapacidade() {
+        //Capacidade 1 resulta em um elemento por segmento
+        CacheExpressoes cache = new CacheExpressoes(1);
+        for (int i = 0; i < 1000; i++) {
+            consultar(cache, String.valueOf(i));
+            consultar(cache, String.valueOf(i));
+        }
+        Assert.assertTrue(cache.getTamanho() <= 16);
+    }
+
+    @Test
+    public void recusaSemRepeticao() {
+        CacheExpressoes cache = new CacheExpressoes(1024);
+        for (int i = 0; i < 1024; i++) {
+            consultar(cache, "1 + " + i);
+        }
+        for (int i = 0; i < 1024; i++) {
+            consultar(cache, "2 + " + i);
+        }
+        Assert.assertTrue(presentes(cache, "1 + ", 1024) > 768);
+    }
+
+    @Test
+    public void substituiQuandoRepete() {
+        CacheExpressoes cache = new CacheExpressoes(1024);
+        for (int i = 0; i < 1024; i++) {
+            consultar(cache, "1 + " + i);
+        }
+        for (int vez = 0; vez < 3; vez++) {
+            for (int i = 0; i < 1024; i++) {
+                consultar(cache, "2 + " + i);
+            }
+        }
+        Assert.assertTrue(presentes(cache, "2 + ", 1024) > 512);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void capacidadeInvalida() {
+        new CacheExpressoes(0);
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CacheRemotoTest {
+
+    private HttpServer servidor;
+
+    private Path diretorio;
+
+    private volatile String conteudo = "a + b; a=1, b=2; 3\n5 / (6 - 5);;5\n";
+
+    private volatile String etag = "\"v1\"";
+
+    private final AtomicInteger transferencias = new AtomicInteger();
+
+    @Before
+    public void iniciar() throws IOException {
+        diretorio = Files.createTempDirectory("qp-cache");
+        servidor = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        servidor.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange troca) throws IOException {
+                String pedido = troca.getRequestHeaders()
+                        .getFirst("If-None-Match");
+                String modificado = troca.getRequestHeaders()
+                        .getFirst("If-Modified-Since");
+                boolean comEtag = !troca.getRequestURI().getPath()
+                        .startsWith("/data");
+                if (comEtag) {
+                    troca.getResponseHeaders().set("ETag", etag);
+                } else {
+                    troca.getResponseHeaders().set("Last-Modified",
+                            "Wed, 21 Oct 2015 07:28:00 GMT");
+                }
+                if ((comEtag && etag.equals(pedido))
+                        || (!comEtag && modificado != null)) {
+                    troca.sendResponseHeaders(304, -1);
+                    troca.close();
+                    return;
+                }
+                byte[] corpo = conteudo.getBytes(StandardCharsets.UTF_8);
+                transferencias.incrementAndGet();
+                troca.sendResponseHeaders(200, corpo.length);
+                try (OutputStream saida = troca.getResponseBody()) {
+                    saida.write(corpo);
+                }
+            }
+        });
+        servidor.start();
+    }
+
+    @After
+    public void parar() throws IOException {
+        servidor.stop(0);
+        for (Path arquivo : Files.newDirectoryStream(diretorio)) {
+            Files.delete(arquivo);
+        }
+        Files.delete(diretorio);
+    }
+
+    private String url(final String caminho) {
+        return "http://127.0.0.1:" + servidor.getAddress().getPort()
+                + caminho;
+    }
+
+    @Test
+    public void etagReaproveitado() throws IOException {
+        CacheRemoto cache = new CacheRemoto(diretorio, 1024 * 1024);
+        Path primeiro = cache.obter(url("/testes.txt"));
+        Path segundo = cache.obter(url("/testes.txt"));
+        Assert.assertEquals(primeiro, segundo);
+        Assert.assertEquals(1, transferencias.get());
+        Assert.assertEquals(1, cache.getTransferidos());
+        Assert.assertEquals(1, cache.getReaproveitados());
+        Assert.assertEquals(conteudo, new String(Files.readAllBytes(segundo),
+                StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void etagModificado() throws IOException {
+        CacheRemoto cache = new CacheRemoto(diretorio, 1024 * 1024);
+        cache.obter(url("/testes.txt"));
+        conteudo = "1 + 1;;2\n";
+        etag = "\"v2\"";
+        Path atual = cache.obter(url("/testes.txt"));
+        Assert.assertEquals(2, transferencias.get());
+        Assert.assertEquals("1 + 1;;2\n", new String(
+                Files.readAllBytes(atual), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void lastModifiedReaproveitado() throws IOException {
+        CacheRemoto cache = new CacheRemoto(diretorio, 1024 * 1024);
+        cache.obter(url("/data/testes.txt"));
+        cache.obter(url("/data/testes.txt"));
+        Assert.assertEquals(1, transferencias.get());
+        Assert.assertEquals(1, cache.getReaproveitados());
+    }
+
+    @Test
+    public void persistenteEntreInstancias() throws IOException {
+        new CacheRemoto(diretorio, 1024 * 1024).obter(url("/testes.txt"));
+        CacheRemoto outro = new CacheRemoto(diretorio, 1024 * 1024);
+        outro.obter(url("/testes.txt"));
+        Assert.assertEquals(1, transferencias.get());
+        Assert.assertEquals(1, outro.getReaproveitados());
+    }
+
+    @Test
+    public void remocaoMenosRecente() throws IOException {
+        //cabem apenas duas entradas
+        int tamanho = conteudo.getBytes(StandardCharsets.UTF_8).length;
+        CacheRemoto cache = new CacheRemoto(diretorio, 2 * tamanho);
+        Path a = cache.obter(url("/a.txt"));
+        cache.liberar(a);
+        Path b = cache.obter(url("/b.txt"));
+        cache.liberar(b);
+        cache.liberar(cache.obter(url("/a.txt")));
+        Path c = cache.obter(url("/c.txt"));
+        Assert.assertTrue(Files.exists(a));
+        Assert.assertFalse(Files.exists(b));
+        Assert.assertTrue(Files.exists(c));
+    }
+
+    @Test
+    public void entradaReservadaPreservada() throws IOException {
+        //cabe apenas uma entrada, mas a e b continuam em uso
+        int tamanho = conteudo.getBytes(StandardCharsets.UTF_8).length;
+        CacheRemoto cache = new CacheRemoto(diretorio, tamanho);
+        Path a = cache.obter(url("/a.txt"));
+        Path b = cache.obter(url("/b.txt"));
+        Path revalidada = cache.obter(url("/b.txt"));
+        cache.liberar(b);
+        Path c = cache.obter(url("/c.txt"));
+        Assert.assertTrue(Files.exists(a));
+        Assert.assertTrue(Files.exists(revalidada));
+        Assert.assertTrue(Files.exists(c));
+
+        //liberadas, as entradas voltam a ser removidas por falta de espaço
+        cache.liberar(a);
+        cache.liberar(revalidada);
+        cache.liberar(c);
+        cache.liberar(cache.obter(url("/d.txt")));
+        Assert.assertFalse(Files.exists(a));
+        Assert.assertFalse(Files.exists(b));
+        Assert.assertFalse(Files.exists(c));
+    }
+
+    @Test
+    public void lerComCache() throws IOException {
+        CacheRemoto cache = new CacheRemoto(diretorio, 1024 * 1024);
+        List<String> linhas = Ler.obterLinhas(url("/testes.txt"), false,
+                cache);
+        Assert.assertEquals(Arrays.asList("a + b; a=1, b=2; 3",
+                "5 / (6 - 5);;5"), linhas);
+        linhas = Ler.obterLinhas(url("/testes.txt"), false, cache);
+        Assert.assertEquals(2, linhas.size());
+        Assert.assertEquals(1, transferencias.get());
+    }
+
+    @Test(expected = IOException.class)
+    public void respostaInesperada() throws IOException {
+        servidor.removeContext("/");
+        new CacheRemoto(diretorio, 1024 * 1024).obter(url("/testes.txt"));
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.Stream;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CacheResultadosTest {
+
+    private static void executar(final CacheResultados cache,
+            final SuiteTestes testes) throws IOException {
+        cache.aplicar(testes);
+        for (int i = 0; i < testes.getTamanho(); i++) {
+            if (!testes.isReaproveitado(i)) {
+                testes.calcularValor(i);
+            }
+            testes.atualizarSucesso(i);
+            cache.guardar(testes, i);
+        }
+        cache.concluir();
+    }
+
+    @Test
+    public void chaveIgnoraEspacosEEsperado() {
+        SuiteTestes testes = new SuiteTestes();
+        testes.adicionar("(x * 2); x=3; 6");
+        testes.adicionar("(x*2);x=3;7");
+        testes.adicionar("(x * 2); x=4; 8");
+        testes.adicionar("(y * 2); y=3; 6");
+        Assert.assertEquals(CacheResultados.chave(testes, 0),
+                CacheResultados.chave(testes, 1));
+        Assert.assertNotEquals(CacheResultados.chave(testes, 0),
+                CacheResultados.chave(testes, 2));
+        Assert.assertNotEquals(CacheResultados.chave(testes, 0),
+                CacheResultados.chave(testes, 3));
+    }
+
+    @Test
+    public void reaproveitaResultadosDaExecucaoAnterior() throws IOException {
+        Path diretorio = Files.createTempDirectory("resultados");
+        Path arquivo = diretorio.resolve(CacheResultados.ARQUIVO);
+        try {
+            SuiteTestes primeira = new SuiteTestes();
+            primeira.adicionar("(1 + 2);;3");
+            primeira.adicionar("(x * 2); x=3; 6");
+            primeira.adicionar("(1 +);;0");
+            try (CacheResultados cache = new CacheResultados(arquivo, "v1")) {
+                Assert.assertEquals(0, cache.getCarregados());
+                executar(cache, primeira);
+            }
+
+            SuiteTestes segunda = new SuiteTestes();
+            segunda.adicionar("(1 + 2);;4");
+            segunda.adicionar("(x * 2); x=4; 8");
+            segunda.adicionar("(1 +);;0");
+            try (CacheResultados cache = new CacheResultados(arquivo, "v1")) {
+                Assert.assertEquals(3, cache.getCarregados());
+                Assert.assertEquals(2, cache.aplicar(segunda));
+                Assert.assertTrue(segunda.isReaproveitado(0));
+                Assert.assertEquals(3f, segunda.getObtido(0), 0.0001f);
+                Assert.assertFalse(segunda.isReaproveitado(1));
+                Assert.assertTrue(segunda.isReaproveitado(2));
+                Assert.assertFalse(segunda.isObtido(2));
+                segunda.atualizarSucesso(0);
+                Assert.assertFalse(segunda.getSucesso(0));
+            }
+
+            try (CacheResultados cache = new CacheResultados(arquivo, "v2")) {
+                Assert.assertEquals(0, cache.getCarregados());
+            }
+        } finally {
+            Files.deleteIfExists(arquivo);
+            Files.delete(diretorio);
+        }
+    }
+
+    @Test
+    public void mantemCacheSeNaoConcluido() throws IOException {
+        Path diretorio = Files.createTempDirectory("resultados");
+        Path arquivo = diretorio.resolve(CacheResultados.ARQUIVO);
+        try {
+            SuiteTestes testes = new SuiteTestes();
+            testes.adicionar("(1 + 2);;3");
+            try (CacheResultados cache = new CacheResultados(arquivo, "v1")) {
+                executar(cache, testes);
+            }
+            try (CacheResultados cache = new CacheResultados(arquivo, "v1")) {
+                cache.guardar(testes, 0);
+            }
+            try (CacheResultados cache = new CacheResultados(arquivo, "v1")) {
+                Assert.assertEquals(1, cache.getCarregados());
+            }
+            try (Stream<Path> arquivos =
+                    Files.list(diretorio)) {
+                Assert.assertEquals(1, arquivos.count());
+            }
+        } finally {
+            Files.deleteIfExists(arquivo);
+            Files.delete(diretorio);
+        }
+    }
+
+    @Test
+    public void maximoCarregadosLimitadoPelaMemoria() {
+        Assert.assertEquals(1 << 24,
+                CacheResultados.maximoCarregados(Long.MAX_VALUE));
+        Assert.assertTrue(CacheResultados.maximoCarregados(64L << 20)
+                < 1 << 20);
+    }
+
+    @Test
+    public void arquivoGrandeDemaisIgnorado() throws IOException {
+        Path diretorio = Files.createTempDirectory("resultados");
+        Path arquivo = diretorio.resolve(CacheResultados.ARQUIVO);
+        try {
+            SuiteTestes testes = new SuiteTestes();
+            testes.adicionar("(1 + 2);;3");
+            try (CacheResultados cache = new CacheResultados(arquivo, "v1")) {
+                executar(cache, testes);
+            }
+            //arquivo esparso com mais resultados do que cabem na memória
+            try (FileChannel canal = FileChannel.open(arquivo,
+                    StandardOpenOption.WRITE)) {
+                canal.write(ByteBuffer.allocate(1), 1L << 36);
+            }
+            try (CacheResultados cache = new CacheResultados(arquivo, "v1")) {
+                Assert.assertEquals(0, cache.getCarregados());
+                executar(cache, testes);
+            }
+            try (CacheResultados cache = new CacheResultados(arquivo, "v1")) {
+                Assert.assertEquals(1, cache.getCarregados());
+            }
+        } finally {
+            Files.deleteIfExists(arquivo);
+            Files.delete(diretorio);
+        }
+    }
+}
@@ -32,4 +32,95 @@ public class CalcularTest {
         Teste teste = new Teste("1 + x + 2;x=2; 5");
         Calcular.resultadoExpressao(teste);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void expressaoRepetidaUsaCache() throws Exception {
+        CacheExpressoes anterior = Calcular.getCache();
+        CacheExpressoes cache = new CacheExpressoes(16);
+        Calcular.setCache(cache);
+        try {
+            Calcular.resultadoExpressao(new Teste("x * 2;x=3; 6"));
+            float obtido = Calcular.resultadoExpressao(
+                    new Teste("x * 2;x=4; 8"));
+            Assert.assertEquals(8f, obtido, 0.001f);
+            Assert.assertEquals(1, cache.getFaltas());
+            Assert.assertEquals(1, cache.getAcertos());
+        } finally {
+            Calcular.setCache(anterior);
+        }
+    }
+
+    @Test
+    public void expressaoInvalidaRepetida() throws Exception {
+        CacheExpressoes anterior = Calcular.getCache();
+        Calcular.setCache(new CacheExpressoes(16));
+        try {
+            for (int i = 0; i < 2; i++) {
+                try {
+                    Calcular.resultadoExpressao(new Teste("3 + 2 + 1;; 6"));
+                    Assert.fail();
+                } catch (IllegalArgumentException iae) {
+                    Assert.fail();
+                } catch (Exception ex) {
+                    Assert.assertNotNull(ex);
+                }
+            }
+            Assert.assertEquals(1, Calcular.getCache().getAcertos());
+        } finally {
+            Calcular.setCache(anterior);
+        }
+    }
+
+    @Test
+    public void semCache() throws Exception {
+        CacheExpressoes anterior = Calcular.getCache();
+        Calcular.setCache(null);
+        try {
+            Teste teste = new Teste("7/ 2 ;; 3.5");
+            Assert.assertEquals(3.5f, Calcular.resultadoExpressao(teste),
+                    0.001f);
+        } finally {
+            Calcular.setCache(anterior);
+        }
+    }
+
+    @Test
+    public void fases() throws Exception {
+        CacheExpressoes anterior = Calcular.getCache();
+        Calcular.setCache(new CacheExpressoes(16));
+        try {
+            SuiteTestes suite = new SuiteTestes();
+            suite.adicionar("x * 2;x=3; 6");
+            suite.adicionar("x * 2;x=4; 8");
+            suite.adicionar("(1 + ;;0");
+            FasesParser fases = new FasesParser();
+            Assert.assertEquals(6f, Calcular.resultadoExpressao(suite, 0,
+                    fases), 0.001f);
+            Assert.assertEquals(8f, Calcular.resultadoExpressao(suite, 1,
+                    fases), 0.001f);
+            try {
+                Calcular.resultadoExpressao(suite, 2, fases);
+                Assert.fail();
+            } catch (IllegalArgumentException iae) {
+                Assert.fail();
+            } catch (Exception ex) {
+                Assert.assertNotNull(ex);
+            }
+
+            //a segunda expressão vem do cache e só é avaliada, mas os seus
+            //tokens (3) continuam contabilizados
+            Assert.assertEquals(1, fases.getAnalises());
+            Assert.assertEquals(1, fases.getAcertos());
+            Assert.assertEquals(2, fases.getAvaliacoes());
+            Assert.assertEquals(2, fases.getAvaliacoes(FasesParser.VARIAVEIS,
+                    1));
+            Assert.assertEquals(1, fases.getAcertos(FasesParser.TOKENS, 2));
+            Assert.assertEquals(2, fases.getAvaliacoes(FasesParser.TOKENS,
+                    2));
+            Assert.assertTrue(fases.getNanosLexica() > 0);
+        } finally {
+            Calcular.setCache(anterior);
+        }
+    }
+
+}
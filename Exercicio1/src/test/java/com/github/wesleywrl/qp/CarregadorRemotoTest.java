@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CarregadorRemotoTest {
+
+    private HttpServer servidor;
+
+    private String endereco;
+
+    private final AtomicInteger simultaneas = new AtomicInteger();
+
+    private final AtomicInteger maximoSimultaneas = new AtomicInteger();
+
+    private final AtomicInteger falhasRestantes = new AtomicInteger();
+
+    private final AtomicInteger pedidos = new AtomicInteger();
+
+    @Before
+    public void iniciar() throws IOException {
+        servidor = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        servidor.setExecutor(Executors.newCachedThreadPool());
+        servidor.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange troca) throws IOException {
+                pedidos.incrementAndGet();
+                int atuais = simultaneas.incrementAndGet();
+                maximoSimultaneas.accumulateAndGet(atuais, Math::max);
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+                simultaneas.decrementAndGet();
+                String caminho = troca.getRequestURI().getPath();
+                if (caminho.startsWith("/ausente")) {
+                    troca.sendResponseHeaders(404, -1);
+                    troca.close();
+                    return;
+                }
+                if (falhasRestantes.getAndDecrement() > 0) {
+                    troca.sendResponseHeaders(503, -1);
+                    troca.close();
+                    return;
+                }
+                byte[] corpo = "(1 + 1);;2\n".getBytes(
+                        StandardCharsets.UTF_8);
+                troca.sendResponseHeaders(200, corpo.length);
+                try (OutputStream saida = troca.getResponseBody()) {
+                    saida.write(corpo);
+                }
+            }
+        });
+        servidor.start();
+        endereco = "http://127.0.0.1:" + servidor.getAddress().getPort();
+    }
+
+    @After
+    public void parar() {
+        servidor.stop(0);
+    }
+
+    @Test
+    public void limitePorServidor() throws Exception {
+        List<Future<Path>> copias = new ArrayList<>();
+        try (CarregadorRemoto carregador = new CarregadorRemoto(null, 2, 1)) {
+            for (int i = 0; i < 10; i++) {
+                copias.add(carregador.agendar(endereco + "/s" + i + ".txt"));
+            }
+            for (int i = 0; i < 10; i++) {
+                Path copia = copias.get(i).get();
+                Assert.assertEquals(Arrays.asList("(1 + 1);;2"),
+                        Files.readAllLines(copia, StandardCharsets.UTF_8));
+                carregador.liberar(copia);
+                Assert.assertFalse(Files.exists(copia));
+            }
+        }
+        Assert.assertEquals(2, maximoSimultaneas.get());
+    }
+
+    @Test
+    public void repeteFalhasTransitorias() throws IOException {
+        falhasRestantes.set(2);
+        try (CarregadorRemoto carregador = new CarregadorRemoto(null, 4, 3)) {
+            Path copia = carregador.obter(endereco + "/a.txt");
+            Assert.assertTrue(Files.exists(copia));
+            Assert.assertEquals(2, carregador.getRepeticoes());
+            Assert.assertEquals(3, pedidos.get());
+        }
+    }
+
+    @Test
+    public void desisteAposTentativas() {
+        falhasRestantes.set(5);
+        try (CarregadorRemoto carregador = new CarregadorRemoto(null, 4, 2)) {
+            carregador.obter(endereco + "/a.txt");
+            Assert.fail();
+        } catch (IOException ex) {
+            Assert.assertEquals(2, pedidos.get());
+        }
+    }
+
+    @Test
+    public void arquivoAusenteNaoRepete() throws IOException {
+        try (CarregadorRemoto carregador = new CarregadorRemoto(null, 4, 3)) {
+            carregador.obter(endereco + "/ausente.txt");
+            Assert.fail();
+        } catch (FileNotFoundException ex) {
+            Assert.assertEquals(1, pedidos.get());
+        }
+    }
+
+    @Test
+    public void comCache() throws IOException {
+        Path diretorio = Files.createTempDirectory("qp-cache");
+        CacheRemoto cache = new CacheRemoto(diretorio,
+                CacheRemoto.LIMITE_PADRAO);
+        try (CarregadorRemoto carregador = new CarregadorRemoto(cache, 4,
+                1)) {
+            Path copia = carregador.obter(endereco + "/a.txt");
+            carregador.liberar(copia);
+            Assert.assertTrue(copia.startsWith(diretorio));
+            Assert.assertTrue(Files.exists(copia));
+        }
+    }
+
+    @Test
+    public void loteRemoto() throws IOException {
+        Path lista = Files.createTempFile("lista", ".txt");
+        Files.write(lista, Arrays.asList(endereco + "/a.txt",
+                endereco + "/b.txt", endereco + "/ausente.txt"),
+                StandardCharsets.UTF_8);
+        Configuracao config = new Configuracao();
+        config.setCaminho("@" + lista);
+        config.setCacheRemoto(false);
+        Path destino = Files.createTempDirectory("relatorios");
+        ExecucaoLote lote = new ExecucaoLote(config);
+        lote.executar(destino.toString());
+        Assert.assertEquals(2, lote.getTestes());
+        Assert.assertEquals(1, lote.getErros());
+        Assert.assertEquals("Arquivo não encontrado.", lote.getErro(2));
+        Files.delete(lista);
+    }
+
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ComparacaoBaseTest {
+
+    private static SuiteTestes suite(final long lento) {
+        SuiteTestes testes = new SuiteTestes();
+        for (int i = 0; i < 100; i++) {
+            testes.adicionar("(x * 2); x=" + i + "; 0");
+            testes.setTempo(i, 10000 + i % 5 * 100);
+        }
+        testes.setTempo(7, lento);
+        return testes;
+    }
+
+    private static ComparacaoBase comparar(final Path base,
+            final long lento, final long nanosIteracao) throws IOException {
+        return comparar(base, suite(lento), nanosIteracao);
+    }
+
+    private static ComparacaoBase comparar(final Path base,
+            final SuiteTestes testes, final long nanosIteracao)
+            throws IOException {
+        Estatisticas atual = new Estatisticas();
+        atual.getIteracoes().adicionar(0, nanosIteracao);
+        ComparacaoBase comparacao = new ComparacaoBase(base, 0.1);
+        for (int i = 0; i < testes.getTamanho(); i++) {
+            comparacao.comparar(i, testes, i);
+            atual.registrar(true);
+        }
+        comparacao.concluir(atual);
+        comparacao.close();
+        return comparacao;
+    }
+
+    @Test
+    public void testeRegredido() throws IOException {
+        Path base = EscritorBinarioTest.gerar(suite(10000));
+        try {
+            ComparacaoBase comparacao = comparar(base, 50000, 2000000);
+            Assert.assertFalse(comparacao.isRegressao());
+            Assert.assertEquals(100, comparacao.getComparados());
+            Assert.assertEquals(1, comparacao.getRegredidos());
+            int[] ordem = comparacao.ordemRegredidos();
+            Assert.assertEquals(1, ordem.length);
+            Assert.assertEquals(7, comparacao.getCandidatos()
+                    .getPosicao(ordem[0]));
+            Assert.assertEquals(5.0, comparacao.getRazao(ordem[0]), 0.01);
+        } finally {
+            Files.delete(base);
+        }
+    }
+
+    @Test
+    public void semRegressao() throws IOException {
+        Path base = EscritorBinarioTest.gerar(suite(10000));
+        try {
+            ComparacaoBase comparacao = comparar(base, 10500, 3200000);
+            Assert.assertFalse(comparacao.isRegressao());
+            Assert.assertEquals(0, comparacao.getRegredidos());
+            Assert.assertEquals(0, comparacao.ordemRegredidos().length);
+        } finally {
+            Files.delete(base);
+        }
+    }
+
+    @Test
+    public void tempoMedioRegredido() throws IOException {
+        Path base = EscritorBinarioTest.gerar(suite(10000));
+        try {
+            ComparacaoBase comparacao = comparar(base, 10000, 4000000);
+            Assert.assertTrue(comparacao.isRegressao());
+            Assert.assertEquals(0.03, comparacao.getMediaBase(), 0.0001);
+            Assert.assertEquals(0.04, comparacao.getMediaAtual(), 0.0001);
+        } finally {
+            Files.delete(base);
+        }
+    }
+
+    @Test
+    public void expressaoDiferenteSemBase() throws IOException {
+        SuiteTestes anterior = new SuiteTestes();
+        for (int i = 0; i < 100; i++) {
+            anterior.adicionar("(x * 3); x=" + i + "; 0");
+            anterior.setTempo(i, 10000);
+        }
+        Path base = EscritorBinarioTest.gerar(anterior);
+        try {
+            ComparacaoBase comparacao = comparar(base, 50000, 3000000);
+            Assert.assertEquals(0, comparacao.getComparados());
+            Assert.assertEquals(100, comparacao.getSemBase());
+            Assert.assertEquals(0, comparacao.getRegredidos());
+            Assert.assertFalse(comparacao.isRegressao());
+        } finally {
+            Files.delete(base);
+        }
+    }
+
+    @Test
+    public void incrementalComparaMedidos() throws IOException {
+        Path base = EscritorBinarioTest.gerar(suite(10000));
+        try {
+            SuiteTestes testes = suite(10000);
+            for (int i = 50; i < 100; i++) {
+                testes.setTempo(i, 0);
+            }
+            ComparacaoBase comparacao = comparar(base, testes, 1500000);
+            Assert.assertEquals(50, comparacao.getComparados());
+            Assert.assertEquals(0, comparacao.getSemBase());
+            Assert.assertFalse(comparacao.isRegressao());
+            Assert.assertEquals(comparacao.getMediaBase(),
+                    comparacao.getMediaAtual(), 0.001);
+        } finally {
+            Files.delete(base);
+        }
+    }
+}
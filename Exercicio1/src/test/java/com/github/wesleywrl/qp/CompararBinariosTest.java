@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CompararBinariosTest {
+
+    private static Path gerar(final String... linhas) throws IOException {
+        SuiteTestes testes = new SuiteTestes();
+        for (String linha : linhas) {
+            int i = testes.adicionar(linha);
+            testes.calcularValor(i);
+            testes.atualizarSucesso(i);
+        }
+        return EscritorBinarioTest.gerar(testes);
+    }
+
+    @Test
+    public void iguais() throws IOException {
+        Path a = gerar("(1 + 2);;3", "(x * 2); x=3; 6");
+        Path b = gerar("(1 + 2);;3", "(x * 2); x=3; 6");
+        try {
+            Assert.assertEquals(CompararBinarios.IGUAIS,
+                    CompararBinarios.comparar(a, b, new PrintStream(
+                            new ByteArrayOutputStream(), true, "UTF-8")));
+        } finally {
+            Files.delete(a);
+            Files.delete(b);
+        }
+    }
+
+    @Test
+    public void diferentes() throws IOException {
+        Path a = gerar("(1 + 2);;3", "(x * 2); x=3; 6", "(1 + 1);;3");
+        Path b = gerar("(1 + 2);;3", "(x * 2); x=3; 7", "(1 + 2);;3");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            Assert.assertEquals(CompararBinarios.DIFERENTES,
+                    CompararBinarios.comparar(a, b, new PrintStream(bytes,
+                            true, "UTF-8")));
+            String saida = bytes.toString("UTF-8");
+            Assert.assertTrue(saida.contains("FALHA teste 1 (x*2)"));
+            Assert.assertTrue(saida.contains("CORRIGIDO teste 2 (1+2)"));
+            Assert.assertTrue(saida.contains("Passaram a falhar: 1; passaram "
+                    + "a ter sucesso: 1; outro valor obtido: 0"));
+        } finally {
+            Files.delete(a);
+            Files.delete(b);
+        }
+    }
+
+    @Test
+    public void arquivoInexistente() throws IOException {
+        Assert.assertEquals(CompararBinarios.ERRO,
+                CompararBinarios.comparar(Paths.get("naoexiste.qpb"),
+                        Paths.get("naoexiste.qpb"), new PrintStream(
+                                new ByteArrayOutputStream(), true, "UTF-8")));
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import java.nio.file.Paths;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ConfiguracaoTest {
+
+    @Test
+    public void padrao() {
+        Configuracao config = Configuracao.interpretar(new String[]{"a.txt"});
+        Assert.assertEquals("a.txt", config.getCaminho());
+        Assert.assertEquals(false, config.isHtml());
+        Assert.assertEquals(true, config.isLocal());
+        Assert.assertEquals(1, config.getThreads());
+        Assert.assertEquals(false, config.isFluxo());
+    }
+
+    @Test
+    public void fluxo() {
+        Configuracao config = Configuracao.interpretar(
+                new String[]{"a.txt", "-f"});
+        Assert.assertEquals(true, config.isFluxo());
+    }
+
+    @Test
+    public void binario() {
+        Configuracao config = Configuracao.interpretar(
+                new String[]{"a.txt", "-b"});
+        Assert.assertEquals(true, config.isBinario());
+        Assert.assertEquals(false, config.isHtml());
+    }
+
+    @Test
+    public void incremental() {
+        Configuracao config = Configuracao.interpretar(
+                new String[]{"a.txt", "-incremental"});
+        Assert.assertEquals(true, config.isIncremental());
+    }
+
+    @Test
+    public void base() {
+        Configuracao config = Configuracao.interpretar(
+                new String[]{"a.txt", "-base=a.qpb", "-orcamento=5"});
+        Assert.assertEquals("a.qpb", config.getBase().toString());
+        Assert.assertEquals(0.05, config.getOrcamento(), 0.0001);
+    }
+
+    @Test
+    public void remoto() {
+        Configuracao config = Configuracao.interpretar(
+                new String[]{"http://localhost/a.txt"});
+        Assert.assertEquals(false, config.isLocal());
+    }
+
+    @Test
+    public void htmlParaleloQualquerOrdem() {
+        Configuracao config = Configuracao.interpretar(
+                new String[]{"a.txt", "-p=4", "-h"});
+        Assert.assertEquals(true, config.isHtml());
+        Assert.assertEquals(4, config.getThreads());
+    }
+
+    @Test
+    public void paraleloProcessadores() {
+        Configuracao config = Configuracao.interpretar(
+                new String[]{"a.txt", "-p"});
+        Assert.assertEquals(Runtime.getRuntime().availableProcessors(),
+                config.getThreads());
+    }
+
+    @Test
+    public void cacheRemoto() {
+        Configuracao config = Configuracao.interpretar(new String[]{"a.txt",
+            "-cache-remoto=/tmp/qp", "-cache-remoto-max=10"});
+        Assert.assertEquals(true, config.isCacheRemoto());
+        Assert.assertEquals("/tmp/qp",
+                config.getDiretorioCacheRemoto().toString());
+        Assert.assertEquals(10L * 1024 * 1024, config.getLimiteCacheRemoto());
+        Assert.assertNotNull(config.criarCacheRemoto());
+    }
+
+    @Test
+    public void semCacheRemoto() {
+        Configuracao config = Configuracao.interpretar(
+                new String[]{"a.txt", "-sem-cache-remoto"});
+        Assert.assertEquals(false, config.isCacheRemoto());
+        Assert.assertNull(config.criarCacheRemoto());
+    }
+
+    @Test
+    public void cacheExpressoes() {
+        Configuracao config = Configuracao.interpretar(
+                new String[]{"a.txt", "-cache=32"});
+        Assert.assertEquals(true, config.isCacheExpressoes());
+        Assert.assertEquals(32, config.getCapacidadeCacheExpressoes());
+        Assert.assertNotNull(config.criarCacheExpressoes());
+    }
+
+    @Test
+    public void cacheExpressoesOpcional() {
+        Configuracao config = Configuracao.interpretar(
+                new String[]{"a.txt"});
+        Assert.assertEquals(false, config.isCacheExpressoes());
+        Assert.assertNull(config.criarCacheExpressoes());
+        config = Configuracao.interpretar(new String[]{"a.txt", "-cache"});
+        Assert.assertEquals(true, config.isCacheExpressoes());
+        Assert.assertEquals(CacheExpressoes.CAPACIDADE_PADRAO,
+                config.getCapacidadeCacheExpressoes());
+    }
+
+    @Test
+    public void semCacheExpressoes() {
+        Configuracao config = Configuracao.interpretar(
+                new String[]{"a.txt", "-sem-cache"});
+        Assert.assertEquals(false, config.isCacheExpressoes());
+        Assert.assertNull(config.criarCacheExpressoes());
+    }
+
+    @Test
+    public void iteracoes() {
+        Configuracao config = Configuracao.interpretar(
+                new String[]{"a.txt", "-aquecimento=3", "-iteracoes=5"});
+        Assert.assertEquals(3, config.getAquecimento());
+        Assert.assertEquals(5, config.getIteracoes());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void iteracoesInvalidas() {
+        Configuracao.interpretar(new String[]{"a.txt", "-iteracoes=0"});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void semParametros() {
+        Configuracao.interpretar(new String[0]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parametroDesconhecido() {
+        Configuracao.interpretar(new String[]{"a.txt", "-q"});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void threadsInvalidas() {
+        Configuracao.interpretar(new String[]{"a.txt", "-p=0"});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void threadsNaoNumericas() {
+        Configuracao.interpretar(new String[]{"a.txt", "-p=x"});
+    }
+    @Test
+    public void resolver() {
+        Configuracao config = Configuracao.interpretar(new String[]{
+            "a.txt", "-base=b/base.qpb", "-cache-remoto=/tmp/qp"});
+        config.resolver(Paths.get("/dados"));
+        Assert.assertEquals(Paths.get("/dados/a.txt").toString(),
+                config.getCaminho());
+        Assert.assertEquals(Paths.get("/dados/b/base.qpb"), config.getBase());
+        Assert.assertEquals(Paths.get("/tmp/qp"),
+                config.getDiretorioCacheRemoto());
+
+        config = Configuracao.interpretar(
+                new String[]{"http://exemplo.com/a.txt"});
+        config.resolver(Paths.get("/dados"));
+        Assert.assertEquals("http://exemplo.com/a.txt", config.getCaminho());
+    }
+
+    @Test
+    public void conexoesTentativas() {
+        Configuracao config = Configuracao.interpretar(new String[]{"a.txt"});
+        Assert.assertEquals(CarregadorRemoto.CONEXOES_POR_HOST_PADRAO,
+                config.getConexoesPorHost());
+        config = Configuracao.interpretar(new String[]{"a.txt",
+            "-conexoes=8", "-tentativas=5"});
+        Assert.assertEquals(8, config.getConexoesPorHost());
+        Assert.assertEquals(5, config.getTentativas());
+    }
+
+    @Test
+    public void limitePilha() {
+        Configuracao config = Configuracao.interpretar(new String[]{"a.txt"});
+        Assert.assertEquals(ExecutorTestes.LIMITE_PADRAO,
+                config.getLimiteTeste());
+        Assert.assertEquals(0, config.getPilha());
+        config = Configuracao.interpretar(new String[]{"a.txt",
+            "-limite=250", "-pilha=2048"});
+        Assert.assertEquals(250, config.getLimiteTeste());
+        Assert.assertEquals(2048 * 1024, config.getPilha());
+        config = Configuracao.interpretar(new String[]{"a.txt",
+            "-sem-limite"});
+        Assert.assertEquals(0, config.getLimiteTeste());
+    }
+
+    @Test
+    public void processos() {
+        Configuracao config = Configuracao.interpretar(new String[]{"a.txt"});
+        Assert.assertEquals(1, config.getProcessos());
+        config = Configuracao.interpretar(new String[]{"a.txt",
+            "-processos=4"});
+        Assert.assertEquals(4, config.getProcessos());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void processosInvalido() {
+        Configuracao.interpretar(new String[]{"a.txt", "-processos=0"});
+    }
+
+    @Test
+    public void jmx() {
+        Assert.assertFalse(Configuracao.interpretar(new String[]{"a.txt"})
+                .isJmx());
+        Assert.assertTrue(Configuracao.interpretar(new String[]{"a.txt",
+            "-jmx"}).isJmx());
+    }
+
+    @Test
+    public void jfr() {
+        Assert.assertNull(Configuracao.interpretar(new String[]{"a.txt"})
+                .getJfr());
+        Configuracao config = Configuracao.interpretar(new String[]{"a.txt",
+            "-jfr=execucao.jfr"});
+        Assert.assertEquals(Paths.get("execucao.jfr"), config.getJfr());
+        config.resolver(Paths.get("/tmp"));
+        Assert.assertEquals(Paths.get("/tmp/execucao.jfr"), config.getJfr());
+    }
+
+    @Test
+    public void fases() {
+        Assert.assertFalse(Configuracao.interpretar(new String[]{"a.txt"})
+                .isFases());
+        Assert.assertTrue(Configuracao.interpretar(new String[]{"a.txt",
+            "-fases"}).isFases());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fasesComProcessos() {
+        Configuracao.interpretar(new String[]{"a.txt", "-fases",
+            "-processos=2"});
+    }
+
+}
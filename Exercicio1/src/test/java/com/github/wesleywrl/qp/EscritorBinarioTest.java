@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class EscritorBinarioTest {
+
+    static Path gerar(final SuiteTestes testes) throws IOException {
+        Path arquivo = Files.createTempFile("relatorio", ".qpb");
+        Estatisticas resumo = new Estatisticas();
+        for (int i = 0; i < testes.getTamanho(); i++) {
+            resumo.registrar(testes.getSucesso(i));
+        }
+        resumo.setThreads(2);
+        resumo.adicionarTempo(3000000L, 1000000L);
+        try (EscritorBinario escritor = new EscritorBinario(arquivo)) {
+            escritor.iniciar(null);
+            for (int i = 0; i < testes.getTamanho(); i++) {
+                escritor.escreverTeste(testes, i);
+            }
+            escritor.finalizar(resumo);
+        }
+        return arquivo;
+    }
+
+    @Test
+    public void leituraDoQueFoiEscrito() throws IOException {
+        SuiteTestes testes = new SuiteTestes();
+        testes.adicionar("(x * 2); x=3; 6");
+        testes.adicionar("(1 + 2);;4");
+        testes.adicionar("(x * 2); x=5; 10");
+        testes.adicionar("(çã + 1); çã=1; 2");
+        for (int i = 0; i < 3; i++) {
+            testes.calcularValor(i);
+            testes.atualizarSucesso(i);
+            testes.setTempo(i, 100 + i);
+            testes.setAlocados(i, 200 + i);
+        }
+        Path arquivo = gerar(testes);
+        try (LeitorBinario leitor = new LeitorBinario(arquivo)) {
+            Assert.assertEquals(4, leitor.getTestes());
+            Assert.assertEquals(2, leitor.getFalhas());
+            Assert.assertEquals(2, leitor.getThreads());
+            Assert.assertEquals(3f, leitor.getTempoTotal(), 0.0001f);
+            Assert.assertEquals(1f, leitor.getTempoCpu(), 0.0001f);
+
+            Assert.assertTrue(leitor.avancar());
+            Assert.assertEquals(0, leitor.getOrdem());
+            Assert.assertEquals("(x*2)", leitor.getExpressao());
+            Assert.assertEquals(6f, leitor.getEsperado(), 0.0001f);
+            Assert.assertTrue(leitor.isObtido());
+            Assert.assertEquals(6f, leitor.getObtido(), 0.0001f);
+            Assert.assertTrue(leitor.getSucesso());
+            Assert.assertEquals(100, leitor.getTempo());
+            Assert.assertEquals(200, leitor.getAlocados());
+
+            Assert.assertTrue(leitor.avancar());
+            Assert.assertEquals("(1+2)", leitor.getExpressao());
+            Assert.assertFalse(leitor.getSucesso());
+
+            Assert.assertTrue(leitor.avancar());
+            Assert.assertEquals("(x*2)", leitor.getExpressao());
+            Assert.assertEquals(10f, leitor.getObtido(), 0.0001f);
+
+            Assert.assertTrue(leitor.avancar());
+            Assert.assertEquals(3, leitor.getOrdem());
+            Assert.assertEquals("(çã+1)", leitor.getExpressao());
+            Assert.assertFalse(leitor.isObtido());
+            Assert.assertFalse(leitor.avancar());
+        } finally {
+            Files.delete(arquivo);
+        }
+    }
+
+    @Test
+    public void expressoesRepetidasGuardadasUmaVez() throws IOException {
+        SuiteTestes testes = new SuiteTestes();
+        for (int i = 0; i < 100; i++) {
+            testes.adicionar("(x * 2); x=" + i + "; 0");
+        }
+        Path arquivo = gerar(testes);
+        try {
+            Assert.assertEquals(EscritorBinario.TAMANHO_CABECALHO
+                    + 100 * EscritorBinario.TAMANHO_REGISTRO
+                    + Integer.BYTES + "(x*2)".length(), Files.size(arquivo));
+        } finally {
+            Files.delete(arquivo);
+        }
+    }
+
+    @Test
+    public void tabelaDeTextosMaiorQueUmBloco() throws IOException {
+        StringBuilder longa = new StringBuilder("1");
+        for (int i = 0; i < 50000; i++) {
+            longa.append("+1");
+        }
+        SuiteTestes testes = new SuiteTestes();
+        for (int i = 0; i < 10000; i++) {
+            testes.adicionar(i + " * 2;; 0");
+            if (i == 5000) {
+                testes.adicionar(longa + ";;0");
+            }
+        }
+        Path arquivo = gerar(testes);
+        try (LeitorBinario leitor = new LeitorBinario(arquivo)) {
+            for (int i = 0; i < testes.getTamanho(); i++) {
+                Assert.assertTrue(leitor.avancar());
+                Assert.assertEquals(i, leitor.getOrdem());
+                Assert.assertEquals(testes.getExpressao(i),
+                        leitor.getExpressao());
+            }
+            Assert.assertFalse(leitor.avancar());
+        } finally {
+            Files.delete(arquivo);
+        }
+    }
+
+    @Test
+    public void substituiSomenteAoFinalizar() throws IOException {
+        Path diretorio = Files.createTempDirectory("relatorio");
+        Path arquivo = diretorio.resolve("relatorio.qpb");
+        try {
+            Files.write(arquivo, new byte[]{1, 2, 3});
+            SuiteTestes testes = new SuiteTestes();
+            testes.adicionar("(1 + 2);;3");
+            try (EscritorBinario escritor = new EscritorBinario(arquivo)) {
+                escritor.iniciar(null);
+                escritor.escreverTeste(testes, 0);
+            }
+            Assert.assertEquals(3, Files.size(arquivo));
+
+            try (EscritorBinario escritor = new EscritorBinario(arquivo)) {
+                escritor.iniciar(null);
+                escritor.escreverTeste(testes, 0);
+                Assert.assertEquals(3, Files.size(arquivo));
+                escritor.finalizar(new Estatisticas());
+            }
+            try (LeitorBinario leitor = new LeitorBinario(arquivo)) {
+                Assert.assertEquals(1, leitor.getTestes());
+            }
+            try (DirectoryStream<Path> arquivos =
+                    Files.newDirectoryStream(diretorio)) {
+                Iterator<Path> iterador = arquivos.iterator();
+                Assert.assertEquals(arquivo, iterador.next());
+                Assert.assertFalse(iterador.hasNext());
+            }
+        } finally {
+            Files.deleteIfExists(arquivo);
+            Files.delete(diretorio);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void arquivoInvalido() throws IOException {
+        Path arquivo = Files.createTempFile("relatorio", ".qpb");
+        try {
+            Files.write(arquivo, new byte[EscritorBinario.TAMANHO_CABECALHO]);
+            new LeitorBinario(arquivo).close();
+        } finally {
+            Files.delete(arquivo);
+        }
+    }
+}
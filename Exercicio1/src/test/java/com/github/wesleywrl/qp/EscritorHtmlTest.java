@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class EscritorHtmlTest {
+
+    private static SuiteTestes criarTestes(final int quantidade) {
+        SuiteTestes testes = new SuiteTestes();
+        for (int i = 0; i < quantidade; i++) {
+            testes.adicionar("(x < 2); x=" + i + "; 0");
+            testes.atualizarSucesso(i);
+        }
+        return testes;
+    }
+
+    private static void gerar(final Path arquivo, final SuiteTestes testes,
+            final int linhasPorPagina) throws IOException {
+        Estatisticas resumo = new Estatisticas();
+        try (EscritorHtml escritor = new EscritorHtml(arquivo,
+                linhasPorPagina)) {
+            escritor.iniciar(null);
+            for (int i = 0; i < testes.getTamanho(); i++) {
+                resumo.registrar(testes.getSucesso(i));
+                escritor.escreverTeste(testes, i);
+            }
+            escritor.finalizar(resumo);
+        }
+    }
+
+    private static String ler(final Path arquivo) throws IOException {
+        return new String(Files.readAllBytes(arquivo),
+                StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void umaPagina() throws IOException {
+        Path diretorio = Files.createTempDirectory("html");
+        Path arquivo = diretorio.resolve("relatorio.html");
+        gerar(arquivo, criarTestes(3), 10);
+
+        String html = ler(arquivo);
+        Assert.assertTrue(html.contains("<td>(x&lt;2)</td>"));
+        Assert.assertTrue(html.contains("<td>3</td>"));
+        Assert.assertTrue(html.trim().endsWith("</html>"));
+        Assert.assertFalse(Files.exists(diretorio.resolve(
+                "relatorio-1.html")));
+        Files.delete(arquivo);
+        Files.delete(diretorio);
+    }
+
+    @Test
+    public void paginas() throws IOException {
+        Path diretorio = Files.createTempDirectory("html");
+        Path arquivo = diretorio.resolve("relatorio.html");
+        gerar(arquivo, criarTestes(5), 2);
+
+        String html = ler(arquivo);
+        Assert.assertTrue(html.contains("Informações gerais"));
+        Assert.assertTrue(html.contains("<a href=\"relatorio-3.html\">"
+                + "Página 3</a> (testes 5 a 5)"));
+        Assert.assertTrue(ler(diretorio.resolve("relatorio-2.html"))
+                .contains("<a href=\"relatorio-3.html\">Próxima</a>"));
+        String ultima = ler(diretorio.resolve("relatorio-3.html"));
+        Assert.assertTrue(ultima.contains("<td>5</td>"));
+        Assert.assertFalse(ultima.contains("Próxima"));
+
+        //uma nova execução, menor, remove as páginas que sobraram
+        gerar(arquivo, criarTestes(1), 2);
+        Assert.assertFalse(Files.exists(diretorio.resolve(
+                "relatorio-2.html")));
+        Assert.assertFalse(Files.exists(diretorio.resolve(
+                "relatorio-3.html")));
+        Files.delete(arquivo);
+        Files.delete(diretorio);
+    }
+
+    @Test
+    public void falhasLimitadas() throws IOException {
+        Path diretorio = Files.createTempDirectory("html");
+        Path arquivo = diretorio.resolve("relatorio.html");
+        SuiteTestes testes = criarTestes(EscritorHtml.MAXIMO_FALHAS + 5);
+        gerar(arquivo, testes, EscritorHtml.MAXIMO_FALHAS + 5);
+
+        String html = ler(arquivo);
+        Assert.assertTrue(html.contains("Exibindo os primeiros "
+                + EscritorHtml.MAXIMO_FALHAS + " de "
+                + (EscritorHtml.MAXIMO_FALHAS + 5)));
+        Files.delete(arquivo);
+        Files.delete(diretorio);
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class EscritorJsonTest {
+
+    private static String gerar(final SuiteTestes testes)
+            throws IOException {
+        Path arquivo = Files.createTempFile("relatorio", ".json");
+        try {
+            try (EscritorJson escritor = new EscritorJson(arquivo)) {
+                escritor.iniciar(null);
+                for (int i = 0; i < testes.getTamanho(); i++) {
+                    escritor.escreverTeste(testes, i);
+                }
+                escritor.finalizar(new Estatisticas());
+            }
+            return new String(Files.readAllBytes(arquivo),
+                    StandardCharsets.UTF_8);
+        } finally {
+            Files.delete(arquivo);
+        }
+    }
+
+    @Test
+    public void escapaTextos() throws IOException {
+        SuiteTestes testes = new SuiteTestes();
+        testes.adicionar("a\"b\\c\u0001;;1");
+        String json = gerar(testes);
+        Assert.assertTrue(json.contains(
+                "\"expressao\":\"a\\\"b\\\\c\\u0001\","));
+    }
+
+    @Test
+    public void valoresNaoFinitos() throws IOException {
+        SuiteTestes testes = new SuiteTestes();
+        testes.adicionar("(x * x); x=1e30; NaN");
+        testes.calcularValor(0);
+        String json = gerar(testes);
+        Assert.assertTrue(json.contains("\"esperado\":\"NaN\","));
+        Assert.assertTrue(json.contains("\"obtido\":\"Infinity\","));
+        //sem testes, o tempo médio também não é finito
+        Assert.assertTrue(json.contains("\"tempoMedio\":\"NaN\","));
+    }
+
+    @Test
+    public void formato() throws IOException {
+        SuiteTestes testes = new SuiteTestes();
+        testes.adicionar("(x * 2); x=3; 6");
+        testes.adicionar("(1 + 2);;3");
+        String json = gerar(testes);
+        String n = System.lineSeparator();
+        Assert.assertTrue(json.startsWith("{" + n + "    \"testes\":[" + n
+                + "        {" + n + "            \"expressao\":\"(x*2)\"," + n
+                + "            \"variaveis\":[" + n + "                {" + n
+                + "                    \"x\":3.0" + n + "                }" + n
+                + "            ]," + n + "            \"esperado\":6.0," + n
+                + "            \"obtido\":null," + n
+                + "            \"memoria\":0," + n
+                + "            \"sucesso\":false" + n + "        }," + n));
+        Assert.assertTrue(json.endsWith("}" + n));
+    }
+
+    @Test
+    public void interrupcoes() throws IOException {
+        SuiteTestes testes = new SuiteTestes();
+        testes.adicionar("1 + 1;;2");
+        testes.adicionar("1 + 2;;3");
+        testes.interromper(0, true);
+        testes.interromper(1, false);
+        String json = gerar(testes);
+        Assert.assertTrue(json.contains("\"interrupcao\":\"tempoEsgotado\""));
+        Assert.assertTrue(json.contains("\"interrupcao\":\"estouroPilha\""));
+        Assert.assertTrue(json.contains("\"testesTempoEsgotado\":0"));
+    }
+}
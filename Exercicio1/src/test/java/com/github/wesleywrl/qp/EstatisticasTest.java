@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class EstatisticasTest {
+
+    @Test
+    public void registrar() {
+        Estatisticas estatisticas = new Estatisticas();
+        estatisticas.registrar(true);
+        estatisticas.registrar(false);
+        Assert.assertEquals(2, estatisticas.getTestes());
+        Assert.assertEquals(1, estatisticas.getFalhas());
+        Assert.assertEquals(0.5f, estatisticas.getTaxaFalhas(), 0.0001f);
+    }
+
+    @Test
+    public void tempo() {
+        Estatisticas estatisticas = new Estatisticas();
+        estatisticas.adicionarTempo(3000000L, 1000000L);
+        estatisticas.adicionarTempo(1000000L, 1000000L);
+        estatisticas.registrar(true);
+        estatisticas.registrar(true);
+        Assert.assertEquals(4f, estatisticas.getTempoTotal(), 0.0001f);
+        Assert.assertEquals(2f, estatisticas.getTempoCpu(), 0.0001f);
+        Assert.assertEquals(2f, estatisticas.getTempoMedio(), 0.0001f);
+    }
+
+    @Test
+    public void alocacao() {
+        Estatisticas estatisticas = new Estatisticas();
+        estatisticas.adicionarAlocacaoAnalise(100);
+        estatisticas.registrarAlocacao(0, "1", 40);
+        estatisticas.registrarAlocacao(1, "(2+3)", 60);
+        Assert.assertEquals(false, estatisticas.isRelatorioMedido());
+        estatisticas.adicionarAlocacaoRelatorio(10);
+        Assert.assertEquals(true, estatisticas.isRelatorioMedido());
+        Assert.assertEquals(100, estatisticas.getAlocadosAnalise());
+        Assert.assertEquals(100, estatisticas.getAlocadosExecucao());
+        Assert.assertEquals(10, estatisticas.getAlocadosRelatorio());
+        Assert.assertEquals(210, estatisticas.getMemoriaConsumida());
+        Latencias alocacoes = estatisticas.getAlocacoes();
+        Assert.assertEquals(2, alocacoes.getHistograma().getQuantidade());
+        Assert.assertEquals("(2+3)",
+                alocacoes.getExpressao(alocacoes.ordemLentos()[0]));
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class EventosJfrTest {
+
+    private static List<RecordedEvent> eventos(final Recording gravacao,
+            final String nome) throws IOException {
+        Path arquivo = Files.createTempFile("qp", ".jfr");
+        try {
+            gravacao.dump(arquivo);
+            List<RecordedEvent> encontrados = new ArrayList<>();
+            for (RecordedEvent evento : RecordingFile.readAllEvents(arquivo)) {
+                if (evento.getEventType().getName().equals(nome)) {
+                    encontrados.add(evento);
+                }
+            }
+            return encontrados;
+        } finally {
+            Files.delete(arquivo);
+        }
+    }
+
+    @Test
+    public void semGravacao() {
+        Assert.assertTrue(EventosJfr.DISPONIVEL);
+        Assert.assertFalse(EventosJfr.avaliacoesHabilitadas());
+    }
+
+    @Test
+    public void avaliacoes() throws IOException {
+        SuiteTestes testes = new SuiteTestes();
+        testes.adicionar("1 + 1;;2");
+        testes.adicionar("x * 20;x=2;4");
+        testes.adicionar("(1 + ;;0");
+        try (Recording gravacao = new Recording();
+                ExecutorTestes executor = new ExecutorTestes(1)) {
+            gravacao.enable(EventoAvaliacao.class);
+            gravacao.start();
+            Assert.assertTrue(EventosJfr.avaliacoesHabilitadas());
+            executor.executar(testes);
+            executor.executar(testes, 10, new Latencias());
+            gravacao.stop();
+            List<RecordedEvent> registrados = eventos(gravacao,
+                    "com.github.wesleywrl.qp.Avaliacao");
+            Assert.assertEquals(6, registrados.size());
+            RecordedEvent ultimo = registrados.get(5);
+            Assert.assertEquals(12, ultimo.getLong("indice"));
+            Assert.assertEquals(testes.getExpressao(2).length(),
+                    ultimo.getInt("tamanhoExpressao"));
+            Assert.assertEquals("invalida", ultimo.getString("resultado"));
+            Assert.assertEquals("medicao", ultimo.getString("fase"));
+            Assert.assertEquals("falha",
+                    registrados.get(1).getString("resultado"));
+            Assert.assertEquals("aquecimento",
+                    registrados.get(0).getString("fase"));
+        }
+    }
+
+    @Test
+    public void fases() throws IOException {
+        Path diretorio = Files.createTempDirectory("qp-jfr");
+        try (Recording gravacao = new Recording()) {
+            gravacao.enable(EventoFase.class);
+            gravacao.start();
+            new RelatorioTeste(Arrays.asList("1 + 1;;2", "2 * 3;;6"), false)
+                    .gerarRelatorioTeste(diretorio.toString());
+            gravacao.stop();
+            List<RecordedEvent> registrados = eventos(gravacao,
+                    "com.github.wesleywrl.qp.Fase");
+            Assert.assertEquals(3, registrados.size());
+            Assert.assertEquals("carga",
+                    registrados.get(0).getString("fase"));
+            Assert.assertEquals("realizacao",
+                    registrados.get(1).getString("fase"));
+            Assert.assertEquals("escrita",
+                    registrados.get(2).getString("fase"));
+            Assert.assertEquals(2, registrados.get(2).getLong("testes"));
+        } finally {
+            Files.delete(diretorio.resolve("relatorio.json"));
+            Files.delete(diretorio);
+        }
+    }
+
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ExecucaoLoteTest {
+
+    private static Path criarSuites() throws IOException {
+        Path suites = Files.createTempDirectory("lote");
+        Files.write(suites.resolve("a.txt"), Arrays.asList("(1 + 2);;3",
+                "(x * 2); x=3; 6"), StandardCharsets.UTF_8);
+        Files.write(suites.resolve("b.txt"), Arrays.asList("(2 * 2);;5"),
+                StandardCharsets.UTF_8);
+        Files.write(suites.resolve("c.txt"), Arrays.asList("linha sem campos"),
+                StandardCharsets.UTF_8);
+        Files.write(suites.resolve("ignorado.csv"), Arrays.asList("1;;1"),
+                StandardCharsets.UTF_8);
+        return suites;
+    }
+
+    private static Configuracao configuracao(final String caminho) {
+        Configuracao config = new Configuracao();
+        config.setCaminho(caminho);
+        config.setThreads(2);
+        return config;
+    }
+
+    @Test
+    public void isLote() throws IOException {
+        Path suites = criarSuites();
+        Assert.assertTrue(ExecucaoLote.isLote(suites.toString()));
+        Assert.assertTrue(ExecucaoLote.isLote(suites + "/*.txt"));
+        Assert.assertTrue(ExecucaoLote.isLote("@lista.txt"));
+        Assert.assertFalse(ExecucaoLote.isLote(suites + "/a.txt"));
+        Assert.assertFalse(ExecucaoLote.isLote("http://exemplo.com/?a=1"));
+    }
+
+    @Test
+    public void listarPadrao() throws IOException {
+        Path suites = criarSuites();
+        List<String> lista = ExecucaoLote.listarSuites(suites + "/[ab].txt",
+                null);
+        Assert.assertEquals(Arrays.asList(suites.resolve("a.txt").toString(),
+                suites.resolve("b.txt").toString()), lista);
+    }
+
+    @Test
+    public void listarLista() throws IOException {
+        Path suites = criarSuites();
+        Path lista = suites.resolve("lista");
+        Files.write(lista, Arrays.asList("# suítes", "b.txt", "",
+                " a.txt ", "http://exemplo.com/c.txt"),
+                StandardCharsets.UTF_8);
+        Assert.assertEquals(Arrays.asList(suites.resolve("b.txt").toString(),
+                suites.resolve("a.txt").toString(),
+                "http://exemplo.com/c.txt"),
+                ExecucaoLote.listarSuites("@" + lista, null));
+    }
+
+    @Test
+    public void executarDiretorio() throws IOException {
+        Path suites = criarSuites();
+        Path destino = Files.createTempDirectory("relatorios");
+        ExecucaoLote lote = new ExecucaoLote(configuracao(
+                suites.toString()));
+        Assert.assertEquals(3, lote.getSuites());
+        lote.executar(destino.toString());
+
+        Assert.assertEquals(3, lote.getTestes());
+        Assert.assertEquals(1, lote.getFalhas());
+        Assert.assertEquals(1, lote.getErros());
+        Assert.assertNull(lote.getErro(0));
+        Assert.assertNotNull(lote.getErro(2));
+        Assert.assertTrue(lote.getTempo() > 0);
+        Assert.assertTrue(Files.exists(destino.resolve("lote/a/"
+                + "relatorio.json")));
+        Assert.assertTrue(Files.exists(destino.resolve("lote/b/"
+                + "relatorio.json")));
+        String resumo = new String(Files.readAllBytes(destino.resolve(
+                ExecucaoLote.RESUMO)), StandardCharsets.UTF_8);
+        Assert.assertTrue(resumo.contains("\"suites\":3"));
+        Assert.assertTrue(resumo.contains("\"relatorio\":\"lote/b/"
+                + "relatorio.json\""));
+    }
+
+    @Test
+    public void nomesRepetidos() throws IOException {
+        Path suites = criarSuites();
+        Path lista = suites.resolve("lista");
+        Files.write(lista, Arrays.asList("a.txt", "a.txt"),
+                StandardCharsets.UTF_8);
+        Path destino = Files.createTempDirectory("relatorios");
+        new ExecucaoLote(configuracao("@" + lista)).executar(
+                destino.toString());
+        Assert.assertTrue(Files.exists(destino.resolve("lote/a")));
+        Assert.assertTrue(Files.exists(destino.resolve("lote/a-2")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void semSuites() throws IOException {
+        Path suites = criarSuites();
+        new ExecucaoLote(configuracao(suites + "/*.json"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void comBase() throws IOException {
+        Configuracao config = configuracao(criarSuites().toString());
+        config.setBase(criarSuites().resolve("base.qpb"));
+        new ExecucaoLote(config);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void comProcessos() throws IOException {
+        Configuracao config = configuracao(criarSuites().toString());
+        config.setProcessos(2);
+        new ExecucaoLote(config);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void comJmx() throws IOException {
+        Configuracao config = configuracao(criarSuites().toString());
+        config.setJmx(true);
+        new ExecucaoLote(config);
+    }
+
+    @Test
+    public void cacheContabilizadoNoResumo() throws IOException {
+        Path suites = criarSuites();
+        Path destino = Files.createTempDirectory("relatorios");
+        CacheExpressoes anterior = Calcular.getCache();
+        Calcular.setCache(new CacheExpressoes(
+                CacheExpressoes.CAPACIDADE_PADRAO));
+        try {
+            ExecucaoLote lote = new ExecucaoLote(configuracao(
+                    suites.toString()));
+            lote.executar(destino.toString());
+            Assert.assertEquals(3, lote.getAcertosCache()
+                    + lote.getFaltasCache());
+        } finally {
+            Calcular.setCache(anterior);
+        }
+        String resumo = new String(Files.readAllBytes(destino.resolve(
+                ExecucaoLote.RESUMO)), StandardCharsets.UTF_8);
+        Assert.assertTrue(resumo.contains("\"cacheFaltas\":"));
+        String relatorio = new String(Files.readAllBytes(destino.resolve(
+                "lote/a/relatorio.json")), StandardCharsets.UTF_8);
+        Assert.assertFalse(relatorio.contains("cacheAcertos"));
+    }
+
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import java.io.FilterOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ExecutorProcessosTest {
+
+    private static final String PARAMETROS = "1,0,0,0";
+
+    private static SuiteTestes criarTestes(final int quantidade) {
+        SuiteTestes testes = new SuiteTestes();
+        for (int i = 0; i < quantidade; i++) {
+            testes.adicionar("x * 2; x=" + i + "; " + (i * 2));
+        }
+        return testes;
+    }
+
+    private static void verificar(final SuiteTestes testes) {
+        for (int i = 0; i < testes.getTamanho(); i++) {
+            Assert.assertTrue(testes.isObtido(i));
+            Assert.assertEquals(i * 2f, testes.getObtido(i), 0.0001f);
+        }
+    }
+
+    private static ExecutorProcessos instavel(final int processos,
+            final String marcador, final int bytes) {
+        return new ExecutorProcessos(processos, Instavel.class.getName(),
+                Arrays.asList((marcador + "," + bytes + "," + PARAMETROS)
+                        .split(",")));
+    }
+
+    @Test
+    public void fragmentosPreservamOrdem() {
+        SuiteTestes testes = criarTestes(5000);
+        testes.adicionar("(1 + ; ; 0");
+        try (ExecutorProcessos executor = new ExecutorProcessos(3, 2, 0, 0,
+                16)) {
+            Latencias latencias = new Latencias(2);
+            Assert.assertTrue(executor.executar(testes, 10, latencias) >= 0);
+            Assert.assertFalse(testes.isObtido(5000));
+            testes = criarTestes(5000);
+            executor.executar(testes);
+            verificar(testes);
+            Assert.assertEquals(5001,
+                    latencias.getHistograma().getQuantidade());
+            Assert.assertEquals(0, executor.getReinicios());
+        }
+    }
+
+    @Test
+    public void menosTestesQueProcessos() {
+        SuiteTestes testes = criarTestes(1);
+        try (ExecutorProcessos executor = new ExecutorProcessos(2, 1, 0, 0,
+                0)) {
+            executor.executar(testes);
+            verificar(testes);
+            Assert.assertEquals(0, executor.executar(new SuiteTestes()));
+        }
+    }
+
+    @Test
+    public void interrupcoes() {
+        StringBuilder profunda = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            profunda.append("(1 + ");
+        }
+        profunda.append('1');
+        for (int i = 0; i < 5000; i++) {
+            profunda.append(')');
+        }
+        SuiteTestes testes = new SuiteTestes();
+        testes.adicionar("2 * 3;;6");
+        testes.adicionar(profunda + ";;5001");
+        try (ExecutorProcessos executor = new ExecutorProcessos(2, 1, 0,
+                128 * 1024, 0)) {
+            executor.executar(testes, 0, new Latencias());
+        }
+        Assert.assertEquals(6f, testes.getObtido(0), 0.0001f);
+        Assert.assertTrue(testes.isEstouroPilha(1));
+    }
+
+    @Test
+    public void processoReiniciadoAposFalha() throws IOException {
+        Path diretorio = Files.createTempDirectory("qp-processos");
+        Path marcador = diretorio.resolve("falhou");
+        SuiteTestes testes = criarTestes(5000);
+        Latencias latencias = new Latencias();
+        try (ExecutorProcessos executor = instavel(2, marcador.toString(),
+                21 * 1500 + 7)) {
+            executor.executar(testes, 0, latencias);
+            Assert.assertEquals(1, executor.getReinicios());
+        }
+        verificar(testes);
+        Assert.assertTrue(Files.exists(marcador));
+        Assert.assertEquals(5000, latencias.getHistograma().getQuantidade());
+        Files.delete(marcador);
+        Files.delete(diretorio);
+    }
+
+    @Test
+    public void falhasSeguidas() {
+        try (ExecutorProcessos executor = instavel(1, "-", 0)) {
+            executor.executar(criarTestes(10));
+            Assert.fail();
+        } catch (IllegalStateException ex) {
+            Assert.assertTrue(ex.getMessage().contains(
+                    ExecutorProcessos.TENTATIVAS + " vezes"));
+        }
+    }
+
+    @Test
+    public void falhasComProgresso() {
+        //cada processo devolve 1500 resultados antes de terminar
+        SuiteTestes testes = criarTestes(5000);
+        try (ExecutorProcessos executor = instavel(1, "-", 21 * 1500 + 7)) {
+            executor.executar(testes);
+            Assert.assertEquals(3, executor.getReinicios());
+        }
+        verificar(testes);
+    }
+
+    @Test
+    public void opcoesJvmRepassadas() {
+        Assert.assertEquals(Arrays.asList("-Xmx512m", "-Dqp.x=1",
+                "-XX:+UseSerialGC"), ExecutorProcessos.opcoesJvm(
+                        Arrays.asList("-Xmx512m", "-javaagent:a.jar",
+                                "-Dqp.x=1",
+                                "-agentlib:jdwp=transport=dt_socket",
+                                "-Dcom.sun.management.jmxremote.port=9010",
+                                "-XX:+UseSerialGC")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void processosInvalidos() {
+        new ExecutorProcessos(0, 1, 0, 0, 0);
+    }
+
+    /**
+     * Processo trabalhador que termina abruptamente após escrever uma
+     * quantidade de bytes, na primeira execução (enquanto o marcador não
+     * existir) ou sempre (marcador "-").
+     */
+    public static final class Instavel {
+
+        public static void main(final String[] args) throws IOException {
+            final long limite = Long.parseLong(args[1]);
+            OutputStream saida = new FileOutputStream(FileDescriptor.out);
+            boolean falhar = true;
+            if (!args[0].equals("-")) {
+                try {
+                    Files.createFile(Paths.get(args[0]));
+                } catch (FileAlreadyExistsException ex) {
+                    falhar = false;
+                }
+            }
+            if (falhar) {
+                saida = new FilterOutputStream(saida) {
+                    private long escritos;
+
+                    @Override
+                    public void write(final int b) throws IOException {
+                        if (escritos == limite) {
+                            out.flush();
+                            Runtime.getRuntime().halt(1);
+                        }
+                        escritos++;
+                        out.write(b);
+                    }
+                };
+            }
+            TrabalhadorProcesso.executar(Arrays.copyOfRange(args, 2,
+                    args.length), System.in, saida);
+        }
+    }
+
+}
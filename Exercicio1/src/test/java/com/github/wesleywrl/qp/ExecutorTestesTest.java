@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ExecutorTestesTest {
+
+    /**
+     * Avaliação que prende um teste até ser liberada, para que o abandono
+     * não dependa da duração real de uma expressão.
+     */
+    private static final class Presa implements ExecutorTestes.Avaliador {
+
+        private final int preso;
+
+        private final CountDownLatch liberacao = new CountDownLatch(1);
+
+        private final AtomicInteger chamadas = new AtomicInteger();
+
+        Presa(final int preso) {
+            this.preso = preso;
+        }
+
+        @Override
+        public float avaliar(final SuiteTestes testes, final int teste,
+                final FasesParser fases) throws Exception {
+            if (teste == preso) {
+                chamadas.incrementAndGet();
+                liberacao.await();
+            }
+            return testes.avaliar(teste, fases);
+        }
+
+        void liberar() {
+            liberacao.countDown();
+        }
+    }
+
+    private static SuiteTestes criarTestes(final int quantidade) {
+        SuiteTestes testes = new SuiteTestes();
+        for (int i = 0; i < quantidade; i++) {
+            testes.adicionar("x * 2; x=" + i + "; " + (i * 2));
+        }
+        return testes;
+    }
+
+    @Test
+    public void sequencial() {
+        SuiteTestes testes = criarTestes(10);
+        long cpu = new ExecutorTestes(1).executar(testes);
+        Assert.assertTrue(cpu >= 0);
+        for (int i = 0; i < testes.getTamanho(); i++) {
+            Assert.assertEquals(i * 2f, testes.getObtido(i), 0.0001f);
+        }
+    }
+
+    @Test
+    public void paraleloPreservaOrdem() {
+        SuiteTestes testes = criarTestes(5000);
+        try (ExecutorTestes executor = new ExecutorTestes(4)) {
+            Assert.assertTrue(executor.executar(testes) >= 0);
+            for (int i = 0; i < testes.getTamanho(); i++) {
+                Assert.assertEquals(i * 2f, testes.getObtido(i),
+                        0.0001f);
+            }
+
+            //as threads são reaproveitadas em uma nova execução
+            SuiteTestes outros = criarTestes(1000);
+            executor.executar(outros);
+            Assert.assertEquals(1998f, outros.getObtido(999), 0.0001f);
+        }
+    }
+
+    @Test
+    public void paraleloListaVazia() {
+        try (ExecutorTestes executor = new ExecutorTestes(4)) {
+            Assert.assertEquals(0, executor.executar(new SuiteTestes()),
+                    1000000);
+        }
+    }
+
+    @Test
+    public void latenciasSequencial() {
+        Latencias latencias = new Latencias(3);
+        new ExecutorTestes(1).executar(criarTestes(10), 20, latencias);
+        Assert.assertEquals(10, latencias.getHistograma().getQuantidade());
+        Assert.assertEquals(3, latencias.getQuantidadeLentos());
+        for (int i = 0; i < latencias.getQuantidadeLentos(); i++) {
+            Assert.assertTrue(latencias.getPosicao(i) >= 20);
+            Assert.assertTrue(latencias.getPosicao(i) < 30);
+        }
+    }
+
+    @Test
+    public void latenciasParalelo() {
+        Latencias latencias = new Latencias();
+        try (ExecutorTestes executor = new ExecutorTestes(4)) {
+            executor.executar(criarTestes(5000), 0, latencias);
+        }
+        Assert.assertEquals(5000, latencias.getHistograma().getQuantidade());
+        Assert.assertEquals(Latencias.LENTOS_PADRAO,
+                latencias.getQuantidadeLentos());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void threadsInvalidas() {
+        new ExecutorTestes(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void limiteInvalido() {
+        new ExecutorTestes(1, -1, 0);
+    }
+
+    @Test
+    public void tempoEsgotado() {
+        SuiteTestes testes = criarTestes(2000);
+        Presa presa = new Presa(1);
+        Latencias latencias = new Latencias();
+        try (ExecutorTestes executor = new ExecutorTestes(1, 20, 0)) {
+            executor.setAvaliador(presa);
+            executor.executar(testes, 0, latencias);
+            Assert.assertEquals(1, executor.getAbandonados());
+            Assert.assertTrue(testes.isTempoEsgotado(1));
+            Assert.assertFalse(testes.isObtido(1));
+            Assert.assertTrue(testes.getTempo(1) >= 20000000L);
+            for (int i = 2; i < testes.getTamanho(); i++) {
+                Assert.assertEquals(i * 2f, testes.getObtido(i), 0.0001f);
+            }
+            Assert.assertEquals(2000,
+                    latencias.getHistograma().getQuantidade());
+
+            //o teste abandonado não é realizado nas chamadas seguintes
+            executor.executar(testes);
+            executor.executar(testes, 0, new Latencias());
+            Assert.assertEquals(1, presa.chamadas.get());
+            Assert.assertEquals(1, executor.getAbandonados());
+            Assert.assertTrue(testes.isTempoEsgotado(1));
+
+            //o executor continua utilizável após o abandono
+            SuiteTestes outros = criarTestes(1000);
+            executor.executar(outros);
+            Assert.assertEquals(1998f, outros.getObtido(999), 0.0001f);
+        } finally {
+            presa.liberar();
+        }
+    }
+
+    @Test
+    public void abandonoPreservaBlocoConcluido() {
+        //o teste 100 é abandonado no meio do primeiro bloco
+        SuiteTestes testes = criarTestes(1000);
+        Presa presa = new Presa(100);
+        Latencias latencias = new Latencias();
+        latencias.setFases(new FasesParser());
+        MonitorExecucao monitor = new MonitorExecucao();
+        try (ExecutorTestes executor = new ExecutorTestes(1, 20, 0)) {
+            executor.setAvaliador(presa);
+            executor.setMonitor(monitor);
+            executor.executar(testes, 0, latencias);
+        } finally {
+            presa.liberar();
+        }
+        Assert.assertEquals(999, latencias.getFases().getAvaliacoes());
+        Assert.assertEquals(1000, monitor.getTestesConcluidos());
+    }
+
+    @Test
+    public void pilhaConfiguravel() {
+        StringBuilder aninhada = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            aninhada.append("(1 + ");
+        }
+        aninhada.append('1');
+        for (int i = 0; i < 5000; i++) {
+            aninhada.append(')');
+        }
+        SuiteTestes testes = criarTestes(300);
+        testes.adicionar(aninhada + ";;5001");
+        try (ExecutorTestes executor = new ExecutorTestes(2, 0,
+                128 * 1024)) {
+            executor.executar(testes);
+        }
+        Assert.assertTrue(testes.isEstouroPilha(300));
+        Assert.assertEquals(598f, testes.getObtido(299), 0.0001f);
+
+        try (ExecutorTestes executor = new ExecutorTestes(1,
+                ExecutorTestes.LIMITE_PADRAO, 256L * 1024 * 1024)) {
+            executor.executar(testes);
+        }
+        Assert.assertFalse(testes.isInterrompido(300));
+        Assert.assertEquals(5001f, testes.getObtido(300), 0f);
+    }
+    @Test
+    public void suitesSimultaneas() throws InterruptedException {
+        final SuiteTestes grande = criarTestes(50000);
+        SuiteTestes pequena = criarTestes(300);
+        try (final ExecutorTestes executor = new ExecutorTestes(2)) {
+            Thread outra = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    executor.executar(grande);
+                }
+            });
+            outra.start();
+            executor.executar(pequena);
+            outra.join();
+        }
+        Assert.assertEquals(598f, pequena.getObtido(299), 0.0001f);
+        for (int i = 0; i < grande.getTamanho(); i++) {
+            Assert.assertEquals(i * 2f, grande.getObtido(i), 0.0001f);
+        }
+    }
+
+    @Test
+    public void monitor() {
+        MonitorExecucao monitor = new MonitorExecucao();
+        try (ExecutorTestes sequencial = new ExecutorTestes(1);
+                ExecutorTestes paralelo = new ExecutorTestes(3);
+                ExecutorTestes limitado = new ExecutorTestes(1, 1000, 0)) {
+            sequencial.setMonitor(monitor);
+            paralelo.setMonitor(monitor);
+            limitado.setMonitor(monitor);
+            sequencial.executar(criarTestes(1000));
+            paralelo.executar(criarTestes(1000), 0, new Latencias());
+            limitado.executar(criarTestes(1000), 0, new Latencias());
+        }
+        Assert.assertEquals(3000, monitor.getTestesConcluidos());
+        Assert.assertEquals(0, monitor.getFalhas());
+        Assert.assertTrue(monitor.getP99Nanos() > 0);
+    }
+
+    @Test
+    public void fasesComTempoLimite() {
+        Latencias latencias = new Latencias();
+        latencias.setFases(new FasesParser());
+        try (ExecutorTestes executor = new ExecutorTestes(2, 1000, 0)) {
+            executor.executar(criarTestes(1000), 0, latencias);
+        }
+        Assert.assertEquals(1000, latencias.getFases().getAvaliacoes());
+        Assert.assertEquals(1000, latencias.getHistograma().getQuantidade());
+    }
+
+}
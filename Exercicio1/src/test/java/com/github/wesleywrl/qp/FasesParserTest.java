@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FasesParserTest {
+
+    @Test
+    public void faixas() {
+        Assert.assertEquals(0, FasesParser.faixa(0));
+        Assert.assertEquals(1, FasesParser.faixa(1));
+        Assert.assertEquals(2, FasesParser.faixa(3));
+        Assert.assertEquals(3, FasesParser.faixa(4));
+        Assert.assertEquals(FasesParser.FAIXAS - 1,
+                FasesParser.faixa(Integer.MAX_VALUE));
+        Assert.assertEquals(0, FasesParser.inicioFaixa(0));
+        Assert.assertEquals(0, FasesParser.fimFaixa(0));
+        Assert.assertEquals(4, FasesParser.inicioFaixa(3));
+        Assert.assertEquals(7, FasesParser.fimFaixa(3));
+        Assert.assertEquals(Integer.MAX_VALUE,
+                FasesParser.fimFaixa(FasesParser.FAIXAS - 1));
+    }
+
+    @Test
+    public void registrar() {
+        FasesParser fases = new FasesParser();
+        fases.registrarAnalise(10, 5, 0, 100, 40);
+        fases.registrarAvaliacao(10, 5, 0, 7);
+        fases.registrarAcerto(10, 1, 2, 3);
+        fases.registrarAvaliacao(10, 1, 2, 9);
+        Assert.assertEquals(1, fases.getAnalises());
+        Assert.assertEquals(100, fases.getNanosLexica());
+        Assert.assertEquals(40, fases.getNanosSintatica());
+        Assert.assertEquals(1, fases.getAcertos());
+        Assert.assertEquals(3, fases.getNanosConsulta());
+        Assert.assertEquals(2, fases.getAvaliacoes());
+        Assert.assertEquals(16, fases.getNanosAvaliacao());
+
+        //10 caracteres: faixa de 8 a 15
+        Assert.assertEquals(2, fases.getAvaliacoes(FasesParser.TAMANHO, 4));
+        //5 tokens: faixa de 4 a 7; 1 token (acerto do cache): faixa 1
+        Assert.assertEquals(1, fases.getAnalises(FasesParser.TOKENS, 3));
+        Assert.assertEquals(1, fases.getAvaliacoes(FasesParser.TOKENS, 3));
+        Assert.assertEquals(7, fases.getNanosAvaliacao(FasesParser.TOKENS,
+                3));
+        Assert.assertEquals(1, fases.getAcertos(FasesParser.TOKENS, 1));
+        Assert.assertEquals(3, fases.getNanosConsulta(FasesParser.TOKENS,
+                1));
+        Assert.assertEquals(9, fases.getNanosAvaliacao(FasesParser.TOKENS,
+                1));
+        Assert.assertEquals(9, fases.getNanosAvaliacao(
+                FasesParser.VARIAVEIS, 2));
+        Assert.assertTrue(fases.isOcupada(FasesParser.VARIAVEIS, 0));
+        Assert.assertFalse(fases.isOcupada(FasesParser.VARIAVEIS, 1));
+    }
+
+    @Test
+    public void combinarELimpar() {
+        FasesParser total = new FasesParser();
+        FasesParser parcial = new FasesParser();
+        total.registrarAnalise(3, 3, 1, 10, 20);
+        parcial.registrarAnalise(3, 3, 1, 30, 40);
+        parcial.registrarAvaliacao(3, 3, 1, 5);
+        parcial.registrarAcerto(3, 3, 1, 2);
+        total.combinar(parcial);
+        Assert.assertEquals(1, total.getAcertos(FasesParser.TOKENS, 2));
+        Assert.assertEquals(2, total.getAnalises(FasesParser.VARIAVEIS, 1));
+        Assert.assertEquals(40, total.getNanosLexica());
+        Assert.assertEquals(60, total.getNanosSintatica());
+        Assert.assertEquals(1, total.getAvaliacoes());
+        parcial.limpar();
+        Assert.assertEquals(0, parcial.getAnalises());
+        Assert.assertEquals(0, parcial.getAcertos());
+        Assert.assertFalse(parcial.isOcupada(FasesParser.TAMANHO, 2));
+    }
+
+}
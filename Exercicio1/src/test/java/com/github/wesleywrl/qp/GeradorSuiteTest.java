@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class GeradorSuiteTest {
+
+    private static List<String> gerar(final GeradorSuite gerador,
+            final int linhas) {
+        List<String> geradas = new ArrayList<>();
+        for (int i = 0; i < linhas; i++) {
+            geradas.add(gerador.proximaLinha().toString());
+        }
+        return geradas;
+    }
+
+    private static void verificarSucesso(final List<String> linhas) {
+        SuiteTestes suite = SuiteTestes.de(linhas);
+        for (int i = 0; i < suite.getTamanho(); i++) {
+            suite.calcularValor(i);
+            suite.atualizarSucesso(i);
+            Assert.assertTrue(linhas.get(i), suite.getSucesso(i));
+        }
+    }
+
+    @Test
+    public void mesmaSementeMesmaSuite() {
+        Assert.assertEquals(gerar(new GeradorSuite(42), 500),
+                gerar(new GeradorSuite(42), 500));
+        Assert.assertNotEquals(gerar(new GeradorSuite(42), 500),
+                gerar(new GeradorSuite(43), 500));
+    }
+
+    @Test
+    public void esperadoIgualAoParser() {
+        verificarSucesso(gerar(new GeradorSuite(1), 2000));
+
+        GeradorSuite profundo = new GeradorSuite(2);
+        profundo.setProfundidade(8);
+        profundo.setVariaveis(5);
+        profundo.setPesos(new int[]{1, 1, 2, 4});
+        verificarSucesso(gerar(profundo, 2000));
+
+        GeradorSuite constantes = new GeradorSuite(3);
+        constantes.setVariaveis(0);
+        verificarSucesso(gerar(constantes, 2000));
+    }
+
+    @Test
+    public void repetidas() {
+        GeradorSuite gerador = new GeradorSuite(5);
+        gerador.setVariaveis(0);
+        gerador.setRepetidas(1);
+        List<String> linhas = gerar(gerador, 100);
+        for (String linha : linhas) {
+            Assert.assertEquals(linhas.get(0), linha);
+        }
+
+        gerador = new GeradorSuite(5);
+        gerador.setVariaveis(1);
+        gerador.setRepetidas(1);
+        linhas = gerar(gerador, 100);
+        String expressao = linhas.get(0).substring(0,
+                linhas.get(0).indexOf(';'));
+        for (String linha : linhas) {
+            Assert.assertTrue(linha.startsWith(expressao + ";x0="));
+        }
+        verificarSucesso(linhas);
+    }
+
+    @Test
+    public void pesosOperadores() {
+        GeradorSuite gerador = new GeradorSuite(9);
+        gerador.setPesos(new int[]{0, 0, 0, 1});
+        gerador.setProfundidade(4);
+        for (String linha : gerar(gerador, 200)) {
+            String expressao = linha.substring(0, linha.indexOf(';'));
+            Assert.assertFalse(expressao.contains(" + "));
+            Assert.assertFalse(expressao.contains(" - "));
+            Assert.assertFalse(expressao.contains(" * "));
+            Assert.assertTrue(expressao.contains(" / "));
+        }
+    }
+
+    @Test
+    public void divisaoPorQuaseZero() {
+        Assert.assertEquals(0f, GeradorSuite.aplicar('/', 1f, 0f), 0f);
+        Assert.assertEquals(0f, GeradorSuite.aplicar('/', 1f, 0.000001f), 0f);
+        Assert.assertEquals(2f, GeradorSuite.aplicar('/', 1f, 0.5f), 0f);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void pesosNulos() {
+        new GeradorSuite(1).setPesos(new int[]{0, 0, 0, 0});
+    }
+
+    @Test
+    public void executar() throws IOException {
+        Path arquivo = Files.createTempFile("suite", ".txt");
+        ByteArrayOutputStream mensagens = new ByteArrayOutputStream();
+        PrintStream saida = new PrintStream(mensagens, true, "UTF-8");
+        try {
+            Assert.assertEquals(Main.SAIDA_SUCESSO, GeradorSuite.executar(
+                    new String[]{arquivo.toString(), "-linhas=300",
+                        "-profundidade=2", "-variaveis=1",
+                        "-operadores=1,1,1,0", "-repetidas=50",
+                        "-semente=3"}, saida));
+            List<String> linhas = Files.readAllLines(arquivo);
+            Assert.assertEquals(300, linhas.size());
+            verificarSucesso(linhas);
+
+            Assert.assertEquals(Main.SAIDA_ERRO, GeradorSuite.executar(
+                    new String[]{arquivo.toString(), "-linhas=0"}, saida));
+            Assert.assertEquals(Main.SAIDA_ERRO, GeradorSuite.executar(
+                    new String[]{arquivo.toString(), "-operadores=1,1"},
+                    saida));
+            Assert.assertEquals(Main.SAIDA_ERRO,
+                    GeradorSuite.executar(new String[0], saida));
+        } finally {
+            Files.delete(arquivo);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class HistogramaTest {
+
+    @Test
+    public void faixasContiguas() {
+        Assert.assertEquals(0, Histograma.faixa(0));
+        Assert.assertEquals(31, Histograma.faixa(31));
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertEquals(Histograma.limiteSuperior(i) + 1,
+                    limiteInferior(i + 1));
+        }
+        Assert.assertTrue(Histograma.faixa(Long.MAX_VALUE) >= 0);
+    }
+
+    private static long limiteInferior(final int faixa) {
+        return Histograma.limiteSuperior(faixa - 1) + 1;
+    }
+
+    @Test
+    public void valorDentroDaFaixa() {
+        long[] valores = {32, 33, 100, 1000, 123456, 987654321L};
+        for (long valor : valores) {
+            int faixa = Histograma.faixa(valor);
+            Assert.assertTrue(valor <= Histograma.limiteSuperior(faixa));
+            Assert.assertTrue(valor > Histograma.limiteSuperior(faixa - 1));
+        }
+    }
+
+    @Test
+    public void percentis() {
+        Histograma histograma = new Histograma();
+        for (int i = 1; i <= 100000; i++) {
+            histograma.registrar(i);
+        }
+        Assert.assertEquals(100000, histograma.getQuantidade());
+        Assert.assertEquals(50000, histograma.percentil(0.5), 50000 * 0.04);
+        Assert.assertEquals(99000, histograma.percentil(0.99), 99000 * 0.04);
+        Assert.assertEquals(100000, histograma.percentil(1));
+        Assert.assertEquals(1, histograma.getMinimo());
+        Assert.assertEquals(100000, histograma.getMaximo());
+        Assert.assertEquals(50000.5, histograma.getMedia(), 0.001);
+    }
+
+    @Test
+    public void vazio() {
+        Histograma histograma = new Histograma();
+        Assert.assertEquals(0, histograma.percentil(0.5));
+        Assert.assertEquals(0, histograma.getMinimo());
+        Assert.assertEquals(0, histograma.getMaximo());
+        Assert.assertEquals(0, histograma.getMedia(), 0);
+    }
+
+    @Test
+    public void combinar() {
+        Histograma a = new Histograma();
+        Histograma b = new Histograma();
+        a.registrar(10);
+        b.registrar(5);
+        b.registrar(-3);
+        a.combinar(b);
+        a.combinar(new Histograma());
+        Assert.assertEquals(3, a.getQuantidade());
+        Assert.assertEquals(0, a.getMinimo());
+        Assert.assertEquals(10, a.getMaximo());
+        Assert.assertEquals(5, a.percentil(0.5));
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LatenciasTest {
+
+    @Test
+    public void guardaOsMaisLentos() {
+        Latencias latencias = new Latencias(3);
+        long[] tempos = {50, 10, 70, 20, 90, 60, 5};
+        for (int i = 0; i < tempos.length; i++) {
+            latencias.registrar(i, "e" + i, tempos[i]);
+        }
+        Assert.assertEquals(7, latencias.getHistograma().getQuantidade());
+        int[] ordem = latencias.ordemLentos();
+        Assert.assertEquals(3, ordem.length);
+        Assert.assertEquals(90, latencias.getValor(ordem[0]));
+        Assert.assertEquals(4, latencias.getPosicao(ordem[0]));
+        Assert.assertEquals("e4", latencias.getExpressao(ordem[0]));
+        Assert.assertEquals(70, latencias.getValor(ordem[1]));
+        Assert.assertEquals(60, latencias.getValor(ordem[2]));
+    }
+
+    @Test
+    public void combinar() {
+        Latencias total = new Latencias(2);
+        Latencias parcial = total.criarParcial();
+        total.registrar(0, "a", 10);
+        parcial.registrar(1, "b", 30);
+        parcial.registrar(2, "c", 20);
+        total.combinar(parcial);
+        Assert.assertEquals(3, total.getHistograma().getQuantidade());
+        int[] ordem = total.ordemLentos();
+        Assert.assertEquals("b", total.getExpressao(ordem[0]));
+        Assert.assertEquals("c", total.getExpressao(ordem[1]));
+    }
+
+    @Test
+    public void semLentos() {
+        Latencias latencias = new Latencias(0);
+        latencias.registrar(0, "a", 1);
+        Assert.assertEquals(0, latencias.ordemLentos().length);
+        Assert.assertEquals(1, latencias.getHistograma().getQuantidade());
+    }
+}
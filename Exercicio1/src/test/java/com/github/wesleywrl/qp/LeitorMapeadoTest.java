@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LeitorMapeadoTest {
+
+    private static List<String> esperadas(final String conteudo)
+            throws IOException {
+        List<String> linhas = new ArrayList<>();
+        BufferedReader leitor = new BufferedReader(new StringReader(conteudo));
+        String linha = leitor.readLine();
+        while (linha != null) {
+            linhas.add(linha);
+            linha = leitor.readLine();
+        }
+        return linhas;
+    }
+
+    private static List<String> lidas(final String conteudo,
+            final int regiao) throws IOException {
+        Path file = Files.createTempFile("qp", ".txt");
+        Files.write(file, conteudo.getBytes(StandardCharsets.UTF_8));
+        List<String> linhas = new ArrayList<>();
+        try (LeitorMapeado leitor = new LeitorMapeado(file.toString(),
+                regiao)) {
+            while (leitor.hasNext()) {
+                linhas.add(leitor.next());
+            }
+        } finally {
+            Files.delete(file);
+        }
+        return linhas;
+    }
+
+    @Test
+    public void quebrasDeLinha() throws IOException {
+        String conteudo = "a+b;a=1,b=2;3\n\n5;;5\r\n6;;6\r7;;7";
+        Assert.assertEquals(esperadas(conteudo),
+                lidas(conteudo, LeitorMapeado.REGIAO_PADRAO));
+    }
+
+    @Test
+    public void arquivoVazio() throws IOException {
+        Assert.assertEquals(0, lidas("", 16).size());
+    }
+
+    @Test
+    public void quebraFinal() throws IOException {
+        Assert.assertEquals(esperadas("1;;1\n2;;2\n"), lidas("1;;1\n2;;2\n",
+                5));
+    }
+
+    @Test
+    public void utf8() throws IOException {
+        String conteudo = "ação + ç;ação=1, ç=2;3\nx;;1";
+        Assert.assertEquals(esperadas(conteudo), lidas(conteudo, 8 * 1024));
+    }
+
+    @Test
+    public void regioesPequenas() throws IOException {
+        Random aleatorio = new Random(7);
+        StringBuilder conteudo = new StringBuilder();
+        String[] quebras = {"\n", "\r\n", "\r"};
+        for (int i = 0; i < 2000; i++) {
+            int tamanho = aleatorio.nextInt(30);
+            for (int j = 0; j < tamanho; j++) {
+                conteudo.append((char) ('a' + aleatorio.nextInt(26)));
+            }
+            conteudo.append(quebras[aleatorio.nextInt(quebras.length)]);
+        }
+        String texto = conteudo.toString();
+        List<String> esperadas = esperadas(texto);
+        for (int regiao : new int[]{32, 33, 64, 1000}) {
+            Assert.assertEquals(esperadas, lidas(texto, regiao));
+        }
+    }
+
+    @Test
+    public void fatiaAscii() throws IOException {
+        Path file = Files.createTempFile("qp", ".txt");
+        Files.write(file, "x+2;x=3;5\nyy".getBytes(StandardCharsets.UTF_8));
+        try (LeitorMapeado leitor = new LeitorMapeado(file.toString())) {
+            Assert.assertTrue(leitor.avancar());
+            CharSequence fatia = leitor.fatia();
+            Assert.assertEquals(9, fatia.length());
+            Assert.assertEquals(';', fatia.charAt(3));
+            Assert.assertEquals("x+2;x=3;5", fatia.toString());
+            Assert.assertEquals(9, leitor.getFim() - leitor.getInicio());
+            Assert.assertTrue(leitor.avancar());
+            Assert.assertEquals("yy", leitor.fatia().toString());
+            Assert.assertFalse(leitor.avancar());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test(expected = UncheckedIOException.class)
+    public void linhaMaiorQueRegiao() throws IOException {
+        lidas("0123456789\n1", 4);
+    }
+
+    @Test(expected = FileNotFoundException.class)
+    public void arquivoInexistente() throws IOException {
+        new LeitorMapeado("c:\\localInexistente\\imaginoeu.txt");
+    }
+}
@@ -5,6 +5,7 @@
 package com.github.wesleywrl.qp;
 
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URISyntaxException;
@@ -14,6 +15,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import org.junit.Assert;
 import org.junit.Test;
 
 public class LerTest {
@@ -43,6 +45,37 @@ public class LerTest {
         Files.delete(file);
     }
 
+    @Test
+    public void abrirLinhasLocal() throws MalformedURLException, IOException,
+            URISyntaxException {
+        List<String> testeArq = new ArrayList<>();
+        testeArq.add("a + b; a=2, b=3; 5");
+        testeArq.add("10 / (10 - 8);;5");
+        String diretorio = new File(Main.class.getProtectionDomain()
+                .getCodeSource().getLocation().toURI().getPath())
+                .getParent();
+        Path file = Paths.get(diretorio + "/teste.txt");
+        Files.write(file, testeArq, Charset.forName("UTF-8"));
+
+        List<String> lidas = new ArrayList<>();
+        try (FonteLinhas fonte = Ler.abrirLinhas(diretorio + "/teste.txt",
+                true)) {
+            while (fonte.hasNext()) {
+                lidas.add(fonte.next());
+            }
+        }
+        Assert.assertEquals(testeArq, lidas);
+
+        Files.delete(file);
+    }
+
+    @Test(expected = FileNotFoundException.class)
+    public void abrirLinhasLocalFalso() throws MalformedURLException,
+            IOException {
+
+        Ler.abrirLinhas("c:\\localInexistente\\imaginoeu.txt", true);
+    }
+
     @Test(expected = IOException.class)
     public void obterLinhasLocalFalso() throws MalformedURLException,
             IOException {
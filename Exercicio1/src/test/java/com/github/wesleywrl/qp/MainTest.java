@@ -4,8 +4,10 @@
  */
 package com.github.wesleywrl.qp;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.PrintStream;
 import java.net.URISyntaxException;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
@@ -13,6 +15,8 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import javax.management.JMException;
+import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.contrib.java.lang.system.ExpectedSystemExit;
@@ -28,6 +32,12 @@ public class MainTest {
         Main.main(new String[0]);
     }
 
+    @Test
+    public void executarSemArgs() {
+        Assert.assertEquals(Main.SAIDA_ERRO,
+                Main.executar(new String[0], System.out));
+    }
+
     @Test
     public void main1Arg() throws IOException, URISyntaxException {
         //cria arquivo local apenas pra testes//
@@ -50,6 +60,65 @@ public class MainTest {
         Files.delete(file);
     }
 
+    @Test
+    public void jmxJaRegistrado() throws IOException, URISyntaxException,
+            JMException {
+        List<String> testeArq = new ArrayList<>();
+        testeArq.add("(1 + 2);;3");
+        String diretorio = new File(Main.class.getProtectionDomain()
+                .getCodeSource().getLocation().toURI().getPath())
+                .getParent();
+        Path file = Paths.get(diretorio + "/teste.txt");
+        Files.write(file, testeArq, Charset.forName("UTF-8"));
+
+        //outro monitor ocupa o nome: a execução segue sem publicação
+        MonitorExecucao outro = new MonitorExecucao();
+        outro.registrar();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            Assert.assertEquals(Main.SAIDA_SUCESSO, Main.executar(
+                    new String[]{diretorio + "/teste.txt", "-jmx"},
+                    new PrintStream(bytes, true, "UTF-8")));
+        } finally {
+            outro.remover();
+        }
+        String saida = new String(bytes.toByteArray(), "UTF-8");
+        Assert.assertTrue(saida.contains("Não foi possível publicar"));
+        Assert.assertTrue(saida.contains("InstanceAlreadyExistsException"));
+        Assert.assertFalse(saida.contains("Métricas da execução publicadas"));
+
+        Files.delete(file);
+        Files.delete(Paths.get(diretorio + "/relatorio.json"));
+    }
+
+    @Test
+    public void mainRegressaoBase() throws IOException, URISyntaxException {
+        List<String> testeArq = new ArrayList<>();
+        testeArq.add("(1 + 2);;3");
+        testeArq.add("(x * 2); x=3; 6");
+        String diretorio = new File(Main.class.getProtectionDomain()
+                .getCodeSource().getLocation().toURI().getPath())
+                .getParent();
+        Path file = Paths.get(diretorio + "/teste.txt");
+        Files.write(file, testeArq, Charset.forName("UTF-8"));
+
+        //base em que os testes gastaram 1 nanossegundo, em tempo total nulo
+        Path base = Paths.get(diretorio + "/base.qpb");
+        try (EscritorBinario escritor = new EscritorBinario(base)) {
+            SuiteTestes testes = SuiteTestes.de(testeArq);
+            escritor.iniciar(null);
+            for (int i = 0; i < testes.getTamanho(); i++) {
+                testes.setTempo(i, 1);
+                escritor.escreverTeste(testes, i);
+            }
+            escritor.finalizar(new Estatisticas());
+        }
+
+        exit.expectSystemExitWithStatus(Main.SAIDA_REGRESSAO);
+        Main.main(new String[]{diretorio + "/teste.txt",
+            "-base=" + base});
+    }
+
     @Test
     public void main1ArgFileNotFound() throws IOException, URISyntaxException {
         exit.expectSystemExitWithStatus(1);
@@ -92,6 +161,28 @@ public class MainTest {
         Files.delete(file);
     }
 
+    @Test
+    public void main3ArgsParalelo() throws IOException, URISyntaxException {
+        //cria arquivo local apenas pra testes//
+        List<String> testeArq = new ArrayList<>();
+        testeArq.add("a + b; a=1, b=2; 3");
+        testeArq.add("5 / (6 - 5);;5");
+        String diretorio = new File(Main.class.getProtectionDomain()
+                .getCodeSource().getLocation().toURI().getPath())
+                .getParent();
+        Path file = Paths.get(diretorio + "/teste.txt");
+        Files.write(file, testeArq, Charset.forName("UTF-8"));
+
+        //testes//
+        exit.expectSystemExitWithStatus(0);
+        Main.main(new String[]{diretorio + "/teste.txt", "-p=2", "-h"});
+
+        //deleta o arquivo criado//
+        Files.delete(file);
+        file = Paths.get(diretorio + "/relatorio.html");
+        Files.delete(file);
+    }
+
     @Test
     public void main2ArgsErrados() throws IOException, URISyntaxException {
         //cria arquivo local apenas pra testes//
@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+public class MedidorAlocacaoTest {
+
+    private static Object guardado;
+
+    @Test
+    public void mede() {
+        Assume.assumeTrue(MedidorAlocacao.isSuportado());
+        long antes = MedidorAlocacao.alocados();
+        guardado = new long[100000];
+        long bytes = MedidorAlocacao.alocados() - antes;
+        Assert.assertTrue(bytes >= 800000);
+        Assert.assertTrue(bytes < 900000);
+    }
+
+    @Test
+    public void realizacaoDeTeste() {
+        Assume.assumeTrue(MedidorAlocacao.isSuportado());
+        CacheExpressoes anterior = Calcular.getCache();
+        Calcular.setCache(null);
+        try {
+            SuiteTestes testes = new SuiteTestes();
+            testes.adicionar("(x * 2); x=3; 6");
+            new ExecutorTestes(1).executar(testes, 0, new Latencias());
+            Assert.assertTrue(testes.getAlocados(0) > 0);
+        } finally {
+            Calcular.setCache(anterior);
+        }
+    }
+}
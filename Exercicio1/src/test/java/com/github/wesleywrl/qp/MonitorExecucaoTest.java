@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import java.lang.management.ManagementFactory;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MonitorExecucaoTest {
+
+    private static SuiteTestes criarTestes() {
+        SuiteTestes testes = new SuiteTestes();
+        testes.adicionar("1 + 1;;2");
+        testes.adicionar("1 + 1;;3");
+        testes.adicionar("x * 2;x=2;4");
+        testes.adicionar("(1 + ;;0");
+        for (int i = 0; i < testes.getTamanho(); i++) {
+            testes.calcularValor(i);
+            testes.setTempo(i, 1000 * (i + 1));
+        }
+        return testes;
+    }
+
+    @Test
+    public void publicar() {
+        MonitorExecucao monitor = new MonitorExecucao();
+        SuiteTestes testes = criarTestes();
+        Assert.assertEquals(-1, monitor.getTestesPrevistos());
+        Assert.assertEquals(-1, monitor.getSegundosRestantes(), 0);
+        monitor.setPrevistos(8);
+        monitor.publicar(testes, 0, 2, true);
+        monitor.publicar(testes, 2, 4, true);
+        Assert.assertEquals(4, monitor.getTestesConcluidos());
+        Assert.assertEquals(2, monitor.getFalhas());
+        Assert.assertEquals(4000, monitor.getP99Nanos());
+        Assert.assertTrue(monitor.getTestesPorSegundo() > 0);
+        Assert.assertTrue(monitor.getSegundosRestantes() > 0);
+
+        //falhas contadas apenas na última iteração medida
+        monitor.setContarFalhas(false);
+        monitor.publicar(testes, 0, 4, false);
+        Assert.assertEquals(8, monitor.getTestesConcluidos());
+        Assert.assertEquals(2, monitor.getFalhas());
+        Assert.assertEquals(0, monitor.getSegundosRestantes(), 0);
+    }
+
+    @Test
+    public void reaproveitadosIgnorados() {
+        MonitorExecucao monitor = new MonitorExecucao();
+        SuiteTestes testes = criarTestes();
+        testes.reaproveitar(1, true, 3);
+        monitor.publicar(testes, 0, 4, false);
+        Assert.assertEquals(3, monitor.getTestesConcluidos());
+        Assert.assertEquals(1, monitor.getFalhas());
+        Assert.assertEquals(0, monitor.getP99Nanos());
+    }
+
+    @Test
+    public void registro() throws JMException {
+        MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+        ObjectName nome = new ObjectName(MonitorExecucao.NOME);
+        MonitorExecucao monitor = new MonitorExecucao();
+        monitor.registrar();
+        try {
+            try {
+                new MonitorExecucao().registrar();
+                Assert.fail();
+            } catch (InstanceAlreadyExistsException ex) {
+                //Nome já ocupado pelo primeiro monitor
+            }
+            monitor.publicar(criarTestes(), 0, 4, false);
+            Assert.assertEquals(4L, servidor.getAttribute(nome,
+                    "TestesConcluidos"));
+        } finally {
+            monitor.remover();
+        }
+        Assert.assertFalse(servidor.isRegistered(nome));
+        monitor.remover();
+    }
+
+}
@@ -8,11 +8,13 @@ import java.io.File;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.nio.charset.Charset;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import org.junit.Assert;
 import org.junit.Test;
 
 public class RelatorioTesteTest {
@@ -72,4 +74,235 @@ public class RelatorioTesteTest {
         file = Paths.get(diretorio + "/teste.txt");
         Files.delete(file);
     }
+
+    @Test
+    public void relatorioFluxoJson() throws IOException, URISyntaxException {
+        //cria arquivo local apenas pra testes//
+        List<String> testeArq = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            testeArq.add("x * 2; x=" + i + "; " + (i * 2));
+        }
+        testeArq.add("5 / (6 - 5);;4");
+        String diretorio = new File(Main.class.getProtectionDomain()
+                .getCodeSource().getLocation().toURI().getPath())
+                .getParent();
+        Path file = Paths.get(diretorio + "/teste.txt");
+        Files.write(file, testeArq, Charset.forName("UTF-8"));
+
+        //gera o relatorio em fluxo
+        Configuracao config = new Configuracao();
+        config.setThreads(2);
+        RelatorioTeste relat;
+        try (FonteLinhas fonte = Ler.abrirLinhas(diretorio + "/teste.txt",
+                true)) {
+            relat = new RelatorioTeste(fonte, config);
+            relat.gerarRelatorioTeste(diretorio);
+        }
+        Assert.assertEquals(5001, relat.getEstatisticas().getTestes());
+        Assert.assertEquals(1, relat.getEstatisticas().getFalhas());
+        Assert.assertEquals(false, relat.todosSucessos());
+
+        //confere o conteúdo: testes em ordem e resumo ao final
+        Path json = Paths.get(diretorio + "/relatorio.json");
+        String conteudo = new String(Files.readAllBytes(json), "UTF-8");
+        Assert.assertTrue(conteudo.indexOf("\"x\":4999.0")
+                < conteudo.indexOf("\"testesTotais\":5001"));
+        Assert.assertTrue(conteudo.trim().endsWith("}"));
+
+        //Deleta os arquivos gerados
+        Files.delete(json);
+        Files.delete(file);
+    }
+
+    @Test
+    public void relatorioFluxoHtml() throws IOException, URISyntaxException {
+        List<String> testeArq = new ArrayList<>();
+        testeArq.add("a + b; a=1, b=2; 3");
+        testeArq.add("5 / (6 - 5);;5");
+        String diretorio = new File(Main.class.getProtectionDomain()
+                .getCodeSource().getLocation().toURI().getPath())
+                .getParent();
+        Path file = Paths.get(diretorio + "/teste.txt");
+        Files.write(file, testeArq, Charset.forName("UTF-8"));
+
+        Configuracao config = new Configuracao();
+        config.setHtml(true);
+        RelatorioTeste relat;
+        try (FonteLinhas fonte = Ler.abrirLinhas(diretorio + "/teste.txt",
+                true)) {
+            relat = new RelatorioTeste(fonte, config);
+            relat.gerarRelatorioTeste(diretorio);
+        }
+        Assert.assertEquals(true, relat.todosSucessos());
+
+        Path html = Paths.get(diretorio + "/relatorio.html");
+        String conteudo = new String(Files.readAllBytes(html), "UTF-8");
+        Assert.assertTrue(conteudo.contains("Informações gerais"));
+        Assert.assertTrue(conteudo.trim().endsWith("</html>"));
+
+        Files.delete(html);
+        Files.delete(file);
+    }
+
+    @Test
+    public void relatorioIteracoes() throws IOException, URISyntaxException {
+        List<String> testeArq = new ArrayList<>();
+        testeArq.add("a + b; a=1, b=2; 3");
+        testeArq.add("5 / (6 - 5);;4");
+        String diretorio = new File(Main.class.getProtectionDomain()
+                .getCodeSource().getLocation().toURI().getPath())
+                .getParent();
+
+        Configuracao config = new Configuracao();
+        config.setAquecimento(2);
+        config.setIteracoes(4);
+        RelatorioTeste relat = new RelatorioTeste(testeArq, config);
+        relat.gerarRelatorioTeste(diretorio);
+
+        //cada teste é contabilizado uma vez, e o tempo de cada iteração
+        Estatisticas resumo = relat.getEstatisticas();
+        Assert.assertEquals(2, resumo.getTestes());
+        Assert.assertEquals(1, resumo.getFalhas());
+        Assert.assertEquals(4, resumo.getIteracoes().getQuantidade());
+        Assert.assertEquals(8, resumo.getLatencias().getHistograma()
+                .getQuantidade());
+
+        Path json = Paths.get(diretorio + "/relatorio.json");
+        String conteudo = new String(Files.readAllBytes(json), "UTF-8");
+        Assert.assertTrue(conteudo.contains("\"aquecimento\":2"));
+        Assert.assertTrue(conteudo.contains("\"intervaloConfianca95\":["));
+        Assert.assertTrue(conteudo.contains("\"memoriaExecucao\":"));
+        Assert.assertTrue(conteudo.contains("\"memoria\":"));
+        Files.delete(json);
+    }
+
+    @Test
+    public void relatorioBinario() throws IOException, URISyntaxException {
+        List<String> linhas = new ArrayList<>();
+        linhas.add("(1 + 2);;3");
+        linhas.add("(x * 2); x=3; 5");
+        String diretorio = new File(Main.class.getProtectionDomain()
+                .getCodeSource().getLocation().toURI().getPath())
+                .getParent();
+        Configuracao config = Configuracao.interpretar(
+                new String[]{"a.txt", "-b"});
+        new RelatorioTeste(linhas, config).gerarRelatorioTeste(diretorio);
+
+        Path binario = Paths.get(diretorio + "/relatorio.qpb");
+        try (LeitorBinario leitor = new LeitorBinario(binario)) {
+            Assert.assertEquals(2, leitor.getTestes());
+            Assert.assertEquals(1, leitor.getFalhas());
+            Assert.assertTrue(leitor.avancar());
+            Assert.assertTrue(leitor.getSucesso());
+            Assert.assertTrue(leitor.avancar());
+            Assert.assertEquals("(x*2)", leitor.getExpressao());
+            Assert.assertEquals(6f, leitor.getObtido(), 0.0001f);
+        }
+        try (DirectoryStream<Path> temporarios = Files.newDirectoryStream(
+                Paths.get(diretorio), "relatorio.qpb.*")) {
+            Assert.assertFalse(temporarios.iterator().hasNext());
+        }
+        Files.delete(binario);
+        Files.delete(Paths.get(diretorio + "/relatorio.json"));
+    }
+
+    @Test
+    public void baseIgualAoRelatorioBinario() throws IOException {
+        Path diretorio = Files.createTempDirectory("relatorio");
+        Path binario = diretorio.resolve(RelatorioTeste.ARQUIVO_BINARIO);
+        Files.write(binario, new byte[]{1, 2, 3});
+        List<String> linhas = new ArrayList<>();
+        linhas.add("(1 + 2);;3");
+        Configuracao config = Configuracao.interpretar(new String[]{"a.txt",
+            "-b", "-base=" + diretorio + "/./" + binario.getFileName()});
+        try {
+            new RelatorioTeste(linhas, config).gerarRelatorioTeste(
+                    diretorio.toString());
+            Assert.fail();
+        } catch (IllegalArgumentException ex) {
+            Assert.assertEquals(3, Files.size(binario));
+        } finally {
+            Files.delete(binario);
+            Files.delete(diretorio);
+        }
+    }
+
+    @Test
+    public void relatorioIncremental() throws IOException, URISyntaxException {
+        String diretorio = new File(Main.class.getProtectionDomain()
+                .getCodeSource().getLocation().toURI().getPath())
+                .getParent();
+        Configuracao config = Configuracao.interpretar(
+                new String[]{"a.txt", "-incremental"});
+        List<String> linhas = new ArrayList<>();
+        linhas.add("(1 + 2);;3");
+        linhas.add("(x * 2); x=3; 6");
+        RelatorioTeste primeira = new RelatorioTeste(linhas, config);
+        primeira.gerarRelatorioTeste(diretorio);
+        Assert.assertEquals(0, primeira.getEstatisticas()
+                .getReaproveitados());
+
+        linhas.set(1, "(x * 2); x=4; 8");
+        linhas.add("(1 + 2);;4");
+        RelatorioTeste segunda = new RelatorioTeste(linhas, config);
+        segunda.gerarRelatorioTeste(diretorio);
+        Estatisticas estatisticas = segunda.getEstatisticas();
+        Assert.assertEquals(2, estatisticas.getReaproveitados());
+        Assert.assertEquals(1, estatisticas.getRecalculados());
+        Assert.assertEquals(1, estatisticas.getFalhas());
+
+        Path json = Paths.get(diretorio + "/relatorio.json");
+        String conteudo = new String(Files.readAllBytes(json), "UTF-8");
+        Assert.assertTrue(conteudo.contains("\"reaproveitados\":2,"));
+        Assert.assertTrue(conteudo.contains("\"recalculados\":1,"));
+        Files.delete(json);
+        Files.delete(Paths.get(diretorio, CacheResultados.ARQUIVO));
+    }
+
+    @Test
+    public void relatorioComFases() throws IOException, URISyntaxException {
+        String diretorio = new File(Main.class.getProtectionDomain()
+                .getCodeSource().getLocation().toURI().getPath())
+                .getParent();
+        Configuracao config = Configuracao.interpretar(
+                new String[]{"a.txt", "-fases"});
+        List<String> linhas = new ArrayList<>();
+        linhas.add("(1 + 2);;3");
+        linhas.add("(x * 2); x=3; 6");
+        CacheExpressoes anterior = Calcular.getCache();
+        Calcular.setCache(null);
+        try {
+            new RelatorioTeste(linhas, config).gerarRelatorioTeste(diretorio);
+            Path json = Paths.get(diretorio + "/relatorio.json");
+            String conteudo = new String(Files.readAllBytes(json), "UTF-8");
+            Assert.assertTrue(conteudo.contains("\"fasesParser\":{"));
+            Assert.assertTrue(conteudo.contains("\"analises\":2,"));
+            Assert.assertTrue(conteudo.contains("\"acertosCache\":0,"));
+            Assert.assertTrue(conteudo.contains("\"porVariaveis\":["));
+            Files.delete(json);
+
+            //com o cache, a expressão repetida conta como acerto
+            linhas.add("(1 + 2);;3");
+            Calcular.setCache(new CacheExpressoes(16));
+            new RelatorioTeste(linhas, config).gerarRelatorioTeste(diretorio);
+            conteudo = new String(Files.readAllBytes(json), "UTF-8");
+            Assert.assertTrue(conteudo.contains("\"analises\":2,"));
+            Assert.assertTrue(conteudo.contains("\"acertosCache\":1,"));
+            Assert.assertTrue(conteudo.contains("\"avaliacoes\":3,"));
+            Files.delete(json);
+            linhas.remove(2);
+            Calcular.setCache(null);
+
+            config.setHtml(true);
+            new RelatorioTeste(linhas, config).gerarRelatorioTeste(diretorio);
+            Path html = Paths.get(diretorio + "/relatorio.html");
+            conteudo = new String(Files.readAllBytes(html), "UTF-8");
+            Assert.assertTrue(conteudo.contains("<b>Fases do Parser:</b>"));
+            Assert.assertTrue(conteudo.contains(
+                    "<h2>Fases do Parser por quantidade de tokens</h2>"));
+            Files.delete(html);
+        } finally {
+            Calcular.setCache(anterior);
+        }
+    }
 }
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SaidaUtf8Test {
+
+    private static String escrever(final String texto) throws IOException {
+        Path arquivo = Files.createTempFile("saida", ".txt");
+        try {
+            try (SaidaUtf8 saida = new SaidaUtf8(arquivo)) {
+                saida.escrever(texto);
+            }
+            return new String(Files.readAllBytes(arquivo),
+                    StandardCharsets.UTF_8);
+        } finally {
+            Files.delete(arquivo);
+        }
+    }
+
+    @Test
+    public void codificaComoJvm() throws IOException {
+        String texto = "ascii é € 😀 fim";
+        Assert.assertEquals(texto, escrever(texto));
+    }
+
+    @Test
+    public void substitutoSemPar() throws IOException {
+        Assert.assertEquals("a?b", escrever("a\uD83Db"));
+        Assert.assertEquals("a?b", escrever("a\uDE00b"));
+        Assert.assertEquals("a?", escrever("a\uD83D"));
+    }
+
+    @Test
+    public void numeros() throws IOException {
+        Path arquivo = Files.createTempFile("saida", ".txt");
+        try (SaidaUtf8 saida = new SaidaUtf8(arquivo)) {
+            saida.escrever(0L);
+            saida.escrever(' ');
+            saida.escrever(-1234567890123L);
+            saida.escrever(' ');
+            saida.escrever(Long.MIN_VALUE);
+            saida.escrever(' ');
+            saida.escrever(2.5f);
+        }
+        Assert.assertEquals("0 -1234567890123 " + Long.MIN_VALUE + " 2.5",
+                new String(Files.readAllBytes(arquivo),
+                        StandardCharsets.UTF_8));
+        Files.delete(arquivo);
+    }
+
+    @Test
+    public void maiorQueBuffer() throws IOException {
+        StringBuilder texto = new StringBuilder();
+        for (int i = 0; i < 100000; i++) {
+            texto.append("çã").append(i);
+        }
+        Assert.assertEquals(texto.toString(), escrever(texto.toString()));
+    }
+}
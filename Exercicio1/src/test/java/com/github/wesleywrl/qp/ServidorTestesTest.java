@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ServidorTestesTest {
+
+    private static void remover(final Path diretorio) throws IOException {
+        try (DirectoryStream<Path> arquivos =
+                Files.newDirectoryStream(diretorio)) {
+            for (Path arquivo : arquivos) {
+                Files.delete(arquivo);
+            }
+        }
+        Files.delete(diretorio);
+    }
+
+    @Test
+    public void variasSuitesMesmoProcesso() throws Exception {
+        Path tokens = Files.createTempDirectory("tokens");
+        Path cliente = Files.createTempDirectory("cliente");
+        Files.write(cliente.resolve("suite-servidor.txt"),
+                Arrays.asList("(1 + 2);;3", "(x * 2); x=3; 7"),
+                StandardCharsets.UTF_8);
+        ServidorTestes servidor = new ServidorTestes(0, tokens);
+        Thread thread = new Thread(servidor::atender);
+        thread.start();
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            PrintStream saida = new PrintStream(bytes, true, "UTF-8");
+            for (int i = 0; i < 2; i++) {
+                Assert.assertEquals(Main.SAIDA_SUCESSO, ClienteTestes.executar(
+                        servidor.getPorta(), tokens, cliente,
+                        new String[]{"suite-servidor.txt"}, saida));
+            }
+            String mensagens = new String(bytes.toByteArray(),
+                    StandardCharsets.UTF_8);
+            Assert.assertTrue(mensagens.contains("relatorio.json"));
+            Assert.assertTrue(mensagens.contains("FALHARAM"));
+            Assert.assertTrue(Files.exists(cliente.resolve("relatorio.json")));
+
+            Assert.assertEquals(Main.SAIDA_ERRO, ClienteTestes.executar(
+                    servidor.getPorta(), tokens, cliente,
+                    new String[]{"suite-servidor.txt", "-x"}, saida));
+            Assert.assertEquals(Main.SAIDA_ERRO, ClienteTestes.executar(
+                    servidor.getPorta(), tokens, cliente,
+                    new String[]{"inexistente.txt"}, saida));
+
+            Assert.assertEquals(Main.SAIDA_SUCESSO, ClienteTestes.parar(
+                    servidor.getPorta(), tokens, saida));
+            thread.join();
+            Assert.assertEquals(3, servidor.getAtendidas());
+        } finally {
+            servidor.close();
+            remover(cliente);
+            remover(tokens);
+        }
+    }
+
+    @Test
+    public void pedidoSemToken() throws Exception {
+        Path tokens = Files.createTempDirectory("tokens");
+        ServidorTestes servidor = new ServidorTestes(0, tokens);
+        Thread thread = new Thread(servidor::atender);
+        thread.start();
+        try {
+            Path arquivo = ServidorTestes.arquivoToken(tokens,
+                    servidor.getPorta());
+            if (FileSystems.getDefault().supportedFileAttributeViews()
+                    .contains("posix")) {
+                Assert.assertEquals("rw-------", PosixFilePermissions
+                        .toString(Files.getPosixFilePermissions(arquivo)));
+            }
+            try (Socket socket = new Socket(InetAddress.getLoopbackAddress(),
+                    servidor.getPorta())) {
+                Writer escritor = new OutputStreamWriter(
+                        socket.getOutputStream(), StandardCharsets.UTF_8);
+                escritor.write("errado\t" + ServidorTestes.PARAR + "\n");
+                escritor.flush();
+                BufferedReader leitor = new BufferedReader(
+                        new InputStreamReader(socket.getInputStream(),
+                                StandardCharsets.UTF_8));
+                Assert.assertEquals("Pedido não autorizado.",
+                        leitor.readLine());
+                Assert.assertEquals(ServidorTestes.FIM + Main.SAIDA_ERRO,
+                        leitor.readLine());
+            }
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            PrintStream saida = new PrintStream(bytes, true, "UTF-8");
+            Assert.assertEquals(Main.SAIDA_SUCESSO, ClienteTestes.parar(
+                    servidor.getPorta(), tokens, saida));
+            thread.join();
+            Assert.assertFalse(Files.exists(arquivo));
+        } finally {
+            servidor.close();
+            remover(tokens);
+        }
+    }
+
+    @Test
+    public void semServidor() throws IOException {
+        int porta;
+        try (ServerSocket livre = new ServerSocket(0)) {
+            porta = livre.getLocalPort();
+        }
+        Path tokens = Files.createTempDirectory("tokens");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream saida = new PrintStream(bytes, true, "UTF-8");
+        try {
+            Assert.assertEquals(Main.SAIDA_ERRO, ClienteTestes.executar(
+                    porta, tokens, tokens, new String[0], saida));
+            String mensagens = new String(bytes.toByteArray(),
+                    StandardCharsets.UTF_8);
+            Assert.assertTrue(mensagens.contains("neste processo"));
+            Assert.assertEquals(Main.SAIDA_ERRO, ClienteTestes.parar(porta,
+                    tokens, saida));
+        } finally {
+            Files.delete(tokens);
+        }
+    }
+
+    @Test
+    public void porta() {
+        Assert.assertEquals(8080, ServidorTestes.porta("-porta=8080"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void portaInvalida() {
+        ServidorTestes.porta("-porta=70000");
+    }
+
+}
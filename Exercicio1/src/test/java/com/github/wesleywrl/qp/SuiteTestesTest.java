@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2016. Fábrica de Software - Instituto de Informática (UFG)
+ * Creative Commons Attribution 4.0 International License.
+ */
+package com.github.wesleywrl.qp;
+
+import java.util.Arrays;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SuiteTestesTest {
+
+    @Test
+    public void atributos() {
+        SuiteTestes suite = SuiteTestes.de(Arrays.asList(
+                "x + y ; x=2, y=3; 5", "7/ 2 ;; 3.5"));
+        Assert.assertEquals(2, suite.getTamanho());
+        Assert.assertEquals("x+y", suite.getExpressao(0));
+        Assert.assertEquals(2, suite.getQuantidadeVariaveis(0));
+        Assert.assertEquals("y", suite.getNomeVariavel(0, 1));
+        Assert.assertEquals(3f, suite.getValorVariavel(0, 1), 0f);
+        Assert.assertEquals("x=2,y=3", suite.getVariaveis(0));
+        Assert.assertEquals(5f, suite.getEsperado(0), 0f);
+        Assert.assertEquals(false, suite.temVariaveis(1));
+        Assert.assertEquals("", suite.getVariaveis(1));
+        Assert.assertEquals(3.5f, suite.getEsperado(1), 0f);
+    }
+
+    @Test
+    public void variaveisComoNaLinha() {
+        SuiteTestes suite = SuiteTestes.de(Arrays.asList(
+                "x * y; x = 2 , y=0.50; 1", "x;x=1e1;10"));
+        Assert.assertEquals("x=2,y=0.50", suite.getVariaveis(0));
+        Assert.assertEquals("x=1e1", suite.getVariaveis(1));
+        suite.limpar();
+        suite.adicionar("1;;1");
+        Assert.assertEquals("", suite.getVariaveis(0));
+    }
+
+    @Test
+    public void calcularValor() {
+        SuiteTestes suite = SuiteTestes.de(Arrays.asList(
+                "x * 2; x=4; 8", "1 + 1;;3", "3 + 2 + 1;;6"));
+        for (int i = 0; i < suite.getTamanho(); i++) {
+            suite.calcularValor(i);
+            suite.atualizarSucesso(i);
+        }
+        Assert.assertEquals(true, suite.isObtido(0));
+        Assert.assertEquals(8f, suite.getObtido(0), 0f);
+        Assert.assertEquals(true, suite.getSucesso(0));
+        Assert.assertEquals(true, suite.isObtido(1));
+        Assert.assertEquals(false, suite.getSucesso(1));
+        Assert.assertEquals(false, suite.isObtido(2));
+        Assert.assertEquals(false, suite.getSucesso(2));
+    }
+
+    @Test
+    public void crescerELimpar() {
+        SuiteTestes suite = new SuiteTestes(1);
+        for (int i = 0; i < 100; i++) {
+            suite.adicionar("a + b; a=" + i + ", b=1; " + (i + 1));
+        }
+        Assert.assertEquals(100, suite.getTamanho());
+        Assert.assertEquals(99f, suite.getValorVariavel(99, 0), 0f);
+        Assert.assertEquals("b", suite.getNomeVariavel(99, 1));
+
+        suite.limpar();
+        Assert.assertEquals(0, suite.getTamanho());
+        suite.adicionar("1;;1");
+        Assert.assertEquals(0, suite.getQuantidadeVariaveis(0));
+    }
+
+    @Test
+    public void linhaInvalidaNaoAltera() {
+        SuiteTestes suite = new SuiteTestes();
+        suite.adicionar("x; x=1; 1");
+        try {
+            suite.adicionar("x; x=1, y=a; 1");
+            Assert.fail();
+        } catch (IllegalArgumentException iae) {
+            Assert.assertEquals(1, suite.getTamanho());
+        }
+        suite.adicionar("y; y=2; 2");
+        Assert.assertEquals(1, suite.getQuantidadeVariaveis(1));
+        Assert.assertEquals(2f, suite.getValorVariavel(1, 0), 0f);
+    }
+
+    @Test
+    public void estouroPilha() {
+        StringBuilder aninhada = new StringBuilder();
+        for (int i = 0; i < 100000; i++) {
+            aninhada.append("(1 + ");
+        }
+        aninhada.append('1');
+        for (int i = 0; i < 100000; i++) {
+            aninhada.append(')');
+        }
+        SuiteTestes suite = new SuiteTestes();
+        suite.adicionar(aninhada + ";;100001");
+        suite.adicionar("1 + 1;;2");
+        suite.calcularValor(0);
+        suite.calcularValor(1);
+        Assert.assertTrue(suite.isEstouroPilha(0));
+        Assert.assertTrue(suite.isInterrompido(0));
+        Assert.assertFalse(suite.isTempoEsgotado(0));
+        Assert.assertFalse(suite.isObtido(0));
+        Assert.assertFalse(suite.isInterrompido(1));
+        Assert.assertEquals(2f, suite.getObtido(1), 0f);
+
+        suite.interromper(1, true);
+        Assert.assertTrue(suite.isTempoEsgotado(1));
+        suite.atualizarSucesso(1);
+        Assert.assertFalse(suite.getSucesso(1));
+    }
+}